@@ -0,0 +1,9 @@
+#!/usr/bin/env bash
+# 构建并运行性能测试，参数透传给JMH。用法见README.md
+set -euo pipefail
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+mvn -B -q install -DskipTests -pl Benchmarks -am
+exec java ${JAVA_OPTS:-} -jar Benchmarks/target/benchmarks.jar "$@"
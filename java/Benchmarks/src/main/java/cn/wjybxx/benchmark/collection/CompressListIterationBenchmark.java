@@ -0,0 +1,115 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.benchmark.collection;
+
+import cn.wjybxx.base.collection.BitmapCompressList;
+import cn.wjybxx.base.collection.DelayedCompressList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 迭代期间删除元素的List，对比{@link DelayedCompressList}和{@link BitmapCompressList}。
+ * <p>
+ * 1. 每次调用迭代一遍List，并随机删除{@code churnPercent}%的元素，然后补充相同数量的新元素，List的元素数量保持不变。
+ * 2. 删除的元素在迭代结束后压缩，因此结果包含了迭代和压缩的开销。
+ * 3. 是否删除由预先生成的随机序列决定，避免随机数的开销掩盖List的开销。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressListIterationBenchmark {
+
+    @Param({"100000"})
+    public int elementCount;
+
+    @Param({"1", "30"})
+    public int churnPercent;
+
+    private DelayedCompressList<Integer> delayedList;
+    private BitmapCompressList<Integer> bitmapList;
+    private boolean[] removeFlags;
+    private int flagIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        delayedList = new DelayedCompressList<>(elementCount);
+        bitmapList = new BitmapCompressList<>(elementCount);
+        for (int i = 0; i < elementCount; i++) {
+            delayedList.add(i);
+            bitmapList.add(i);
+        }
+        Random random = new Random(10086);
+        removeFlags = new boolean[65536]; // 2的整次幂，方便取模
+        for (int i = 0; i < removeFlags.length; i++) {
+            removeFlags[i] = random.nextInt(100) < churnPercent;
+        }
+    }
+
+    private boolean nextRemove() {
+        return removeFlags[flagIndex++ & (removeFlags.length - 1)];
+    }
+
+    @Benchmark
+    public void delayedList(Blackhole bh) {
+        final DelayedCompressList<Integer> list = delayedList;
+        int removed = 0;
+        list.beginItr();
+        try {
+            for (int i = 0, size = list.size(); i < size; i++) {
+                Integer e = list.get(i);
+                if (e == null) {
+                    continue;
+                }
+                bh.consume(e);
+                if (nextRemove()) {
+                    list.removeAt(i);
+                    removed++;
+                }
+            }
+        } finally {
+            list.endItr();
+        }
+        for (int i = 0; i < removed; i++) {
+            list.add(i);
+        }
+    }
+
+    @Benchmark
+    public void bitmapList(Blackhole bh) {
+        final BitmapCompressList<Integer> list = bitmapList;
+        int[] removed = new int[1];
+        list.forEach((e, index) -> {
+            bh.consume(e);
+            if (nextRemove()) {
+                list.removeAt(index);
+                removed[0]++;
+            }
+        });
+        for (int i = 0; i < removed[0]; i++) {
+            list.add(i);
+        }
+    }
+}
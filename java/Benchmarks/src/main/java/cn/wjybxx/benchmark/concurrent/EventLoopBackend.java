@@ -0,0 +1,69 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.benchmark.concurrent;
+
+import cn.wjybxx.concurrent.*;
+import cn.wjybxx.disruptor.MpUnboundedEventSequencer;
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+
+/**
+ * 参与性能测试的EventLoop任务队列类型
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public enum EventLoopBackend {
+
+    /** {@link DisruptorEventLoop} + {@link RingBufferEventSequencer} */
+    RING_BUFFER,
+    /** {@link DisruptorEventLoop} + {@link MpUnboundedEventSequencer} */
+    MP_UNBOUNDED,
+    /** 平台线程上的{@link VirtualEventLoop}，基于MPSC链表队列 */
+    MPSC_LINKED;
+
+    /**
+     * @param bufferSize 环形缓冲区大小；无界缓冲区则为块大小；链表队列忽略
+     */
+    public EventLoop newEventLoop(int bufferSize) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("consumer-" + name());
+        switch (this) {
+            case RING_BUFFER: {
+                return EventLoopBuilder.newDisruptBuilder()
+                        .setThreadFactory(threadFactory)
+                        .setEventSequencer(RingBufferEventSequencer.newMultiProducer(RingBufferEvent::new)
+                                .setBufferSize(bufferSize)
+                                .build())
+                        .build();
+            }
+            case MP_UNBOUNDED: {
+                return EventLoopBuilder.newDisruptBuilder()
+                        .setThreadFactory(threadFactory)
+                        .setEventSequencer(MpUnboundedEventSequencer.newBuilder(RingBufferEvent::new)
+                                .setChunkSize(bufferSize)
+                                .build())
+                        .build();
+            }
+            case MPSC_LINKED: {
+                return EventLoopBuilder.newVirtualBuilder()
+                        .setThreadFactory(threadFactory)
+                        .build();
+            }
+            default: {
+                throw new AssertionError();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.benchmark.concurrent;
+
+import cn.wjybxx.concurrent.EventLoop;
+import cn.wjybxx.concurrent.IPromise;
+import cn.wjybxx.concurrent.Promise;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多生产者向EventLoop提交任务的开销。
+ * <p>
+ * 1. 每次调用由{@code producerCount}个生产者共同提交{@link #TASK_COUNT}个任务({@link EventLoop#submitAction(Runnable)})，
+ * 并等待EventLoop执行完毕，结果为单个任务的平均耗时（包含提交和执行）。
+ * 2. {@code submitAction}创建的是{@code PromiseTask}，链表队列下任务自身就是节点。
+ * 3. 生产者数量超过CPU核心数时，测试的是操作系统调度下的竞争表现，结果波动较大，应多次运行。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OperationsPerInvocation(EventLoopSubmitBenchmark.TASK_COUNT)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLoopSubmitBenchmark {
+
+    static final int TASK_COUNT = 64 * 1024;
+
+    @Param({"1", "4", "16", "64"})
+    public int producerCount;
+
+    @Param({"RING_BUFFER", "MP_UNBOUNDED", "MPSC_LINKED"})
+    public EventLoopBackend backend;
+
+    private EventLoop eventLoop;
+    private Thread[] producers;
+    private CyclicBarrier startBarrier;
+    private volatile boolean running;
+
+    /** 本轮剩余的任务数 -- 只由EventLoop线程修改 */
+    private int remaining;
+    private IPromise<Void> donePromise;
+    private final Runnable task = this::onTaskRun;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        eventLoop = backend.newEventLoop(64 * 1024);
+        eventLoop.start().get();
+
+        running = true;
+        startBarrier = new CyclicBarrier(producerCount + 1);
+        producers = new Thread[producerCount];
+        for (int i = 0; i < producerCount; i++) {
+            int count = TASK_COUNT / producerCount + (i < TASK_COUNT % producerCount ? 1 : 0);
+            producers[i] = new Thread(() -> produce(count), "producer-" + i);
+            producers[i].setDaemon(true);
+            producers[i].start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        running = false;
+        startBarrier.reset(); // 唤醒等待中的生产者
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        eventLoop.shutdown();
+        eventLoop.terminationFuture().join();
+    }
+
+    private void produce(int count) {
+        final EventLoop eventLoop = this.eventLoop;
+        final Runnable task = this.task;
+        while (running) {
+            try {
+                startBarrier.await();
+            } catch (Exception e) {
+                return; // 停止
+            }
+            for (int i = 0; i < count; i++) {
+                eventLoop.submitAction(task);
+            }
+        }
+    }
+
+    private void onTaskRun() {
+        if (--remaining == 0) {
+            donePromise.trySetResult(null);
+        }
+    }
+
+    @Benchmark
+    public void submit() throws Exception {
+        IPromise<Void> donePromise = new Promise<>();
+        // 在EventLoop线程中重置计数，再放行生产者
+        eventLoop.submitAction(() -> {
+            this.remaining = TASK_COUNT;
+            this.donePromise = donePromise;
+        }).get();
+        startBarrier.await();
+        donePromise.get();
+    }
+}
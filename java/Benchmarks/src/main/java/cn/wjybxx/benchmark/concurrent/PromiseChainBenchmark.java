@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.benchmark.concurrent;
+
+import cn.wjybxx.concurrent.Promise;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单线程上的Promise链式调用开销
+ * <p>
+ * 1. completed：源头已完成，注册时即可执行，下游节点尚未返回给用户。
+ * 2. pending：先注册整条链，再完成源头，通过完成事件逐级推送。
+ * 3. 结果为整条链的耗时，链长为{@code chainLength}。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PromiseChainBenchmark {
+
+    @Param({"8"})
+    public int chainLength;
+
+    @Benchmark
+    public Integer applyCompleted() {
+        Promise<Integer> promise = Promise.completedPromise(0);
+        for (int i = 0; i < chainLength; i++) {
+            promise = promise.thenApply((ctx, v) -> v + 1);
+        }
+        return promise.join();
+    }
+
+    @Benchmark
+    public Integer composeCompleted() {
+        Promise<Integer> promise = Promise.completedPromise(0);
+        for (int i = 0; i < chainLength; i++) {
+            promise = promise.composeApply((ctx, v) -> Promise.completedPromise(v + 1));
+        }
+        return promise.join();
+    }
+
+    @Benchmark
+    public Integer applyPending() {
+        Promise<Integer> head = new Promise<>();
+        Promise<Integer> promise = head;
+        for (int i = 0; i < chainLength; i++) {
+            promise = promise.thenApply((ctx, v) -> v + 1);
+        }
+        head.trySetResult(0);
+        return promise.join();
+    }
+}
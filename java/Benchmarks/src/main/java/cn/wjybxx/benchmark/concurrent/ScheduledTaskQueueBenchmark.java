@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.benchmark.concurrent;
+
+import cn.wjybxx.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务队列的开销，对比二叉堆和4叉堆。
+ * <p>
+ * 1. 队列中始终保持{@code taskCount}个任务；每次操作弹出最早的任务，并以随机的延迟重新压入，模拟周期性任务。
+ * 2. 触发时间只有{@code timeRange}种取值，较小的取值会产生大量相等的触发时间，用于测试比较器的开销。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ScheduledTaskQueueBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    public int taskCount;
+
+    @Param({"100", "1000000"})
+    public int timeRange;
+
+    @Param({"BINARY", "QUATERNARY"})
+    public String heapType;
+
+    private ScheduledTaskQueue queue;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ScheduledTaskQueueFactory factory = "BINARY".equals(heapType)
+                ? ScheduledTaskQueues.binaryHeap(taskCount)
+                : ScheduledTaskQueues.quaternaryHeap(taskCount);
+        queue = factory.newQueue(TimeUnit.MILLISECONDS, 0);
+        random = new Random(10086);
+        for (int i = 0; i < taskCount; i++) {
+            ScheduledPromiseTask<?> task = ScheduledPromiseTask.ofAction(() -> {}, ICancelToken.NONE, 0,
+                    new ScheduledPromise<>(), null, random.nextInt(timeRange));
+            task.setId(i);
+            queue.add(task);
+        }
+    }
+
+    @Benchmark
+    public long pollAndReschedule() {
+        ScheduledPromiseTask<?> task = queue.pollDue(Long.MAX_VALUE);
+        task.setNextTriggerTime(task.getNextTriggerTime() + 1 + random.nextInt(timeRange));
+        queue.add(task);
+        return task.getNextTriggerTime();
+    }
+}
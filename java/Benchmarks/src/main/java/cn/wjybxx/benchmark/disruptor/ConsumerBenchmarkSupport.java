@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.benchmark.disruptor;
+
+import cn.wjybxx.disruptor.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 后台生产者 + JMH线程消费的测试骨架。
+ * 1. 生产者为后台线程，以给定的批大小持续发布；JMH线程是唯一的消费者。
+ * 2. 生产者使用tryNext，以便在停止时不会阻塞在next上。
+ * 3. 无界缓冲区的生产者不受消费者约束，因此生产者在超前消费者过多时主动等待，避免内存无限增长。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public abstract class ConsumerBenchmarkSupport {
+
+    /** 无界缓冲区下生产者最多领先消费者的事件数 */
+    private static final long MAX_UNBOUNDED_LAG = 64 * 1024;
+
+    protected EventSequencer<long[]> eventSequencer;
+    protected ConsumerBarrier barrier;
+    private Thread[] producers;
+    private volatile boolean running;
+    private long nextSequence;
+
+    /** 启动生产者 -- 应当在trial级别的setup中调用 */
+    protected void startProducers(EventSequencer<long[]> eventSequencer, int producerCount, int batchSize) {
+        this.eventSequencer = eventSequencer;
+        this.barrier = eventSequencer.newSingleConsumerBarrier();
+        eventSequencer.addGatingBarriers(barrier);
+        this.nextSequence = 0;
+
+        running = true;
+        producers = new Thread[producerCount];
+        for (int i = 0; i < producerCount; i++) {
+            producers[i] = new Thread(() -> produce(batchSize), "producer-" + i);
+            producers[i].setDaemon(true);
+            producers[i].start();
+        }
+    }
+
+    private void produce(final int batchSize) {
+        final EventSequencer<long[]> eventSequencer = this.eventSequencer;
+        final boolean unbounded = eventSequencer instanceof MpUnboundedEventSequencer;
+        final ProducerBarrier producerBarrier = eventSequencer.producerBarrier();
+        final ConsumerBarrier barrier = this.barrier;
+        while (running) {
+            if (unbounded && producerBarrier.sequence() - barrier.sequence() > MAX_UNBOUNDED_LAG) {
+                LockSupport.parkNanos(1);
+                continue;
+            }
+            long hi = eventSequencer.tryNext(batchSize);
+            if (hi < 0) {
+                LockSupport.parkNanos(1); // 消费者进度落后，避免生产者空转抢占CPU
+                continue;
+            }
+            long lo = hi - batchSize + 1;
+            for (long seq = lo; seq <= hi; seq++) {
+                eventSequencer.producerGet(seq)[0] = seq;
+            }
+            eventSequencer.publish(lo, hi);
+        }
+    }
+
+    /** 停止生产者 -- 应当在trial级别的teardown中调用 */
+    protected void stopProducers() throws InterruptedException {
+        running = false;
+        for (Thread producer : producers) {
+            producer.join();
+        }
+    }
+
+    /** 消费当前可用的事件 */
+    protected void consumeAvailable(EventCounter counter, Blackhole blackhole) throws Exception {
+        final long nextSequence = this.nextSequence;
+        final long available = barrier.waitFor(nextSequence);
+        if (available < nextSequence) {
+            return; // 等待超时
+        }
+        for (long seq = nextSequence; seq <= available; seq++) {
+            blackhole.consume(eventSequencer.consumerGet(seq)[0]);
+        }
+        barrier.groupSequence().setRelease(available);
+        if (eventSequencer instanceof MpUnboundedEventSequencer) {
+            ((MpUnboundedEventSequencer<long[]>) eventSequencer).tryMoveHeadToNext(available);
+        }
+        counter.events += available - nextSequence + 1;
+        this.nextSequence = available + 1;
+    }
+}
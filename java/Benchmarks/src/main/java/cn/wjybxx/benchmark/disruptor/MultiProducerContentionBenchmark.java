@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.benchmark.disruptor;
+
+import cn.wjybxx.disruptor.BusySpinWaitStrategy;
+import cn.wjybxx.disruptor.MultiProducerSequencer;
+import cn.wjybxx.disruptor.ProducerBarrier;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多生产者竞争下的消费吞吐量。
+ * <p>
+ * 1. 生产者持续以{@link ProducerBarrier#publish(long, long)}批量发布，统计的是消费者每秒消费的事件数（events）。
+ * 2. 对比{@link MultiProducerSequencer#isBatchAware()}开启前后可用性扫描的开销。
+ * 3. 生产者数量超过CPU核心数时，测试的是操作系统调度下的竞争表现，结果波动较大，应多次运行。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiProducerContentionBenchmark extends ConsumerBenchmarkSupport {
+
+    @Param({"1", "4", "16", "64"})
+    public int producerCount;
+
+    @Param({"1", "16"})
+    public int batchSize;
+
+    @Param({"MULTI", "MULTI_BATCH_AWARE"})
+    public SequencerType sequencerType;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        startProducers(sequencerType.newEventSequencer(64 * 1024, BusySpinWaitStrategy.INSTANCE, false),
+                producerCount, batchSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        stopProducers();
+    }
+
+    @Benchmark
+    public void consume(EventCounter counter, Blackhole blackhole) throws Exception {
+        consumeAvailable(counter, blackhole);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.benchmark.disruptor;
+
+import cn.wjybxx.disruptor.BusySpinWaitStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单生产者单消费者下，不同序号生成器的吞吐量。
+ * 单生产者可以公平的对比各个实现的固有开销（不含竞争），多生产者的竞争见{@link MultiProducerContentionBenchmark}。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SequencerThroughputBenchmark extends ConsumerBenchmarkSupport {
+
+    @Param({"SINGLE", "MULTI", "MULTI_BATCH_AWARE", "MP_UNBOUNDED"})
+    public SequencerType sequencerType;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        startProducers(sequencerType.newEventSequencer(8192, BusySpinWaitStrategy.INSTANCE, false),
+                1, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        stopProducers();
+    }
+
+    @Benchmark
+    public void consume(EventCounter counter, Blackhole blackhole) throws Exception {
+        consumeAvailable(counter, blackhole);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.benchmark.disruptor;
+
+import cn.wjybxx.disruptor.*;
+
+/**
+ * 参与性能测试的序号生成器类型
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public enum SequencerType {
+
+    /** {@link SingleProducerSequencer} */
+    SINGLE,
+    /** {@link MultiProducerSequencer} */
+    MULTI,
+    /** 批量感知模式的{@link MultiProducerSequencer} */
+    MULTI_BATCH_AWARE,
+    /** {@link MpUnboundedBufferSequencer} */
+    MP_UNBOUNDED;
+
+    /**
+     * @param bufferSize   环形缓冲区大小；无界缓冲区则为块大小
+     * @param waitStrategy 消费者的等待策略
+     * @param blocker      是否启用blocker
+     */
+    public EventSequencer<long[]> newEventSequencer(int bufferSize, WaitStrategy waitStrategy, boolean blocker) {
+        switch (this) {
+            case SINGLE:
+            case MULTI:
+            case MULTI_BATCH_AWARE: {
+                RingBufferEventSequencer.Builder<long[]> builder = RingBufferEventSequencer.<long[]>newMultiProducer(() -> new long[1])
+                        .setProducerType(this == SINGLE ? ProducerType.SINGLE : ProducerType.MULTI)
+                        .setBatchAware(this == MULTI_BATCH_AWARE)
+                        .setBufferSize(bufferSize)
+                        .setWaitStrategy(waitStrategy);
+                if (blocker) builder.enableBlocker();
+                return builder.build();
+            }
+            case MP_UNBOUNDED: {
+                MpUnboundedEventSequencer.Builder<long[]> builder = MpUnboundedEventSequencer.<long[]>newBuilder(() -> new long[1])
+                        .setChunkSize(bufferSize)
+                        .setWaitStrategy(waitStrategy);
+                if (blocker) builder.enableBlocker();
+                return builder.build();
+            }
+            default: {
+                throw new AssertionError();
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.benchmark.disruptor;
+
+import cn.wjybxx.disruptor.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 不同等待策略下，消费者的唤醒延迟。
+ * <p>
+ * 1. JMH线程发布一个事件，然后等待消费者确认（消费者的序号推进），测量的是一次往返的延迟。
+ * 2. 使用{@link Mode#SampleTime}，报告中包含p50、p90、p99、p99.9等百分位。
+ * 3. 发布方在等待确认时先自旋后yield，以免在核心数较少的机器上饿死消费者；该开销对所有策略相同。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WaitStrategyLatencyBenchmark {
+
+    public enum WaitStrategyType {
+        BUSY_SPIN,
+        YIELDING,
+        SLEEPING,
+        TIMEOUT_SLEEPING,
+        BLOCKING,
+        TIMEOUT_BLOCKING,
+        PHASED_BACKOFF;
+
+        WaitStrategy newWaitStrategy() {
+            switch (this) {
+                case BUSY_SPIN: return BusySpinWaitStrategy.INSTANCE;
+                case YIELDING: return new YieldingWaitStrategy();
+                case SLEEPING: return new SleepingWaitStrategy();
+                case TIMEOUT_SLEEPING: return new TimeoutSleepingWaitStrategy();
+                case BLOCKING: return BlockingWaitStrategy.INSTANCE;
+                case TIMEOUT_BLOCKING: return new TimeoutBlockingWaitStrategy(1, TimeUnit.MILLISECONDS);
+                case PHASED_BACKOFF: return new PhasedBackoffWaitStrategy();
+                default: throw new AssertionError();
+            }
+        }
+
+        boolean needBlocker() {
+            return this == BLOCKING || this == TIMEOUT_BLOCKING || this == PHASED_BACKOFF;
+        }
+    }
+
+    @Param({"BUSY_SPIN", "YIELDING", "SLEEPING", "TIMEOUT_SLEEPING", "BLOCKING", "TIMEOUT_BLOCKING", "PHASED_BACKOFF"})
+    public WaitStrategyType waitStrategyType;
+
+    private EventSequencer<long[]> eventSequencer;
+    private ConsumerBarrier barrier;
+    private Thread consumer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        eventSequencer = SequencerType.SINGLE.newEventSequencer(1024,
+                waitStrategyType.newWaitStrategy(), waitStrategyType.needBlocker());
+        barrier = eventSequencer.newSingleConsumerBarrier();
+        eventSequencer.addGatingBarriers(barrier);
+
+        consumer = new Thread(this::consume, "consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    private void consume() {
+        final Sequence sequence = barrier.groupSequence();
+        long nextSequence = 0;
+        while (true) {
+            try {
+                long available = barrier.waitFor(nextSequence);
+                if (available < nextSequence) {
+                    continue; // 等待超时
+                }
+                sequence.setRelease(available);
+                nextSequence = available + 1;
+            } catch (AlertException | InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        barrier.alert();
+        consumer.join();
+    }
+
+    @Benchmark
+    public long roundTrip() {
+        long sequence = eventSequencer.next();
+        eventSequencer.producerGet(sequence)[0] = sequence;
+        eventSequencer.publish(sequence);
+
+        int spins = 0;
+        while (barrier.sequence() < sequence) {
+            if (++spins < 1000) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return sequence;
+    }
+}
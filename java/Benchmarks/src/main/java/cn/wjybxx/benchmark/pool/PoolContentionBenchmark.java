@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.benchmark.pool;
+
+import cn.wjybxx.base.pool.ConcurrentArrayPool;
+import cn.wjybxx.base.pool.ConcurrentObjectPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程借还对象池的开销，对比共享桶和线程本地缓存。
+ * <p>
+ * 1. 每次调用由{@code threadCount}个线程共同执行{@link #OP_COUNT}次借还，结果为单次借还的平均耗时。
+ * 2. 每次借还两个对象(嵌套借还)，模拟编解码时上下文的嵌套。
+ * 3. {@code threadCacheSize}为0时即原共享桶实现。
+ * 4. 线程数超过CPU核心数时，测试的是操作系统调度下的竞争表现，结果波动较大，应多次运行。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@OperationsPerInvocation(PoolContentionBenchmark.OP_COUNT)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PoolContentionBenchmark {
+
+    static final int OP_COUNT = 64 * 1024;
+
+    @Param({"1", "4", "16", "64"})
+    public int threadCount;
+
+    @Param({"0", "16"})
+    public int threadCacheSize;
+
+    @Param({"OBJECT", "ARRAY"})
+    public String poolType;
+
+    private ConcurrentObjectPool<StringBuilder> objectPool;
+    private ConcurrentArrayPool<byte[]> arrayPool;
+    private Thread[] workers;
+    private CyclicBarrier startBarrier;
+    private CyclicBarrier endBarrier;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        objectPool = new ConcurrentObjectPool<>(() -> new StringBuilder(64), sb -> sb.setLength(0),
+                256, null, threadCacheSize);
+        arrayPool = ConcurrentArrayPool.newBuilder(byte[].class)
+                .setDefCapacity(1024)
+                .setMaxCapacity(64 * 1024)
+                .setFirstBucketLength(256)
+                .setThreadCacheSize(threadCacheSize)
+                .build();
+
+        running = true;
+        startBarrier = new CyclicBarrier(threadCount + 1);
+        endBarrier = new CyclicBarrier(threadCount + 1);
+        workers = new Thread[threadCount];
+        boolean arrayMode = "ARRAY".equals(poolType);
+        for (int i = 0; i < threadCount; i++) {
+            int count = OP_COUNT / threadCount + (i < OP_COUNT % threadCount ? 1 : 0);
+            workers[i] = new Thread(() -> work(count, arrayMode), "worker-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        running = false;
+        startBarrier.reset(); // 唤醒等待中的线程
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private void work(int count, boolean arrayMode) {
+        while (running) {
+            try {
+                startBarrier.await();
+            } catch (Exception e) {
+                return; // 停止
+            }
+            if (arrayMode) {
+                final ConcurrentArrayPool<byte[]> pool = this.arrayPool;
+                for (int i = 0; i < count; i++) {
+                    byte[] outer = pool.acquire(4096);
+                    byte[] inner = pool.acquire(1024);
+                    pool.release(inner);
+                    pool.release(outer);
+                }
+            } else {
+                final ConcurrentObjectPool<StringBuilder> pool = this.objectPool;
+                for (int i = 0; i < count; i++) {
+                    StringBuilder outer = pool.acquire();
+                    StringBuilder inner = pool.acquire();
+                    pool.release(inner);
+                    pool.release(outer);
+                }
+            }
+            try {
+                endBarrier.await();
+            } catch (Exception e) {
+                return;
+            }
+        }
+    }
+
+    @Benchmark
+    public void acquireRelease() throws Exception {
+        startBarrier.await();
+        endBarrier.await();
+    }
+}
@@ -16,6 +16,8 @@
 
 package cn.wjybxx.base;
 
+import cn.wjybxx.base.collection.IntObjectMap;
+
 import javax.annotation.Nullable;
 import java.lang.reflect.Array;
 import java.util.*;
@@ -216,7 +218,7 @@ public class EnumUtils {
         if (isArrayAvailable(minNumber, maxNumber, values.length, fastQuery)) {
             return new DirectArrayMap<>(values, minNumber, maxNumber);
         } else {
-            return new BinarySearchArrayMap<>(values);
+            return new OpenHashMap<>(values);
         }
     }
 
@@ -386,37 +388,27 @@ public class EnumUtils {
         }
     }
 
-    /** 未避免引入FastUtil - base模块基于二分查找元素 */
-    private static class BinarySearchArrayMap<T extends EnumLite> implements EnumLiteMap<T> {
+    /** 基于{@link IntObjectMap}查找元素，用于number较为稀疏的情况 */
+    private static class OpenHashMap<T extends EnumLite> implements EnumLiteMap<T> {
 
         private final List<T> values;
         private final List<T> sortedValues;
+        /** 构造完成后只读，可安全共享 */
+        private final IntObjectMap<T> numberMap;
 
-        private BinarySearchArrayMap(T[] values) {
+        private OpenHashMap(T[] values) {
             this.values = List.of(values);
             this.sortedValues = CollectionUtils.toImmutableList(this.values, Comparator.comparingInt(EnumLite::getNumber));
+            this.numberMap = new IntObjectMap<>(values.length);
+            for (T e : values) {
+                numberMap.put(e.getNumber(), e);
+            }
         }
 
         @Nullable
         @Override
         public T forNumber(int number) {
-            final List<T> list = sortedValues;
-            int low = 0;
-            int high = list.size() - 1;
-            while (low <= high) {
-                int mid = (low + high) >>> 1;
-                T midVal = list.get(mid);
-
-                int cmp = Integer.compare(midVal.getNumber(), number);
-                if (cmp < 0) {
-                    low = mid + 1;
-                } else if (cmp > 0) {
-                    high = mid - 1;
-                } else {
-                    return midVal;
-                }
-            }
-            return null;
+            return numberMap.get(number);
         }
 
         @Override
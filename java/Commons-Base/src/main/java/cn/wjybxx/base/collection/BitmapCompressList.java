@@ -0,0 +1,629 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.collection;
+
+import cn.wjybxx.base.ArrayUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+import static cn.wjybxx.base.collection.IndexedElementHelper.INDEX_NOT_FOUND;
+
+/**
+ * 基于位图的延迟压缩List，语义同{@link DelayedCompressList}，适用于元素数量多且增删频繁的情况
+ * <p>
+ * 1. 使用位图记录存活的槽位，迭代时按字(64个槽位)跳过已删除的区间，删除大量元素后迭代开销与存活元素数量成正比。
+ * 2. 压缩是增量的：一轮压缩分摊到{@code compactSteps}次迭代结束(或迭代外删除元素)时完成，每次最多移动{@code 存活元素数/compactSteps}个元素；
+ * 压缩期间List仍然是有效的，只是尚未压缩的部分存在空槽位；如果删除速度超过了压缩速度(负载低于负载因子的一半)，则立即完成压缩。
+ * 3. 与{@link DelayedCompressList}一样，压缩会改变元素的下标，只在未迭代时进行。
+ * 4. 不支持在中间插入元素。
+ * <h3>使用方式</h3>
+ * <pre><code>
+ *     list.beginItr();
+ *     try {
+ *         for (int i = list.nextIndex(0); i >= 0; i = list.nextIndex(i + 1)) {
+ *              doSomething(list.get(i));
+ *         }
+ *     } finally {
+ *         list.endItr();
+ *     }
+ * </code></pre>
+ * 更推荐使用{@link #forEach(ObjIntConsumer)}，批量迭代不需要每次都检查下标。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@NotThreadSafe
+public final class BitmapCompressList<E> {
+
+    private static final int DEFAULT_COMPACT_STEPS = 4;
+
+    private Object[] elements;
+    /** 存活槽位的位图，size之后的位始终为0 */
+    private long[] liveBits;
+    /** 用于管理元素的下标 */
+    private final IndexedElementHelper<? super E> helper;
+    /** 负载因子，当负载低于该值时才压缩空间 */
+    private final float loadFactor;
+    /** 一轮压缩分摊的次数 */
+    private final int compactSteps;
+
+    private int size;
+    private int realSize;
+    private int recursionDepth;
+    /** 增量压缩的写指针，-1表示未在压缩 */
+    private int compactWrite = -1;
+    /** 增量压缩的读指针，(compactWrite, compactRead)区间内没有存活的元素 */
+    private int compactRead;
+    /** 当前这一轮压缩每次最多移动的元素数 */
+    private int compactBudget;
+
+    public BitmapCompressList() {
+        this(8, 0.75f, DEFAULT_COMPACT_STEPS, null);
+    }
+
+    public BitmapCompressList(int initCapacity) {
+        this(initCapacity, 0.75f, DEFAULT_COMPACT_STEPS, null);
+    }
+
+    /**
+     * @param initCapacity 初始容量
+     * @param loadFactor   负载因子，当负载低于该值时才压缩空间
+     * @param compactSteps 一轮压缩分摊的次数，1表示在迭代结束时一次性完成压缩
+     * @param helper       下标管理器
+     */
+    public BitmapCompressList(int initCapacity, float loadFactor, int compactSteps, IndexedElementHelper<? super E> helper) {
+        if (initCapacity < 0) throw new IllegalArgumentException("initCapacity: " + initCapacity);
+        if (loadFactor < 0 || loadFactor > 1) throw new IllegalArgumentException("loadFactor: " + loadFactor);
+        if (compactSteps < 1) throw new IllegalArgumentException("compactSteps: " + compactSteps);
+        this.elements = new Object[initCapacity];
+        this.liveBits = new long[wordCount(initCapacity)];
+        this.loadFactor = loadFactor;
+        this.compactSteps = compactSteps;
+        this.helper = helper;
+    }
+
+    /** 开始迭代 */
+    public void beginItr() {
+        recursionDepth++;
+    }
+
+    /** 迭代结束 -- 必须在finally块中调用，否则可能使List处于无效状态；特殊情况下可以反复调用该接口修复状态。 */
+    public void endItr() {
+        if (recursionDepth == 0) {
+            throw new IllegalStateException("begin must be called before end.");
+        }
+        recursionDepth--;
+        if (recursionDepth == 0) {
+            tryCompact();
+        }
+    }
+
+    /**
+     * 主动压缩空间 -- 一次性完成压缩
+     *
+     * @param force 是否无视负载因子
+     */
+    public void compress(boolean force) {
+        ensureNotIterating();
+        if (force || isCompacting() || isCompressionNeeded()) {
+            compactFully();
+        }
+    }
+
+    /** 是否需要压缩空间 */
+    private boolean isCompressionNeeded() {
+        return (size - realSize) > 3 && realSize < size * loadFactor;
+    }
+
+    /** 是否有未完成的增量压缩 */
+    public boolean isCompacting() {
+        return compactWrite >= 0;
+    }
+
+    /** 获取当前负载 -- 主要用于debug */
+    public float currentLoad() {
+        if (realSize == 0) return 0;
+        if (realSize == size) return 1;
+        return realSize / (float) size;
+    }
+
+    /** 当前是否正在迭代 */
+    public boolean isIterating() {
+        return recursionDepth > 0;
+    }
+
+    /**
+     * @return 如果添加元素成功则返回true
+     * @throws NullPointerException 如果e为null
+     */
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        if (size == elements.length) {
+            ensureCapacity(size + 1);
+        }
+        if (helper != null) {
+            helper.collectionIndex(this, e, size);
+        }
+        elements[size] = e;
+        setBit(size);
+        size++;
+        realSize++;
+        return true;
+    }
+
+    /** 批量添加元素 */
+    public boolean addAll(@Nonnull Collection<? extends E> c) {
+        Object[] array = c.toArray();
+        if (array.length == 0) {
+            return false;
+        }
+        for (Object e : array) {
+            Objects.requireNonNull(e, "collection contains null element");
+        }
+        ensureCapacity(size + array.length);
+        System.arraycopy(array, 0, elements, size, array.length);
+        for (int index = size, end = size + array.length; index < end; index++) {
+            if (helper != null) {
+                @SuppressWarnings("unchecked") E castE = (E) elements[index];
+                helper.collectionIndex(this, castE, index);
+            }
+            setBit(index);
+        }
+        size += array.length;
+        realSize += array.length;
+        return true;
+    }
+
+    /**
+     * 获取指定位置的元素
+     *
+     * @return 如果指定位置的元素已删除，则返回null
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return (E) elements[index];
+    }
+
+    /**
+     * 将给定元素赋值到给定位置
+     *
+     * @param e 如果为null，则表示删除
+     * @return 该位置的前一个值
+     */
+    public E set(int index, E e) {
+        Objects.checkIndex(index, size);
+        @SuppressWarnings("unchecked") E ele = (E) elements[index];
+        if (e == null) {
+            if (ele == null) {
+                return null;
+            }
+            // remove
+            if (helper != null) {
+                helper.collectionIndex(this, ele, INDEX_NOT_FOUND);
+            }
+            elements[index] = null;
+            clearBit(index);
+            realSize--;
+            if (recursionDepth == 0) {
+                tryCompact();
+            }
+            return ele;
+        }
+        if (helper != null) {
+            if (ele != null) {
+                helper.collectionIndex(this, ele, INDEX_NOT_FOUND);
+            }
+            helper.collectionIndex(this, e, index);
+        }
+        elements[index] = e;
+        if (ele == null) {
+            // insert -- 保持压缩区间的约束
+            setBit(index);
+            realSize++;
+            if (compactWrite >= 0 && index < compactRead) {
+                compactRead = index;
+            }
+        }
+        return ele;
+    }
+
+    /**
+     * 删除给定位置的元素
+     *
+     * @return 如果指定位置存在元素，则返回对应的元素，否则返回Null
+     */
+    public E removeAt(int index) {
+        return set(index, null);
+    }
+
+    /**
+     * 根据equals相等删除元素
+     *
+     * @return 如果元素在集合中则删除并返回true
+     */
+    public boolean remove(Object e) {
+        if (e == null) return false;
+        int i = index(e);
+        if (i >= 0) {
+            set(i, null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 根据引用相等删除元素
+     *
+     * @return 如果元素在集合中则删除并返回true
+     */
+    public boolean removeRef(Object e) {
+        if (e == null) return false;
+        int i = indexOfRef(e);
+        if (i >= 0) {
+            set(i, null);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 清空List
+     *
+     * @apiNote 在迭代期间清理元素不会更新size
+     */
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Object[] elements = this.elements;
+        for (int index = nextIndex(0); index >= 0; index = nextIndex(index + 1)) {
+            if (helper != null) {
+                @SuppressWarnings("unchecked") E castE = (E) elements[index];
+                helper.collectionIndex(this, castE, INDEX_NOT_FOUND);
+            }
+            elements[index] = null;
+        }
+        Arrays.fill(liveBits, 0, wordCount(size), 0);
+        realSize = 0;
+        compactWrite = -1;
+        compactRead = 0;
+        if (recursionDepth == 0) {
+            size = 0;
+        }
+    }
+
+    /** 基于equals查询一个元素是否在List中 */
+    public boolean contains(Object e) {
+        return index(e) >= 0;
+    }
+
+    /** 基于引用相等查询一个元素是否在List中 */
+    public boolean containsRef(Object e) {
+        return indexOfRef(e) >= 0;
+    }
+
+    /**
+     * 基于equals查找元素在List中的位置
+     *
+     * @return 如果元素不在集合中，则返回-1
+     */
+    public int index(@Nullable Object e) {
+        if (e == null) {
+            return -1;
+        }
+        if (helper != null) {
+            @SuppressWarnings("unchecked") E castE = (E) e;
+            return helper.collectionIndex(this, castE);
+        }
+        return ArrayUtils.indexOf(elements, e, 0, size);
+    }
+
+    /**
+     * 基于引用相等查找元素在List中的位置
+     *
+     * @return 如果元素不在集合中，则返回-1
+     */
+    public int indexOfRef(@Nullable Object e) {
+        if (e == null) {
+            return -1;
+        }
+        if (helper != null) {
+            @SuppressWarnings("unchecked") E castE = (E) e;
+            return helper.collectionIndex(this, castE);
+        }
+        return ArrayUtils.indexOfRef(elements, e, 0, size);
+    }
+
+    /**
+     * 查找下一个存活元素的下标
+     *
+     * @param fromIndex 起始下标(包含)
+     * @return 如果之后没有存活的元素，则返回-1
+     */
+    public int nextIndex(int fromIndex) {
+        if (fromIndex < 0) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex);
+        }
+        return nextSetBit(fromIndex);
+    }
+
+    /**
+     * @throws IllegalStateException 如果当前正在迭代
+     */
+    public void sort(@Nonnull Comparator<? super E> comparator) {
+        Objects.requireNonNull(comparator);
+        ensureNotIterating();
+
+        // 先压缩空间再排序
+        if (realSize < size) {
+            compactFully();
+        }
+        @SuppressWarnings("unchecked") E[] elements = (E[]) this.elements;
+        Arrays.sort(elements, 0, size, comparator);
+        if (helper != null) {
+            for (int index = 0; index < size; index++) {
+                helper.collectionIndex(this, elements[index], index);
+            }
+        }
+    }
+
+    /**
+     * 获取list的当前大小
+     * 注意：迭代期间删除的元素并不会导致size变小，因此该值是一个不准确的值。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 判断list是否为空
+     * 注意：迭代期间删除的元素并不会导致size变小，因此该值是一个不准确的值。
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** 非空元素数量 */
+    public int elementCount() {
+        return realSize;
+    }
+
+    /** 空元素数量 */
+    public int nullCount() {
+        return size - realSize;
+    }
+
+    /**
+     * 迭代List内的元素，该快捷方式不会迭代迭代期间新增的元素
+     * 如果需要元素的下标，请使用{@link #forEach(ObjIntConsumer)}
+     */
+    public void forEach(Consumer<? super E> action) {
+        Objects.requireNonNull(action);
+        final int size = this.size;
+        if (size == 0) {
+            return;
+        }
+        beginItr();
+        try {
+            for (int u = 0, wordCount = wordCount(size); u < wordCount; u++) {
+                long word = liveBits[u];
+                while (word != 0) {
+                    final int index = (u << 6) + Long.numberOfTrailingZeros(word);
+                    if (index >= size) {
+                        break;
+                    }
+                    @SuppressWarnings("unchecked") final E e = (E) elements[index];
+                    if (e != null) {
+                        action.accept(e);
+                    }
+                    word = liveBits[u] & (-2L << index);
+                }
+            }
+        } finally {
+            endItr();
+        }
+    }
+
+    /**
+     * 迭代List内的元素，该快捷方式不会迭代迭代期间新增的元素
+     *
+     * @param action 参数1为对应元素，参数2为下标 -- 返回index以方便快速删除
+     */
+    public void forEach(ObjIntConsumer<? super E> action) {
+        Objects.requireNonNull(action);
+        final int size = this.size;
+        if (size == 0) {
+            return;
+        }
+        beginItr();
+        try {
+            for (int u = 0, wordCount = wordCount(size); u < wordCount; u++) {
+                long word = liveBits[u];
+                while (word != 0) {
+                    final int index = (u << 6) + Long.numberOfTrailingZeros(word);
+                    if (index >= size) {
+                        break;
+                    }
+                    @SuppressWarnings("unchecked") final E e = (E) elements[index];
+                    if (e != null) {
+                        action.accept(e, index);
+                    }
+                    // 回调可能修改了List(甚至扩容)，因此重新读取当前字，并屏蔽已迭代的位
+                    word = liveBits[u] & (-2L << index);
+                }
+            }
+        } finally {
+            endItr();
+        }
+    }
+
+    /** 转换为普通的List */
+    public List<E> toList() {
+        List<E> result = new ArrayList<>(realSize);
+        @SuppressWarnings("unchecked") E[] elements = (E[]) this.elements;
+        for (int index = nextIndex(0); index >= 0; index = nextIndex(index + 1)) {
+            result.add(elements[index]);
+        }
+        return result;
+    }
+
+    // region internal
+
+    private void ensureNotIterating() {
+        if (recursionDepth != 0) {
+            throw new IllegalStateException("Invalid between iterating.");
+        }
+    }
+
+    private void tryCompact() {
+        if (compactWrite >= 0) {
+            if (realSize < size * loadFactor * 0.5f) { // 压缩速度跟不上删除速度
+                compactFully();
+            } else {
+                compactStep(compactBudget);
+            }
+        } else if (isCompressionNeeded()) {
+            compactBudget = Math.max(1, (realSize + compactSteps - 1) / compactSteps);
+            compactStep(compactBudget);
+        }
+    }
+
+    /** 完成当前的增量压缩，并清理压缩期间产生的空槽位 */
+    private void compactFully() {
+        if (compactWrite >= 0) {
+            compactStep(Integer.MAX_VALUE);
+        }
+        if (realSize < size) {
+            compactStep(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * 将存活的元素前移，最多移动budget个元素
+     * 写指针之前的空槽位(压缩期间删除的元素)留给下一轮压缩。
+     */
+    private void compactStep(int budget) {
+        final Object[] elements = this.elements;
+        final IndexedElementHelper<? super E> helper = this.helper;
+        int write = nextClearBit(compactWrite < 0 ? 0 : compactWrite);
+        int read = Math.max(compactRead, write + 1);
+        for (int moved = 0; ; moved++) {
+            read = nextSetBit(read);
+            if (read < 0) { // 写指针之后都是空槽位
+                size = write;
+                compactWrite = -1;
+                compactRead = 0;
+                return;
+            }
+            if (moved == budget) {
+                compactWrite = write;
+                compactRead = read;
+                return;
+            }
+            Object element = elements[read];
+            elements[write] = element;
+            elements[read] = null;
+            setBit(write);
+            clearBit(read);
+            if (helper != null) {
+                @SuppressWarnings("unchecked") E castE = (E) element;
+                helper.collectionIndex(this, castE, write);
+            }
+            write = nextClearBit(write + 1);
+            read++;
+        }
+    }
+
+    private static int wordCount(int bitCount) {
+        return (bitCount + 63) >>> 6;
+    }
+
+    private void setBit(int index) {
+        liveBits[index >>> 6] |= 1L << index;
+    }
+
+    private void clearBit(int index) {
+        liveBits[index >>> 6] &= ~(1L << index);
+    }
+
+    /** @return 如果不存在则返回-1 */
+    private int nextSetBit(int fromIndex) {
+        final int size = this.size;
+        if (fromIndex >= size) {
+            return -1;
+        }
+        final long[] liveBits = this.liveBits;
+        final int wordCount = wordCount(size);
+        int u = fromIndex >>> 6;
+        long word = liveBits[u] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                int index = (u << 6) + Long.numberOfTrailingZeros(word);
+                return index < size ? index : -1;
+            }
+            if (++u == wordCount) {
+                return -1;
+            }
+            word = liveBits[u];
+        }
+    }
+
+    /** @return 如果不存在则返回size */
+    private int nextClearBit(int fromIndex) {
+        final int size = this.size;
+        if (fromIndex >= size) {
+            return size;
+        }
+        final long[] liveBits = this.liveBits;
+        final int wordCount = wordCount(size);
+        int u = fromIndex >>> 6;
+        long word = ~liveBits[u] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                return Math.min((u << 6) + Long.numberOfTrailingZeros(word), size);
+            }
+            if (++u == wordCount) {
+                return size;
+            }
+            word = ~liveBits[u];
+        }
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        int oldCapacity = elements.length;
+        if (minCapacity <= oldCapacity) {
+            return;
+        }
+        int grow = oldCapacity >> 1; // 位移运算符优先级较低
+        int newCapacity = Math.clamp((long) oldCapacity + grow,
+                4, Integer.MAX_VALUE - 8);
+        if (newCapacity < minCapacity) {
+            newCapacity = minCapacity;
+        }
+        elements = Arrays.copyOf(elements, newCapacity);
+        liveBits = Arrays.copyOf(liveBits, wordCount(newCapacity));
+    }
+    // endregion
+
+}
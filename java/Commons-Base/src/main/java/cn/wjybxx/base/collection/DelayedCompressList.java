@@ -51,6 +51,7 @@ import static cn.wjybxx.base.collection.IndexedElementHelper.INDEX_NOT_FOUND;
  * PS：
  * 1.该List主要用于事件监听器列表和对象列表等场景。
  * 2.使用{@link #forEach(Consumer)}可能有更好的迭代速度。
+ * 3.元素数量较多且增删频繁时，可使用基于位图的{@link BitmapCompressList}。
  *
  * @author wjybxx
  * date 2023/4/6
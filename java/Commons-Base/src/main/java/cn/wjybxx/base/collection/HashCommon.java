@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.collection;
+
+import cn.wjybxx.base.MathCommon;
+
+/**
+ * 开放寻址Map的公共方法
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+final class HashCommon {
+
+    static final int DEFAULT_EXPECTED_SIZE = 16;
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+    private static final int MAX_ARRAY_SIZE = 1 << 30;
+
+    private HashCommon() {
+    }
+
+    /** 打散int的位 -- 整数key通常是连续的，直接取低位会导致聚集 */
+    static int mix(int x) {
+        final int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long x) {
+        long h = x * 0x9E3779B97F4A7C15L;
+        h ^= (h >>> 32);
+        return (int) (h ^ (h >>> 16));
+    }
+
+    static void checkLoadFactor(float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("loadFactor must be in (0, 1): " + loadFactor);
+        }
+    }
+
+    /** 计算容纳{@code expectedSize}个元素所需的数组大小(2的整次幂) */
+    static int arraySize(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize: " + expectedSize);
+        }
+        long size = (long) Math.ceil(expectedSize / loadFactor);
+        if (size > MAX_ARRAY_SIZE) {
+            throw new IllegalArgumentException("expectedSize is too large: " + expectedSize);
+        }
+        return Math.max(2, MathCommon.nextPowerOfTwo((int) size));
+    }
+
+    /** 扩容阈值 -- 至少保留一个空槽，以保证查找能够终止 */
+    static int maxFill(int n, float loadFactor) {
+        return Math.min((int) Math.ceil(n * loadFactor), n - 1);
+    }
+
+    static int nextArraySize(int n) {
+        if (n >= MAX_ARRAY_SIZE) {
+            throw new IllegalStateException("map is too large");
+        }
+        return n << 1;
+    }
+}
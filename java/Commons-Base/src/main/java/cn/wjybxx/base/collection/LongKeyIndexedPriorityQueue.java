@@ -0,0 +1,323 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.collection;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.function.ToLongFunction;
+
+import static cn.wjybxx.base.collection.IndexedElement.INDEX_NOT_FOUND;
+
+/**
+ * 缓存long主键的4叉堆
+ * <p>
+ * 1. 元素的主键(如触发时间)缓存在与元素数组平行的{@code long[]}中，大多数比较只访问该数组，不需要访问元素；
+ * 只有主键相等时才调用{@link Comparator}。
+ * 2. 4叉堆的高度是二叉堆的一半，上浮的比较次数更少；下沉时需要在4个子节点中选择最小的，但子节点的主键是连续的，通常在同一个缓存行中。
+ * 3. 比较器的首要排序条件必须是主键，即：主键小的元素比较器也必须返回小于0。
+ * 4. 元素在队列中时，主键发生变化后必须调用{@link #priorityChanged(IndexedElement)}，该方法会重新读取主键。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class LongKeyIndexedPriorityQueue<T extends IndexedElement>
+        extends AbstractQueue<T>
+        implements IndexedPriorityQueue<T> {
+
+    private static final IndexedElement[] EMPTY_ARRAY = new IndexedElement[0];
+    private static final long[] EMPTY_KEYS = new long[0];
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final ToLongFunction<? super T> keyFunction;
+    private final Comparator<? super T> comparator;
+    private T[] queue;
+    private long[] keys;
+    private int size;
+
+    /**
+     * @param keyFunction 主键函数
+     * @param comparator  完整的比较器，主键相等时调用
+     */
+    public LongKeyIndexedPriorityQueue(ToLongFunction<? super T> keyFunction, Comparator<? super T> comparator) {
+        this(keyFunction, comparator, DEFAULT_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    public LongKeyIndexedPriorityQueue(ToLongFunction<? super T> keyFunction, Comparator<? super T> comparator, int initialSize) {
+        this.keyFunction = Objects.requireNonNull(keyFunction, "keyFunction");
+        this.comparator = Objects.requireNonNull(comparator, "comparator");
+        queue = (T[]) (initialSize != 0 ? new IndexedElement[initialSize] : EMPTY_ARRAY);
+        keys = initialSize != 0 ? new long[initialSize] : EMPTY_KEYS;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof IndexedElement node)) { // 包含null
+            return false;
+        }
+        return contains(node, node.collectionIndex(this));
+    }
+
+    @Override
+    public boolean containsTyped(T node) {
+        if (node == null) {
+            return false;
+        }
+        return contains(node, node.collectionIndex(this));
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            T node = queue[i];
+            if (node != null) {
+                node.collectionIndex(this, INDEX_NOT_FOUND);
+                queue[i] = null;
+            }
+        }
+        size = 0;
+    }
+
+    @Override
+    public void clearIgnoringIndexes() {
+        Arrays.fill(queue, null);
+        size = 0;
+    }
+
+    // region queue
+    @Override
+    public boolean offer(T e) {
+        if (e.collectionIndex(this) != INDEX_NOT_FOUND) {
+            throw new IllegalArgumentException("e.queueIndex(): %d (expected: %d) + e: %s"
+                    .formatted(e.collectionIndex(this), INDEX_NOT_FOUND, e));
+        }
+
+        if (size >= queue.length) {
+            final int grow = (queue.length < 64) ? (queue.length + 2) : (queue.length >>> 1);
+            queue = Arrays.copyOf(queue, queue.length + grow);
+            keys = Arrays.copyOf(keys, queue.length);
+        }
+
+        bubbleUp(size++, e, keyFunction.applyAsLong(e));
+        return true;
+    }
+
+    @Override
+    public T poll() {
+        if (size == 0) {
+            return null;
+        }
+        T node = queue[0];
+        removeAt(0, node);
+        return node;
+    }
+
+    @Override
+    public T peek() {
+        if (size == 0) {
+            return null;
+        }
+        return queue[0];
+    }
+
+    /**
+     * 查看队首元素的主键
+     *
+     * @return 如果队列为空则返回{@link Long#MAX_VALUE}
+     */
+    public long peekKey() {
+        return size == 0 ? Long.MAX_VALUE : keys[0];
+    }
+    // endregion
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof IndexedElement)) { // 包含null
+            return false;
+        }
+        final T node = (T) o;
+        return removeTyped(node);
+    }
+
+    @Override
+    public boolean removeTyped(T node) {
+        if (node == null) {
+            return false;
+        }
+        int idx = node.collectionIndex(this);
+        if (!contains(node, idx)) {
+            return false;
+        }
+        removeAt(idx, node);
+        return true;
+    }
+
+    @Override
+    public void priorityChanged(T node) {
+        int idx = node.collectionIndex(this); // NPE
+        if (!contains(node, idx)) {
+            return;
+        }
+
+        final long key = keyFunction.applyAsLong(node);
+        keys[idx] = key;
+        if (idx == 0) { // 通常是队首元素的优先级变更
+            bubbleDown(idx, node, key);
+        } else {
+            int iParent = (idx - 1) >>> 2;
+            if (less(key, node, keys[iParent], queue[iParent])) {
+                bubbleUp(idx, node, key);
+            } else {
+                bubbleDown(idx, node, key);
+            }
+        }
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<T> iterator() {
+        return new PriorityQueueIterator();
+    }
+
+    // region internal
+
+    private boolean contains(IndexedElement node, int idx) {
+        // 使用equals是无意义的，如果要使用equals，那么索引i会导致漏判断
+        return idx >= 0 && idx < size && node == queue[idx];
+    }
+
+    /** a是否小于b -- 主键相等时才调用比较器 */
+    private boolean less(long aKey, T a, long bKey, T b) {
+        return aKey < bKey || (aKey == bKey && comparator.compare(a, b) < 0);
+    }
+
+    private void removeAt(int idx, T node) {
+        node.collectionIndex(this, INDEX_NOT_FOUND);
+
+        int newSize = --size;
+        if (newSize == idx) { // 如果删除的是最后一个元素则无需交换
+            queue[idx] = null;
+            return;
+        }
+
+        final long nodeKey = keys[idx];
+        final long movedKey = keys[newSize];
+        T moved = queue[idx] = queue[newSize];
+        queue[newSize] = null;
+
+        if (idx == 0 || less(nodeKey, node, movedKey, moved)) {
+            bubbleDown(idx, moved, movedKey);
+        } else {
+            bubbleUp(idx, moved, movedKey);
+        }
+    }
+
+    private void bubbleDown(int k, T node, long key) {
+        final T[] queue = this.queue;
+        final long[] keys = this.keys;
+        final int size = this.size;
+        while (true) {
+            int iChild = (k << 2) + 1;
+            if (iChild >= size) {
+                break;
+            }
+            // 找到最小的子节点
+            int end = Math.min(iChild + 4, size);
+            long childKey = keys[iChild];
+            for (int i = iChild + 1; i < end; i++) {
+                long k2 = keys[i];
+                if (k2 < childKey || (k2 == childKey && comparator.compare(queue[i], queue[iChild]) < 0)) {
+                    iChild = i;
+                    childKey = k2;
+                }
+            }
+            // 如果父节点大于最小子节点，则与最小子节点交换
+            T child = queue[iChild];
+            if (!less(childKey, child, key, node)) {
+                break;
+            }
+
+            queue[k] = child;
+            keys[k] = childKey;
+            child.collectionIndex(this, k);
+
+            k = iChild;
+        }
+
+        queue[k] = node;
+        keys[k] = key;
+        node.collectionIndex(this, k);
+    }
+
+    private void bubbleUp(int k, T node, long key) {
+        final T[] queue = this.queue;
+        final long[] keys = this.keys;
+        while (k > 0) {
+            int iParent = (k - 1) >>> 2;
+            long parentKey = keys[iParent];
+            T parent = queue[iParent];
+
+            // 如果node小于父节点，则node要与父节点进行交换
+            if (!less(key, node, parentKey, parent)) {
+                break;
+            }
+
+            queue[k] = parent;
+            keys[k] = parentKey;
+            parent.collectionIndex(this, k);
+
+            k = iParent;
+        }
+
+        queue[k] = node;
+        keys[k] = key;
+        node.collectionIndex(this, k);
+    }
+
+    /** 这里暂没有按照优先级迭代，实现较为麻烦 */
+    private final class PriorityQueueIterator implements Iterator<T> {
+
+        private int index;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public T next() {
+            if (index >= size) {
+                throw new NoSuchElementException();
+            }
+            return queue[index++];
+        }
+
+    }
+    // endregion
+
+}
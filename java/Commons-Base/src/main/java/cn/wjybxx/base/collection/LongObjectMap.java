@@ -0,0 +1,359 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.collection;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongFunction;
+
+import static cn.wjybxx.base.collection.HashCommon.*;
+
+/**
+ * 以long为key的Map
+ * <p>
+ * 1. 基于线性探测的开放寻址实现，key和value分别存储在两个数组中，没有Entry对象，也不装箱。
+ * 2. 删除时将后续元素前移，不使用墓碑，因此频繁增删也不会降低查询性能。
+ * 3. key为0的映射存储在数组末尾的独立槽位中(0用于标记空槽)。
+ * 4. value可以为null，但这时{@link #get(long)}无法区分，需要使用{@link #containsKey(long)}。
+ * 5. 使用{@link Cursor}迭代，迭代期间不可增删元素，但可以修改value。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@NotThreadSafe
+public class LongObjectMap<V> {
+
+    private final float loadFactor;
+    private long[] keys;
+    private V[] values;
+    /** 数组长度 - 1，数组的最后一个槽位存储key为0的映射 */
+    private int mask;
+    private int maxFill;
+    private boolean containsZeroKey;
+    private int size;
+
+    public LongObjectMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongObjectMap(int expectedSize, float loadFactor) {
+        checkLoadFactor(loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(arraySize(expectedSize, loadFactor));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /** @return 如果key不存在则返回null */
+    @Nullable
+    public V get(long key) {
+        int idx = find(key);
+        return idx < 0 ? null : values[idx];
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        int idx = find(key);
+        return idx < 0 ? defaultValue : values[idx];
+    }
+
+    /**
+     * @return 之前的值，如果key不存在则返回null
+     */
+    @Nullable
+    public V put(long key, V value) {
+        int idx = insertionIndex(key);
+        if (idx < 0) {
+            idx = -idx - 1;
+            V old = values[idx];
+            values[idx] = value;
+            return old;
+        }
+        values[idx] = value;
+        onInserted();
+        return null;
+    }
+
+    /**
+     * @return 之前的值，如果key不存在则返回null
+     */
+    @Nullable
+    public V putIfAbsent(long key, V value) {
+        int idx = insertionIndex(key);
+        if (idx < 0) {
+            return values[-idx - 1];
+        }
+        values[idx] = value;
+        onInserted();
+        return null;
+    }
+
+    /**
+     * 如果key不存在，则通过函数计算value并存入；函数返回null时不存入
+     *
+     * @return 当前的值
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction, "mappingFunction");
+        int idx = find(key);
+        if (idx >= 0) {
+            return values[idx];
+        }
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            put(key, value); // 函数可能修改了Map，因此重新查找插入位置
+        }
+        return value;
+    }
+
+    /**
+     * @return 删除的值，如果key不存在则返回null
+     */
+    @Nullable
+    public V remove(long key) {
+        if (key == 0) {
+            if (!containsZeroKey) {
+                return null;
+            }
+            int idx = mask + 1;
+            V old = values[idx];
+            values[idx] = null;
+            containsZeroKey = false;
+            size--;
+            return old;
+        }
+        int idx = find(key);
+        if (idx < 0) {
+            return null;
+        }
+        V old = values[idx];
+        shiftKeys(idx);
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        containsZeroKey = false;
+        size = 0;
+    }
+
+    /**
+     * 获取一个新的游标，初始位于第一个元素之前
+     * 可以通过{@link Cursor#reset()}重用游标。
+     */
+    public Cursor<V> cursor() {
+        return new Cursor<>(this);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 8 + 2).append('{');
+        Cursor<V> cursor = cursor();
+        boolean first = true;
+        while (cursor.moveNext()) {
+            if (!first) {
+                sb.append(", ");
+            }
+            first = false;
+            sb.append(cursor.key()).append('=').append(cursor.value());
+        }
+        return sb.append('}').toString();
+    }
+
+    // region internal
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int n) {
+        keys = new long[n + 1];
+        values = (V[]) new Object[n + 1];
+        mask = n - 1;
+        maxFill = maxFill(n, loadFactor);
+    }
+
+    /** @return 槽位索引，不存在时返回-1 */
+    private int find(long key) {
+        if (key == 0) {
+            return containsZeroKey ? mask + 1 : -1;
+        }
+        final long[] keys = this.keys;
+        int pos = mix(key) & mask;
+        long curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == key) {
+                return pos;
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * 查找插入位置，如果key不存在，则占用槽位(写入key)
+     *
+     * @return 如果key已存在则返回{@code -index - 1}，否则返回新占用的槽位
+     */
+    private int insertionIndex(long key) {
+        if (key == 0) {
+            if (containsZeroKey) {
+                return -(mask + 1) - 1;
+            }
+            containsZeroKey = true;
+            return mask + 1;
+        }
+        final long[] keys = this.keys;
+        int pos = mix(key) & mask;
+        long curr;
+        while ((curr = keys[pos]) != 0) {
+            if (curr == key) {
+                return -pos - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        return pos;
+    }
+
+    private void onInserted() {
+        if (++size > maxFill) {
+            rehash(nextArraySize(mask + 1));
+        }
+    }
+
+    /** 删除pos处的元素，并将后续探测链上的元素前移 */
+    private void shiftKeys(int pos) {
+        final long[] keys = this.keys;
+        final V[] values = this.values;
+        int last, slot;
+        long curr;
+        while (true) {
+            pos = ((last = pos) + 1) & mask;
+            while (true) {
+                if ((curr = keys[pos]) == 0) {
+                    keys[last] = 0;
+                    values[last] = null;
+                    return;
+                }
+                slot = mix(curr) & mask;
+                // 元素的理想位置不在(last, pos]区间内时，可以前移到last
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = curr;
+            values[last] = values[pos];
+        }
+    }
+
+    private void rehash(int newN) {
+        final long[] oldKeys = this.keys;
+        final V[] oldValues = this.values;
+        final int oldN = mask + 1;
+        allocate(newN);
+
+        final long[] keys = this.keys;
+        final V[] values = this.values;
+        for (int i = 0; i < oldN; i++) {
+            long key = oldKeys[i];
+            if (key == 0) {
+                continue;
+            }
+            int pos = mix(key) & mask;
+            while (keys[pos] != 0) {
+                pos = (pos + 1) & mask;
+            }
+            keys[pos] = key;
+            values[pos] = oldValues[i];
+        }
+        values[newN] = oldValues[oldN];
+    }
+
+    // endregion
+
+    /**
+     * 游标
+     * <pre>{@code
+     *  Cursor<V> cursor = map.cursor();
+     *  while (cursor.moveNext()) {
+     *      long key = cursor.key();
+     *      V value = cursor.value();
+     *  }
+     * }</pre>
+     */
+    public static final class Cursor<V> {
+
+        private final LongObjectMap<V> map;
+        private int index = -1;
+
+        private Cursor(LongObjectMap<V> map) {
+            this.map = map;
+        }
+
+        /** @return 如果移动到了下一个元素则返回true */
+        public boolean moveNext() {
+            final long[] keys = map.keys;
+            final int n = map.mask + 1;
+            while (++index < n) {
+                if (keys[index] != 0) {
+                    return true;
+                }
+            }
+            if (index == n && map.containsZeroKey) {
+                return true;
+            }
+            index = n + 1;
+            return false;
+        }
+
+        public long key() {
+            return map.keys[index];
+        }
+
+        public V value() {
+            return map.values[index];
+        }
+
+        public void setValue(V value) {
+            map.values[index] = value;
+        }
+
+        /** 重置游标到第一个元素之前 */
+        public void reset() {
+            index = -1;
+        }
+    }
+}
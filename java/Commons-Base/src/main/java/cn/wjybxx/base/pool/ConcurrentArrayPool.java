@@ -19,11 +19,16 @@ package cn.wjybxx.base.pool;
 import cn.wjybxx.base.SystemPropsUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -44,6 +49,9 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
             .setArrayGrowFactor(SystemPropsUtils.getDouble("Wjybxx.Commons.IO.SharedByteArrayPool.ArrayGrowFactor", 1.5))
             .setFirstBucketLength(SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedByteArrayPool.FirstBucketLength", 50))
             .setBucketGrowFactor(SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedByteArrayPool.BucketGrowFactor", 1))
+            .setThreadCacheSize(SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedByteArrayPool.ThreadCacheSize", 0))
+            .setStatsEnabled(SystemPropsUtils.getBool("Wjybxx.Commons.IO.SharedByteArrayPool.StatsEnabled", false))
+            .setAutoTune(SystemPropsUtils.getBool("Wjybxx.Commons.IO.SharedByteArrayPool.AutoTune", false))
             .build();
 
     /** 全局共享char数组池 -- charArray的使用频率稍低 */
@@ -54,6 +62,9 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
             .setArrayGrowFactor(SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedCharArrayPool.ArrayGrowFactor", 64 * 1024))
             .setFirstBucketLength(SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedCharArrayPool.FirstBucketLength", 50))
             .setBucketGrowFactor(SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedCharArrayPool.BucketGrowFactor", 1))
+            .setThreadCacheSize(SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedCharArrayPool.ThreadCacheSize", 0))
+            .setStatsEnabled(SystemPropsUtils.getBool("Wjybxx.Commons.IO.SharedCharArrayPool.StatsEnabled", false))
+            .setAutoTune(SystemPropsUtils.getBool("Wjybxx.Commons.IO.SharedCharArrayPool.AutoTune", false))
             .build();
 
     private final Class<T> arrayType;
@@ -63,6 +74,13 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
 
     private final int[] capacities; // 用于快速二分查找，避免查询buckets
     private final MpmcObjectBucket<T>[] buckets;
+    /** 线程本地缓存，未启用时为null */
+    private final ThreadMagazineCache<T> threadCache;
+
+    /** 统计信息，未启用时为null */
+    private final PoolStats stats;
+    /** 自动调整bucket大小，未启用时为null */
+    private final Tuner tuner;
 
     @SuppressWarnings("unchecked")
     public ConcurrentArrayPool(Builder<T> builder) {
@@ -88,6 +106,9 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
         for (int i = 0; i < buckets.length; i++) {
             buckets[i] = new MpmcObjectBucket<>(arrayCacheCounts[i]);
         }
+        this.stats = (builder.isStatsEnabled() || builder.isAutoTune()) ? new PoolStats(arrayCapacities) : null;
+        this.tuner = builder.isAutoTune() ? new Tuner(arrayCacheCounts) : null;
+        this.threadCache = builder.getThreadCacheSize() > 0 ? new ThreadMagazineCache<>(buckets, builder.getThreadCacheSize(), stats) : null;
     }
 
     @Nonnull
@@ -106,11 +127,17 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
     public T acquire(int minimumLength, boolean clear) {
         final int index = ArrayPoolCore.bucketIndexOfArray(capacities, minimumLength);
         if (index < 0) { // 不能被池化
+            if (stats != null) {
+                stats.onOversize();
+            }
             return (T) Array.newInstance(arrayType.getComponentType(), minimumLength);
         }
         // 先尝试从最佳池申请
-        T array = buckets[index].poll();
+        T array = threadCache != null ? threadCache.poll(index) : buckets[index].poll();
         if (array != null) {
+            if (stats != null) {
+                stats.onHit(index);
+            }
             if (clear && !this.clear) {
                 clearHandler.accept(array);
             }
@@ -122,6 +149,9 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
             for (int nextIndex = index + 1; nextIndex < end; nextIndex++) {
                 array = buckets[nextIndex].poll();
                 if (array != null) {
+                    if (stats != null) {
+                        stats.onLookAheadHit(index);
+                    }
                     if (clear && !this.clear) {
                         clearHandler.accept(array);
                     }
@@ -130,6 +160,10 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
             }
         }
         // 分配新的
+        if (stats != null) {
+            stats.onMiss(index);
+            onSlowPath();
+        }
         array = (T) Array.newInstance(arrayType.getComponentType(), capacities[index]);
         return array;
     }
@@ -153,11 +187,64 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
         if (clear) {
             clearHandler.accept(array);
         }
-        buckets[index].offer(array);
+        if (stats != null) {
+            stats.onRelease(index);
+        }
+        if (threadCache != null) {
+            threadCache.offer(index, array);
+        } else if (!buckets[index].offer(array) && stats != null) {
+            stats.onDrop(index);
+            onSlowPath();
+        }
+    }
+
+    /**
+     * 获取统计信息的快照
+     *
+     * @return 如果未启用统计则返回null
+     */
+    @Nullable
+    public PoolStats.Snapshot statsSnapshot() {
+        return stats == null ? null : stats.snapshot(buckets);
+    }
+
+    /**
+     * 根据上次调整以来的统计信息调整bucket的大小
+     * 启用自动调整时，池会在申请失败或归还丢弃达到一定次数时自动调用该方法；也可以由用户定时调用。
+     *
+     * @return 如果有bucket的大小被调整则返回true；如果其它线程正在调整则返回false
+     * @throws IllegalStateException 如果未启用自动调整
+     */
+    public boolean tune() {
+        if (tuner == null) {
+            throw new IllegalStateException("autoTune is disabled");
+        }
+        return tuner.tryTune();
+    }
+
+    /** 在申请失败或丢弃时调用 -- 只在慢路径上计数，不影响命中时的开销 */
+    private void onSlowPath() {
+        if (tuner != null && tuner.slowPathCount.incrementAndGet() % Tuner.TUNE_INTERVAL == 0) {
+            tuner.tryTune();
+        }
+    }
+
+    /** 将已终止线程的缓存数组归还共享池 -- 线程缓存启用时有效 */
+    public void trimThreadCaches() {
+        if (threadCache != null) {
+            threadCache.trim();
+        }
     }
 
+    /**
+     * 清空共享池和当前线程的缓存
+     * 其它存活线程的缓存无法清理，会在这些线程闲置一段时间后归还共享池。
+     */
     @Override
     public void clear() {
+        if (threadCache != null) {
+            threadCache.clearCurrentThread();
+        }
         for (MpmcObjectBucket<T> bucket : buckets) {
             //noinspection StatementWithEmptyBody
             while (bucket.poll() != null) {
@@ -166,6 +253,93 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
         }
     }
 
+    // region tune
+
+    /**
+     * 根据观察到的需求调整bucket的大小
+     * 1. 未命中率超过1/8时，bucket大小翻倍；bucket在一个调整周期内没有被申请且有可用对象时，bucket大小减半。
+     * 缩容只针对闲置的bucket，是为了避免与扩容规则相互抵消而反复调整。
+     * 2. bucket的大小限制在初始大小的[1/4, 8]倍之间。
+     * 3. 调整时创建新的bucket并转移对象，再替换旧的bucket；其它线程可能短暂地继续使用旧的bucket，
+     * 在此期间归还到旧bucket的对象将被丢弃(由GC回收)，这不影响正确性。
+     */
+    private class Tuner {
+
+        /** 慢路径每达到该次数，自动调整一次 */
+        static final int TUNE_INTERVAL = 1024;
+        /** 未命中次数低于该值时不扩容，避免偶发的未命中导致扩容 */
+        static final int MIN_MISSES = 16;
+
+        final int[] minLengths;
+        final int[] maxLengths;
+        final AtomicInteger slowPathCount = new AtomicInteger();
+        final AtomicBoolean tuning = new AtomicBoolean();
+        /** 上次调整时的快照 -- 只在持有tuning时访问 */
+        PoolStats.Snapshot lastSnapshot;
+
+        Tuner(int[] initLengths) {
+            this.minLengths = new int[initLengths.length];
+            this.maxLengths = new int[initLengths.length];
+            for (int i = 0; i < initLengths.length; i++) {
+                minLengths[i] = Math.max(1, initLengths[i] / 4);
+                maxLengths[i] = Math.max(8, initLengths[i] * 8);
+            }
+        }
+
+        boolean tryTune() {
+            if (!tuning.compareAndSet(false, true)) {
+                return false;
+            }
+            try {
+                return tune0();
+            } finally {
+                tuning.set(false);
+            }
+        }
+
+        private boolean tune0() {
+            PoolStats.Snapshot snapshot = stats.snapshot(buckets);
+            PoolStats.Snapshot delta = lastSnapshot == null ? snapshot : snapshot.minus(lastSnapshot);
+            lastSnapshot = snapshot;
+
+            boolean changed = false;
+            for (int i = 0; i < buckets.length; i++) {
+                int length = delta.bucketLength(i);
+                long misses = delta.misses(i);
+                long acquires = delta.hits(i) + delta.lookAheadHits(i) + misses;
+                int newLength = length;
+                if (misses >= MIN_MISSES && misses * 8 > acquires) {
+                    newLength = Math.min(maxLengths[i], Math.max(1, length * 2));
+                } else if (acquires == 0 && delta.availableCount(i) > 0) {
+                    newLength = Math.max(minLengths[i], length / 2);
+                }
+                if (newLength != length) {
+                    resize(i, newLength);
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+
+        private void resize(int index, int newLength) {
+            MpmcObjectBucket<T> oldBucket = buckets[index];
+            MpmcObjectBucket<T> newBucket = new MpmcObjectBucket<>(newLength);
+            T array;
+            //noinspection StatementWithEmptyBody
+            while ((array = oldBucket.poll()) != null && newBucket.offer(array)) {
+            }
+            VH_BUCKETS.setRelease(buckets, index, newBucket);
+            // 转移期间归还到旧bucket的对象
+            //noinspection StatementWithEmptyBody
+            while ((array = oldBucket.poll()) != null && newBucket.offer(array)) {
+            }
+        }
+    }
+
+    private static final VarHandle VH_BUCKETS = MethodHandles.arrayElementVarHandle(MpmcObjectBucket[].class);
+
+    // endregion
+
     // region builder
 
     public static <T> Builder<T> newBuilder(Class<T> arrayType) {
@@ -198,6 +372,12 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
          * 注意：使用该方式配置以后，其它设置数组和bucket的参数将无效
          */
         private final List<ArrayBucketConfig> bucketInfo = new ArrayList<>();
+        /** 每个线程每个bucket缓存的数组个数；0表示不启用线程缓存 */
+        private int threadCacheSize = 0;
+        /** 是否启用统计 */
+        private boolean statsEnabled = false;
+        /** 是否根据统计信息自动调整bucket大小 */
+        private boolean autoTune = false;
 
         private Builder(Class<T> arrayType) {
             this.arrayType = Objects.requireNonNull(arrayType, "arrayType");
@@ -295,6 +475,49 @@ public final class ConcurrentArrayPool<T> implements ArrayPool<T> {
             return bucketInfo;
         }
 
+        /**
+         * 线程本地缓存：每个线程在共享池之前为每个bucket缓存少量数组，命中时无竞争；未命中时与共享池批量交换一半的数组。
+         * 1. 线程缓存的内存开销为 线程数 * bucket数 * threadCacheSize 个数组，大数组的池应谨慎设置。
+         * 2. 虚拟线程不使用线程缓存。
+         */
+        public int getThreadCacheSize() {
+            return threadCacheSize;
+        }
+
+        public Builder<T> setThreadCacheSize(int threadCacheSize) {
+            if (threadCacheSize < 0 || threadCacheSize == 1) {
+                throw new IllegalArgumentException("threadCacheSize: " + threadCacheSize);
+            }
+            this.threadCacheSize = threadCacheSize;
+            return this;
+        }
+
+        /**
+         * 是否启用统计
+         * 统计命中、lookAhead命中、未命中、超大数组申请和归还丢弃次数，可通过{@link ConcurrentArrayPool#statsSnapshot()}获取，用于调整池的配置。
+         */
+        public boolean isStatsEnabled() {
+            return statsEnabled;
+        }
+
+        public Builder<T> setStatsEnabled(boolean statsEnabled) {
+            this.statsEnabled = statsEnabled;
+            return this;
+        }
+
+        /**
+         * 是否根据观察到的需求自动调整bucket的大小 -- 启用时隐式启用统计
+         * 数组的容量分级不会调整，只调整每个bucket缓存的数组个数。
+         */
+        public boolean isAutoTune() {
+            return autoTune;
+        }
+
+        public Builder<T> setAutoTune(boolean autoTune) {
+            this.autoTune = autoTune;
+            return this;
+        }
+
     }
     // endregion
 }
\ No newline at end of file
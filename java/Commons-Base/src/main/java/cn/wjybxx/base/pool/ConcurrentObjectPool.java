@@ -20,6 +20,7 @@ import cn.wjybxx.base.ObjectUtils;
 import cn.wjybxx.base.SystemPropsUtils;
 import cn.wjybxx.base.function.FunctionUtils;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -40,18 +41,26 @@ public final class ConcurrentObjectPool<T> implements ObjectPool<T> {
 
     private static final int SBP_MAX_CAPACITY = SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedStringBuilderPool.MaxCapacity", 64 * 1024);
     private static final int SBP_SIZE = SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedStringBuilderPool.PoolSize", 64);
+    private static final int SBP_THREAD_CACHE_SIZE = SystemPropsUtils.getInt("Wjybxx.Commons.IO.SharedStringBuilderPool.ThreadCacheSize", 0);
+    private static final boolean SBP_STATS_ENABLED = SystemPropsUtils.getBool("Wjybxx.Commons.IO.SharedStringBuilderPool.StatsEnabled", false);
 
     /** 全局共享的{@link StringBuilder}池 */
     public static final ConcurrentObjectPool<StringBuilder> SHARED_STRING_BUILDER_POOL = new ConcurrentObjectPool<>(
             () -> new StringBuilder(1024),
             sb -> sb.setLength(0),
             SBP_SIZE,
-            sb -> sb.capacity() >= 1024 && sb.capacity() <= SBP_MAX_CAPACITY);
+            sb -> sb.capacity() >= 1024 && sb.capacity() <= SBP_MAX_CAPACITY,
+            SBP_THREAD_CACHE_SIZE,
+            SBP_STATS_ENABLED);
 
     private final Supplier<? extends T> factory;
     private final Consumer<? super T> resetHandler;
     private final Predicate<? super T> filter;
     private final MpmcObjectBucket<T> freeObjects;
+    /** 线程本地缓存，未启用时为null */
+    private final ThreadMagazineCache<T> threadCache;
+    /** 统计信息，未启用时为null */
+    private final PoolStats stats;
 
     /**
      * @param factory      对象创建工厂
@@ -77,13 +86,53 @@ public final class ConcurrentObjectPool<T> implements ObjectPool<T> {
      * @param filter       对象回收过滤器
      */
     public ConcurrentObjectPool(Supplier<? extends T> factory, Consumer<? super T> resetHandler, int poolSize, Predicate<? super T> filter) {
+        this(factory, resetHandler, poolSize, filter, 0);
+    }
+
+    /**
+     * 线程本地缓存：每个线程在共享池之前缓存少量对象，命中时无竞争；未命中时与共享池批量交换一半的对象。
+     * 1. 适用于多线程高频借还的场景，比如编解码的上下文。
+     * 2. 线程缓存的对象不计入{@link #getAvailableCount()}，池中的对象总数上限为 poolSize + 线程数 * threadCacheSize。
+     * 3. 虚拟线程不使用线程缓存。
+     *
+     * @param factory         对象创建工厂
+     * @param resetHandler    重置方法
+     * @param poolSize        缓存池大小；0表示不缓存对象
+     * @param filter          对象回收过滤器
+     * @param threadCacheSize 每个线程缓存的对象数；0表示不启用线程缓存
+     */
+    public ConcurrentObjectPool(Supplier<? extends T> factory, Consumer<? super T> resetHandler, int poolSize, Predicate<? super T> filter,
+                                int threadCacheSize) {
+        this(factory, resetHandler, poolSize, filter, threadCacheSize, false);
+    }
+
+    /**
+     * @param factory         对象创建工厂
+     * @param resetHandler    重置方法
+     * @param poolSize        缓存池大小；0表示不缓存对象
+     * @param filter          对象回收过滤器
+     * @param threadCacheSize 每个线程缓存的对象数；0表示不启用线程缓存
+     * @param statsEnabled    是否启用统计，见{@link #statsSnapshot()}
+     */
+    public ConcurrentObjectPool(Supplier<? extends T> factory, Consumer<? super T> resetHandler, int poolSize, Predicate<? super T> filter,
+                                int threadCacheSize, boolean statsEnabled) {
         if (poolSize < 0) {
             throw new IllegalArgumentException("poolSize: " + poolSize);
         }
+        if (threadCacheSize < 0 || threadCacheSize == 1) {
+            throw new IllegalArgumentException("threadCacheSize: " + threadCacheSize);
+        }
         this.factory = Objects.requireNonNull(factory, "factory");
         this.resetHandler = ObjectUtils.nullToDef(resetHandler, FunctionUtils.emptyConsumer());
         this.filter = filter;
         this.freeObjects = new MpmcObjectBucket<>(poolSize);
+        this.stats = statsEnabled ? new PoolStats(new int[1]) : null;
+        if (threadCacheSize > 0 && poolSize > 0) {
+            @SuppressWarnings("unchecked") MpmcObjectBucket<T>[] buckets = new MpmcObjectBucket[]{freeObjects};
+            this.threadCache = new ThreadMagazineCache<>(buckets, threadCacheSize, stats);
+        } else {
+            this.threadCache = null;
+        }
     }
 
     /** 获取池大小 */
@@ -91,9 +140,14 @@ public final class ConcurrentObjectPool<T> implements ObjectPool<T> {
         return freeObjects.getLength();
     }
 
+    /** 每个线程缓存的对象数；0表示未启用线程缓存 */
+    public int getThreadCacheSize() {
+        return threadCache == null ? 0 : threadCache.getMagazineSize();
+    }
+
     /**
      * 可用对象数
-     * 注意：这只是一个估值，通常仅用于debug和测试用例
+     * 注意：这只是一个估值，通常仅用于debug和测试用例；不包含线程缓存中的对象。
      */
     public int getAvailableCount() {
         return freeObjects.size();
@@ -107,7 +161,14 @@ public final class ConcurrentObjectPool<T> implements ObjectPool<T> {
 
     @Override
     public T acquire() {
-        T obj = freeObjects.poll();
+        T obj = threadCache != null ? threadCache.poll(0) : freeObjects.poll();
+        if (stats != null) {
+            if (obj != null) {
+                stats.onHit(0);
+            } else {
+                stats.onMiss(0);
+            }
+        }
         return obj != null ? obj : factory.get();
     }
 
@@ -117,13 +178,47 @@ public final class ConcurrentObjectPool<T> implements ObjectPool<T> {
             throw new IllegalArgumentException("obj cannot be null.");
         }
         resetHandler.accept(obj);
+        if (stats != null) {
+            stats.onRelease(0);
+        }
         if (filter == null || filter.test(obj)) {
-            freeObjects.offer(obj);
+            if (threadCache != null) {
+                threadCache.offer(0, obj);
+            } else if (!freeObjects.offer(obj) && stats != null) {
+                stats.onDrop(0);
+            }
+        }
+    }
+
+    /**
+     * 获取统计信息的快照 -- 对象池只有一个bucket
+     *
+     * @return 如果未启用统计则返回null
+     */
+    @Nullable
+    public PoolStats.Snapshot statsSnapshot() {
+        if (stats == null) {
+            return null;
         }
+        return stats.snapshot(new MpmcObjectBucket<?>[]{freeObjects});
     }
 
+    /** 将已终止线程的缓存对象归还共享池 -- 线程缓存启用时有效 */
+    public void trimThreadCaches() {
+        if (threadCache != null) {
+            threadCache.trim();
+        }
+    }
+
+    /**
+     * 清空共享池和当前线程的缓存
+     * 其它存活线程的缓存无法清理，会在这些线程闲置一段时间后归还共享池。
+     */
     @Override
     public void clear() {
+        if (threadCache != null) {
+            threadCache.clearCurrentThread();
+        }
         //noinspection StatementWithEmptyBody
         while (freeObjects.poll() != null) {
         }
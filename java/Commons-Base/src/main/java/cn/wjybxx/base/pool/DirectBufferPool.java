@@ -0,0 +1,309 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.pool;
+
+import cn.wjybxx.base.MathCommon;
+import cn.wjybxx.base.SystemPropsUtils;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 堆外内存的{@link ByteBuffer}池
+ * <p>
+ * 1. 尺寸类别为2的整次幂，从{@code minChunkSize}到{@code maxChunkSize}；每个类别从大块的slab({@link ByteBuffer#allocateDirect(int)})中切分出等大的chunk。
+ * 2. slab按需分配，每个类别最多{@code maxSlabsPerClass}个；slab分配后不释放，直到池被GC。
+ * 3. 超过最大尺寸或类别已耗尽时，分配非池化的堆外buffer，释放时由GC回收。
+ * 4. 分配的buffer是引用计数的，见{@link PooledByteBuffer}。
+ * 5. 泄漏检测：启用时为每个句柄记录分配时的堆栈，句柄在释放前被GC时通过{@link System.Logger}报告泄漏；
+ * 泄漏检测的开销较大，通常只在测试和debug时启用({@code Wjybxx.Commons.IO.DirectBufferPool.LeakDetection})。
+ * 泄漏的chunk不会被回收，因为无法确定用户是否还持有{@link ByteBuffer}。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@ThreadSafe
+public final class DirectBufferPool {
+
+    private static final System.Logger logger = System.getLogger(DirectBufferPool.class.getName());
+    private static final boolean LEAK_DETECTION = SystemPropsUtils.getBool("Wjybxx.Commons.IO.DirectBufferPool.LeakDetection", false);
+
+    private final int minChunkSize;
+    private final int maxChunkSize;
+    private final int maxSlabsPerClass;
+    private final boolean leakDetection;
+    private final SizeClass[] sizeClasses;
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private DirectBufferPool(Builder builder) {
+        this.minChunkSize = MathCommon.nextPowerOfTwo(builder.minChunkSize);
+        this.maxChunkSize = MathCommon.nextPowerOfTwo(builder.maxChunkSize);
+        int slabSize = builder.slabSize;
+        this.maxSlabsPerClass = builder.maxSlabsPerClass;
+        this.leakDetection = builder.leakDetection;
+        if (minChunkSize > maxChunkSize || maxChunkSize > slabSize) {
+            throw new IllegalArgumentException("require minChunkSize <= maxChunkSize <= slabSize");
+        }
+
+        int count = Integer.numberOfTrailingZeros(maxChunkSize) - Integer.numberOfTrailingZeros(minChunkSize) + 1;
+        this.sizeClasses = new SizeClass[count];
+        for (int i = 0; i < count; i++) {
+            int chunkSize = minChunkSize << i;
+            sizeClasses[i] = new SizeClass(chunkSize, slabSize / chunkSize, maxSlabsPerClass);
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * 分配buffer
+     *
+     * @param minCapacity 最小容量，返回的buffer容量可能更大
+     */
+    public PooledByteBuffer allocate(int minCapacity) {
+        if (minCapacity < 0) {
+            throw new IllegalArgumentException("minCapacity: " + minCapacity);
+        }
+        if (minCapacity > maxChunkSize) {
+            return newHandle(-1, ByteBuffer.allocateDirect(minCapacity));
+        }
+        int index = sizeClassIndex(minCapacity);
+        ByteBuffer chunk = sizeClasses[index].allocate();
+        if (chunk == null) { // 已耗尽
+            return newHandle(-1, ByteBuffer.allocateDirect(minCapacity));
+        }
+        return newHandle(index, chunk);
+    }
+
+    private int sizeClassIndex(int capacity) {
+        if (capacity <= minChunkSize) {
+            return 0;
+        }
+        return (32 - Integer.numberOfLeadingZeros(capacity - 1)) - Integer.numberOfTrailingZeros(minChunkSize);
+    }
+
+    private PooledByteBuffer newHandle(int sizeClass, ByteBuffer chunk) {
+        if (!leakDetection) {
+            return new PooledByteBuffer(this, sizeClass, chunk, null);
+        }
+        LeakTracker leakTracker = new LeakTracker(this, chunk.capacity());
+        PooledByteBuffer handle = new PooledByteBuffer(this, sizeClass, chunk, leakTracker);
+        leakTracker.cleanable = CleanerHolder.CLEANER.register(handle, leakTracker);
+        return handle;
+    }
+
+    void free(int sizeClass, ByteBuffer chunk) {
+        chunk.clear();
+        chunk.order(ByteOrder.BIG_ENDIAN);
+        sizeClasses[sizeClass].free(chunk);
+    }
+
+    // region 统计
+
+    /** 已分配的slab占用的堆外内存 */
+    public long allocatedMemory() {
+        long sum = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            sum += (long) sizeClass.slabCount * sizeClass.chunksPerSlab * sizeClass.chunkSize;
+        }
+        return sum;
+    }
+
+    /** 已借出的池化chunk占用的内存 -- 估算值 */
+    public long usedMemory() {
+        long sum = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            long total = (long) sizeClass.slabCount * sizeClass.chunksPerSlab;
+            sum += (total - sizeClass.freeChunks.size()) * sizeClass.chunkSize;
+        }
+        return sum;
+    }
+
+    /** 检测到的泄漏次数 -- 未启用泄漏检测时始终为0 */
+    public long leakCount() {
+        return leakCount.get();
+    }
+
+    public boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    public int getMinChunkSize() {
+        return minChunkSize;
+    }
+
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    // endregion
+
+    private static class SizeClass {
+
+        final int chunkSize;
+        final int chunksPerSlab;
+        final int maxSlabs;
+        final MpmcObjectBucket<ByteBuffer> freeChunks;
+        /** 已分配的slab数 -- 在锁内写 */
+        volatile int slabCount;
+
+        SizeClass(int chunkSize, int chunksPerSlab, int maxSlabs) {
+            this.chunkSize = chunkSize;
+            this.chunksPerSlab = chunksPerSlab;
+            this.maxSlabs = maxSlabs;
+            this.freeChunks = new MpmcObjectBucket<>(chunksPerSlab * maxSlabs);
+        }
+
+        ByteBuffer allocate() {
+            ByteBuffer chunk = freeChunks.poll();
+            if (chunk != null) {
+                return chunk;
+            }
+            return allocateSlab();
+        }
+
+        /** 分配新的slab，并返回其中的一个chunk；其余chunk压入空闲队列 */
+        private synchronized ByteBuffer allocateSlab() {
+            // 等待锁期间可能有其它线程分配了slab或归还了chunk
+            ByteBuffer chunk = freeChunks.poll();
+            if (chunk != null) {
+                return chunk;
+            }
+            if (slabCount >= maxSlabs) {
+                return null;
+            }
+            ByteBuffer slab = ByteBuffer.allocateDirect(chunkSize * chunksPerSlab);
+            for (int i = 1; i < chunksPerSlab; i++) {
+                freeChunks.offer(slab.slice(i * chunkSize, chunkSize));
+            }
+            slabCount++;
+            return slab.slice(0, chunkSize);
+        }
+
+        void free(ByteBuffer chunk) {
+            freeChunks.offer(chunk); // 空闲队列大小等于chunk总数，不会失败
+        }
+    }
+
+    /** 泄漏检测 -- 不可引用句柄，否则句柄永远不会被GC */
+    static final class LeakTracker implements Runnable {
+
+        private final DirectBufferPool pool;
+        private final int capacity;
+        private final Throwable allocationTrace;
+        private volatile boolean closed;
+        Cleaner.Cleanable cleanable;
+
+        LeakTracker(DirectBufferPool pool, int capacity) {
+            this.pool = pool;
+            this.capacity = capacity;
+            this.allocationTrace = new Throwable("PooledByteBuffer allocation");
+        }
+
+        /** 正常释放 */
+        void close() {
+            closed = true;
+            cleanable.clean();
+        }
+
+        @Override
+        public void run() {
+            if (closed) {
+                return;
+            }
+            pool.leakCount.incrementAndGet();
+            logger.log(System.Logger.Level.ERROR,
+                    "LEAK: PooledByteBuffer(capacity=" + capacity + ") was garbage collected before release", allocationTrace);
+        }
+    }
+
+    private static class CleanerHolder {
+
+        static final Cleaner CLEANER = Cleaner.create();
+    }
+
+    public static class Builder {
+
+        private int minChunkSize = 256;
+        private int maxChunkSize = 64 * 1024;
+        private int slabSize = 1024 * 1024;
+        private int maxSlabsPerClass = 4;
+        private boolean leakDetection = LEAK_DETECTION;
+
+        public DirectBufferPool build() {
+            if (minChunkSize <= 0 || slabSize <= 0 || maxSlabsPerClass <= 0) {
+                throw new IllegalStateException("minChunkSize, slabSize and maxSlabsPerClass must be positive");
+            }
+            return new DirectBufferPool(this);
+        }
+
+        /** 最小的chunk大小，会向上取整为2的整次幂；默认256 */
+        public int getMinChunkSize() {
+            return minChunkSize;
+        }
+
+        public Builder setMinChunkSize(int minChunkSize) {
+            this.minChunkSize = minChunkSize;
+            return this;
+        }
+
+        /** 最大的chunk大小，会向上取整为2的整次幂，超过该大小的申请不池化；默认64K */
+        public int getMaxChunkSize() {
+            return maxChunkSize;
+        }
+
+        public Builder setMaxChunkSize(int maxChunkSize) {
+            this.maxChunkSize = maxChunkSize;
+            return this;
+        }
+
+        /** 单个slab的大小，不可小于最大的chunk大小；默认1M */
+        public int getSlabSize() {
+            return slabSize;
+        }
+
+        public Builder setSlabSize(int slabSize) {
+            this.slabSize = slabSize;
+            return this;
+        }
+
+        /** 每个尺寸类别最多分配的slab数；默认4 */
+        public int getMaxSlabsPerClass() {
+            return maxSlabsPerClass;
+        }
+
+        public Builder setMaxSlabsPerClass(int maxSlabsPerClass) {
+            this.maxSlabsPerClass = maxSlabsPerClass;
+            return this;
+        }
+
+        /** 是否启用泄漏检测；默认读取系统属性{@code Wjybxx.Commons.IO.DirectBufferPool.LeakDetection} */
+        public boolean isLeakDetection() {
+            return leakDetection;
+        }
+
+        public Builder setLeakDetection(boolean leakDetection) {
+            this.leakDetection = leakDetection;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.pool;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发池的统计信息
+ * <p>
+ * 1. 计数器使用{@link LongAdder}分段计数，多线程写入时竞争很小；读取需要汇总，因此只适合定期采样。
+ * 2. 计数按bucket区分：申请时按照最佳bucket计数，归还时按照数组所在的bucket计数。
+ * 3. 对象池只有一个bucket，其容量为0。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@ThreadSafe
+public final class PoolStats {
+
+    private final int[] arrayCapacities;
+    /** 从最佳bucket申请成功的次数 */
+    private final LongAdder[] hits;
+    /** 最佳bucket为空，从更大的bucket申请成功的次数 */
+    private final LongAdder[] lookAheadHits;
+    /** 未能从池中申请，分配新对象的次数 */
+    private final LongAdder[] misses;
+    /** 归还次数 */
+    private final LongAdder[] releases;
+    /** bucket已满而丢弃的次数 */
+    private final LongAdder[] drops;
+    /** 申请的数组过大而不能池化的次数 */
+    private final LongAdder oversize = new LongAdder();
+
+    PoolStats(int[] arrayCapacities) {
+        this.arrayCapacities = arrayCapacities.clone();
+        int count = arrayCapacities.length;
+        this.hits = newAdders(count);
+        this.lookAheadHits = newAdders(count);
+        this.misses = newAdders(count);
+        this.releases = newAdders(count);
+        this.drops = newAdders(count);
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    void onHit(int index) {
+        hits[index].increment();
+    }
+
+    void onLookAheadHit(int index) {
+        lookAheadHits[index].increment();
+    }
+
+    void onMiss(int index) {
+        misses[index].increment();
+    }
+
+    void onRelease(int index) {
+        releases[index].increment();
+    }
+
+    void onDrop(int index) {
+        drops[index].increment();
+    }
+
+    void onOversize() {
+        oversize.increment();
+    }
+
+    /** 创建快照 -- 计数器的汇总不是原子的，快照中的各个值之间可能有微小的偏差 */
+    Snapshot snapshot(MpmcObjectBucket<?>[] buckets) {
+        int count = arrayCapacities.length;
+        int[] bucketLengths = new int[count];
+        int[] availableCounts = new int[count];
+        for (int i = 0; i < count; i++) {
+            MpmcObjectBucket<?> bucket = buckets[i];
+            bucketLengths[i] = bucket.getLength();
+            availableCounts[i] = bucket.size();
+        }
+        return new Snapshot(arrayCapacities, bucketLengths, availableCounts,
+                sum(hits), sum(lookAheadHits), sum(misses), sum(releases), sum(drops), oversize.sum());
+    }
+
+    private static long[] sum(LongAdder[] adders) {
+        long[] result = new long[adders.length];
+        for (int i = 0; i < adders.length; i++) {
+            result[i] = adders[i].sum();
+        }
+        return result;
+    }
+
+    /** 统计信息的快照，不可变 */
+    public static final class Snapshot {
+
+        private final int[] arrayCapacities;
+        private final int[] bucketLengths;
+        private final int[] availableCounts;
+        private final long[] hits;
+        private final long[] lookAheadHits;
+        private final long[] misses;
+        private final long[] releases;
+        private final long[] drops;
+        private final long oversize;
+
+        private Snapshot(int[] arrayCapacities, int[] bucketLengths, int[] availableCounts,
+                         long[] hits, long[] lookAheadHits, long[] misses, long[] releases, long[] drops, long oversize) {
+            this.arrayCapacities = arrayCapacities;
+            this.bucketLengths = bucketLengths;
+            this.availableCounts = availableCounts;
+            this.hits = hits;
+            this.lookAheadHits = lookAheadHits;
+            this.misses = misses;
+            this.releases = releases;
+            this.drops = drops;
+            this.oversize = oversize;
+        }
+
+        /**
+         * 计算两个快照之间的增量，用于统计一段时间内的情况
+         * 容量等状态信息使用当前快照的值。
+         *
+         * @param prev 之前的快照，必须来自同一个池
+         */
+        public Snapshot minus(Snapshot prev) {
+            if (prev.bucketCount() != bucketCount()) {
+                throw new IllegalArgumentException("bucketCount mismatch");
+            }
+            return new Snapshot(arrayCapacities, bucketLengths, availableCounts,
+                    minus(hits, prev.hits), minus(lookAheadHits, prev.lookAheadHits), minus(misses, prev.misses),
+                    minus(releases, prev.releases), minus(drops, prev.drops), oversize - prev.oversize);
+        }
+
+        private static long[] minus(long[] a, long[] b) {
+            long[] result = new long[a.length];
+            for (int i = 0; i < a.length; i++) {
+                result[i] = a[i] - b[i];
+            }
+            return result;
+        }
+
+        /** bucket数量 */
+        public int bucketCount() {
+            return arrayCapacities.length;
+        }
+
+        /** bucket中的数组大小；对象池为0 */
+        public int arrayCapacity(int index) {
+            return arrayCapacities[index];
+        }
+
+        /** bucket的大小(可缓存的对象数) */
+        public int bucketLength(int index) {
+            return bucketLengths[index];
+        }
+
+        /** bucket中的可用对象数 -- 不包含线程缓存中的对象 */
+        public int availableCount(int index) {
+            return availableCounts[index];
+        }
+
+        public long hits(int index) {
+            return hits[index];
+        }
+
+        public long lookAheadHits(int index) {
+            return lookAheadHits[index];
+        }
+
+        public long misses(int index) {
+            return misses[index];
+        }
+
+        public long releases(int index) {
+            return releases[index];
+        }
+
+        public long drops(int index) {
+            return drops[index];
+        }
+
+        /** 申请的数组过大而不能池化的次数 */
+        public long oversize() {
+            return oversize;
+        }
+
+        /** 申请次数(不包含oversize) */
+        public long totalAcquires() {
+            long sum = 0;
+            for (int i = 0; i < hits.length; i++) {
+                sum += hits[i] + lookAheadHits[i] + misses[i];
+            }
+            return sum;
+        }
+
+        /** 命中率(包含lookAhead命中) */
+        public double hitRate() {
+            long total = totalAcquires();
+            if (total == 0) {
+                return 0;
+            }
+            long sum = 0;
+            for (int i = 0; i < hits.length; i++) {
+                sum += hits[i] + lookAheadHits[i];
+            }
+            return (double) sum / total;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(64 + arrayCapacities.length * 128);
+            sb.append("PoolStats{hitRate=").append(String.format("%.4f", hitRate()))
+                    .append(", oversize=").append(oversize);
+            for (int i = 0; i < arrayCapacities.length; i++) {
+                sb.append("\n  [").append(i).append("] capacity=").append(arrayCapacities[i])
+                        .append(", length=").append(bucketLengths[i])
+                        .append(", available=").append(availableCounts[i])
+                        .append(", hits=").append(hits[i])
+                        .append(", lookAheadHits=").append(lookAheadHits[i])
+                        .append(", misses=").append(misses[i])
+                        .append(", releases=").append(releases[i])
+                        .append(", drops=").append(drops[i]);
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
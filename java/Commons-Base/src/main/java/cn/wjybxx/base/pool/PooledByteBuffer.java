@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.pool;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+/**
+ * 引用计数的池化{@link ByteBuffer}，由{@link DirectBufferPool}分配
+ * <p>
+ * 1. 创建时引用计数为1，{@link #retain()}增加引用计数，{@link #release()}减少引用计数；引用计数为0时归还池。
+ * 2. 释放后不可再访问{@link #buffer()}；用户也不应该再持有之前获取的{@link ByteBuffer}，因为其内存可能已分配给其它用户。
+ * 3. 每次分配都创建新的句柄，因此重复释放旧的句柄不会影响新的持有者。
+ * 4. 启用泄漏检测时，句柄在释放前被GC将报告泄漏。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@ThreadSafe
+public final class PooledByteBuffer implements AutoCloseable {
+
+    private final DirectBufferPool pool;
+    /** 尺寸类别；-1表示未池化 */
+    private final int sizeClass;
+    private final ByteBuffer chunk;
+    private final DirectBufferPool.LeakTracker leakTracker;
+    @SuppressWarnings("unused")
+    private volatile int refCnt = 1;
+
+    PooledByteBuffer(DirectBufferPool pool, int sizeClass, ByteBuffer chunk, DirectBufferPool.LeakTracker leakTracker) {
+        this.pool = pool;
+        this.sizeClass = sizeClass;
+        this.chunk = chunk;
+        this.leakTracker = leakTracker;
+    }
+
+    /**
+     * 获取底层的buffer
+     * 分配时position为0，limit为容量，字节序为大端；buffer的容量可能大于申请的大小。
+     *
+     * @throws IllegalStateException 如果已释放
+     */
+    public ByteBuffer buffer() {
+        if (refCnt <= 0) {
+            throw new IllegalStateException("buffer released");
+        }
+        return chunk;
+    }
+
+    /** 容量 */
+    public int capacity() {
+        return chunk.capacity();
+    }
+
+    /** 是否是池化的 -- 超过池的最大尺寸或池已耗尽时分配非池化的buffer */
+    public boolean isPooled() {
+        return sizeClass >= 0;
+    }
+
+    /** 当前引用计数 */
+    public int refCnt() {
+        return refCnt;
+    }
+
+    /**
+     * 增加引用计数
+     *
+     * @throws IllegalStateException 如果已释放
+     */
+    public PooledByteBuffer retain() {
+        int cnt;
+        do {
+            cnt = refCnt;
+            if (cnt <= 0) {
+                throw new IllegalStateException("buffer released");
+            }
+        } while (!REF_CNT.compareAndSet(this, cnt, cnt + 1));
+        return this;
+    }
+
+    /**
+     * 减少引用计数，引用计数为0时归还池
+     *
+     * @return 如果引用计数变为0则返回true
+     * @throws IllegalStateException 如果已释放
+     */
+    public boolean release() {
+        int cnt;
+        do {
+            cnt = refCnt;
+            if (cnt <= 0) {
+                throw new IllegalStateException("buffer released");
+            }
+        } while (!REF_CNT.compareAndSet(this, cnt, cnt - 1));
+        if (cnt != 1) {
+            return false;
+        }
+        if (leakTracker != null) {
+            leakTracker.close();
+        }
+        if (sizeClass >= 0) {
+            pool.free(sizeClass, chunk);
+        }
+        return true;
+    }
+
+    /** 等同于{@link #release()} */
+    @Override
+    public void close() {
+        release();
+    }
+
+    @Override
+    public String toString() {
+        return "PooledByteBuffer{" +
+                "capacity=" + chunk.capacity() +
+                ", pooled=" + (sizeClass >= 0) +
+                ", refCnt=" + refCnt +
+                '}';
+    }
+
+    private static final VarHandle REF_CNT;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            REF_CNT = l.findVarHandle(PooledByteBuffer.class, "refCnt", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
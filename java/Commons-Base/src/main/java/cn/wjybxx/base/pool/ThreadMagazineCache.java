@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.pool;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 线程本地的弹匣缓存(magazine)，位于共享桶之前，减少共享桶上的CAS竞争
+ * <p>
+ * 1. 每个线程每个尺寸类别一个小的栈，命中时不需要任何同步。
+ * 2. 栈为空时从共享桶批量补充一半，栈满时将较旧的一半批量归还共享桶 -- 共享桶已满时丢弃。
+ * 3. 线程长时间未使用的尺寸类别，在该线程后续的操作中归还共享桶；已终止线程的缓存在新线程注册或{@link #trim()}时归还共享桶。
+ * 4. 虚拟线程不使用缓存，直接访问共享桶 -- 虚拟线程数量庞大且生命周期短，缓存只会浪费内存。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+final class ThreadMagazineCache<T> {
+
+    /** 每隔多少次操作检查一次闲置的类别 -- 需要是2的幂 */
+    private static final int TRIM_INTERVAL = 4096;
+
+    private final MpmcObjectBucket<T>[] buckets;
+    private final int magazineSize;
+    private final PoolStats stats;
+    private final ThreadLocal<Magazines> threadLocal = new ThreadLocal<>();
+    private final ConcurrentLinkedQueue<Magazines> registry = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param buckets      共享桶，每个尺寸类别一个
+     * @param magazineSize 每个线程每个类别缓存的对象数
+     * @param stats        统计信息，用于记录归还共享桶时丢弃的对象
+     */
+    ThreadMagazineCache(MpmcObjectBucket<T>[] buckets, int magazineSize, @Nullable PoolStats stats) {
+        if (magazineSize < 2) {
+            throw new IllegalArgumentException("magazineSize: " + magazineSize);
+        }
+        this.buckets = buckets;
+        this.magazineSize = magazineSize;
+        this.stats = stats;
+    }
+
+    int getMagazineSize() {
+        return magazineSize;
+    }
+
+    /** @return 如果缓存和共享桶都没有可用对象则返回null */
+    T poll(int classIndex) {
+        Magazines magazines = currentMagazines();
+        if (magazines == null) {
+            return buckets[classIndex].poll();
+        }
+        return magazines.poll(classIndex);
+    }
+
+    void offer(int classIndex, T obj) {
+        Magazines magazines = currentMagazines();
+        if (magazines == null) {
+            offerShared(classIndex, obj);
+            return;
+        }
+        magazines.offer(classIndex, obj);
+    }
+
+    private void offerShared(int classIndex, T obj) {
+        if (!buckets[classIndex].offer(obj) && stats != null) {
+            stats.onDrop(classIndex);
+        }
+    }
+
+    /**
+     * 将已终止线程的缓存归还共享桶
+     * 多个线程可能同时执行该方法，迭代器的remove不能告知是否由当前线程删除，
+     * 因此通过{@link ConcurrentLinkedQueue#remove(Object)}的CAS确定唯一的归还者，否则同一批对象可能被重复归还。
+     */
+    void trim() {
+        for (Magazines magazines : registry) {
+            Thread owner = magazines.owner.get();
+            if ((owner == null || !owner.isAlive()) && registry.remove(magazines)) {
+                magazines.flushAll();
+            }
+        }
+    }
+
+    /** 清空当前线程的缓存，并归还已终止线程的缓存 -- 其它存活线程的缓存无法清理 */
+    void clearCurrentThread() {
+        Magazines magazines = threadLocal.get();
+        if (magazines != null) {
+            magazines.flushAll();
+        }
+        trim();
+    }
+
+    private Magazines currentMagazines() {
+        Magazines magazines = threadLocal.get();
+        if (magazines == null) {
+            Thread thread = Thread.currentThread();
+            if (thread.isVirtual()) {
+                return null;
+            }
+            trim();
+            magazines = new Magazines(thread);
+            threadLocal.set(magazines);
+            registry.add(magazines);
+        }
+        return magazines;
+    }
+
+    /** 单个线程的缓存 -- 只由所属线程访问，线程终止后由{@link #trim()}访问 */
+    private final class Magazines {
+
+        final WeakReference<Thread> owner;
+        final Object[][] stacks;
+        final int[] sizes;
+        /** 每个类别最近一次使用时的操作序号 */
+        final int[] lastUsed;
+        int ops;
+
+        Magazines(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+            this.stacks = new Object[buckets.length][];
+            this.sizes = new int[buckets.length];
+            this.lastUsed = new int[buckets.length];
+        }
+
+        @SuppressWarnings("unchecked")
+        T poll(int classIndex) {
+            tick(classIndex);
+            int size = sizes[classIndex];
+            if (size == 0 && (size = refill(classIndex)) == 0) {
+                return null;
+            }
+            Object[] stack = stacks[classIndex];
+            T obj = (T) stack[--size];
+            stack[size] = null;
+            sizes[classIndex] = size;
+            return obj;
+        }
+
+        void offer(int classIndex, T obj) {
+            tick(classIndex);
+            Object[] stack = stacks[classIndex];
+            if (stack == null) {
+                stack = stacks[classIndex] = new Object[magazineSize];
+            }
+            int size = sizes[classIndex];
+            if (size == magazineSize) {
+                size = flushOldest(classIndex, magazineSize / 2);
+            }
+            stack[size] = obj;
+            sizes[classIndex] = size + 1;
+        }
+
+        /** 从共享桶批量补充一半 */
+        @SuppressWarnings("unchecked")
+        private int refill(int classIndex) {
+            Object[] stack = stacks[classIndex];
+            if (stack == null) {
+                stack = stacks[classIndex] = new Object[magazineSize];
+            }
+            final MpmcObjectBucket<T> bucket = buckets[classIndex];
+            final int count = magazineSize / 2;
+            int size = 0;
+            T obj;
+            while (size < count && (obj = bucket.poll()) != null) {
+                stack[size++] = obj;
+            }
+            sizes[classIndex] = size;
+            return size;
+        }
+
+        /**
+         * 将栈底较旧的对象批量归还共享桶，栈顶较新的对象下移
+         *
+         * @return 剩余的对象数
+         */
+        @SuppressWarnings("unchecked")
+        private int flushOldest(int classIndex, int count) {
+            final Object[] stack = stacks[classIndex];
+            final int size = sizes[classIndex];
+            for (int i = 0; i < count; i++) {
+                offerShared(classIndex, (T) stack[i]);
+            }
+            int remain = size - count;
+            System.arraycopy(stack, count, stack, 0, remain);
+            for (int i = remain; i < size; i++) {
+                stack[i] = null;
+            }
+            sizes[classIndex] = remain;
+            return remain;
+        }
+
+        private void tick(int classIndex) {
+            int ops = ++this.ops;
+            lastUsed[classIndex] = ops;
+            if ((ops & (TRIM_INTERVAL - 1)) == 0) {
+                trimIdle(ops);
+            }
+        }
+
+        /** 归还闲置类别的缓存 */
+        private void trimIdle(int ops) {
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] > 0 && ops - lastUsed[i] >= TRIM_INTERVAL) {
+                    flushOldest(i, sizes[i]);
+                }
+            }
+        }
+
+        void flushAll() {
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] > 0) {
+                    flushOldest(i, sizes[i]);
+                }
+            }
+        }
+    }
+}
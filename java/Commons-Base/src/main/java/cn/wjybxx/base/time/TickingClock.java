@@ -0,0 +1,208 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.time;
+
+import cn.wjybxx.base.SystemPropsUtils;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 由后台线程定时更新的时钟
+ * <p>
+ * 1. 一个守护线程按照指定的精度读取系统时间，并写入volatile字段；读取时间只是一次volatile读，适用于每秒读取百万次的场景，如日志时间戳和超时检查。
+ * 2. 读取的时间最多落后一个精度(加上线程调度延迟)，不适用于需要精确时间的场景，如测量耗时。
+ * 3. 纳秒时间来自{@link System#nanoTime()}，是单调的；毫秒时间来自{@link System#currentTimeMillis()}，会跟随系统时间调整。
+ * 4. 共享的时钟见{@link #shared()}，其精度由系统属性{@code Wjybxx.Commons.Time.TickingClock.ResolutionMicros}指定，默认1毫秒。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@ThreadSafe
+public final class TickingClock implements AutoCloseable {
+
+    private static final long MIN_RESOLUTION_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    // region padding
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+    // endregion
+
+    /** 纳秒时间 -- 只由ticker线程写 */
+    private volatile long nanoTime;
+    /** 毫秒时间 -- 和纳秒时间一起更新，位于同一个缓存行 */
+    private volatile long currentTimeMillis;
+
+    // region padding
+    @SuppressWarnings("unused")
+    private long p11, p12, p13, p14, p15, p16;
+    // endregion
+
+    private final long resolutionNanos;
+    private final Thread ticker;
+    private final TimeProvider nanosProvider;
+    private final TimeProvider millisProvider;
+    private volatile boolean closed;
+
+    private TickingClock(long resolutionNanos, String threadName) {
+        this.resolutionNanos = resolutionNanos;
+        this.nanosProvider = new NanosProvider(this);
+        this.millisProvider = new MillisProvider(this);
+        tick();
+
+        this.ticker = new Thread(this::loop, threadName);
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * 创建一个时钟，并立即启动后台线程
+     * 不再使用时需要调用{@link #close()}停止后台线程。
+     *
+     * @param resolution 精度，最小10微秒
+     * @param unit       时间单位
+     */
+    public static TickingClock newClock(long resolution, TimeUnit unit) {
+        long resolutionNanos = unit.toNanos(resolution);
+        if (resolutionNanos < MIN_RESOLUTION_NANOS) {
+            throw new IllegalArgumentException("resolution must be at least 10us, resolution: " + resolution + " " + unit);
+        }
+        return new TickingClock(resolutionNanos, "TickingClock-" + TimeUnit.NANOSECONDS.toMicros(resolutionNanos) + "us");
+    }
+
+    /** 获取共享的时钟 -- 不可关闭 */
+    public static TickingClock shared() {
+        return SharedHolder.INSTANCE;
+    }
+
+    /** 缓存的{@link System#nanoTime()} */
+    public long nanoTime() {
+        return nanoTime;
+    }
+
+    /** 缓存的{@link System#currentTimeMillis()} */
+    public long currentTimeMillis() {
+        return currentTimeMillis;
+    }
+
+    /** 纳秒时间提供器 -- 线程安全 */
+    public TimeProvider nanosProvider() {
+        return nanosProvider;
+    }
+
+    /** 毫秒时间提供器 -- 线程安全 */
+    public TimeProvider millisProvider() {
+        return millisProvider;
+    }
+
+    /** 更新精度(纳秒) */
+    public long getResolutionNanos() {
+        return resolutionNanos;
+    }
+
+    /** 时钟是否已关闭 -- 关闭后时间不再更新 */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 停止后台线程
+     *
+     * @throws IllegalStateException 如果是共享的时钟
+     */
+    @Override
+    public void close() {
+        if (this == SharedHolder.INSTANCE) {
+            throw new IllegalStateException("the shared clock cannot be closed");
+        }
+        closed = true;
+        LockSupport.unpark(ticker);
+    }
+
+    private void tick() {
+        nanoTime = System.nanoTime();
+        currentTimeMillis = System.currentTimeMillis();
+    }
+
+    private void loop() {
+        final long resolutionNanos = this.resolutionNanos;
+        while (!closed) {
+            LockSupport.parkNanos(this, resolutionNanos);
+            tick();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "TickingClock{" +
+                "resolutionNanos=" + resolutionNanos +
+                ", closed=" + closed +
+                '}';
+    }
+
+    private static class SharedHolder {
+
+        static final TickingClock INSTANCE;
+
+        static {
+            long resolutionMicros = SystemPropsUtils.getLong("Wjybxx.Commons.Time.TickingClock.ResolutionMicros", 1000);
+            long resolutionNanos = Math.max(MIN_RESOLUTION_NANOS, TimeUnit.MICROSECONDS.toNanos(resolutionMicros));
+            INSTANCE = new TickingClock(resolutionNanos, "SharedTickingClock");
+        }
+    }
+
+    @ThreadSafe
+    private static class NanosProvider implements TimeProvider {
+
+        private final TickingClock clock;
+
+        NanosProvider(TickingClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public long getTime() {
+            return clock.nanoTime;
+        }
+
+        @Override
+        public String toString() {
+            return "TickingNanosProvider{" + clock + '}';
+        }
+    }
+
+    @ThreadSafe
+    private static class MillisProvider implements TimeProvider {
+
+        private final TickingClock clock;
+
+        MillisProvider(TickingClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public long getTime() {
+            return clock.currentTimeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "TickingMillisProvider{" + clock + '}';
+        }
+    }
+}
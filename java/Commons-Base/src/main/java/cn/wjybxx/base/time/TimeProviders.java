@@ -47,6 +47,26 @@ public class TimeProviders {
         return SystemNanoTimeProvider.INSTANCE;
     }
 
+    /**
+     * 获取[毫秒]缓存时间提供器，由共享的{@link TickingClock}定时更新
+     * 读取开销远小于{@link #systemMillisProvider()}，但时间最多落后一个精度。
+     *
+     * @return timeProvider - threadSafe
+     */
+    public static TimeProvider tickingMillisProvider() {
+        return TickingClock.shared().millisProvider();
+    }
+
+    /**
+     * 获取[纳秒]缓存时间提供器，由共享的{@link TickingClock}定时更新
+     * 读取开销远小于{@link #systemNanosProvider()}，但时间最多落后一个精度。
+     *
+     * @return timeProvider - threadSafe
+     */
+    public static TimeProvider tickingNanosProvider() {
+        return TickingClock.shared().nanosProvider();
+    }
+
     //
 
     /**
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.collection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class BitmapCompressListTest {
+
+    private static class Entity {
+
+        final int id;
+        int index = IndexedElementHelper.INDEX_NOT_FOUND;
+
+        Entity(int id) {
+            this.id = id;
+        }
+    }
+
+    private static class EntityHelper implements IndexedElementHelper<Entity> {
+
+        @Override
+        public int collectionIndex(Object collection, Entity element) {
+            return element.index;
+        }
+
+        @Override
+        public void collectionIndex(Object collection, Entity element, int index) {
+            element.index = index;
+        }
+    }
+
+    /** 元素的相对顺序和下标始终正确 */
+    private static void checkState(BitmapCompressList<Entity> list, List<Entity> expected) {
+        Assertions.assertEquals(expected.size(), list.elementCount());
+        Assertions.assertEquals(expected, list.toList());
+        List<Entity> iterated = new ArrayList<>();
+        list.forEach((e, index) -> {
+            Assertions.assertEquals(index, e.index);
+            Assertions.assertSame(e, list.get(index));
+            iterated.add(e);
+        });
+        Assertions.assertEquals(expected, iterated);
+    }
+
+    @Test
+    void testRandomChurn() {
+        Random random = new Random(10086);
+        BitmapCompressList<Entity> list = new BitmapCompressList<>(0, 0.75f, 4, new EntityHelper());
+        List<Entity> expected = new ArrayList<>();
+        int nextId = 0;
+        for (int round = 0; round < 500; round++) {
+            int addCount = random.nextInt(200);
+            for (int i = 0; i < addCount; i++) {
+                Entity entity = new Entity(nextId++);
+                list.add(entity);
+                expected.add(entity);
+            }
+            // 迭代期间删除和添加
+            List<Entity> added = new ArrayList<>();
+            list.forEach((e, index) -> {
+                if (random.nextInt(3) == 0) {
+                    list.removeAt(index);
+                    expected.remove(e);
+                    Assertions.assertEquals(IndexedElementHelper.INDEX_NOT_FOUND, e.index);
+                }
+                if (random.nextInt(50) == 0) {
+                    Entity entity = new Entity(-1);
+                    list.add(entity);
+                    added.add(entity);
+                }
+            });
+            expected.addAll(added);
+            checkState(list, expected);
+
+            // 迭代外删除
+            for (int i = 0; i < 5 && !expected.isEmpty(); i++) {
+                Entity entity = expected.remove(random.nextInt(expected.size()));
+                Assertions.assertTrue(list.removeRef(entity));
+            }
+            checkState(list, expected);
+        }
+        list.compress(true);
+        Assertions.assertFalse(list.isCompacting());
+        Assertions.assertEquals(expected.size(), list.size());
+        checkState(list, expected);
+
+        list.clear();
+        Assertions.assertEquals(0, list.size());
+        expected.forEach(e -> Assertions.assertEquals(IndexedElementHelper.INDEX_NOT_FOUND, e.index));
+    }
+
+    @Test
+    void testIncrementalCompaction() {
+        BitmapCompressList<Entity> list = new BitmapCompressList<>(0, 0.75f, 5, new EntityHelper());
+        List<Entity> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Entity entity = new Entity(i);
+            list.add(entity);
+            if (i % 2 == 0) {
+                expected.add(entity);
+            }
+        }
+        list.beginItr();
+        try {
+            for (int i = 1; i < 1000; i += 2) {
+                list.removeAt(i);
+            }
+        } finally {
+            list.endItr();
+        }
+        // 500个存活元素，分5次压缩
+        Assertions.assertTrue(list.isCompacting());
+        int steps = 1;
+        while (list.isCompacting()) {
+            list.beginItr();
+            list.endItr();
+            steps++;
+            Assertions.assertEquals(expected, list.toList());
+        }
+        Assertions.assertEquals(5, steps);
+        checkState(list, expected);
+        Assertions.assertEquals(500, list.size());
+
+        // 压缩期间在空槽位插入元素
+        BitmapCompressList<Entity> list2 = new BitmapCompressList<>(0, 0.75f, 2, new EntityHelper());
+        List<Entity> entities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Entity e = new Entity(i);
+            list2.add(e);
+            entities.add(e);
+        }
+        list2.beginItr();
+        try {
+            for (int i = 0; i < 80; i++) {
+                list2.removeAt(i);
+            }
+        } finally {
+            list2.endItr();
+        }
+        Assertions.assertTrue(list2.isCompacting());
+        Assertions.assertNull(list2.get(50));
+        Entity inserted = new Entity(-1);
+        list2.set(50, inserted);
+        list2.compress(false);
+        Assertions.assertFalse(list2.isCompacting());
+
+        expected.clear();
+        expected.addAll(entities.subList(80, 90));
+        expected.add(inserted);
+        expected.addAll(entities.subList(90, 100));
+        Assertions.assertEquals(21, list2.size());
+        Assertions.assertEquals(10, inserted.index);
+        checkState(list2, expected);
+    }
+
+    @Test
+    void testNextIndex() {
+        BitmapCompressList<Integer> list = new BitmapCompressList<>();
+        for (int i = 0; i < 200; i++) {
+            list.add(i);
+        }
+        list.beginItr();
+        try {
+            for (int i = 0; i < 200; i++) {
+                if (i % 70 != 0) {
+                    list.removeAt(i);
+                }
+            }
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = list.nextIndex(0); i >= 0; i = list.nextIndex(i + 1)) {
+                indexes.add(i);
+            }
+            Assertions.assertEquals(List.of(0, 70, 140), indexes);
+            Assertions.assertEquals(200, list.size());
+        } finally {
+            list.endItr();
+        }
+        // 压缩分摊到多次
+        Assertions.assertTrue(list.isCompacting());
+        Assertions.assertEquals(List.of(0, 70, 140), list.toList());
+        list.compress(false);
+        Assertions.assertEquals(3, list.size());
+        Assertions.assertEquals(List.of(0, 70, 140), list.toList());
+    }
+}
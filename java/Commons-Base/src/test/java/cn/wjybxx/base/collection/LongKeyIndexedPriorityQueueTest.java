@@ -0,0 +1,135 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.collection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 以二叉堆为参照测试4叉堆
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class LongKeyIndexedPriorityQueueTest {
+
+    private static final Comparator<Node> COMPARATOR = Comparator.comparingLong((Node n) -> n.key)
+            .thenComparingInt(n -> n.id);
+
+    private static class Node implements IndexedElement {
+
+        final int id;
+        long key;
+        int index = INDEX_NOT_FOUND;
+
+        Node(int id, long key) {
+            this.id = id;
+            this.key = key;
+        }
+
+        @Override
+        public int collectionIndex(Object collection) {
+            return index;
+        }
+
+        @Override
+        public void collectionIndex(Object collection, int index) {
+            this.index = index;
+        }
+    }
+
+    @Test
+    void testSameOrderAsBinaryHeap() {
+        Random random = new Random(10086);
+        DefaultIndexedPriorityQueue<Node> expected = new DefaultIndexedPriorityQueue<>(COMPARATOR, 0);
+        LongKeyIndexedPriorityQueue<Node> actual = new LongKeyIndexedPriorityQueue<>(n -> n.key, COMPARATOR, 0);
+        // 同一个元素不能同时存在于两个队列，因此成对创建
+        List<Node> expectedNodes = new ArrayList<>();
+        List<Node> actualNodes = new ArrayList<>();
+
+        int nextId = 0;
+        for (int round = 0; round < 1000; round++) {
+            int addCount = random.nextInt(20);
+            for (int i = 0; i < addCount; i++) {
+                long key = random.nextInt(100); // 较小的范围，制造大量相等的主键
+                int id = nextId++;
+                Node a = new Node(id, key);
+                Node b = new Node(id, key);
+                expected.offer(a);
+                actual.offer(b);
+                expectedNodes.add(a);
+                actualNodes.add(b);
+            }
+            // 随机删除或修改主键
+            for (int i = 0; i < 5 && !expectedNodes.isEmpty(); i++) {
+                int index = random.nextInt(expectedNodes.size());
+                Node a = expectedNodes.get(index);
+                Node b = actualNodes.get(index);
+                Assertions.assertEquals(expected.containsTyped(a), actual.containsTyped(b));
+                if (random.nextBoolean()) {
+                    Assertions.assertEquals(expected.removeTyped(a), actual.removeTyped(b));
+                    Assertions.assertFalse(actual.contains(b));
+                } else {
+                    long key = random.nextInt(100);
+                    a.key = key;
+                    b.key = key;
+                    expected.priorityChanged(a);
+                    actual.priorityChanged(b);
+                }
+            }
+
+            int pollCount = random.nextInt(20);
+            for (int i = 0; i < pollCount && !expected.isEmpty(); i++) {
+                Node head = actual.peek();
+                Assertions.assertNotNull(head);
+                Assertions.assertEquals(head.key, actual.peekKey());
+
+                Node a = expected.poll();
+                Node b = actual.poll();
+                Assertions.assertSame(head, b);
+                Assertions.assertEquals(a.id, b.id);
+                Assertions.assertEquals(IndexedElement.INDEX_NOT_FOUND, b.index);
+            }
+            Assertions.assertEquals(expected.size(), actual.size());
+        }
+
+        // 索引维护正确
+        for (Node node : actual) {
+            Assertions.assertTrue(actual.containsTyped(node));
+        }
+        actual.clear();
+        Assertions.assertTrue(actual.isEmpty());
+        Assertions.assertNull(actual.poll());
+        Assertions.assertEquals(Long.MAX_VALUE, actual.peekKey());
+        for (Node node : actualNodes) {
+            Assertions.assertEquals(IndexedElement.INDEX_NOT_FOUND, node.index);
+        }
+    }
+
+    @Test
+    void testOfferTwice() {
+        LongKeyIndexedPriorityQueue<Node> queue = new LongKeyIndexedPriorityQueue<>(n -> n.key, COMPARATOR);
+        Node node = new Node(1, 1);
+        queue.offer(node);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> queue.offer(node));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.collection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 以{@link HashMap}为参照测试原始类型的Map
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class PrimitiveMapTest {
+
+    @Test
+    void testIntObjectMap() {
+        Random random = new Random(10086);
+        IntObjectMap<String> map = new IntObjectMap<>(0);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(2000) - 1000; // 包含0和负数
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    String value = "v" + i;
+                    Assertions.assertEquals(expected.put(key, value), map.put(key, value));
+                }
+                case 2 -> Assertions.assertEquals(expected.remove(key), map.remove(key));
+                default -> {
+                    Assertions.assertEquals(expected.containsKey(key), map.containsKey(key));
+                    Assertions.assertEquals(expected.get(key), map.get(key));
+                }
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+
+        Map<Integer, String> iterated = new HashMap<>();
+        IntObjectMap.Cursor<String> cursor = map.cursor();
+        while (cursor.moveNext()) {
+            Assertions.assertNull(iterated.put(cursor.key(), cursor.value()));
+        }
+        Assertions.assertFalse(cursor.moveNext());
+        Assertions.assertEquals(expected, iterated);
+
+        map.clear();
+        Assertions.assertTrue(map.isEmpty());
+        Assertions.assertFalse(map.containsKey(0));
+        Assertions.assertFalse(map.cursor().moveNext());
+    }
+
+    @Test
+    void testLongObjectMap() {
+        Random random = new Random(10086);
+        LongObjectMap<String> map = new LongObjectMap<>();
+        Map<Long, String> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // 高位不同、低位相同的key
+            long key = ((long) random.nextInt(64) << 40) | random.nextInt(64);
+            switch (random.nextInt(4)) {
+                case 0, 1 -> {
+                    String value = "v" + i;
+                    Assertions.assertEquals(expected.put(key, value), map.put(key, value));
+                }
+                case 2 -> Assertions.assertEquals(expected.remove(key), map.remove(key));
+                default -> Assertions.assertEquals(expected.get(key), map.get(key));
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+
+        Map<Long, String> iterated = new HashMap<>();
+        LongObjectMap.Cursor<String> cursor = map.cursor();
+        while (cursor.moveNext()) {
+            cursor.setValue(cursor.value() + "x");
+            iterated.put(cursor.key(), cursor.value());
+        }
+        expected.replaceAll((k, v) -> v + "x");
+        Assertions.assertEquals(expected, iterated);
+        Assertions.assertEquals(expected.get(0L), map.get(0));
+    }
+
+    @Test
+    void testIntIntMap() {
+        Random random = new Random(10086);
+        IntIntMap map = new IntIntMap(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            int key = random.nextInt(200) - 100;
+            int old = expected.getOrDefault(key, 0);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    Assertions.assertEquals(old, map.addTo(key, 1));
+                    expected.merge(key, 1, Integer::sum);
+                }
+                case 1 -> {
+                    Assertions.assertEquals(old, map.put(key, i));
+                    expected.put(key, i);
+                }
+                case 2 -> {
+                    Assertions.assertEquals(old, map.remove(key));
+                    expected.remove(key);
+                }
+                default -> Assertions.assertEquals(expected.getOrDefault(key, -1).intValue(), map.getOrDefault(key, -1));
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+
+        Map<Integer, Integer> iterated = new HashMap<>();
+        IntIntMap.Cursor cursor = map.cursor();
+        while (cursor.moveNext()) {
+            iterated.put(cursor.key(), cursor.value());
+        }
+        Assertions.assertEquals(expected, iterated);
+    }
+
+    @Test
+    void testComputeIfAbsent() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Assertions.assertEquals("1", map.computeIfAbsent(1, String::valueOf));
+        Assertions.assertEquals("1", map.computeIfAbsent(1, k -> "x"));
+        Assertions.assertNull(map.computeIfAbsent(2, k -> null));
+        Assertions.assertFalse(map.containsKey(2));
+        Assertions.assertEquals("1", map.putIfAbsent(1, "y"));
+        Assertions.assertNull(map.putIfAbsent(0, "zero"));
+        Assertions.assertEquals("zero", map.get(0));
+        Assertions.assertEquals(2, map.size());
+    }
+}
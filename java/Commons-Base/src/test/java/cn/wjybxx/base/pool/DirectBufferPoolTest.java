@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.pool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class DirectBufferPoolTest {
+
+    @Test
+    void testSizeClass() {
+        DirectBufferPool pool = DirectBufferPool.newBuilder()
+                .setMinChunkSize(256)
+                .setMaxChunkSize(4096)
+                .setSlabSize(16 * 1024)
+                .build();
+        PooledByteBuffer a = pool.allocate(1);
+        PooledByteBuffer b = pool.allocate(257);
+        PooledByteBuffer c = pool.allocate(4096);
+        PooledByteBuffer d = pool.allocate(4097); // 超过最大尺寸
+        Assertions.assertEquals(256, a.capacity());
+        Assertions.assertEquals(512, b.capacity());
+        Assertions.assertEquals(4096, c.capacity());
+        Assertions.assertEquals(4097, d.capacity());
+        Assertions.assertTrue(a.isPooled());
+        Assertions.assertFalse(d.isPooled());
+        Assertions.assertTrue(a.buffer().isDirect());
+        Assertions.assertEquals(3 * 16 * 1024, pool.allocatedMemory());
+        Assertions.assertEquals(256 + 512 + 4096, pool.usedMemory());
+
+        a.release();
+        b.release();
+        c.release();
+        d.release();
+        Assertions.assertEquals(0, pool.usedMemory());
+    }
+
+    @Test
+    void testReuse() {
+        DirectBufferPool pool = DirectBufferPool.newBuilder()
+                .setMinChunkSize(256)
+                .setMaxChunkSize(1024)
+                .setSlabSize(1024)
+                .setMaxSlabsPerClass(1)
+                .build();
+        PooledByteBuffer a = pool.allocate(256);
+        ByteBuffer buffer = a.buffer();
+        buffer.putInt(1).position(100);
+        a.release();
+
+        // 独占slab的4个chunk，归还后的chunk已重置
+        List<PooledByteBuffer> list = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            PooledByteBuffer pooled = pool.allocate(256);
+            Assertions.assertTrue(pooled.isPooled());
+            Assertions.assertEquals(0, pooled.buffer().position());
+            Assertions.assertEquals(256, pooled.buffer().limit());
+            list.add(pooled);
+        }
+        // 类别已耗尽，分配非池化的
+        PooledByteBuffer overflow = pool.allocate(256);
+        Assertions.assertFalse(overflow.isPooled());
+        overflow.release();
+
+        list.forEach(PooledByteBuffer::release);
+        Assertions.assertEquals(1024, pool.allocatedMemory());
+        Assertions.assertEquals(0, pool.usedMemory());
+    }
+
+    @Test
+    void testRefCnt() {
+        DirectBufferPool pool = DirectBufferPool.newBuilder().build();
+        PooledByteBuffer pooled = pool.allocate(100);
+        Assertions.assertEquals(1, pooled.refCnt());
+        pooled.retain();
+        Assertions.assertEquals(2, pooled.refCnt());
+        Assertions.assertFalse(pooled.release());
+        Assertions.assertEquals(256, pool.usedMemory());
+        Assertions.assertTrue(pooled.release());
+        Assertions.assertEquals(0, pool.usedMemory());
+
+        Assertions.assertThrows(IllegalStateException.class, pooled::buffer);
+        Assertions.assertThrows(IllegalStateException.class, pooled::retain);
+        Assertions.assertThrows(IllegalStateException.class, pooled::release);
+    }
+
+    @Test
+    void testLeakDetection() {
+        DirectBufferPool pool = DirectBufferPool.newBuilder()
+                .setLeakDetection(true)
+                .build();
+        pool.allocate(100).release(); // 正常释放不报告
+        allocateAndDrop(pool);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.leakCount() == 0 && System.currentTimeMillis() < deadline) {
+            System.gc();
+            Thread.onSpinWait();
+        }
+        Assertions.assertEquals(1, pool.leakCount());
+    }
+
+    private static void allocateAndDrop(DirectBufferPool pool) {
+        pool.allocate(100).buffer().putInt(1);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.pool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试池的统计和自动调整
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class PoolStatsTest {
+
+    @Test
+    void testArrayPoolStats() {
+        ConcurrentArrayPool<byte[]> pool = ConcurrentArrayPool.newBuilder(byte[].class)
+                .addBucket(1024, 1)
+                .addBucket(4096, 1)
+                .setStatsEnabled(true)
+                .build();
+        Assertions.assertNull(ConcurrentArrayPool.newBuilder(byte[].class).build().statsSnapshot());
+
+        byte[] a = pool.acquire(1000); // miss
+        byte[] b = pool.acquire(1000); // miss
+        pool.release(a);
+        pool.release(b); // drop
+        pool.acquire(1000); // hit
+        pool.release(pool.acquire(4000)); // miss
+        pool.acquire(1000); // lookAhead hit
+        pool.acquire(10000); // oversize
+
+        PoolStats.Snapshot snapshot = pool.statsSnapshot();
+        Assertions.assertNotNull(snapshot);
+        Assertions.assertEquals(2, snapshot.bucketCount());
+        Assertions.assertEquals(1024, snapshot.arrayCapacity(0));
+        Assertions.assertEquals(1, snapshot.hits(0));
+        Assertions.assertEquals(1, snapshot.lookAheadHits(0));
+        Assertions.assertEquals(2, snapshot.misses(0));
+        Assertions.assertEquals(2, snapshot.releases(0));
+        Assertions.assertEquals(1, snapshot.drops(0));
+        Assertions.assertEquals(1, snapshot.misses(1));
+        Assertions.assertEquals(1, snapshot.releases(1));
+        Assertions.assertEquals(1, snapshot.oversize());
+        Assertions.assertEquals(5, snapshot.totalAcquires());
+        Assertions.assertEquals(0.4, snapshot.hitRate(), 0.0001);
+
+        pool.acquire(1000); // miss
+        PoolStats.Snapshot delta = pool.statsSnapshot().minus(snapshot);
+        Assertions.assertEquals(1, delta.misses(0));
+        Assertions.assertEquals(0, delta.hits(0));
+        Assertions.assertEquals(0, delta.oversize());
+    }
+
+    @Test
+    void testObjectPoolStats() {
+        ConcurrentObjectPool<StringBuilder> pool = new ConcurrentObjectPool<>(StringBuilder::new,
+                sb -> sb.setLength(0), 1, null, 0, true);
+        StringBuilder a = pool.acquire();
+        StringBuilder b = pool.acquire();
+        pool.release(a);
+        pool.release(b);
+        pool.acquire();
+
+        PoolStats.Snapshot snapshot = pool.statsSnapshot();
+        Assertions.assertNotNull(snapshot);
+        Assertions.assertEquals(1, snapshot.bucketCount());
+        Assertions.assertEquals(1, snapshot.hits(0));
+        Assertions.assertEquals(2, snapshot.misses(0));
+        Assertions.assertEquals(2, snapshot.releases(0));
+        Assertions.assertEquals(1, snapshot.drops(0));
+    }
+
+    @Test
+    void testAutoTune() {
+        ConcurrentArrayPool<byte[]> pool = ConcurrentArrayPool.newBuilder(byte[].class)
+                .addBucket(1024, 4)
+                .setAutoTune(true)
+                .build();
+        Assertions.assertThrows(IllegalStateException.class, () -> ConcurrentArrayPool.newBuilder(byte[].class).build().tune());
+
+        // 需求为32个，bucket只能缓存4个 -- 大量未命中，应当扩容，最大为初始大小的8倍
+        List<byte[]> arrays = new ArrayList<>();
+        for (int round = 0; round < 4; round++) {
+            for (int i = 0; i < 32; i++) {
+                arrays.add(pool.acquire(1024));
+            }
+            arrays.forEach(pool::release);
+            arrays.clear();
+            pool.tune();
+        }
+        PoolStats.Snapshot snapshot = pool.statsSnapshot();
+        Assertions.assertEquals(32, snapshot.bucketLength(0), snapshot::toString);
+        // 扩容后不再未命中
+        for (int i = 0; i < 32; i++) {
+            arrays.add(pool.acquire(1024));
+        }
+        arrays.forEach(pool::release);
+        Assertions.assertEquals(0, pool.statsSnapshot().minus(snapshot).misses(0));
+
+        // 闲置后应当缩容，最小为初始大小的1/4
+        for (int round = 0; round < 8; round++) {
+            pool.tune();
+        }
+        snapshot = pool.statsSnapshot();
+        Assertions.assertEquals(1, snapshot.bucketLength(0), snapshot::toString);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.pool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试线程本地缓存
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class ThreadMagazineCacheTest {
+
+    @Test
+    void testLocalHit() {
+        ConcurrentObjectPool<StringBuilder> pool = new ConcurrentObjectPool<>(StringBuilder::new,
+                sb -> sb.setLength(0), 64, null, 8);
+        StringBuilder sb = pool.acquire();
+        pool.release(sb);
+        // 线程缓存命中，不经过共享池
+        Assertions.assertSame(sb, pool.acquire());
+        Assertions.assertEquals(0, pool.getAvailableCount());
+    }
+
+    @Test
+    void testFlushAndRefill() {
+        ConcurrentObjectPool<StringBuilder> pool = new ConcurrentObjectPool<>(StringBuilder::new,
+                sb -> sb.setLength(0), 64, null, 8);
+        List<StringBuilder> objects = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            objects.add(pool.acquire());
+        }
+        for (StringBuilder sb : objects) {
+            pool.release(sb);
+        }
+        // 弹匣满时每次归还一半：20 = 8 + 4 + 4 + 4 => 3次归还，共享池12个，缓存8个
+        Assertions.assertEquals(12, pool.getAvailableCount());
+
+        // 借出的对象不重复，且都来自池
+        Map<StringBuilder, Boolean> acquired = new IdentityHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            StringBuilder sb = pool.acquire();
+            Assertions.assertNull(acquired.put(sb, Boolean.TRUE));
+        }
+        for (StringBuilder sb : objects) {
+            Assertions.assertTrue(acquired.containsKey(sb));
+        }
+        Assertions.assertEquals(0, pool.getAvailableCount());
+    }
+
+    @Test
+    void testDeadThreadTrim() throws InterruptedException {
+        ConcurrentObjectPool<StringBuilder> pool = new ConcurrentObjectPool<>(StringBuilder::new,
+                sb -> sb.setLength(0), 64, null, 8);
+        Thread thread = new Thread(() -> {
+            List<StringBuilder> objects = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                objects.add(pool.acquire());
+            }
+            objects.forEach(pool::release);
+        });
+        thread.start();
+        thread.join();
+        Assertions.assertEquals(0, pool.getAvailableCount());
+
+        pool.trimThreadCaches();
+        Assertions.assertEquals(6, pool.getAvailableCount());
+    }
+
+    /** 线程终止的同时有其它线程注册，每个已终止线程的缓存只能归还一次 */
+    @Test
+    void testConcurrentTrim() throws InterruptedException {
+        AtomicInteger created = new AtomicInteger();
+        ConcurrentObjectPool<StringBuilder> pool = new ConcurrentObjectPool<>(() -> {
+            created.incrementAndGet();
+            return new StringBuilder();
+        }, sb -> sb.setLength(0), 4096, null, 8);
+        for (int round = 0; round < 50; round++) {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                // 缓存对象后终止
+                threads.add(new Thread(() -> {
+                    List<StringBuilder> objects = new ArrayList<>();
+                    for (int j = 0; j < 6; j++) {
+                        objects.add(pool.acquire());
+                    }
+                    objects.forEach(pool::release);
+                }));
+                // 首次使用时注册，并归还已终止线程的缓存
+                threads.add(new Thread(pool::trimThreadCaches));
+                threads.add(new Thread(() -> pool.release(pool.acquire())));
+            }
+            threads.forEach(Thread::start);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        pool.trimThreadCaches();
+
+        int available = pool.getAvailableCount();
+        Assertions.assertTrue(available <= created.get(), () -> "available: " + available + ", created: " + created.get());
+        Map<StringBuilder, Boolean> acquired = new IdentityHashMap<>();
+        for (int i = 0; i < available; i++) {
+            Assertions.assertNull(acquired.put(pool.acquire(), Boolean.TRUE));
+        }
+    }
+
+    @Test
+    void testClear() {
+        ConcurrentObjectPool<StringBuilder> pool = new ConcurrentObjectPool<>(StringBuilder::new,
+                sb -> sb.setLength(0), 64, null, 8);
+        StringBuilder sb = pool.acquire();
+        pool.release(sb);
+        pool.clear();
+        Assertions.assertEquals(0, pool.getAvailableCount());
+        Assertions.assertNotSame(sb, pool.acquire());
+    }
+
+    @Test
+    void testVirtualThreadBypass() throws InterruptedException {
+        ConcurrentObjectPool<StringBuilder> pool = new ConcurrentObjectPool<>(StringBuilder::new,
+                sb -> sb.setLength(0), 64, null, 8);
+        Thread thread = Thread.ofVirtual().start(() -> pool.release(pool.acquire()));
+        thread.join();
+        Assertions.assertEquals(1, pool.getAvailableCount());
+    }
+
+    @Test
+    void testArrayPool() {
+        ConcurrentArrayPool<byte[]> pool = ConcurrentArrayPool.newBuilder(byte[].class)
+                .setDefCapacity(1024)
+                .setMaxCapacity(8192)
+                .setThreadCacheSize(4)
+                .build();
+        byte[] small = pool.acquire(1000);
+        byte[] large = pool.acquire(5000);
+        pool.release(small);
+        pool.release(large);
+        // 每个bucket独立缓存
+        Assertions.assertSame(large, pool.acquire(5000));
+        Assertions.assertSame(small, pool.acquire(1000));
+
+        // 长度不匹配的数组不缓存
+        pool.release(new byte[1000]);
+        Assertions.assertNotEquals(1000, pool.acquire(1000).length);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.base.time;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class TickingClockTest {
+
+    @Test
+    void testTicking() throws InterruptedException {
+        try (TickingClock clock = TickingClock.newClock(100, TimeUnit.MICROSECONDS)) {
+            Assertions.assertEquals(100_000, clock.getResolutionNanos());
+            long start = clock.nanoTime();
+            Assertions.assertTrue(start <= System.nanoTime());
+
+            Thread.sleep(20);
+            long now = clock.nanoTime();
+            Assertions.assertTrue(now - start >= TimeUnit.MILLISECONDS.toNanos(10), () -> "delta: " + (now - start));
+            Assertions.assertTrue(clock.nanosProvider().getTime() >= now);
+            // 毫秒时间最多落后一个精度(加上调度延迟)
+            Assertions.assertTrue(Math.abs(System.currentTimeMillis() - clock.millisProvider().getTime()) < 1000);
+        }
+    }
+
+    @Test
+    void testClose() throws InterruptedException {
+        TickingClock clock = TickingClock.newClock(1, TimeUnit.MILLISECONDS);
+        clock.close();
+        Assertions.assertTrue(clock.isClosed());
+        Thread.sleep(20);
+        long time = clock.nanoTime();
+        Thread.sleep(20);
+        Assertions.assertEquals(time, clock.nanoTime());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> TickingClock.shared().close());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> TickingClock.newClock(1, TimeUnit.MICROSECONDS));
+        Assertions.assertSame(TickingClock.shared().nanosProvider(), TimeProviders.tickingNanosProvider());
+    }
+}
@@ -96,13 +96,13 @@ public abstract class AbstractEventLoopGroup implements EventLoopGroup {
     @Nonnull
     @Override
     public final <T> IFuture<T> submit(@Nonnull Callable<T> task) {
-        return select().submitFunc(task);
+        return submitFunc(task);
     }
 
     @Nonnull
     @Override
     public final IFuture<?> submit(@Nonnull Runnable task) {
-        return select().submitAction(task);
+        return submitAction(task);
     }
 
     // endregion
@@ -43,8 +43,6 @@ import java.util.function.Consumer;
  */
 public final class CancelTokenSource implements ICancelTokenSource {
 
-    private static final EventLoop delayer = GlobalEventLoop.INST;
-
     /**
      * 取消码
      * - 0表示未收到取消信号
@@ -125,16 +123,30 @@ public final class CancelTokenSource implements ICancelTokenSource {
 
     @Override
     public void cancelAfter(int cancelCode, long millisecondsDelay) {
-        cancelAfter(cancelCode, millisecondsDelay, TimeUnit.MILLISECONDS, delayer);
+        cancelAfter(cancelCode, millisecondsDelay, TimeUnit.MILLISECONDS, TimeoutService.getDefault());
     }
 
     /**
      * 在一段时间后发送取消命令
-     * (将由默认的调度器调度)
+     * (将由默认的超时服务{@link TimeoutService#getDefault()}调度)
      */
     @Override
     public void cancelAfter(int cancelCode, long delay, TimeUnit timeUnit) {
-        cancelAfter(cancelCode, delay, timeUnit, delayer);
+        cancelAfter(cancelCode, delay, timeUnit, TimeoutService.getDefault());
+    }
+
+    /**
+     * 在一段时间后发送取消命令
+     * 如果令牌先被取消，则会及时删除超时任务。
+     */
+    public void cancelAfter(int cancelCode, long delay, TimeUnit timeUnit, TimeoutService timeoutService) {
+        if (timeoutService == null) throw new IllegalArgumentException("timeoutService is null");
+        CancelCodes.checkCode(cancelCode);
+        if (this.code == 0) {
+            TimeoutCanceller canceller = new TimeoutCanceller(this, cancelCode);
+            canceller.timeout = timeoutService.newTimeout(canceller, delay, timeUnit);
+            this.thenNotify(canceller);
+        }
     }
 
     public void cancelAfter(int cancelCode, long delay, TimeUnit timeUnit, ScheduledExecutorService executor) {
@@ -169,6 +181,28 @@ public final class CancelTokenSource implements ICancelTokenSource {
         }
     }
 
+    private static class TimeoutCanceller implements Runnable, CancelTokenListener {
+
+        final CancelTokenSource source;
+        final int cancelCode;
+        TimeoutService.Timeout timeout;
+
+        private TimeoutCanceller(CancelTokenSource source, int cancelCode) {
+            this.source = source;
+            this.cancelCode = cancelCode;
+        }
+
+        @Override
+        public void run() {
+            source.cancel(cancelCode);
+        }
+
+        @Override
+        public void onCancelRequested(ICancelToken cancelToken) {
+            timeout.cancel(); // 超时触发的取消也会通知到这里，此时cancel为空操作
+        }
+    }
+
     private static class JDKCanceller implements Runnable, CancelTokenListener {
 
         final CancelTokenSource source;
@@ -22,9 +22,11 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * @author wjybxx
@@ -39,6 +41,8 @@ public class DefaultFixedEventLoopGroup extends AbstractEventLoopGroup implement
     private final List<EventLoop> readonlyChildren;
     private final EventLoopChooser chooser;
     private final Runnable terminationHook;
+    /** 工作窃取模式下子节点的溢出队列 */
+    private final WorkStealingQueues workStealingQueues;
 
     public DefaultFixedEventLoopGroup(EventLoopGroupBuilder builder) {
         int numChildren = builder.getNumChildren();
@@ -63,6 +67,7 @@ public class DefaultFixedEventLoopGroup extends AbstractEventLoopGroup implement
         readonlyChildren = List.of(children);
         chooser = chooserFactory.newChooser(children.clone()); // 避免错误的实现修改引用
         terminationHook = builder.getTerminationHook();
+        workStealingQueues = builder.isWorkStealing() ? newWorkStealingQueues(children) : null;
 
         // 最后再监听，否则可能状态错误
         final ChildrenTerminateListener terminationListener = new ChildrenTerminateListener();
@@ -71,6 +76,153 @@ public class DefaultFixedEventLoopGroup extends AbstractEventLoopGroup implement
         }
     }
 
+    private static WorkStealingQueues newWorkStealingQueues(EventLoop[] children) {
+        DisruptorEventLoop<?>[] owners = new DisruptorEventLoop<?>[children.length];
+        for (int i = 0; i < children.length; i++) {
+            if (!(children[i] instanceof DisruptorEventLoop<?> eventLoop)) {
+                throw new IllegalArgumentException("workStealing requires DisruptorEventLoop, child: " + children[i].getClass());
+            }
+            owners[i] = eventLoop;
+        }
+        WorkStealingQueues workStealingQueues = new WorkStealingQueues(owners);
+        for (int i = 0; i < owners.length; i++) {
+            owners[i].bindWorkStealingQueues(workStealingQueues, i);
+        }
+        return workStealingQueues;
+    }
+
+    /** 是否启用了工作窃取 */
+    public boolean isWorkStealing() {
+        return workStealingQueues != null;
+    }
+
+    // region 工作窃取
+
+    @Override
+    public void execute(@Nonnull Runnable command) {
+        if (workStealingQueues == null) {
+            super.execute(command);
+        } else {
+            int options = command instanceof ITask task ? task.getOptions() : 0;
+            workStealingQueues.offer(chooser.select(), command, options);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command, int options) {
+        if (workStealingQueues == null) {
+            super.execute(command, options);
+        } else {
+            workStealingQueues.offer(chooser.select(), command, options);
+        }
+    }
+
+    @Override
+    public <T> IFuture<T> submit(@Nonnull TaskBuilder<T> builder) {
+        if (workStealingQueues == null) {
+            return super.submit(builder);
+        }
+        IPromise<T> promise = newPromise();
+        execute(PromiseTask.ofBuilder(builder, promise));
+        return promise;
+    }
+
+    @Override
+    public <T> IFuture<T> submitFunc(Callable<? extends T> task) {
+        return workStealingQueues == null ? super.submitFunc(task) : submitFunc(task, 0);
+    }
+
+    @Override
+    public <T> IFuture<T> submitFunc(Callable<? extends T> task, int options) {
+        if (workStealingQueues == null) {
+            return super.submitFunc(task, options);
+        }
+        IPromise<T> promise = newPromise();
+        execute(PromiseTask.ofFunction(task, null, options, promise));
+        return promise;
+    }
+
+    @Override
+    public <T> IFuture<T> submitFunc(Callable<? extends T> task, ICancelToken cancelToken, int options) {
+        if (workStealingQueues == null) {
+            return super.submitFunc(task, cancelToken, options);
+        }
+        IPromise<T> promise = newPromise();
+        execute(PromiseTask.ofFunction(task, cancelToken, options, promise));
+        return promise;
+    }
+
+    @Override
+    public <T> IFuture<T> submitFunc(Function<? super IContext, ? extends T> task, IContext ctx, int options) {
+        if (workStealingQueues == null) {
+            return super.submitFunc(task, ctx, options);
+        }
+        IPromise<T> promise = newPromise();
+        execute(PromiseTask.ofFunction(task, ctx, options, promise));
+        return promise;
+    }
+
+    @Override
+    public IFuture<?> submitAction(Runnable task) {
+        return workStealingQueues == null ? super.submitAction(task) : submitAction(task, 0);
+    }
+
+    @Override
+    public IFuture<?> submitAction(Runnable task, int options) {
+        if (workStealingQueues == null) {
+            return super.submitAction(task, options);
+        }
+        IPromise<Object> promise = newPromise();
+        execute(PromiseTask.ofAction(task, null, options, promise));
+        return promise;
+    }
+
+    @Override
+    public IFuture<?> submitAction(Runnable task, ICancelToken cancelToken, int options) {
+        if (workStealingQueues == null) {
+            return super.submitAction(task, cancelToken, options);
+        }
+        IPromise<Object> promise = newPromise();
+        execute(PromiseTask.ofAction(task, cancelToken, options, promise));
+        return promise;
+    }
+
+    @Override
+    public IFuture<?> submitAction(Consumer<? super IContext> task, IContext ctx, int options) {
+        if (workStealingQueues == null) {
+            return super.submitAction(task, ctx, options);
+        }
+        IPromise<Object> promise = newPromise();
+        execute(PromiseTask.ofAction(task, ctx, options, promise));
+        return promise;
+    }
+
+    /** 工作窃取模式下逐个放入溢出队列，以便空闲的EventLoop分担 -- 带key的批量提交仍然固定在目标EventLoop */
+    @Override
+    public void executeBatch(List<? extends Runnable> tasks) {
+        if (workStealingQueues == null) {
+            FixedEventLoopGroup.super.executeBatch(tasks);
+        } else {
+            for (Runnable task : tasks) {
+                execute(task);
+            }
+        }
+    }
+
+    @Override
+    public <V> List<IFuture<V>> submitAll(List<? extends Callable<? extends V>> tasks) {
+        if (workStealingQueues == null) {
+            return FixedEventLoopGroup.super.submitAll(tasks);
+        }
+        List<IFuture<V>> futures = new ArrayList<>(tasks.size());
+        for (Callable<? extends V> task : tasks) {
+            futures.add(submitFunc(task, 0));
+        }
+        return futures;
+    }
+
+    // endregion
+
     // -------------------------------------  子类生命周期管理 --------------------------------
 
     @Override
@@ -110,6 +262,9 @@ public class DefaultFixedEventLoopGroup extends AbstractEventLoopGroup implement
         for (EventLoop eventLoop : children) {
             tasks.addAll(eventLoop.shutdownNow());
         }
+        if (workStealingQueues != null) {
+            tasks.addAll(workStealingQueues.drainAll());
+        }
         return tasks;
     }
 
@@ -142,6 +297,11 @@ public class DefaultFixedEventLoopGroup extends AbstractEventLoopGroup implement
         return chooser.select(key);
     }
 
+    @Override
+    public boolean release(int key) {
+        return chooser.release(key);
+    }
+
     @Nonnull
     @Override
     public Iterator<EventLoop> iterator() {
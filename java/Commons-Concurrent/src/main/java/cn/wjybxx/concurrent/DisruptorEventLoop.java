@@ -20,12 +20,13 @@ import cn.wjybxx.base.MathCommon;
 import cn.wjybxx.base.ObjectUtils;
 import cn.wjybxx.base.annotation.Beta;
 import cn.wjybxx.base.annotation.VisibleForTesting;
-import cn.wjybxx.base.collection.DefaultIndexedPriorityQueue;
-import cn.wjybxx.base.collection.IndexedPriorityQueue;
 import cn.wjybxx.base.concurrent.CancelCodes;
+import cn.wjybxx.base.time.TickingClock;
+import cn.wjybxx.base.time.TimeProvider;
 import cn.wjybxx.disruptor.*;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.Collections;
@@ -53,14 +54,18 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
     private static final int MIN_BATCH_SIZE = 64;
     private static final int MAX_BATCH_SIZE = 64 * 1024;
     private static final int BATCH_PUBLISH_THRESHOLD = 1024 - 1;
+    /** 任务耗时的指数移动平均的平滑因子 1/8 */
+    private static final int EWMA_SHIFT = 3;
 
     private static final int HIGHER_PRIORITY_QUEUE_ID = 0;
     private static final int LOWER_PRIORITY_QUEUE_ID = 1;
+    /** 用于唤醒线程执行可窃取任务的空任务 */
+    private static final Runnable STEALABLE_TASK_SIGNAL = () -> {};
 
     // 填充开始 - 字段定义顺序不要随意调整
     @SuppressWarnings("unused")
     private long p1, p2, p3, p4, p5, p6, p7;
-    /** 线程本地时间 -- 纳秒；时间的更新频率极高，进行缓存行填充隔离 */
+    /** 线程本地时间(帧时间) -- 纳秒；每批任务更新一次，更新频率极高，进行缓存行填充隔离 */
     private volatile long tickTime;
     @SuppressWarnings("unused")
     private long p11, p12, p13, p14, p15, p16, p17, p18;
@@ -75,8 +80,13 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
     private final MpUnboundedBuffer<? extends T> unboundedBuffer;
 
     /** 周期性任务队列 -- 既有的任务都是先于Sequencer中的任务提交的 */
-    private final IndexedPriorityQueue<ScheduledPromiseTask<?>> scheduledTaskQueue;
+    private final ScheduledTaskQueue scheduledTaskQueue;
     private final ScheduledHelper scheduledHelper;
+    /** 任务回收器 -- 未启用时为null */
+    private final TaskRecycler taskRecycler;
+    /** 帧时间的时间源 -- 为null时读取{@link System#nanoTime()} */
+    private final TickingClock tickingClock;
+    private final TimeProvider frameClock;
 
     /** 任务拒绝策略 */
     private final RejectedExecutionHandler rejectedExecutionHandler;
@@ -95,6 +105,19 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
     private final Thread thread;
     private final Worker worker;
 
+    /** 最近的任务平均耗时（指数移动平均） -- 只由EventLoop线程写 */
+    private volatile long avgTaskNanos;
+    /** 运行指标 -- 未启用时为null */
+    private final EventLoopMetrics metrics;
+    /** 当前工作单元的开始时间，0表示正在等待事件 -- 只由EventLoop线程opaque写，供{@link EventLoopWatchdog}观察 */
+    private long busySince;
+    /** 是否按任务记录{@link #busySince}，否则按批次记录 -- 由{@link EventLoopWatchdog}开启 */
+    private volatile boolean taskSampling;
+
+    /** 工作窃取模式下所属线程组的溢出队列 -- 在线程启动前绑定 */
+    private volatile WorkStealingQueues workStealingQueues;
+    private int workStealingIndex;
+
     private final IPromise<Void> runningPromise = new Promise<>(this);
     private final IPromise<Void> terminationPromise = new Promise<>(this);
     // future 缓存
@@ -105,11 +128,15 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
         super(builder.getParent());
         ThreadFactory threadFactory = Objects.requireNonNull(builder.getThreadFactory(), "threadFactory");
 
-        this.tickTime = System.nanoTime();
+        this.tickingClock = builder.getTickingClock();
+        this.frameClock = new FrameClock();
+        this.tickTime = readClock();
         this.eventSequencer = Objects.requireNonNull(builder.getEventSequencer());
         this.dataProvider = eventSequencer.dataProvider();
-        this.scheduledTaskQueue = new DefaultIndexedPriorityQueue<>(ScheduledPromiseTask::compareToExplicitly, 64);
+        this.scheduledTaskQueue = ObjectUtils.nullToDef(builder.getScheduledTaskQueueFactory(), ScheduledTaskQueues.binaryHeap())
+                .newQueue(TimeUnit.NANOSECONDS, tickTime);
         this.scheduledHelper = new ScheduledHelper();
+        this.taskRecycler = builder.getTaskPoolSize() > 0 ? new TaskRecycler(this, builder.getTaskPoolSize()) : null;
 
         this.rejectedExecutionHandler = ObjectUtils.nullToDef(builder.getRejectedExecutionHandler(), RejectedExecutionHandlers.abort());
         this.agent = ObjectUtils.nullToDef(builder.getAgent(), EmptyAgent.getInstance());
@@ -118,6 +145,7 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
         this.batchSize = MathCommon.clamp(builder.getBatchSize(), MIN_BATCH_SIZE, MAX_BATCH_SIZE);
         this.cleanEventAfterConsumed = builder.isCleanEventAfterConsumed();
         this.cleanBufferOnExit = builder.isCleanBufferOnExit();
+        this.metrics = builder.isMetricsEnabled() ? new EventLoopMetrics(this::taskCount) : null;
 
         // 缓存
         if (cleanBufferOnExit && dataProvider instanceof MpUnboundedBuffer<? extends T> unboundedBuffer) {
@@ -229,10 +257,103 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
         return Math.max(0, (int) count);
     }
 
+    /**
+     * 最近的任务平均耗时（纳秒）
+     * 注意：返回值是一个估算值，按批次统计，包含{@link EventLoopAgent#onEvent(long, IAgentEvent)}的耗时。
+     */
+    @Beta
+    public long avgTaskNanos() {
+        return avgTaskNanos;
+    }
+
+    /**
+     * EventLoop的运行指标
+     * 可通过{@link EventLoopMetrics#aggregate(EventLoopGroup)}汇总线程组的指标。
+     *
+     * @return 如果未启用指标则返回null
+     */
+    @Nullable
+    public EventLoopMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * EventLoop的帧时钟(纳秒)
+     * 1. EventLoop线程在每轮循环和每批任务开始前更新一次时间，任务内读取帧时间只是一次volatile读。
+     * 2. 定时任务的触发检查也使用该时间，因此同一批任务看见的时间是一致的。
+     * 3. 其它线程可以读取，但读到的是最近一次更新的时间；EventLoop阻塞等待事件期间时间不更新。
+     */
+    public TimeProvider frameClock() {
+        return frameClock;
+    }
+
+    private long readClock() {
+        return readClock(System.nanoTime());
+    }
+
+    /**
+     * 时钟关闭后不再更新，此时回退到系统时间，以免定时任务永远不触发、看门狗看见静止的时钟。
+     * 时钟缓存的就是{@link System#nanoTime()}，因此回退后时间不会倒退。
+     */
+    private long readClock(long systemNanoTime) {
+        final TickingClock tickingClock = this.tickingClock;
+        return (tickingClock != null && !tickingClock.isClosed()) ? tickingClock.nanoTime() : systemNanoTime;
+    }
+
+    // region 看门狗
+
+    Thread thread() {
+        return thread;
+    }
+
+    long lastTickTime() {
+        return tickTime;
+    }
+
+    long busySince() {
+        return (long) BUSY_SINCE.getOpaque(this);
+    }
+
+    void setTaskSampling(boolean taskSampling) {
+        this.taskSampling = taskSampling;
+    }
+
+    // endregion
+
     // endregion
 
     // region 任务提交
 
+    /**
+     * {@inheritDoc}
+     * 在EventLoop线程提交、启用了{@link TaskOptions#DISCARD_FUTURE}且不可取消的任务会被池化。
+     */
+    @Override
+    public <V> IFuture<V> submit(@Nonnull TaskBuilder<V> builder) {
+        if (taskRecycler != null && inEventLoop() && TaskRecycler.isPoolable(builder)) {
+            PromiseTask<V> promiseTask = taskRecycler.newTask(builder);
+            IPromise<V> promise = promiseTask.promise; // 任务执行后可能被回收
+            execute(promiseTask);
+            return promise;
+        }
+        return super.submit(builder);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 在EventLoop线程提交、启用了{@link TaskOptions#DISCARD_FUTURE}且不可取消的任务会被池化。
+     */
+    @Override
+    public <V> IScheduledFuture<V> schedule(ScheduledTaskBuilder<V> builder) {
+        if (taskRecycler != null && inEventLoop() && TaskRecycler.isPoolable(builder)) {
+            ScheduledPromiseTask<V> promiseTask = taskRecycler.newScheduledTask(builder, scheduledHelper);
+            IScheduledPromise<V> promise = (IScheduledPromise<V>) promiseTask.promise;
+            execute(promiseTask);
+            return promise;
+        }
+        return super.schedule(builder);
+    }
+
     @Override
     public void execute(Runnable command) {
         int options = command instanceof ITask task ? task.getOptions() : 0;
@@ -285,6 +406,9 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
             event.setType(0);
             event.setObj1(task);
             event.setOptions(options);
+            if (metrics != null && event instanceof RingBufferEvent ringBufferEvent) {
+                ringBufferEvent.longVal2 = System.nanoTime(); // 用于统计排队延迟
+            }
             if (task instanceof ScheduledPromiseTask<?> futureTask) {
                 futureTask.setId(sequence); // nice
                 futureTask.registerCancellation();
@@ -301,6 +425,121 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
         }
     }
 
+    /**
+     * 批量发布任务
+     * 1. 每次申请一段连续的序号，填充后一次发布 -- 每批只有一次序号竞争和最多一次唤醒。
+     * 2. 单批大小不超过{@link #batchSize}和RingBuffer的容量，超出时分为多批。
+     * 3. 在EventLoop线程调用时，如果空间不足则退化为逐个提交，以避免死锁。
+     * 4. 在申请序号前检查所有任务，如果存在null则不提交任何任务 -- 已申请的序号必须发布，否则消费者将永远等待。
+     */
+    @Override
+    public void executeBatch(List<? extends Runnable> tasks) {
+        final int size = tasks.size();
+        if (size == 0) {
+            return;
+        }
+        if (size == 1) {
+            execute(tasks.get(0));
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            Objects.requireNonNull(tasks.get(i), "task");
+        }
+        int capacity = eventSequencer.capacity();
+        int maxBatchSize = capacity > 0 ? Math.min(capacity, batchSize) : batchSize;
+        for (int offset = 0; offset < size; offset += maxBatchSize) {
+            int n = Math.min(maxBatchSize, size - offset);
+            if (isShuttingDown()) {
+                rejectRange(tasks, offset, size);
+                return;
+            }
+            long hi;
+            if (inEventLoop()) {
+                hi = eventSequencer.tryNext(n);
+                if (hi == -1) {
+                    for (int i = offset; i < offset + n; i++) {
+                        execute(tasks.get(i));
+                    }
+                    continue;
+                }
+            } else {
+                hi = eventSequencer.next(n);
+            }
+            tryPublishBatch(tasks, offset, n, hi);
+        }
+    }
+
+    private void tryPublishBatch(List<? extends Runnable> tasks, int offset, int n, long hi) {
+        final long lo = hi - (n - 1);
+        if (isShuttingDown()) {
+            // 同tryPublish，先发布sequence，不可以覆盖数据
+            eventSequencer.publish(lo, hi);
+            rejectRange(tasks, offset, offset + n);
+            return;
+        }
+        boolean wakeup = false;
+        final long publishTime = metrics != null ? System.nanoTime() : 0;
+        for (int i = 0; i < n; i++) {
+            Runnable task = tasks.get(offset + i);
+            int options = task instanceof ITask iTask ? iTask.getOptions() : 0;
+            long sequence = lo + i;
+            T event = dataProvider.producerGet(sequence);
+            event.setType(0);
+            event.setObj1(task);
+            event.setOptions(options);
+            if (publishTime != 0 && event instanceof RingBufferEvent ringBufferEvent) {
+                ringBufferEvent.longVal2 = publishTime;
+            }
+            if (task instanceof ScheduledPromiseTask<?> futureTask) {
+                futureTask.setId(sequence);
+                futureTask.registerCancellation();
+            }
+            wakeup |= TaskOptions.isEnabled(options, TaskOptions.WAKEUP_THREAD);
+        }
+        eventSequencer.publish(lo, hi);
+
+        if (lo == 0) {
+            ensureThreadStarted();
+        } else if (wakeup && !inEventLoop()) {
+            wakeup();
+        }
+    }
+
+    private void rejectRange(List<? extends Runnable> tasks, int from, int to) {
+        for (int i = from; i < to; i++) {
+            rejectedExecutionHandler.rejected(tasks.get(i), this);
+        }
+    }
+
+    /**
+     * 绑定线程组的溢出队列，开启工作窃取
+     *
+     * @param index 当前EventLoop在线程组中的索引
+     */
+    void bindWorkStealingQueues(WorkStealingQueues workStealingQueues, int index) {
+        this.workStealingIndex = index;
+        this.workStealingQueues = workStealingQueues;
+    }
+
+    /**
+     * 溢出队列由空变为非空时，发布一个空任务唤醒线程
+     * 关闭或队列已满时放弃 -- 线程正在运行，能看见溢出队列中的任务
+     */
+    void signalStealableTask() {
+        long sequence = nextSequence();
+        if (sequence == -1) {
+            return;
+        }
+        T event = dataProvider.producerGet(sequence);
+        event.setType(0);
+        event.setObj1(STEALABLE_TASK_SIGNAL);
+        event.setOptions(0);
+        if (event instanceof RingBufferEvent ringBufferEvent) {
+            ringBufferEvent.longVal2 = 0; // 信号不是任务，不统计排队延迟；槽位可能残留用户事件的数据
+        }
+        publish(sequence);
+    }
+
     public final T getEvent(long sequence) {
         return dataProvider.producerGet(sequence);
     }
@@ -310,6 +549,7 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
      * 1.按照规范，在调用该方法后，必须在finally块中进行发布。
      * 2.事件类型必须大于等于0，否则可能导致异常
      * 3.返回值为-1时必须检查
+     * 4.启用统计时，类型为0的{@link RingBufferEvent}的{@code longVal2}被视为发布时间({@link System#nanoTime()})，不需要统计时应设置为0
      * <pre> {@code
      *      long sequence = eventLoop.nextSequence();
      *      try {
@@ -396,6 +636,21 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
         return scheduledHelper;
     }
 
+    private class FrameClock implements TimeProvider {
+
+        @Override
+        public long getTime() {
+            return tickTime;
+        }
+
+        @Override
+        public String toString() {
+            return "FrameClock{" +
+                    "tickTime=" + tickTime +
+                    '}';
+        }
+    }
+
     private class ScheduledHelper implements IScheduledHelper {
 
         @Override
@@ -426,7 +681,9 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
 
         @Override
         public void onCompleted(ScheduledPromiseTask<?> futureTask) {
-            futureTask.clear();
+            if (taskRecycler == null || !taskRecycler.recycleScheduledTask(futureTask)) {
+                futureTask.clear();
+            }
         }
 
         @Override
@@ -439,9 +696,7 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
                 // 1.futureTask可能尚未被压入调度队列
                 // 2.futureTask可能正在执行trigger方法 -- 这两种情况都导致不在调度队列
                 futureTask.setNextTriggerTime(0);
-                if (futureTask.collectionIndex(scheduledTaskQueue) >= 0) {
-                    scheduledTaskQueue.priorityChanged(futureTask);
-                }
+                scheduledTaskQueue.priorityChanged(futureTask);
             } else {
                 // 如果在其它线程，有这些情况：
                 // 1.如果EventLoop是有界队列，压任务可能导致阻塞
@@ -562,7 +817,7 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
                 if (!runningPromise.trySetComputing()) {
                     break outer;
                 }
-                tickTime = System.nanoTime();
+                tickTime = readClock();
                 agent.onStart();
 
                 advanceRunState(EventLoopState.ST_RUNNING);
@@ -612,19 +867,37 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
             long availableSequence = -1;
             while (state == EventLoopState.ST_RUNNING) {
                 try {
-                    tickTime = System.nanoTime();
+                    tickTime = readClock();
+                    BUSY_SINCE.setOpaque(DisruptorEventLoop.this, tickTime);
                     processScheduledQueue(tickTime, false);
 
-                    // 多生产者模型下不可频繁调用waitFor，会在查询可用sequence时产生巨大的开销，因此查询之后本地切割为小批次
+                    // 事件队列为空时，优先执行可窃取任务，而不是阻塞等待
                     if (availableSequence < nextSequence
-                            && (availableSequence = barrier.waitFor(nextSequence)) < nextSequence) {
-                        invokeAgentUpdate(); // 等待超时
+                            && eventSequencer.producerBarrier().sequence() < nextSequence
+                            && runStealableTasks(true)) {
+                        invokeAgentUpdate();
                         continue;
                     }
+                    // 多生产者模型下不可频繁调用waitFor，会在查询可用sequence时产生巨大的开销，因此查询之后本地切割为小批次
+                    if (availableSequence < nextSequence) {
+                        BUSY_SINCE.setOpaque(DisruptorEventLoop.this, 0L);
+                        if ((availableSequence = barrier.waitFor(nextSequence)) < nextSequence) {
+                            invokeAgentUpdate(); // 等待超时
+                            continue;
+                        }
+                    }
 
                     long batchEndSequence = Math.min(availableSequence, nextSequence + batchSize - 1);
-                    long curSequence = runTaskBatch(nextSequence, batchEndSequence);
+                    long batchStartTime = System.nanoTime();
+                    tickTime = readClock(batchStartTime); // 刷新帧时间，等待事件期间可能过去了很久
+                    BUSY_SINCE.setOpaque(DisruptorEventLoop.this, batchStartTime);
+                    long curSequence = runTaskBatch(nextSequence, batchEndSequence, batchStartTime);
                     sequence.setRelease(curSequence);
+                    long batchNanos = System.nanoTime() - batchStartTime;
+                    updateAvgTaskNanos(batchNanos, curSequence - nextSequence + 1);
+                    if (metrics != null) {
+                        metrics.onTaskBatch(curSequence - nextSequence + 1, batchNanos);
+                    }
                     // 无界队列尝试主动回收块
                     if (unboundedBuffer != null) {
                         unboundedBuffer.tryMoveHeadToNext(curSequence);
@@ -634,6 +907,8 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
                         assert isShuttingDown();
                         break;
                     }
+                    // 事件队列繁忙时也执行一批自己的溢出任务，避免饥饿；但不窃取
+                    runStealableTasks(false);
 
                     invokeAgentUpdate();
                 } catch (AlertException | InterruptedException e) {
@@ -648,7 +923,18 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
             }
         }
 
+        private void updateAvgTaskNanos(long batchNanos, long batchCount) {
+            if (batchCount <= 0) {
+                return;
+            }
+            long taskNanos = batchNanos / batchCount;
+            long avg = avgTaskNanos;
+            avgTaskNanos = (avg == 0) ? taskNanos : avg + ((taskNanos - avg) >> EWMA_SHIFT);
+        }
+
         private void invokeAgentUpdate() {
+            final EventLoopMetrics metrics = DisruptorEventLoop.this.metrics;
+            final long startTime = metrics != null ? System.nanoTime() : 0;
             try {
                 agent.update();
             } catch (Throwable t) {
@@ -658,6 +944,40 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
                     logger.warn("agent.update caught exception", t);
                 }
             }
+            if (metrics != null) {
+                metrics.onAgentUpdate(System.nanoTime() - startTime);
+            }
+        }
+
+        /**
+         * 执行溢出队列中的任务，单次最多执行{@link #batchSize}个任务
+         *
+         * @param allowSteal 自己的溢出队列为空时是否从兄弟节点窃取
+         * @return 如果执行了任务则返回true
+         */
+        private boolean runStealableTasks(boolean allowSteal) {
+            final WorkStealingQueues queues = workStealingQueues;
+            if (queues == null) {
+                return false;
+            }
+            final int index = workStealingIndex;
+            if (queues.pendingCount(index) == 0 && (!allowSteal || queues.steal(index) == 0)) {
+                return false;
+            }
+            int count = 0;
+            Runnable task;
+            while (count < batchSize && (task = queues.poll(index)) != null) {
+                count++;
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logCause(t);
+                    if (isShuttingDown()) {
+                        break;
+                    }
+                }
+            }
+            return count > 0;
         }
 
         /**
@@ -667,15 +987,21 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
          * @param shuttingDownMode 是否是退出模式
          */
         private void processScheduledQueue(long tickTime, boolean shuttingDownMode) {
-            final IndexedPriorityQueue<ScheduledPromiseTask<?>> taskQueue = scheduledTaskQueue;
-            ScheduledPromiseTask<?> queueTask;
-            while ((queueTask = taskQueue.peek()) != null) {
-                // 优先级最高的任务不需要执行，那么后面的也不需要执行
-                if (tickTime < queueTask.getNextTriggerTime()) {
-                    return;
-                }
+            final EventLoopMetrics metrics = DisruptorEventLoop.this.metrics;
+            if (metrics == null || shuttingDownMode) {
+                processScheduledQueue0(tickTime, shuttingDownMode);
+            } else {
+                final long startTime = System.nanoTime();
+                processScheduledQueue0(tickTime, false);
+                metrics.onScheduledQueue(System.nanoTime() - startTime, scheduledTaskQueue.size());
+            }
+        }
 
-                taskQueue.poll();
+        private void processScheduledQueue0(long tickTime, boolean shuttingDownMode) {
+            final ScheduledTaskQueue taskQueue = scheduledTaskQueue;
+            ScheduledPromiseTask<?> queueTask;
+            // 优先级最高的任务不需要执行，那么后面的也不需要执行
+            while ((queueTask = taskQueue.pollDue(tickTime)) != null) {
                 if (shuttingDownMode) {
                     // 关闭模式下，不再重复执行任务
                     if (queueTask.isTriggered() || queueTask.trigger(tickTime)) {
@@ -689,7 +1015,7 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
                             queueTask.trySetCancelled();
                             scheduledHelper.onCompleted(queueTask);
                         } else {
-                            taskQueue.offer(queueTask);
+                            taskQueue.add(queueTask);
                             continue;
                         }
                     } else {
@@ -704,18 +1030,33 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
             }
         }
 
-        /** @return curSequence */
-        private long runTaskBatch(final long batchBeginSequence, final long batchEndSequence) {
+        /**
+         * @param batchStartTime 批次开始时间，用于统计排队延迟
+         * @return curSequence
+         */
+        private long runTaskBatch(final long batchBeginSequence, final long batchEndSequence, final long batchStartTime) {
             DataProvider<? extends T> dataProvider = DisruptorEventLoop.this.dataProvider;
             EventLoopAgent<? super T> agent = DisruptorEventLoop.this.agent;
+            EventLoopMetrics metrics = DisruptorEventLoop.this.metrics;
             boolean cleanEventAfterConsumed = DisruptorEventLoop.this.cleanEventAfterConsumed;
+            boolean taskSampling = DisruptorEventLoop.this.taskSampling;
 
             for (long curSequence = batchBeginSequence; curSequence <= batchEndSequence; curSequence++) {
                 T event = dataProvider.consumerGet(curSequence);
+                if (taskSampling) {
+                    BUSY_SINCE.setOpaque(DisruptorEventLoop.this, System.nanoTime());
+                }
                 try {
                     if (event.getType() == 0) {
+                        if (metrics != null && event instanceof RingBufferEvent ringBufferEvent && ringBufferEvent.longVal2 != 0) {
+                            metrics.recordQueueDelay(batchStartTime - ringBufferEvent.longVal2);
+                            ringBufferEvent.longVal2 = 0; // clean不清理扩展字段，避免槽位被其它方式复用时读到旧的发布时间
+                        }
                         Runnable runnable = (Runnable) event.getObj1();
                         runnable.run();
+                        if (taskRecycler != null && runnable instanceof PromiseTask<?> promiseTask) {
+                            taskRecycler.recycleTask(promiseTask);
+                        }
                     } else if (event.getType() > 0) {
                         agent.onEvent(curSequence, event);
                     } else {
@@ -750,7 +1091,7 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
             final long startTimeMillis = System.currentTimeMillis();
 
             // 处理延迟任务
-            tickTime = System.nanoTime();
+            tickTime = readClock();
             processScheduledQueue(tickTime, true);
             scheduledTaskQueue.clearIgnoringIndexes();
 
@@ -801,17 +1142,36 @@ public class DisruptorEventLoop<T extends IAgentEvent> extends AbstractScheduled
                     unboundedBuffer.tryMoveHeadToNext(nextSequence);
                 }
             }
+            // 溢出队列中剩余的任务 -- 其它线程可能仍在压入任务，因此不保证清理干净，压入方会重新检查关闭状态
+            final WorkStealingQueues queues = workStealingQueues;
+            if (queues != null) {
+                Runnable task;
+                while ((task = queues.poll(workStealingIndex)) != null) {
+                    taskCount++;
+                    if (isShutdown()) {
+                        discardCount++;
+                        continue;
+                    }
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        logCause(t);
+                    }
+                }
+            }
             logger.info("cleanBuffer success!  nullCount = {}, taskCount = {}, discardCount {}, cost timeMillis = {}",
                     nullCount, taskCount, discardCount, (System.currentTimeMillis() - startTimeMillis));
         }
     }
 
     private static final VarHandle STATE;
+    private static final VarHandle BUSY_SINCE;
 
     static {
         try {
             MethodHandles.Lookup l = MethodHandles.lookup();
             STATE = l.findVarHandle(DisruptorEventLoop.class, "state", int.class);
+            BUSY_SINCE = l.findVarHandle(DisruptorEventLoop.class, "busySince", long.class);
         } catch (ReflectiveOperationException e) {
             throw new ExceptionInInitializerError(e);
         }
@@ -19,7 +19,10 @@ package cn.wjybxx.concurrent;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Callable;
 
 /**
  * 事件循环
@@ -77,6 +80,48 @@ public interface EventLoop extends FixedEventLoopGroup, SingleThreadExecutor {
         return this;
     }
 
+    /**
+     * 默认实现逐个提交任务，支持批量发布的子类应当重写该方法
+     */
+    @Override
+    default void executeBatch(List<? extends Runnable> tasks) {
+        for (Runnable task : tasks) {
+            execute(task);
+        }
+    }
+
+    /**
+     * 由于{@link EventLoop}总是选中自己，因此忽略key
+     */
+    @Override
+    default void executeBatch(int[] keys, List<? extends Runnable> tasks) {
+        if (keys.length != tasks.size()) {
+            throw new IllegalArgumentException("keys.length: " + keys.length + ", tasks.size: " + tasks.size());
+        }
+        executeBatch(tasks);
+    }
+
+    @Override
+    default <V> List<IFuture<V>> submitAll(List<? extends Callable<? extends V>> tasks) {
+        List<IFuture<V>> futures = new ArrayList<>(tasks.size());
+        List<Runnable> promiseTasks = new ArrayList<>(tasks.size());
+        for (Callable<? extends V> task : tasks) {
+            IPromise<V> promise = newPromise();
+            promiseTasks.add(PromiseTask.ofFunction(task, null, 0, promise));
+            futures.add(promise);
+        }
+        executeBatch(promiseTasks);
+        return futures;
+    }
+
+    @Override
+    default <V> List<IFuture<V>> submitAll(int[] keys, List<? extends Callable<? extends V>> tasks) {
+        if (keys.length != tasks.size()) {
+            throw new IllegalArgumentException("keys.length: " + keys.length + ", tasks.size: " + tasks.size());
+        }
+        return submitAll(tasks);
+    }
+
     /**
      * 返回该EventLoop线程所在的线程组（管理该EventLoop的容器）。
      * 如果没有父节点，返回null。
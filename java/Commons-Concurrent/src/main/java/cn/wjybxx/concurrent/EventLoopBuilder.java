@@ -17,11 +17,13 @@
 package cn.wjybxx.concurrent;
 
 
+import cn.wjybxx.base.time.TickingClock;
 import cn.wjybxx.disruptor.EventSequencer;
 import cn.wjybxx.disruptor.Sequencer;
 import cn.wjybxx.disruptor.WaitStrategy;
 
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @param <T> 内部事件类型
@@ -38,6 +40,7 @@ public abstract class EventLoopBuilder<T extends IAgentEvent> {
     private EventLoopAgent<? super T> agent;
     private EventLoopModule mainModule;
     private int batchSize = 1024;
+    private ScheduledTaskQueueFactory scheduledTaskQueueFactory = ScheduledTaskQueues.binaryHeap();
 
     public abstract EventLoop build();
 
@@ -113,6 +116,20 @@ public abstract class EventLoopBuilder<T extends IAgentEvent> {
         this.batchSize = batchSize;
         return this;
     }
+
+    /**
+     * 定时任务队列工厂
+     * 1. 默认为二叉堆{@link ScheduledTaskQueues#binaryHeap()}。
+     * 2. 如果存在大量的定时任务，且频繁添加和取消，可使用时间轮{@link ScheduledTaskQueues#timingWheel(long, TimeUnit)}。
+     */
+    public ScheduledTaskQueueFactory getScheduledTaskQueueFactory() {
+        return scheduledTaskQueueFactory;
+    }
+
+    public EventLoopBuilder<T> setScheduledTaskQueueFactory(ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        this.scheduledTaskQueueFactory = scheduledTaskQueueFactory;
+        return this;
+    }
     //
 
     public static <T extends IAgentEvent> DisruptorBuilder<T> newDisruptBuilder() {
@@ -124,6 +141,10 @@ public abstract class EventLoopBuilder<T extends IAgentEvent> {
                 .setEventSequencer(eventSequencer);
     }
 
+    public static <T extends IAgentEvent> VirtualBuilder<T> newVirtualBuilder() {
+        return new VirtualBuilder<>();
+    }
+
     //
 
     public static class DisruptorBuilder<T extends IAgentEvent> extends EventLoopBuilder<T> {
@@ -133,6 +154,9 @@ public abstract class EventLoopBuilder<T extends IAgentEvent> {
 
         private boolean cleanEventAfterConsumed = true;
         private boolean cleanBufferOnExit = true;
+        private boolean metricsEnabled = false;
+        private TickingClock tickingClock;
+        private int taskPoolSize = 64;
 
         //
 
@@ -177,6 +201,12 @@ public abstract class EventLoopBuilder<T extends IAgentEvent> {
             return this;
         }
 
+        @Override
+        public DisruptorBuilder<T> setScheduledTaskQueueFactory(ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+            super.setScheduledTaskQueueFactory(scheduledTaskQueueFactory);
+            return this;
+        }
+
         @Override
         public DisruptorEventLoop<T> build() {
             if (getThreadFactory() == null) {
@@ -227,6 +257,49 @@ public abstract class EventLoopBuilder<T extends IAgentEvent> {
             return this;
         }
 
+        /**
+         * 是否启用运行指标{@link EventLoopMetrics}
+         * 1. 默认不启用；启用后每批任务会多几次{@link System#nanoTime()}调用。
+         * 2. 排队延迟要求事件类型为{@link RingBufferEvent}。
+         */
+        public boolean isMetricsEnabled() {
+            return metricsEnabled;
+        }
+
+        public DisruptorBuilder<T> setMetricsEnabled(boolean metricsEnabled) {
+            this.metricsEnabled = metricsEnabled;
+            return this;
+        }
+
+        /**
+         * EventLoop帧时间({@link DisruptorEventLoop#frameClock()})的时间源
+         * 1. 默认为null，EventLoop每批任务调用一次{@link System#nanoTime()}。
+         * 2. 指定后从时钟读取缓存的时间，时间的精度受限于时钟的精度，定时任务的触发也会相应延迟。
+         * 3. 时钟应当比EventLoop存活得更久；如果时钟先被关闭，EventLoop将回退到{@link System#nanoTime()}。
+         */
+        public TickingClock getTickingClock() {
+            return tickingClock;
+        }
+
+        public DisruptorBuilder<T> setTickingClock(TickingClock tickingClock) {
+            this.tickingClock = tickingClock;
+            return this;
+        }
+
+        /**
+         * 任务对象池的大小 -- 池化{@link TaskOptions#DISCARD_FUTURE}任务的Task和Promise
+         * 1. 默认64，0表示不池化。
+         * 2. 对象池只在EventLoop线程访问，每种对象最多缓存该数量。
+         */
+        public int getTaskPoolSize() {
+            return taskPoolSize;
+        }
+
+        public DisruptorBuilder<T> setTaskPoolSize(int taskPoolSize) {
+            this.taskPoolSize = taskPoolSize;
+            return this;
+        }
+
         /**
          * EventLoop在退出的时候是否清理buffer
          * 1. 默认清理
@@ -242,4 +315,78 @@ public abstract class EventLoopBuilder<T extends IAgentEvent> {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * 虚拟线程EventLoop的构建器
+     * 1. 默认使用虚拟线程工厂。
+     * 2. 默认的定时任务队列初始容量为0，以降低大量EventLoop的内存占用。
+     * 3. 也可以指定平台线程工厂，此时构建的是基于MPSC链表队列的EventLoop：
+     * 提交任务时分配一个节点并进行一次原子交换，没有序号申请和事件拷贝，但队列是无界的。
+     */
+    public static class VirtualBuilder<T extends IAgentEvent> extends EventLoopBuilder<T> {
+
+        private static final ThreadFactory DEFAULT_THREAD_FACTORY = Thread.ofVirtual()
+                .name("VirtualEventLoop-", 0)
+                .factory();
+
+        public VirtualBuilder() {
+            setScheduledTaskQueueFactory(ScheduledTaskQueues.binaryHeap(0));
+        }
+
+        @Override
+        public VirtualBuilder<T> setParent(EventLoopGroup parent) {
+            super.setParent(parent);
+            return this;
+        }
+
+        @Override
+        public VirtualBuilder<T> setIndex(int index) {
+            super.setIndex(index);
+            return this;
+        }
+
+        @Override
+        public VirtualBuilder<T> setRejectedExecutionHandler(RejectedExecutionHandler rejectedExecutionHandler) {
+            super.setRejectedExecutionHandler(rejectedExecutionHandler);
+            return this;
+        }
+
+        @Override
+        public VirtualBuilder<T> setThreadFactory(ThreadFactory threadFactory) {
+            super.setThreadFactory(threadFactory);
+            return this;
+        }
+
+        @Override
+        public VirtualBuilder<T> setAgent(EventLoopAgent<? super T> agent) {
+            super.setAgent(agent);
+            return this;
+        }
+
+        @Override
+        public VirtualBuilder<T> setMainModule(EventLoopModule mainModule) {
+            super.setMainModule(mainModule);
+            return this;
+        }
+
+        @Override
+        public VirtualBuilder<T> setBatchSize(int batchSize) {
+            super.setBatchSize(batchSize);
+            return this;
+        }
+
+        @Override
+        public VirtualBuilder<T> setScheduledTaskQueueFactory(ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+            super.setScheduledTaskQueueFactory(scheduledTaskQueueFactory);
+            return this;
+        }
+
+        @Override
+        public VirtualEventLoop<T> build() {
+            if (getThreadFactory() == null) {
+                setThreadFactory(DEFAULT_THREAD_FACTORY);
+            }
+            return new VirtualEventLoop<>(this);
+        }
+    }
+
+}
@@ -39,4 +39,14 @@ public interface EventLoopChooser {
      */
     EventLoop select(int key);
 
+    /**
+     * 释放key的绑定，之后该key将重新选择
+     * 只对记录了选择结果的选择器有意义，无状态的选择器总是返回false。
+     *
+     * @return 如果key存在绑定则返回true
+     */
+    default boolean release(int key) {
+        return false;
+    }
+
 }
\ No newline at end of file
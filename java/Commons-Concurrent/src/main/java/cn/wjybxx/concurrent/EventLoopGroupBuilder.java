@@ -26,6 +26,7 @@ public class EventLoopGroupBuilder {
     private EventLoopFactory eventLoopFactory;
     private EventLoopChooserFactory chooserFactory;
     private Runnable terminationHook;
+    private boolean workStealing;
 
     //
 
@@ -39,6 +40,16 @@ public class EventLoopGroupBuilder {
         return new DefaultFixedEventLoopGroup(this);
     }
 
+    /**
+     * 构建虚拟线程EventLoop组
+     * 1. {@link #getNumChildren()}为共享EventLoop的数量。
+     * 2. 如果未指定{@link #getEventLoopFactory()}，则使用默认配置的{@link VirtualEventLoop}。
+     * 3. 不支持{@link #getChooserFactory()}和{@link #isWorkStealing()}。
+     */
+    public VirtualEventLoopGroup buildVirtual() {
+        return new VirtualEventLoopGroup(this);
+    }
+
     public int getNumChildren() {
         return numChildren;
     }
@@ -66,6 +77,22 @@ public class EventLoopGroupBuilder {
         return this;
     }
 
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * 是否启用工作窃取
+     * 1. 启用后，直接提交给线程组的普通任务（execute和submit）不再固定在选中的EventLoop上，空闲的EventLoop可以窃取执行。
+     * 2. {@code select(key)}绑定的任务和定时任务仍然固定在对应的EventLoop上。
+     * 3. 可窃取的任务之间没有时序保证，适用于CPU密集型且无状态的任务。
+     * 4. 要求所有的子节点都是{@link DisruptorEventLoop}，且等待策略应当支持超时，否则空闲的EventLoop无法及时醒来窃取任务。
+     */
+    public EventLoopGroupBuilder setWorkStealing(boolean workStealing) {
+        this.workStealing = workStealing;
+        return this;
+    }
+
     public Runnable getTerminationHook() {
         return terminationHook;
     }
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.IntSupplier;
+
+/**
+ * EventLoop的运行指标
+ * <p>
+ * 1. 单写者多读者：只有EventLoop线程写，其它线程可以无锁读取；记录时不分配内存。
+ * 2. 计数器之间不保证一致性，读取到的是近似快照，适用于监控而非精确统计。
+ * 3. 时间单位都是纳秒。
+ * 4. 排队延迟只统计通过{@link EventLoop#execute(Runnable)}等接口提交的任务，且要求事件类型为{@link RingBufferEvent}，
+ * 延迟从发布到所在批次开始执行 -- 不包含批次内前序任务的执行时间。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class EventLoopMetrics {
+
+    private static final int IDX_TASK_COUNT = 0;
+    private static final int IDX_BATCH_COUNT = 1;
+    private static final int IDX_BATCH_NANOS = 2;
+    private static final int IDX_SCHEDULED_COUNT = 3;
+    private static final int IDX_SCHEDULED_NANOS = 4;
+    private static final int IDX_UPDATE_COUNT = 5;
+    private static final int IDX_UPDATE_NANOS = 6;
+    private static final int IDX_SCHEDULED_QUEUE_SIZE = 7;
+    private static final int COUNTER_LENGTH = 8;
+
+    private final long[] counters = new long[COUNTER_LENGTH];
+    private final FixedBucketHistogram batchSizeHistogram = new FixedBucketHistogram();
+    private final FixedBucketHistogram queueDelayHistogram = new FixedBucketHistogram();
+    private final IntSupplier backlogSupplier;
+
+    EventLoopMetrics(IntSupplier backlogSupplier) {
+        this.backlogSupplier = backlogSupplier;
+    }
+
+    // region 写接口 -- 只由EventLoop线程调用
+
+    private void add(int index, long delta) {
+        COUNTERS.setOpaque(counters, index, counters[index] + delta);
+    }
+
+    void onTaskBatch(long taskCount, long nanos) {
+        add(IDX_TASK_COUNT, taskCount);
+        add(IDX_BATCH_COUNT, 1);
+        add(IDX_BATCH_NANOS, nanos);
+        batchSizeHistogram.record(taskCount);
+    }
+
+    void onScheduledQueue(long nanos, int queueSize) {
+        add(IDX_SCHEDULED_COUNT, 1);
+        add(IDX_SCHEDULED_NANOS, nanos);
+        COUNTERS.setOpaque(counters, IDX_SCHEDULED_QUEUE_SIZE, (long) queueSize);
+    }
+
+    void onAgentUpdate(long nanos) {
+        add(IDX_UPDATE_COUNT, 1);
+        add(IDX_UPDATE_NANOS, nanos);
+    }
+
+    void recordQueueDelay(long nanos) {
+        queueDelayHistogram.record(nanos);
+    }
+
+    // endregion
+
+    private long get(int index) {
+        return (long) COUNTERS.getOpaque(counters, index);
+    }
+
+    /** 已执行的任务和事件数 -- 不包括定时任务 */
+    public long taskCount() {
+        return get(IDX_TASK_COUNT);
+    }
+
+    /** 已执行的批次数 */
+    public long batchCount() {
+        return get(IDX_BATCH_COUNT);
+    }
+
+    /** 批量执行任务和事件的总耗时 */
+    public long batchNanos() {
+        return get(IDX_BATCH_NANOS);
+    }
+
+    /** 处理定时任务队列的次数 */
+    public long scheduledCount() {
+        return get(IDX_SCHEDULED_COUNT);
+    }
+
+    /** 处理定时任务队列的总耗时 */
+    public long scheduledNanos() {
+        return get(IDX_SCHEDULED_NANOS);
+    }
+
+    /** {@link EventLoopAgent#update()}的调用次数 */
+    public long agentUpdateCount() {
+        return get(IDX_UPDATE_COUNT);
+    }
+
+    /** {@link EventLoopAgent#update()}的总耗时 */
+    public long agentUpdateNanos() {
+        return get(IDX_UPDATE_NANOS);
+    }
+
+    /** 最近一次采样的定时任务队列大小 */
+    public int scheduledQueueSize() {
+        return (int) get(IDX_SCHEDULED_QUEUE_SIZE);
+    }
+
+    /** 当前积压的任务数 -- 实时估算值 */
+    public int backlog() {
+        return backlogSupplier.getAsInt();
+    }
+
+    /** 每批次任务数的分布 */
+    public FixedBucketHistogram batchSizeHistogram() {
+        return batchSizeHistogram;
+    }
+
+    /** 任务排队延迟的分布 */
+    public FixedBucketHistogram queueDelayHistogram() {
+        return queueDelayHistogram;
+    }
+
+    /**
+     * 汇总线程组中所有启用了指标的EventLoop的数据
+     * 1. 返回的是快照，不会随EventLoop的运行更新，{@link #backlog()}同样是汇总时的值。
+     * 2. 如果没有EventLoop启用指标，返回的快照所有值为0。
+     */
+    public static EventLoopMetrics aggregate(EventLoopGroup group) {
+        final int[] backlog = new int[1];
+        final EventLoopMetrics snapshot = new EventLoopMetrics(() -> backlog[0]);
+        final long[] counters = snapshot.counters;
+        for (EventLoop eventLoop : group) {
+            if (!(eventLoop instanceof DisruptorEventLoop<?> disruptorEventLoop)) {
+                continue;
+            }
+            EventLoopMetrics metrics = disruptorEventLoop.metrics();
+            if (metrics == null) {
+                continue;
+            }
+            for (int i = 0; i < COUNTER_LENGTH; i++) {
+                COUNTERS.setOpaque(counters, i, counters[i] + metrics.get(i));
+            }
+            backlog[0] += metrics.backlog();
+            snapshot.batchSizeHistogram.add(metrics.batchSizeHistogram);
+            snapshot.queueDelayHistogram.add(metrics.queueDelayHistogram);
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "EventLoopMetrics{" +
+                "taskCount=" + taskCount() +
+                ", batchCount=" + batchCount() +
+                ", batchNanos=" + batchNanos() +
+                ", scheduledNanos=" + scheduledNanos() +
+                ", agentUpdateNanos=" + agentUpdateNanos() +
+                ", scheduledQueueSize=" + scheduledQueueSize() +
+                ", backlog=" + backlog() +
+                ", queueDelay=" + queueDelayHistogram +
+                '}';
+    }
+
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(long[].class);
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * EventLoop看门狗 -- 检测慢任务和停顿的EventLoop
+ * <p>
+ * 1. 由独立的监控线程周期性地观察EventLoop发布的进度（工作单元的开始时间和tickTime），EventLoop线程只有opaque写，几乎没有额外开销。
+ * 2. 慢任务：当前工作单元的执行时间超过预算时，捕获EventLoop线程的堆栈并通知{@link Listener}，每个工作单元只通知一次。
+ * 3. 停顿：EventLoop的tickTime长时间不前进，且有待处理的任务或线程不处于等待状态时，通知{@link Listener}。
+ * 4. 默认按批次检测，即工作单元是一批任务；启用任务采样后按任务检测，每个任务多一次{@link System#nanoTime()}调用。
+ * 5. 只支持{@link DisruptorEventLoop}，EventLoop终止后自动移除。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class EventLoopWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLoopWatchdog.class);
+
+    private final long taskBudgetNanos;
+    private final long stallThresholdNanos;
+    private final long checkIntervalNanos;
+    private final boolean taskSampling;
+    private final Listener listener;
+
+    private final CopyOnWriteArrayList<Probe> probes = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    private EventLoopWatchdog(Builder builder) {
+        this.taskBudgetNanos = builder.taskBudgetNanos;
+        this.stallThresholdNanos = builder.stallThresholdNanos;
+        this.checkIntervalNanos = builder.checkIntervalNanos;
+        this.taskSampling = builder.taskSampling;
+        this.listener = Objects.requireNonNullElse(builder.listener, LoggingListener.INSTANCE);
+
+        ThreadFactory threadFactory = Objects.requireNonNullElseGet(builder.threadFactory,
+                () -> new DefaultThreadFactory("EventLoopWatchdog", true));
+        this.thread = Objects.requireNonNull(threadFactory.newThread(this::loop), "newThread");
+        this.thread.start();
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** 开始监控EventLoop */
+    public synchronized void register(DisruptorEventLoop<?> eventLoop) {
+        Objects.requireNonNull(eventLoop, "eventLoop");
+        if (closed) {
+            throw new IllegalStateException("watchdog closed");
+        }
+        for (Probe probe : probes) {
+            if (probe.eventLoop == eventLoop) {
+                return;
+            }
+        }
+        if (taskSampling) {
+            eventLoop.setTaskSampling(true);
+        }
+        probes.add(new Probe(eventLoop));
+    }
+
+    /** 监控线程组中所有的{@link DisruptorEventLoop} */
+    public void register(EventLoopGroup group) {
+        for (EventLoop eventLoop : group) {
+            if (eventLoop instanceof DisruptorEventLoop<?> disruptorEventLoop) {
+                register(disruptorEventLoop);
+            }
+        }
+    }
+
+    /** 停止监控EventLoop */
+    public synchronized boolean unregister(DisruptorEventLoop<?> eventLoop) {
+        for (Probe probe : probes) {
+            if (probe.eventLoop == eventLoop) {
+                probes.remove(probe);
+                if (taskSampling) {
+                    eventLoop.setTaskSampling(false);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** 关闭看门狗，不再检测 */
+    public synchronized void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        for (Probe probe : probes) {
+            if (taskSampling) {
+                probe.eventLoop.setTaskSampling(false);
+            }
+        }
+        probes.clear();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void loop() {
+        while (!closed) {
+            LockSupport.parkNanos(this, checkIntervalNanos);
+            if (closed) {
+                break;
+            }
+            for (Probe probe : probes) {
+                try {
+                    check(probe, System.nanoTime());
+                } catch (Throwable t) {
+                    logger.warn("watchdog check caught exception", t);
+                }
+            }
+        }
+    }
+
+    private void check(Probe probe, long now) {
+        final DisruptorEventLoop<?> eventLoop = probe.eventLoop;
+        if (eventLoop.isTerminated()) {
+            probes.remove(probe);
+            return;
+        }
+        if (!eventLoop.isRunning()) {
+            return;
+        }
+        // 慢任务
+        final long busySince = eventLoop.busySince();
+        if (busySince != 0 && busySince != probe.reportedBusySince && now - busySince > taskBudgetNanos) {
+            probe.reportedBusySince = busySince;
+            Thread thread = eventLoop.thread();
+            listener.onSlowTask(eventLoop, now - busySince, thread.getStackTrace());
+        }
+        // 停顿
+        final long tickTime = eventLoop.lastTickTime();
+        if (tickTime == probe.reportedTickTime
+                || now - tickTime <= stallThresholdNanos
+                || !isBusy(eventLoop, busySince)) {
+            return;
+        }
+        probe.reportedTickTime = tickTime;
+        Thread thread = eventLoop.thread();
+        listener.onStall(eventLoop, now - tickTime, thread.getStackTrace());
+    }
+
+    /** 等待事件的线程的tickTime也可能不前进(无超时的等待策略)，因此需要排除空闲的情况 */
+    private static boolean isBusy(DisruptorEventLoop<?> eventLoop, long busySince) {
+        if (busySince != 0 || eventLoop.taskCount() > 0) {
+            return true;
+        }
+        Thread.State state = eventLoop.thread().getState();
+        return state == Thread.State.RUNNABLE || state == Thread.State.BLOCKED;
+    }
+
+    /** 监控线程私有的状态 */
+    private static class Probe {
+
+        final DisruptorEventLoop<?> eventLoop;
+        long reportedBusySince;
+        long reportedTickTime;
+
+        Probe(DisruptorEventLoop<?> eventLoop) {
+            this.eventLoop = eventLoop;
+        }
+    }
+
+    /**
+     * 看门狗的事件监听器
+     * 注意：方法在监控线程调用，不可以阻塞。
+     */
+    public interface Listener {
+
+        /**
+         * 检测到慢任务
+         *
+         * @param elapsedNanos 工作单元已执行的时间
+         * @param stackTrace   EventLoop线程的堆栈
+         */
+        void onSlowTask(DisruptorEventLoop<?> eventLoop, long elapsedNanos, StackTraceElement[] stackTrace);
+
+        /**
+         * 检测到EventLoop停顿
+         *
+         * @param stalledNanos tickTime未前进的时间
+         * @param stackTrace   EventLoop线程的堆栈
+         */
+        void onStall(DisruptorEventLoop<?> eventLoop, long stalledNanos, StackTraceElement[] stackTrace);
+    }
+
+    private static class LoggingListener implements Listener {
+
+        static final LoggingListener INSTANCE = new LoggingListener();
+
+        @Override
+        public void onSlowTask(DisruptorEventLoop<?> eventLoop, long elapsedNanos, StackTraceElement[] stackTrace) {
+            logger.warn("slow task detected, eventLoop: {}, elapsedMillis: {}, stackTrace: {}",
+                    eventLoop.thread().getName(), TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Arrays.toString(stackTrace));
+        }
+
+        @Override
+        public void onStall(DisruptorEventLoop<?> eventLoop, long stalledNanos, StackTraceElement[] stackTrace) {
+            logger.warn("eventLoop stall detected, eventLoop: {}, stalledMillis: {}, stackTrace: {}",
+                    eventLoop.thread().getName(), TimeUnit.NANOSECONDS.toMillis(stalledNanos), Arrays.toString(stackTrace));
+        }
+    }
+
+    public static class Builder {
+
+        private long taskBudgetNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        private long stallThresholdNanos = TimeUnit.SECONDS.toNanos(1);
+        private long checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(20);
+        private boolean taskSampling;
+        private Listener listener;
+        private ThreadFactory threadFactory;
+
+        public EventLoopWatchdog build() {
+            if (taskBudgetNanos <= 0 || stallThresholdNanos <= 0 || checkIntervalNanos <= 0) {
+                throw new IllegalStateException("time must be positive");
+            }
+            return new EventLoopWatchdog(this);
+        }
+
+        /** 单个工作单元的执行时间预算，超过预算则视为慢任务；默认100毫秒 */
+        public long getTaskBudgetNanos() {
+            return taskBudgetNanos;
+        }
+
+        public Builder setTaskBudget(long taskBudget, TimeUnit unit) {
+            this.taskBudgetNanos = unit.toNanos(taskBudget);
+            return this;
+        }
+
+        /** tickTime未前进的时间超过该值则视为停顿；默认1秒 */
+        public long getStallThresholdNanos() {
+            return stallThresholdNanos;
+        }
+
+        public Builder setStallThreshold(long stallThreshold, TimeUnit unit) {
+            this.stallThresholdNanos = unit.toNanos(stallThreshold);
+            return this;
+        }
+
+        /** 检测间隔；默认20毫秒，检测的误差不超过该值 */
+        public long getCheckIntervalNanos() {
+            return checkIntervalNanos;
+        }
+
+        public Builder setCheckInterval(long checkInterval, TimeUnit unit) {
+            this.checkIntervalNanos = unit.toNanos(checkInterval);
+            return this;
+        }
+
+        /** 是否按任务检测慢任务，默认按批次检测 */
+        public boolean isTaskSampling() {
+            return taskSampling;
+        }
+
+        public Builder setTaskSampling(boolean taskSampling) {
+            this.taskSampling = taskSampling;
+            return this;
+        }
+
+        /** 事件监听器，默认打印日志 */
+        public Listener getListener() {
+            return listener;
+        }
+
+        public Builder setListener(Listener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /** 监控线程的工厂，默认创建守护线程 */
+        public ThreadFactory getThreadFactory() {
+            return threadFactory;
+        }
+
+        public Builder setThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * 固定桶数的直方图(类似HdrHistogram的对数-线性分桶)。
+ * <p>
+ * 1. 每个2的整次幂区间划分为{@link #SUB_BUCKET_COUNT}个等宽的桶，相对误差不超过12.5%；小于{@link #SUB_BUCKET_COUNT}的值精确记录。
+ * 2. 桶数固定，记录时不分配内存；覆盖全部非负long值。
+ * 3. 单写者多读者：只能由一个线程调用{@link #record(long)}，其它线程可以无锁读取 -- 读取的是近似一致的快照。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class FixedBucketHistogram {
+
+    /** 每个2的整次幂区间的桶数 */
+    public static final int SUB_BUCKET_COUNT = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    // 只有写者线程修改，使用opaque写避免volatile写的开销
+    private long totalCount;
+    private long totalValue;
+    private long maxValue;
+
+    /** 记录一个值，负数视为0 -- 只能由写者线程调用 */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        int index = bucketIndex(value);
+        COUNTS.setOpaque(counts, index, counts[index] + 1);
+        if (value > maxValue) {
+            MAX_VALUE.setOpaque(this, value);
+        }
+        TOTAL_VALUE.setOpaque(this, totalValue + value);
+        TOTAL_COUNT.setOpaque(this, totalCount + 1);
+    }
+
+    /** 记录的值数量 */
+    public long totalCount() {
+        return (long) TOTAL_COUNT.getOpaque(this);
+    }
+
+    /** 记录的最大值 */
+    public long maxValue() {
+        return (long) MAX_VALUE.getOpaque(this);
+    }
+
+    /** 平均值 */
+    public double mean() {
+        long count = totalCount();
+        return count == 0 ? 0 : (double) (long) TOTAL_VALUE.getOpaque(this) / count;
+    }
+
+    /**
+     * 获取百分位对应的值 -- 返回所在桶的上界，因此结果偏大但不超过12.5%
+     *
+     * @param percentile 百分位，[0, 100]
+     */
+    public long valueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile: " + percentile);
+        }
+        final long[] counts = this.counts;
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += (long) COUNTS.getOpaque(counts, i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * (percentile / 100)));
+        long accumulated = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            accumulated += (long) COUNTS.getOpaque(counts, i);
+            if (accumulated >= target) {
+                return Math.min(bucketUpperBound(i), maxValue());
+            }
+        }
+        return maxValue();
+    }
+
+    /**
+     * 将另一个直方图的数据累加到当前直方图，用于汇总
+     * 注意：当前直方图的写者线程需要是调用线程。
+     */
+    public void add(FixedBucketHistogram other) {
+        final long[] counts = this.counts;
+        final long[] otherCounts = other.counts;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long count = (long) COUNTS.getOpaque(otherCounts, i);
+            if (count != 0) {
+                COUNTS.setOpaque(counts, i, counts[i] + count);
+            }
+        }
+        long otherMax = other.maxValue();
+        if (otherMax > maxValue) {
+            MAX_VALUE.setOpaque(this, otherMax);
+        }
+        TOTAL_VALUE.setOpaque(this, totalValue + (long) TOTAL_VALUE.getOpaque(other));
+        TOTAL_COUNT.setOpaque(this, totalCount + other.totalCount());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /** 桶包含的最大值 */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index & (SUB_BUCKET_COUNT - 1);
+        long lowerBound = (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long upperBound = lowerBound + width - 1;
+        return upperBound < 0 ? Long.MAX_VALUE : upperBound; // 最后一个桶溢出
+    }
+
+    @Override
+    public String toString() {
+        return "FixedBucketHistogram{" +
+                "count=" + totalCount() +
+                ", mean=" + mean() +
+                ", p50=" + valueAtPercentile(50) +
+                ", p99=" + valueAtPercentile(99) +
+                ", max=" + maxValue() +
+                '}';
+    }
+
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle TOTAL_COUNT;
+    private static final VarHandle TOTAL_VALUE;
+    private static final VarHandle MAX_VALUE;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TOTAL_COUNT = l.findVarHandle(FixedBucketHistogram.class, "totalCount", long.class);
+            TOTAL_VALUE = l.findVarHandle(FixedBucketHistogram.class, "totalValue", long.class);
+            MAX_VALUE = l.findVarHandle(FixedBucketHistogram.class, "maxValue", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
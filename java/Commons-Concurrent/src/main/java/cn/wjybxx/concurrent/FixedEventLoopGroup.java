@@ -18,6 +18,11 @@ package cn.wjybxx.concurrent;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 /**
  * 固定数量{@link EventLoop}的事件循环线程组
@@ -45,4 +50,82 @@ public interface FixedEventLoopGroup extends EventLoopGroup {
     @Nonnull
     EventLoop select(int key);
 
-}
\ No newline at end of file
+    /**
+     * 释放key的绑定 -- 选择器记录了key的选择结果时，不再使用的key应当释放
+     * 默认实现不记录绑定，总是返回false。
+     *
+     * @return 如果key存在绑定则返回true
+     * @see EventLoopChooser#release(int)
+     */
+    default boolean release(int key) {
+        return false;
+    }
+
+    // region 批量提交
+
+    /**
+     * 批量提交任务
+     * 1. 所有任务分配给同一个{@link EventLoop}，并保持提交顺序。
+     * 2. 支持批量发布的{@link EventLoop}会一次申请连续的序号，填充后一次发布，并最多唤醒线程一次。
+     *
+     * @param tasks 要执行的任务
+     */
+    default void executeBatch(List<? extends Runnable> tasks) {
+        select().executeBatch(tasks);
+    }
+
+    /**
+     * 按key批量提交任务
+     * 任务先按{@link #select(int)}的结果分区，再将每个分区批量提交给对应的{@link EventLoop}；同一个{@link EventLoop}的任务保持提交顺序。
+     *
+     * @param keys  每个任务的key，长度必须和任务数相同
+     * @param tasks 要执行的任务
+     */
+    default void executeBatch(int[] keys, List<? extends Runnable> tasks) {
+        if (keys.length != tasks.size()) {
+            throw new IllegalArgumentException("keys.length: " + keys.length + ", tasks.size: " + tasks.size());
+        }
+        Map<EventLoop, List<Runnable>> partitions = new IdentityHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            partitions.computeIfAbsent(select(keys[i]), k -> new ArrayList<>())
+                    .add(tasks.get(i));
+        }
+        partitions.forEach(EventLoop::executeBatch);
+    }
+
+    /**
+     * 批量提交任务，并返回每个任务的future
+     *
+     * @param tasks 要执行的任务
+     * @return 与任务顺序一致的future
+     */
+    default <V> List<IFuture<V>> submitAll(List<? extends Callable<? extends V>> tasks) {
+        return select().submitAll(tasks);
+    }
+
+    /**
+     * 按key批量提交任务，并返回每个任务的future
+     *
+     * @param keys  每个任务的key，长度必须和任务数相同
+     * @param tasks 要执行的任务
+     * @return 与任务顺序一致的future
+     */
+    default <V> List<IFuture<V>> submitAll(int[] keys, List<? extends Callable<? extends V>> tasks) {
+        if (keys.length != tasks.size()) {
+            throw new IllegalArgumentException("keys.length: " + keys.length + ", tasks.size: " + tasks.size());
+        }
+        List<IFuture<V>> futures = new ArrayList<>(tasks.size());
+        Map<EventLoop, List<Runnable>> partitions = new IdentityHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            EventLoop eventLoop = select(keys[i]);
+            IPromise<V> promise = eventLoop.newPromise();
+            partitions.computeIfAbsent(eventLoop, k -> new ArrayList<>())
+                    .add(PromiseTask.ofFunction(tasks.get(i), null, 0, promise));
+            futures.add(promise);
+        }
+        partitions.forEach(EventLoop::executeBatch);
+        return futures;
+    }
+
+    // endregion
+}
@@ -220,6 +220,33 @@ public class FutureUtils {
 
     // endregion
 
+    // region timeout
+
+    /**
+     * 如果Promise在指定时间内未完成，则以{@link StacklessTimeoutException}使其失败
+     * (将由默认的超时服务{@link TimeoutService#getDefault()}调度)
+     */
+    public static <V> void setTimeout(IPromise<V> promise, long timeout, TimeUnit unit) {
+        setTimeout(promise, timeout, unit, TimeoutService.getDefault());
+    }
+
+    /**
+     * 如果Promise在指定时间内未完成，则以{@link StacklessTimeoutException}使其失败
+     * 1. Promise先完成时会及时删除超时任务。
+     * 2. 超时的通知在超时服务的线程执行，Promise的监听者应当指定Executor。
+     */
+    public static <V> void setTimeout(IPromise<V> promise, long timeout, TimeUnit unit, TimeoutService timeoutService) {
+        Objects.requireNonNull(timeoutService, "timeoutService");
+        if (promise.isDone()) {
+            return;
+        }
+        TimeoutService.Timeout handle = timeoutService.newTimeout(
+                () -> promise.trySetException(StacklessTimeoutException.INST), timeout, unit);
+        promise.onCompleted(future -> handle.cancel(), 0);
+    }
+
+    // endregion
+
     // region await
 
     /** @return 如果future在指定时间内进入了完成状态，则返回true */
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023-2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.collection.DefaultIndexedPriorityQueue;
+import cn.wjybxx.base.collection.IndexedPriorityQueue;
+
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+
+/**
+ * 基于堆的定时任务队列
+ * 默认使用二叉堆，也可以使用缓存了触发时间的4叉堆，见{@link ScheduledTaskQueues#quaternaryHeap()}
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class HeapScheduledTaskQueue implements ScheduledTaskQueue {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 64;
+
+    private final IndexedPriorityQueue<ScheduledPromiseTask<?>> queue;
+
+    public HeapScheduledTaskQueue() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public HeapScheduledTaskQueue(int initialCapacity) {
+        this.queue = new DefaultIndexedPriorityQueue<>(ScheduledPromiseTask::compareToExplicitly, initialCapacity);
+    }
+
+    HeapScheduledTaskQueue(IndexedPriorityQueue<ScheduledPromiseTask<?>> queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public void add(ScheduledPromiseTask<?> task) {
+        queue.offer(task);
+    }
+
+    @Nullable
+    @Override
+    public ScheduledPromiseTask<?> peekDue(long tickTime) {
+        ScheduledPromiseTask<?> head = queue.peek();
+        if (head == null || tickTime < head.getNextTriggerTime()) {
+            return null;
+        }
+        return head;
+    }
+
+    @Nullable
+    @Override
+    public ScheduledPromiseTask<?> pollDue(long tickTime) {
+        ScheduledPromiseTask<?> head = queue.peek();
+        if (head == null || tickTime < head.getNextTriggerTime()) {
+            return null;
+        }
+        return queue.poll();
+    }
+
+    @Override
+    public long earliestTriggerTime() {
+        ScheduledPromiseTask<?> head = queue.peek();
+        return head == null ? Long.MAX_VALUE : head.getNextTriggerTime();
+    }
+
+    @Override
+    public boolean contains(ScheduledPromiseTask<?> task) {
+        return queue.containsTyped(task);
+    }
+
+    @Override
+    public boolean remove(ScheduledPromiseTask<?> task) {
+        return queue.removeTyped(task);
+    }
+
+    @Override
+    public void priorityChanged(ScheduledPromiseTask<?> task) {
+        queue.priorityChanged(task); // 内部会检查是否在队列中
+    }
+
+    @Override
+    public void forEach(Consumer<? super ScheduledPromiseTask<?>> action) {
+        queue.forEach(action);
+    }
+
+    @Override
+    public void clearIgnoringIndexes() {
+        queue.clearIgnoringIndexes();
+    }
+}
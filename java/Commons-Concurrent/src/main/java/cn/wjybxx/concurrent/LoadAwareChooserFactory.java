@@ -0,0 +1,122 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.collection.IntObjectMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 感知负载的选择器工厂。
+ * <p>
+ * 1. {@link EventLoopChooser#select()}随机采样两个EventLoop，选择负载较低的一个(power of two choices)。
+ * 2. 负载的估算值为：{@code (积压的任务数 + 1) * 最近的任务平均耗时}，即清空队列的预估时长；
+ * 只有{@link DisruptorEventLoop}可以提供负载信息，其它类型的EventLoop的负载视为0。
+ * 3. {@link EventLoopChooser#select(int)}在key首次出现时按负载选择，之后固定返回首次选择的结果，直到{@link EventLoopChooser#release(int)}。
+ * 4. 选择结果按key记录，不再使用的key应当通过{@link FixedEventLoopGroup#release(int)}释放，否则内存会持续增长。
+ * 5. 记录按key散列到固定数量的分段中，每个分段是一个由锁保护的{@link IntObjectMap}，查询时无装箱，且不同分段之间无竞争。
+ * <p>
+ * 适用于会话长期存在、且各个会话开销差异较大的场景，例如：游戏中的玩家会话 -- 会话结束时释放key。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class LoadAwareChooserFactory implements EventLoopChooserFactory {
+
+    @Nonnull
+    @Override
+    public EventLoopChooser newChooser(EventLoop[] children) {
+        return new LoadAwareEventLoopChooser(children);
+    }
+
+    @ThreadSafe
+    private static final class LoadAwareEventLoopChooser implements EventLoopChooser {
+
+        /** 分段数 -- 需要是2的幂 */
+        private static final int STRIPE_COUNT = 64;
+
+        private final EventLoop[] executors;
+        /** 每个分段使用自身作为锁 */
+        private final IntObjectMap<EventLoop>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        LoadAwareEventLoopChooser(EventLoop[] executors) {
+            assert executors.length > 0;
+            this.executors = executors;
+            this.stripes = new IntObjectMap[STRIPE_COUNT];
+            for (int i = 0; i < STRIPE_COUNT; i++) {
+                stripes[i] = new IntObjectMap<>();
+            }
+        }
+
+        @Nonnull
+        @Override
+        public EventLoop select() {
+            final EventLoop[] executors = this.executors;
+            if (executors.length == 1) {
+                return executors[0];
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(executors.length);
+            int second = random.nextInt(executors.length - 1);
+            if (second >= first) {
+                second++; // 保证两次采样不同
+            }
+            EventLoop a = executors[first];
+            EventLoop b = executors[second];
+            return loadOf(b) < loadOf(a) ? b : a;
+        }
+
+        @Override
+        public EventLoop select(int key) {
+            IntObjectMap<EventLoop> stripe = stripeOf(key);
+            synchronized (stripe) {
+                // select()只读取负载信息，开销很小，可以在锁内执行
+                return stripe.computeIfAbsent(key, k -> select());
+            }
+        }
+
+        @Override
+        public boolean release(int key) {
+            IntObjectMap<EventLoop> stripe = stripeOf(key);
+            synchronized (stripe) {
+                return stripe.remove(key) != null;
+            }
+        }
+
+        private IntObjectMap<EventLoop> stripeOf(int key) {
+            return stripes[mix(key) & (STRIPE_COUNT - 1)];
+        }
+
+        /** 避免连续的key集中在低位 */
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static long loadOf(EventLoop eventLoop) {
+            if (eventLoop instanceof DisruptorEventLoop<?> disruptorEventLoop) {
+                long backlog = disruptorEventLoop.taskCount();
+                long avgTaskNanos = Math.max(1, disruptorEventLoop.avgTaskNanos());
+                return (backlog + 1) * avgTaskNanos;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+
+/**
+ * 多生产者单消费者的无界链表队列(Dmitry Vyukov的算法)。
+ * <p>
+ * 1. 生产者分配一个节点，然后只有一次{@code getAndSet}，没有CAS重试，竞争时也不会自旋。
+ * 2. 生产者交换尾节点后、链接前驱节点前，消费者会暂时看不见该元素 -- 因此{@link #poll()}返回null不代表队列一定为空，
+ * 使用者需要通过其它方式（例如：生产者链接之后检查消费者是否挂起）保证不丢失信号。
+ * 3. {@link #poll()}、{@link #strictPoll()}和{@link #isEmpty()}只能由消费者调用。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+final class MpscLinkedQueue<E> {
+
+    /** 消费者持有的哨兵节点 -- 即最近一次弹出的节点，真正的首个元素是其next */
+    private Node<E> head;
+    /** 生产者竞争的尾节点 */
+    @SuppressWarnings("unused")
+    private volatile Node<E> tail;
+
+    MpscLinkedQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = stub;
+    }
+
+    /** 压入元素，可以多线程调用 */
+    @SuppressWarnings("unchecked")
+    void offer(E e) {
+        Objects.requireNonNull(e);
+        Node<E> node = new Node<>(e);
+        Node<E> prev = (Node<E>) TAIL.getAndSet(this, node);
+        prev.next = node;
+    }
+
+    /**
+     * 弹出元素，只能由消费者调用
+     * 弹出的节点成为新的哨兵，这使得消费者永远不需要竞争尾节点。
+     */
+    E poll() {
+        Node<E> head = this.head;
+        Node<E> next = head.next;
+        if (next == null) {
+            return null;
+        }
+        this.head = next;
+        head.next = null; // help gc
+        E value = next.value;
+        next.value = null;
+        return value;
+    }
+
+    /**
+     * 弹出元素，只能由消费者调用
+     * 与{@link #poll()}不同，如果有生产者已交换尾节点但尚未链接，则等待其链接完成 -- 因此返回null时队列一定为空。
+     * 这需要读取生产者竞争的尾节点，仅用于关闭时清理队列。
+     */
+    E strictPoll() {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        Node<E> head = this.head;
+        if (head == tail) {
+            return null;
+        }
+        while (head.next == null) {
+            Thread.onSpinWait();
+        }
+        return poll();
+    }
+
+    /** 只能由消费者调用 */
+    boolean isEmpty() {
+        return head.next == null;
+    }
+
+    private static final class Node<E> {
+
+        volatile Node<E> next;
+        E value;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+
+    private static final VarHandle TAIL;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            TAIL = l.findVarHandle(MpscLinkedQueue.class, "tail", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -24,12 +24,12 @@ import cn.wjybxx.base.function.TriFunction;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 import java.util.Objects;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -44,8 +44,6 @@ import java.util.function.Function;
 @ThreadSafe
 public class Promise<T> implements IPromise<T>, IFuture<T> {
 
-    /** 1毫秒多少纳秒 */
-    private static final long NANO_PER_MILLISECOND = 1000_000L;
     /** 表示任务开始运行 */
     private static final Object COMPUTING = new Object();
     /** 如果一个任务成功时没有结果（或结果为null），使用该对象代替。 */
@@ -65,7 +63,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
     private volatile Object result;
     /**
      * 当前对象上的所有监听器，使用栈方式存储
-     * 如果{@code stack}为{@link #TOMBSTONE}，表明当前Future已完成，且正在进行通知，或已通知完毕。
+     * 如果{@code stack}为{@link #TOMBSTONE}或{@link #EMPTY_TOMBSTONE}，表明当前Future已完成，且正在进行通知，或已通知完毕。
      */
     @SuppressWarnings("unused")
     private volatile Completion stack;
@@ -149,6 +147,21 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
         return false;
     }
 
+    /**
+     * 如果promise已完成，且完成时没有监听器，则重置为初始状态以便复用
+     * 注意：仅用于对象池，调用者需保证其它线程不再访问该promise。
+     *
+     * @return 如果重置成功则返回true
+     */
+    final boolean tryReset() {
+        if (stack != EMPTY_TOMBSTONE) {
+            return false;
+        }
+        VH_RESULT.setRelease(this, null);
+        VH_STACK.setRelease(this, null);
+        return true;
+    }
+
     // endregion
 
     // region ctx
@@ -639,7 +652,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<U> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniComposeApply<>(executor, ctx, options, this, promise, fn));
+        pushUniCompletion(new UniComposeApply<>(executor, ctx, options, this, promise, fn));
         return promise;
     }
 
@@ -678,7 +691,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<U> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniComposeCall<>(executor, ctx, options, this, promise, fn));
+        pushUniCompletion(new UniComposeCall<>(executor, ctx, options, this, promise, fn));
         return promise;
     }
 
@@ -722,7 +735,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<T> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniComposeCathing<>(executor, ctx, options, this, promise, exceptionType, fallback));
+        pushUniCompletion(new UniComposeCathing<>(executor, ctx, options, this, promise, exceptionType, fallback));
         return promise;
     }
 
@@ -761,7 +774,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<U> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniComposeHandle<>(executor, ctx, options, this, promise, fn));
+        pushUniCompletion(new UniComposeHandle<>(executor, ctx, options, this, promise, fn));
         return promise;
     }
 
@@ -797,7 +810,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<U> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniApply<>(executor, ctx, options, this, promise, fn));
+        pushUniCompletion(new UniApply<>(executor, ctx, options, this, promise, fn));
         return promise;
     }
     // endregion
@@ -832,7 +845,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<Void> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniAccept<>(executor, ctx, options, this, promise, action));
+        pushUniCompletion(new UniAccept<>(executor, ctx, options, this, promise, action));
         return promise;
     }
     // endregion
@@ -867,7 +880,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<U> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniCall<>(executor, ctx, options, this, promise, fn));
+        pushUniCompletion(new UniCall<>(executor, ctx, options, this, promise, fn));
         return promise;
     }
 
@@ -902,7 +915,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<Void> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniRun<>(executor, ctx, options, this, promise, action));
+        pushUniCompletion(new UniRun<>(executor, ctx, options, this, promise, action));
         return promise;
     }
     // endregion
@@ -945,7 +958,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<T> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniCathing<>(executor, ctx, options, this, promise, exceptionType, fallback));
+        pushUniCompletion(new UniCathing<>(executor, ctx, options, this, promise, exceptionType, fallback));
         return promise;
     }
     // endregion
@@ -982,7 +995,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<U> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniHandle<>(executor, ctx, options, this, promise, fn));
+        pushUniCompletion(new UniHandle<>(executor, ctx, options, this, promise, fn));
         return promise;
     }
     // endregion
@@ -1017,7 +1030,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
 
         if (ctx == null) ctx = inheritContext(options);
         Promise<T> promise = newIncompletePromise(executor == null ? this.executor() : executor);
-        pushCompletion(new UniWhenComplete<>(executor, ctx, options, this, promise, action));
+        pushUniCompletion(new UniWhenComplete<>(executor, ctx, options, this, promise, action));
         return promise;
     }
     // endregion
@@ -1132,10 +1145,28 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
      * 2. 在该模式，在执行前，可能需要抢占执行权限。
      */
     static final int NESTED = -1;
+    /**
+     * 局部调用模式，表示注册下游节点时发现{@code Future}已进入完成状态，且不需要切换线程，由注册线程立即调用{@link Completion#tryFire(int)}。
+     * 1. 此时下游{@code Future}尚未返回给用户，只有当前线程可见，因此不需要抢占执行权限，也没有需要通知的监听器。
+     * 2. 如果在该模式下使下一个{@code Future}进入完成状态，只需普通写标记为已通知，不需要调用{@link #postComplete(Promise)}。
+     */
+    static final int LOCAL = 2;
 
     /** 用于表示任务已申领权限 */
     static final Executor CLAIMED = Runnable::run;
 
+    /**
+     * 压入新创建的下游节点
+     * 如果当前{@code Future}已完成，且不需要切换线程，则以{@link #LOCAL}模式立即执行，避免压栈和不必要的CAS。
+     */
+    private void pushUniCompletion(UniCompletion<?, ?> completion) {
+        if (isDone() && (completion.executor == null || isInlinable(completion.executor, completion.options))) {
+            completion.tryFire(LOCAL);
+        } else {
+            pushCompletion(completion);
+        }
+    }
+
     /** @return 是否压栈成功 */
     private boolean pushCompletion(Completion newHead) {
         if (isDone()) {
@@ -1144,7 +1175,7 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
         }
         Completion expectedHead = stack;
         Completion realHead;
-        while (expectedHead != TOMBSTONE) {
+        while (!isTombstone(expectedHead)) {
             newHead.next = expectedHead;
             realHead = (Completion) VH_STACK.compareAndExchange(this, expectedHead, newHead);
             if (realHead == expectedHead) { // success
@@ -1200,10 +1231,12 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
         // 3. 将逆序后的元素插入到'onto'前面，即插入到原本要被通知的下一个监听器的前面
         Completion head = promise.stack;
         while (true) {
-            if (head == TOMBSTONE) {
+            if (isTombstone(head)) {
                 return onto;
             }
-            Completion realHead = (Completion) VH_STACK.compareAndExchange(promise, head, TOMBSTONE);
+            // 记录完成时是否有监听器，以判断promise是否可复用
+            Completion tombstone = head == null ? EMPTY_TOMBSTONE : TOMBSTONE;
+            Completion realHead = (Completion) VH_STACK.compareAndExchange(promise, head, tombstone);
             if (realHead == head) {
                 break;
             }
@@ -1238,6 +1271,10 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
         if (mode < 0) { // 嵌套模式
             return output;
         }
+        if (mode == LOCAL) { // 局部模式，下游尚未发布，不会有监听器
+            VH_STACK.setRelease(output, EMPTY_TOMBSTONE);
+            return null;
+        }
         postComplete(output);
         return null;
     }
@@ -1343,7 +1380,15 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
     }
 
     /** 表示stack已被清理 */
-    private static final Completion TOMBSTONE = new Completion() {
+    private static final Completion TOMBSTONE = new Tombstone();
+    /** 表示stack已被清理，且完成时没有监听器 -- 此时promise可以被复用，见{@link #tryReset()} */
+    private static final Completion EMPTY_TOMBSTONE = new Tombstone();
+
+    private static boolean isTombstone(Completion completion) {
+        return completion == TOMBSTONE || completion == EMPTY_TOMBSTONE;
+    }
+
+    private static class Tombstone extends Completion {
 
         @Override
         public int getOptions() {
@@ -1359,16 +1404,23 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
         Promise<Object> tryFire(int mode) {
             return null;
         }
-    };
+    }
 
-    /** 用于实现阻塞等待future完成 */
+    /**
+     * 用于实现阻塞等待future完成
+     * <p>
+     * 等待线程通过{@link LockSupport#park(Object)}挂起，而不是在future的monitor上wait，
+     * 以避免虚拟线程在等待期间被固定(pin)在载体线程上。
+     * 等待线程以无锁栈的方式组织，取消等待(超时或中断)的节点会被立即移除，实现参考{@link FutureTask}。
+     */
     private static class Awaiter extends Completion {
 
-        /** 所有线程都在future上等待，可一次唤醒 */
+        /** 哨兵节点 -- 表示已唤醒所有等待线程，之后的线程无需等待 */
+        private static final WaitNode RELEASED = new WaitNode(null);
+
         final IFuture<?> future;
-        /** 用于避免不必要的notifyAll */
-        @GuardedBy("future")
-        private int waiterCount;
+        /** 等待线程栈 */
+        private volatile WaitNode waiters;
 
         public Awaiter(IFuture<?> future) {
             this.future = future;
@@ -1391,51 +1443,86 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
         }
 
         void releaseWaiters() {
-            synchronized (future) {
-                if (waiterCount > 0) {
-                    future.notifyAll();
+            WaitNode head = (WaitNode) VH_WAITERS.getAndSet(this, RELEASED);
+            for (WaitNode node = head; node != null && node != RELEASED; node = node.next) {
+                Thread thread = node.thread;
+                if (thread != null) {
+                    node.thread = null;
+                    LockSupport.unpark(thread);
                 }
             }
         }
 
-        private void incWaiter() {
-            waiterCount++;
+        /** @return 如果已唤醒所有等待线程，则返回null */
+        private WaitNode pushWaiter() {
+            WaitNode node = new WaitNode(Thread.currentThread());
+            WaitNode head = waiters;
+            while (head != RELEASED) {
+                node.next = head;
+                WaitNode realHead = (WaitNode) VH_WAITERS.compareAndExchange(this, head, node);
+                if (realHead == head) {
+                    return node;
+                }
+                head = realHead;
+            }
+            return null;
         }
 
-        private void decWaiter() {
-            waiterCount--;
+        /** 删除取消等待的节点，同时清理其它已失效的节点 */
+        private void removeWaiter(WaitNode node) {
+            node.thread = null;
+            retry:
+            for (; ; ) {
+                WaitNode pred = null, q = waiters, s;
+                if (q == RELEASED) {
+                    return;
+                }
+                for (; q != null; q = s) {
+                    s = q.next;
+                    if (q.thread != null) {
+                        pred = q;
+                    } else if (pred != null) {
+                        pred.next = s;
+                        if (pred.thread == null) { // 前驱节点也失效了，重新检查
+                            continue retry;
+                        }
+                    } else if (!VH_WAITERS.compareAndSet(this, q, s)) {
+                        continue retry;
+                    }
+                }
+                return;
+            }
         }
 
         void await() throws InterruptedException {
             ThreadUtils.checkInterrupted();
-            synchronized (future) {
-                incWaiter();
-                try {
-                    while (!future.isDone()) {
-                        future.wait();
-                    }
-                } finally {
-                    decWaiter();
+            final WaitNode node = pushWaiter();
+            if (node == null) {
+                return;
+            }
+            while (!future.isDone()) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    removeWaiter(node);
+                    throw new InterruptedException();
                 }
             }
+            node.thread = null; // 避免多余的unpark
         }
 
         void awaitUninterruptibly() {
-            boolean interrupted = Thread.interrupted();
-            synchronized (future) {
-                incWaiter();
-                try {
-                    while (!future.isDone()) {
-                        try {
-                            future.wait();
-                        } catch (InterruptedException ignore) {
-                            interrupted = true;
-                        }
-                    }
-                } finally {
-                    decWaiter();
+            final WaitNode node = pushWaiter();
+            if (node == null) {
+                return;
+            }
+            boolean interrupted = false;
+            while (!future.isDone()) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    interrupted = true;
                 }
             }
+            node.thread = null;
             if (interrupted) {
                 ThreadUtils.recoveryInterrupted();
             }
@@ -1445,51 +1532,74 @@ public class Promise<T> implements IPromise<T>, IFuture<T> {
             // 在执行一个耗时操作之前检查中断是有必要的
             ThreadUtils.checkInterrupted();
             final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
-            synchronized (future) {
-                incWaiter();
-                try {
-                    while (!future.isDone()) {
-                        // 获取锁需要时间，因此应该在获取锁之后计算剩余时间
-                        final long remainNano = deadline - System.nanoTime();
-                        if (remainNano <= 0) {
-                            return false;
-                        }
-                        future.wait(remainNano / NANO_PER_MILLISECOND, (int) (remainNano % NANO_PER_MILLISECOND));
-                    }
-                } finally {
-                    decWaiter();
+            final WaitNode node = pushWaiter();
+            if (node == null) {
+                return true;
+            }
+            while (!future.isDone()) {
+                final long remainNano = deadline - System.nanoTime();
+                if (remainNano <= 0) {
+                    removeWaiter(node);
+                    return false;
+                }
+                LockSupport.parkNanos(this, remainNano);
+                if (Thread.interrupted()) {
+                    removeWaiter(node);
+                    throw new InterruptedException();
                 }
             }
+            node.thread = null;
             return true;
         }
 
         boolean awaitUninterruptibly(long timeout, TimeUnit timeUnit) {
-            boolean interrupted = Thread.interrupted();
             final long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
-            synchronized (future) {
-                incWaiter();
-                try {
-                    while (!future.isDone()) {
-                        long remainNano = deadline - System.nanoTime();
-                        if (remainNano <= 0) {
-                            return false;
-                        }
-                        try {
-                            future.wait(remainNano / NANO_PER_MILLISECOND, (int) (remainNano % NANO_PER_MILLISECOND));
-                        } catch (InterruptedException e) {
-                            interrupted = true;
-                        }
-                    }
-                } finally {
-                    decWaiter();
+            final WaitNode node = pushWaiter();
+            if (node == null) {
+                return true;
+            }
+            boolean interrupted = false;
+            boolean done = true;
+            while (!future.isDone()) {
+                final long remainNano = deadline - System.nanoTime();
+                if (remainNano <= 0) {
+                    removeWaiter(node);
+                    done = false;
+                    break;
+                }
+                LockSupport.parkNanos(this, remainNano);
+                if (Thread.interrupted()) {
+                    interrupted = true;
                 }
             }
+            node.thread = null;
             if (interrupted) {
                 ThreadUtils.recoveryInterrupted();
             }
-            return true;
+            return done;
+        }
+
+        private static final VarHandle VH_WAITERS;
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                VH_WAITERS = l.findVarHandle(Awaiter.class, "waiters", WaitNode.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
         }
+    }
+
+    /** 等待线程节点 */
+    private static final class WaitNode {
 
+        volatile Thread thread;
+        volatile WaitNode next;
+
+        WaitNode(Thread thread) {
+            this.thread = thread;
+        }
     }
 
     /**
@@ -46,6 +46,8 @@ public class PromiseTask<V> implements IFutureTask<V> {
     public static final int MASK_HAS_DEADLINE = 1 << 17;
     /** 延时任务有次数限制 */
     public static final int MASK_HAS_COUNTDOWN = 1 << 18;
+    /** 任务来自EventLoop的对象池，完成后由EventLoop回收 -- 见{@link TaskOptions#DISCARD_FUTURE} */
+    public static final int MASK_POOLED = 1 << 19;
 
     /** 任务类型的偏移量 */
     public static final int OFFSET_TASK_TYPE = 8;
@@ -68,7 +70,7 @@ public class PromiseTask<V> implements IFutureTask<V> {
      * @param promise 任务关联的promise
      */
     public PromiseTask(TaskBuilder<V> builder, IPromise<V> promise) {
-        this(builder.getTask(), builder.getCtx(), builder.getOptions(), promise, builder.getType());
+        this(builder.getTask(), builder.getCtxOrCancelToken(), builder.getOptions(), promise, builder.getType());
     }
 
     /**
@@ -79,6 +81,15 @@ public class PromiseTask<V> implements IFutureTask<V> {
      * @param taskType 任务类型 -- 注意上下文的类型
      */
     protected PromiseTask(Object task, Object ctx, int options, IPromise<V> promise, int taskType) {
+        init(task, ctx, options, promise, taskType);
+    }
+
+    /** 用于对象池创建对象 -- 使用前需要调用init方法 */
+    PromiseTask() {
+    }
+
+    /** 初始化任务 -- 对象池复用对象时需要重新初始化 */
+    final void init(Object task, Object ctx, int options, IPromise<V> promise, int taskType) {
         if (ctx == null) {
             if (TaskBuilder.isTaskAcceptContext(taskType)) {
                 ctx = IContext.NONE;
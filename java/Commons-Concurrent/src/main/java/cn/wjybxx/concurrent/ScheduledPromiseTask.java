@@ -54,20 +54,14 @@ public final class ScheduledPromiseTask<V> extends PromiseTask<V>
     private IScheduledHelper helper;
     /** 在队列中的下标 */
     private int queueIndex = INDEX_NOT_FOUND;
+    /** 时间轮槽位中的链表指针 -- 仅由{@link TimingWheelScheduledTaskQueue}使用 */
+    ScheduledPromiseTask<?> wheelPrev;
+    ScheduledPromiseTask<?> wheelNext;
     /** 接收用户取消信号的句柄 -- 延时任务需要及时删除任务 */
     private IRegistration cancelRegistration;
 
-    /**
-     * @param promise         任务关联的promise
-     * @param nextTriggerTime 任务的首次触发时间
-     */
-    private ScheduledPromiseTask(ScheduledTaskBuilder<V> builder, IScheduledPromise<V> promise,
-                                 IScheduledHelper helper, long nextTriggerTime, long period) {
-        super(builder, promise);
-        this.helper = helper;
-        this.nextTriggerTime = nextTriggerTime;
-        this.period = period;
-        setScheduleType(builder.getScheduleType());
+    /** 用于对象池创建对象 -- 使用前需要调用init方法 */
+    ScheduledPromiseTask() {
     }
 
     /** 用于简单情况下的对象创建 -- 非周期性任务 */
@@ -109,7 +103,7 @@ public final class ScheduledPromiseTask<V> extends PromiseTask<V>
         if (builder instanceof ScheduledTaskBuilder<V> sb) {
             return ofBuilder(sb, promise, helper);
         }
-        return new ScheduledPromiseTask<>(builder.getTask(), builder.getCtx(), builder.getOptions(), promise, builder.getType(),
+        return new ScheduledPromiseTask<>(builder.getTask(), builder.getCtxOrCancelToken(), builder.getOptions(), promise, builder.getType(),
                 helper, helper.tickTime());
     }
 
@@ -121,20 +115,30 @@ public final class ScheduledPromiseTask<V> extends PromiseTask<V>
      */
     public static <V> ScheduledPromiseTask<V> ofBuilder(ScheduledTaskBuilder<V> builder, IScheduledPromise<V> promise,
                                                         IScheduledHelper helper) {
+        ScheduledPromiseTask<V> promiseTask = new ScheduledPromiseTask<>();
+        promiseTask.init(builder, promise, helper);
+        return promiseTask;
+    }
+
+    /** 通过builder初始化任务 -- 对象池复用对象时需要重新初始化 */
+    final void init(ScheduledTaskBuilder<V> builder, IScheduledPromise<V> promise, IScheduledHelper helper) {
         final long triggerTime = helper.triggerTime(builder.getInitialDelay(), builder.getTimeUnit());
         final long period = builder.isPeriodic()
                 ? helper.triggerPeriod(builder.getPeriod(), builder.getTimeUnit())
                 : 0;
-        ScheduledPromiseTask<V> promiseTask = new ScheduledPromiseTask<>(builder, promise, helper, triggerTime, period);
+        init(builder.getTask(), builder.getCtxOrCancelToken(), builder.getOptions(), promise, builder.getType());
+        this.helper = helper;
+        this.nextTriggerTime = triggerTime;
+        this.period = period;
+        setScheduleType(builder.getScheduleType());
         if (builder.isPeriodic()) {
             if (builder.hasTimeout()) {
-                promiseTask.enableTimeout(helper.triggerTime(builder.getTimeout(), builder.getTimeUnit()));
+                enableTimeout(helper.triggerTime(builder.getTimeout(), builder.getTimeUnit()));
             }
             if (builder.hasCountLimit()) {
-                promiseTask.enableCountLimit(builder.getCountLimit());
+                enableCountLimit(builder.getCountLimit());
             }
         }
-        return promiseTask;
     }
 
     // endregion
@@ -210,6 +214,8 @@ public final class ScheduledPromiseTask<V> extends PromiseTask<V>
         nextTriggerTime = 0;
         period = 0;
         helper = null;
+        wheelPrev = null;
+        wheelNext = null;
     }
 
     private boolean hasTimeout() {
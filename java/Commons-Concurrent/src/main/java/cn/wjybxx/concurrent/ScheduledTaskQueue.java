@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023-2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.concurrent;
+
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+
+/**
+ * 定时任务的存储。
+ * 1. 只由EventLoop线程访问，不需要线程安全。
+ * 2. 出队顺序必须与{@link ScheduledPromiseTask#compareToExplicitly(ScheduledPromiseTask)}一致：
+ * 先按触发时间，再按是否已触发，再按优先级，最后按id -- 这保证了优先级相同时，先提交的任务先执行。
+ * 3. 任务在队列中时，不可以直接修改其触发时间，修改后必须调用{@link #priorityChanged(ScheduledPromiseTask)}。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public interface ScheduledTaskQueue {
+
+    int size();
+
+    boolean isEmpty();
+
+    /**
+     * 添加任务
+     *
+     * @throws IllegalArgumentException 如果任务已在队列中
+     */
+    void add(ScheduledPromiseTask<?> task);
+
+    /**
+     * 查询在给定时间已到达触发时间的首个任务，但不删除
+     *
+     * @param tickTime 当前时间
+     * @return 如果没有到期的任务，则返回null
+     */
+    @Nullable
+    ScheduledPromiseTask<?> peekDue(long tickTime);
+
+    /**
+     * 删除并返回在给定时间已到达触发时间的首个任务
+     *
+     * @param tickTime 当前时间
+     * @return 如果没有到期的任务，则返回null
+     */
+    @Nullable
+    ScheduledPromiseTask<?> pollDue(long tickTime);
+
+    /**
+     * 队列中最早的触发时间的估算值 -- 不会晚于真实的最早触发时间
+     * 用于计算线程可以休眠多久，实现可以返回一个更早的时间以避免昂贵的查询。
+     *
+     * @return 如果队列为空，则返回{@link Long#MAX_VALUE}
+     */
+    long earliestTriggerTime();
+
+    boolean contains(ScheduledPromiseTask<?> task);
+
+    boolean remove(ScheduledPromiseTask<?> task);
+
+    /**
+     * 任务的触发时间等排序信息发生变化时，通过该方法通知队列调整
+     * 如果任务不在队列中，则什么也不做。
+     */
+    void priorityChanged(ScheduledPromiseTask<?> task);
+
+    /** 遍历队列中的任务 -- 不保证顺序 */
+    void forEach(Consumer<? super ScheduledPromiseTask<?>> action);
+
+    /**
+     * 清除队列中的所有元素，并不更新任务的索引，通常用在最后清理释放内存的时候。
+     * (请确保调用该方法后，不会再访问该队列)
+     */
+    void clearIgnoringIndexes();
+
+}
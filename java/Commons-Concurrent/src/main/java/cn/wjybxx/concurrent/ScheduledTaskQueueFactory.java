@@ -0,0 +1,36 @@
+/*
+ * Copyright 2023-2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.concurrent;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定时任务队列工厂 -- 可通过{@link ScheduledTaskQueues}获取内置实现
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@FunctionalInterface
+public interface ScheduledTaskQueueFactory {
+
+    /**
+     * @param timeUnit    任务触发时间的单位，即{@link IScheduledHelper#tickTime()}的单位
+     * @param currentTime 当前时间
+     * @return 新的队列
+     */
+    ScheduledTaskQueue newQueue(TimeUnit timeUnit, long currentTime);
+
+}
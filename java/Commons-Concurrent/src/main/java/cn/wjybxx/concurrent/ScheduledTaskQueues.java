@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023-2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.collection.LongKeyIndexedPriorityQueue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内置的定时任务队列
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class ScheduledTaskQueues {
+
+    private static final ScheduledTaskQueueFactory BINARY_HEAP = (timeUnit, currentTime) -> new HeapScheduledTaskQueue();
+    private static final ScheduledTaskQueueFactory QUATERNARY_HEAP = quaternaryHeap(64);
+
+    private ScheduledTaskQueues() {
+
+    }
+
+    /**
+     * 基于二叉堆的队列 -- 默认实现
+     * 插入和删除的时间复杂度为O(log n)，任务量较少时性能最好。
+     */
+    public static ScheduledTaskQueueFactory binaryHeap() {
+        return BINARY_HEAP;
+    }
+
+    /**
+     * 基于二叉堆的队列
+     *
+     * @param initialCapacity 初始容量，大量创建EventLoop时可减少内存占用
+     */
+    public static ScheduledTaskQueueFactory binaryHeap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity);
+        }
+        return (timeUnit, currentTime) -> new HeapScheduledTaskQueue(initialCapacity);
+    }
+
+    /**
+     * 基于4叉堆的队列
+     * 1. 触发时间缓存在平行的long数组中，只有触发时间相等时才比较任务的其它属性，减少了对任务对象的访问。
+     * 2. 树的高度是二叉堆的一半，任务量较多时，插入和删除的开销更小。
+     */
+    public static ScheduledTaskQueueFactory quaternaryHeap() {
+        return QUATERNARY_HEAP;
+    }
+
+    /**
+     * 基于4叉堆的队列
+     *
+     * @param initialCapacity 初始容量，大量创建EventLoop时可减少内存占用
+     */
+    public static ScheduledTaskQueueFactory quaternaryHeap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity);
+        }
+        return (timeUnit, currentTime) -> new HeapScheduledTaskQueue(new LongKeyIndexedPriorityQueue<>(
+                ScheduledPromiseTask::getNextTriggerTime, ScheduledPromiseTask::compareToExplicitly, initialCapacity));
+    }
+
+    /**
+     * 基于分层时间轮的队列。
+     * 1. 插入和删除的时间复杂度为O(1)，适用于存在大量定时任务，且频繁添加和取消的情况。
+     * 2. 精度不影响任务的触发时间和执行顺序，只影响性能：精度越高，空转的刻度越多；精度越低，同一刻度内需要排序的任务越多。
+     *
+     * @param tickDuration 时间轮的精度（每一刻度的时长）
+     * @param unit         时间单位
+     */
+    public static ScheduledTaskQueueFactory timingWheel(long tickDuration, TimeUnit unit) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration: " + tickDuration);
+        }
+        return (timeUnit, currentTime) -> new TimingWheelScheduledTaskQueue(
+                Math.max(1, timeUnit.convert(tickDuration, unit)), currentTime);
+    }
+}
@@ -164,6 +164,11 @@ public sealed class TaskBuilder<V> permits ScheduledTaskBuilder {
         return this;
     }
 
+    /** 任务的上下文或取消令牌 -- 用于创建任务，取决于任务类型 */
+    Object getCtxOrCancelToken() {
+        return ctx;
+    }
+
     /** 任务绑定的取消令牌 */
     public ICancelToken getCancelToken() {
         return isTaskAcceptContext(type) ? null : (ICancelToken) ctx;
@@ -108,6 +108,14 @@ public final class TaskOptions {
      */
     public static final int TIMESHARING_SLOW_START = 1 << 22;
 
+    /**
+     * 调用者不保留返回的future（fire-and-forget），EventLoop可以池化任务和future。
+     * 1. 只对通过{@link TaskBuilder}提交的任务有效，且仅在EventLoop线程提交、任务不可取消时池化，其它情况下该选项被忽略。
+     * 2. 返回的future只能在任务完成之前于EventLoop线程使用，比如立即添加监听器；任务完成后不可再访问。
+     * 3. 任务完成时如果future上没有监听器，future会被复用，否则只复用任务对象。
+     */
+    public static final int DISCARD_FUTURE = 1 << 23;
+
     // region util
     /** 优先级的存储偏移量 */
     public static final int OFFSET_PRIORITY = 0;
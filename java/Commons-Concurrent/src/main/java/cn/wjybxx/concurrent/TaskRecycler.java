@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.pool.DefaultObjectPool;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.util.concurrent.Executor;
+
+/**
+ * EventLoop的任务回收器 -- 复用启用了{@link TaskOptions#DISCARD_FUTURE}的任务和Promise
+ * <p>
+ * 1. 只在EventLoop线程借还对象，因此使用非线程安全的对象池，相当于EventLoop线程本地的回收器。
+ * 2. 只池化在EventLoop线程提交的任务：其它线程提交的任务完成时，提交线程可能仍在访问返回的future。
+ * 3. 只池化不可取消的任务：可取消的定时任务会监听取消令牌，收到信号时可能在任务完成后被再次提交。
+ * 4. 任务完成后总是回收；Promise只有在完成时没有监听器才回收，否则监听器仍可能访问Promise的结果。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@NotThreadSafe
+final class TaskRecycler {
+
+    private final DefaultObjectPool<PromiseTask<Object>> taskPool;
+    private final DefaultObjectPool<ScheduledPromiseTask<Object>> scheduledTaskPool;
+    private final DefaultObjectPool<Promise<Object>> promisePool;
+    private final DefaultObjectPool<ScheduledPromise<Object>> scheduledPromisePool;
+
+    /**
+     * @param executor promise关联的executor
+     * @param poolSize 每种对象的缓存数量
+     */
+    TaskRecycler(Executor executor, int poolSize) {
+        this.taskPool = new DefaultObjectPool<>(PromiseTask::new, null, poolSize);
+        this.scheduledTaskPool = new DefaultObjectPool<>(ScheduledPromiseTask::new, null, poolSize);
+        this.promisePool = new DefaultObjectPool<>(() -> new Promise<>(executor), null, poolSize);
+        this.scheduledPromisePool = new DefaultObjectPool<>(() -> new ScheduledPromise<>(executor), null, poolSize);
+    }
+
+    /** 任务是否可池化 -- 调用者需保证在EventLoop线程 */
+    static boolean isPoolable(TaskBuilder<?> builder) {
+        if (!TaskOptions.isEnabled(builder.getOptions(), TaskOptions.DISCARD_FUTURE)) {
+            return false;
+        }
+        Object ctx = builder.getCtxOrCancelToken();
+        if (ctx instanceof IContext castCtx) {
+            ICancelToken cancelToken = castCtx.cancelToken();
+            return cancelToken == null || !cancelToken.canBeCancelled();
+        }
+        if (ctx instanceof ICancelToken cancelToken) {
+            return !cancelToken.canBeCancelled();
+        }
+        return ctx == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    <V> PromiseTask<V> newTask(TaskBuilder<V> builder) {
+        Promise<V> promise = (Promise<V>) promisePool.acquire();
+        PromiseTask<V> promiseTask = (PromiseTask<V>) taskPool.acquire();
+        promiseTask.init(builder.getTask(), builder.getCtxOrCancelToken(), builder.getOptions(), promise, builder.getType());
+        promiseTask.setCtlBit(PromiseTask.MASK_POOLED, true);
+        return promiseTask;
+    }
+
+    @SuppressWarnings("unchecked")
+    <V> ScheduledPromiseTask<V> newScheduledTask(ScheduledTaskBuilder<V> builder, IScheduledHelper helper) {
+        ScheduledPromise<V> promise = (ScheduledPromise<V>) scheduledPromisePool.acquire();
+        ScheduledPromiseTask<V> promiseTask = (ScheduledPromiseTask<V>) scheduledTaskPool.acquire();
+        promiseTask.init(builder, promise, helper);
+        promiseTask.setCtlBit(PromiseTask.MASK_POOLED, true);
+        return promiseTask;
+    }
+
+    /**
+     * 回收执行完毕的普通任务
+     * 定时任务可能在执行后重新压入队列，需要在完成时通过{@link #recycleScheduledTask(ScheduledPromiseTask)}回收。
+     */
+    @SuppressWarnings("unchecked")
+    void recycleTask(PromiseTask<?> promiseTask) {
+        if (!promiseTask.getCtlBit(PromiseTask.MASK_POOLED)
+                || promiseTask instanceof ScheduledPromiseTask<?>) {
+            return;
+        }
+        if (!promiseTask.promise.isDone()) {
+            return; // 分时任务等未完成的任务
+        }
+        if (promiseTask.promise instanceof Promise<?> promise && promise.tryReset()) {
+            promisePool.release((Promise<Object>) promise);
+        }
+        promiseTask.clear();
+        taskPool.release((PromiseTask<Object>) promiseTask);
+    }
+
+    /**
+     * 回收已完成的定时任务
+     *
+     * @return 如果任务是池化的则返回true；任务被回收时已被清理
+     */
+    @SuppressWarnings("unchecked")
+    boolean recycleScheduledTask(ScheduledPromiseTask<?> promiseTask) {
+        if (!promiseTask.getCtlBit(PromiseTask.MASK_POOLED)) {
+            return false;
+        }
+        if (promiseTask.promise instanceof ScheduledPromise<?> promise && promise.tryReset()) {
+            scheduledPromisePool.release((ScheduledPromise<Object>) promise);
+        }
+        promiseTask.clear();
+        scheduledTaskPool.release((ScheduledPromiseTask<Object>) promiseTask);
+        return true;
+    }
+}
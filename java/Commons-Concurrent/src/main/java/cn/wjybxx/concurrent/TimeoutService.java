@@ -0,0 +1,419 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.MathCommon;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 超时服务 -- 专用于大量短期、大概率被取消的超时任务，比如请求的超时。
+ * <p>
+ * 1. 由N个分片组成，按照调用线程哈希选择分片，以分散生产者的竞争；每个分片一个线程和一个粗粒度的时间轮。
+ * 2. 超时精度为tick，超时任务可能延迟最多一个tick执行；每个tick批量处理到期的任务。
+ * 3. 取消是O(1)的：只修改状态并通知分片线程从时间轮中摘除节点，不需要查找。
+ * 4. 超时任务在分片线程执行，因此必须是轻量的，比如取消令牌或设置Future的结果；耗时的逻辑应当转发给其它Executor。
+ * 5. 默认实例{@link #getDefault()}使用守护线程，{@link CancelTokenSource}的默认超时调度也使用该实例。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class TimeoutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeoutService.class);
+
+    private final Shard[] shards;
+    private final int shardMask;
+    private volatile boolean shutdown;
+
+    private TimeoutService(Builder builder) {
+        int shardCount = MathCommon.nextPowerOfTwo(builder.shardCount);
+        long tickNanos = builder.tickNanos;
+        int wheelSize = MathCommon.nextPowerOfTwo(builder.wheelSize);
+        ThreadFactory threadFactory = Objects.requireNonNullElseGet(builder.threadFactory,
+                () -> new DefaultThreadFactory("TimeoutService", true));
+
+        this.shards = new Shard[shardCount];
+        this.shardMask = shardCount - 1;
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(tickNanos, wheelSize);
+        }
+        for (Shard shard : shards) {
+            shard.thread = Objects.requireNonNull(threadFactory.newThread(shard), "newThread");
+            shard.thread.start();
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /** 默认的超时服务 */
+    public static TimeoutService getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 在指定延迟后执行任务
+     *
+     * @param task  超时任务，在分片线程执行
+     * @param delay 延迟，小于等于0时在下一个tick执行
+     * @return 可用于取消的句柄
+     * @throws RejectedExecutionException 如果服务已关闭
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        Objects.requireNonNull(task, "task");
+        if (shutdown) {
+            throw new RejectedExecutionException("TimeoutService is shutdown");
+        }
+        Shard shard = shards[shardIndex(Thread.currentThread())];
+        Timeout timeout = new Timeout(shard, task, System.nanoTime() + Math.max(0, unit.toNanos(delay)));
+        shard.pendingQueue.offer(timeout);
+        return timeout;
+    }
+
+    private int shardIndex(Thread thread) {
+        long h = thread.threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & shardMask;
+    }
+
+    /** 分片数 */
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /** 待执行的超时任务数 -- 估算值 */
+    public int pendingCount() {
+        int count = 0;
+        for (Shard shard : shards) {
+            count += shard.size;
+        }
+        return count;
+    }
+
+    /**
+     * 关闭服务
+     * 未到期的任务将被丢弃，不会执行。
+     */
+    public void shutdown() {
+        shutdown = true;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    // region timeout
+
+    /** 超时任务的句柄 */
+    public static final class Timeout {
+
+        private static final int ST_PENDING = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final Shard shard;
+        private final long deadline;
+        private Runnable task;
+        @SuppressWarnings("unused")
+        private volatile int state;
+
+        // 以下字段只由分片线程访问
+        /** 剩余的圈数 */
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Shard shard, Runnable task, long deadline) {
+            this.shard = shard;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消超时任务
+         *
+         * @return 如果成功取消则返回true；如果任务已执行或已取消则返回false
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, ST_PENDING, ST_CANCELLED)) {
+                return false;
+            }
+            task = null; // help gc
+            shard.cancelledQueue.offer(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        /** 剩余时间 */
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, ST_PENDING, ST_EXPIRED)) {
+                return;
+            }
+            Runnable task = this.task;
+            this.task = null;
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.warn("timeout task caught exception", t);
+            }
+        }
+
+        private static final VarHandle STATE;
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                STATE = l.findVarHandle(Timeout.class, "state", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+
+    /** 时间轮的槽位，双向链表 */
+    private static final class Bucket {
+
+        Timeout head;
+        Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /** @return 下一个节点 */
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+
+        void clear() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                timeout = remove(timeout);
+            }
+        }
+    }
+
+    // endregion
+
+    // region shard
+
+    private final class Shard implements Runnable {
+
+        /** 单个tick最多转移的任务数，避免生产者过快时饿死到期处理 */
+        private static final int MAX_TRANSFER_PER_TICK = 100_000;
+
+        final long tickNanos;
+        final Bucket[] wheel;
+        final int mask;
+        final MpscLinkedQueue<Timeout> pendingQueue = new MpscLinkedQueue<>();
+        final MpscLinkedQueue<Timeout> cancelledQueue = new MpscLinkedQueue<>();
+        Thread thread;
+
+        /** 时间轮中的任务数 -- 只由分片线程写 */
+        volatile int size;
+        long startTime;
+        long tick;
+
+        Shard(long tickNanos, int wheelSize) {
+            this.tickNanos = tickNanos;
+            this.wheel = new Bucket[wheelSize];
+            this.mask = wheelSize - 1;
+            for (int i = 0; i < wheelSize; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+
+        @Override
+        public void run() {
+            startTime = System.nanoTime();
+            while (!shutdown) {
+                waitForNextTick();
+                if (shutdown) {
+                    break;
+                }
+                processCancelled();
+                transferPending();
+                expireBucket(wheel[(int) (tick & mask)]);
+                tick++;
+            }
+            for (Bucket bucket : wheel) {
+                bucket.clear();
+            }
+            size = 0;
+        }
+
+        private void waitForNextTick() {
+            final long deadline = startTime + tickNanos * (tick + 1);
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0 && !shutdown) {
+                LockSupport.parkNanos(this, remaining);
+            }
+        }
+
+        private void processCancelled() {
+            Timeout timeout;
+            while ((timeout = cancelledQueue.poll()) != null) {
+                Bucket bucket = timeout.bucket;
+                if (bucket != null) {
+                    bucket.remove(timeout);
+                    size--;
+                }
+            }
+        }
+
+        private void transferPending() {
+            Timeout timeout;
+            for (int i = 0; i < MAX_TRANSFER_PER_TICK && (timeout = pendingQueue.poll()) != null; i++) {
+                if (timeout.state != Timeout.ST_PENDING) {
+                    continue; // 已取消
+                }
+                long ticks = (timeout.deadline - startTime + tickNanos - 1) / tickNanos;
+                timeout.remainingRounds = (ticks - tick) / wheel.length;
+                ticks = Math.max(ticks, tick); // 已过期的放入当前槽位
+                wheel[(int) (ticks & mask)].add(timeout);
+                size++;
+            }
+        }
+
+        private void expireBucket(Bucket bucket) {
+            Timeout timeout = bucket.head;
+            while (timeout != null) {
+                if (timeout.remainingRounds <= 0) {
+                    Timeout next = bucket.remove(timeout);
+                    size--;
+                    timeout.expire();
+                    timeout = next;
+                } else {
+                    timeout.remainingRounds--;
+                    timeout = timeout.next;
+                }
+            }
+        }
+    }
+
+    // endregion
+
+    private static class DefaultHolder {
+
+        static final TimeoutService INSTANCE = newBuilder()
+                .setShardCount(Math.min(4, Runtime.getRuntime().availableProcessors()))
+                .setThreadFactory(new DefaultThreadFactory("DefaultTimeoutService", true))
+                .build();
+    }
+
+    public static class Builder {
+
+        private int shardCount = 1;
+        private long tickNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private int wheelSize = 512;
+        private ThreadFactory threadFactory;
+
+        public TimeoutService build() {
+            if (shardCount <= 0 || tickNanos <= 0 || wheelSize <= 0) {
+                throw new IllegalStateException("shardCount, tick and wheelSize must be positive");
+            }
+            return new TimeoutService(this);
+        }
+
+        /** 分片数，会向上取整为2的整次幂；默认为1 */
+        public int getShardCount() {
+            return shardCount;
+        }
+
+        public Builder setShardCount(int shardCount) {
+            this.shardCount = shardCount;
+            return this;
+        }
+
+        /** 时间轮的tick间隔；默认10毫秒 */
+        public long getTickNanos() {
+            return tickNanos;
+        }
+
+        public Builder setTick(long tick, TimeUnit unit) {
+            this.tickNanos = unit.toNanos(tick);
+            return this;
+        }
+
+        /** 时间轮的槽位数，会向上取整为2的整次幂；默认512 */
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        public Builder setWheelSize(int wheelSize) {
+            this.wheelSize = wheelSize;
+            return this;
+        }
+
+        /** 分片线程的工厂，默认创建守护线程 */
+        public ThreadFactory getThreadFactory() {
+            return threadFactory;
+        }
+
+        public Builder setThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Copyright 2023-2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.collection.DefaultIndexedPriorityQueue;
+import cn.wjybxx.base.collection.IndexedElement;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 基于分层时间轮的定时任务队列。
+ * <h3>结构</h3>
+ * 1. 时间轮共{@link #LEVEL_COUNT}层，每层{@link #SLOT_COUNT}个槽位，第k层的每个槽位跨度为{@code 64^k}个刻度；
+ * 超出范围的任务存放在溢出槽位中，在最高层轮转时重新分配。
+ * 2. 任务按刻度的高位与当前刻度相同的层级存放（Linux内核定时器的方案），当前刻度进入新的区间时，将上层对应槽位的任务降级到下层。
+ * 3. 槽位是侵入式的双向链表，插入和删除都是O(1)的；每层有一个位图记录非空槽位，推进时可跳过空槽位。
+ *
+ * <h3>时序</h3>
+ * 到期刻度的任务被转移到一个按{@link ScheduledPromiseTask#compareToExplicitly(ScheduledPromiseTask)}排序的小堆中，
+ * 时间轮中剩余任务的触发时间都大于堆中的任务，因此出队顺序与二叉堆实现完全一致 -- 同一刻度内的任务仍按触发时间、优先级和id排序。
+ *
+ * <h3>索引</h3>
+ * 任务在时间轮中时，索引为{@code -(slot + 2)}；在堆中时为堆的下标；不在队列中时为{@link IndexedElement#INDEX_NOT_FOUND}。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class TimingWheelScheduledTaskQueue implements ScheduledTaskQueue {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOT_COUNT = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+    /** 6层可覆盖2^36个刻度，以毫秒为刻度时约795天 */
+    private static final int LEVEL_COUNT = 6;
+    private static final int OVERFLOW_SLOT = LEVEL_COUNT * SLOT_COUNT;
+
+    /** 每一刻度的时长 */
+    private final long tickDuration;
+    /** 刻度的原点 -- 避免负数时间导致的位运算问题 */
+    private final long originTime;
+
+    /** 各槽位的链表头 */
+    private final ScheduledPromiseTask<?>[] heads = new ScheduledPromiseTask<?>[OVERFLOW_SLOT + 1];
+    /** 各层非空槽位的位图 */
+    private final long[] occupied = new long[LEVEL_COUNT];
+    /** 已到期刻度的任务 */
+    private final DefaultIndexedPriorityQueue<ScheduledPromiseTask<?>> readyQueue;
+
+    /** 下一个要处理的刻度 -- 之前的刻度上的任务都已转移到readyQueue */
+    private long currentTick;
+    /** 时间轮中的任务数 -- 不包含readyQueue */
+    private int wheelCount;
+    /** 溢出槽位中的任务数 */
+    private int overflowCount;
+
+    /**
+     * @param tickDuration 每一刻度的时长，与任务的触发时间同单位
+     * @param currentTime  当前时间
+     */
+    public TimingWheelScheduledTaskQueue(long tickDuration, long currentTime) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration: " + tickDuration);
+        }
+        this.tickDuration = tickDuration;
+        this.originTime = currentTime;
+        this.readyQueue = new DefaultIndexedPriorityQueue<>(ScheduledPromiseTask::compareToExplicitly, 16);
+        this.currentTick = 0;
+    }
+
+    public long getTickDuration() {
+        return tickDuration;
+    }
+
+    private long tickOf(long time) {
+        return Math.floorDiv(time - originTime, tickDuration);
+    }
+
+    @Override
+    public int size() {
+        return wheelCount + readyQueue.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return wheelCount == 0 && readyQueue.isEmpty();
+    }
+
+    @Override
+    public void add(ScheduledPromiseTask<?> task) {
+        if (task.collectionIndex(this) != IndexedElement.INDEX_NOT_FOUND) {
+            throw new IllegalArgumentException("task is already in queue, index: " + task.collectionIndex(this));
+        }
+        addImpl(task);
+    }
+
+    private void addImpl(ScheduledPromiseTask<?> task) {
+        long tick = tickOf(task.getNextTriggerTime());
+        if (tick < currentTick) {
+            readyQueue.offer(task);
+            return;
+        }
+        // 最高的不同位决定层级
+        long diff = tick ^ currentTick;
+        int level = diff == 0 ? 0 : (63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS;
+        int slot;
+        if (level >= LEVEL_COUNT) {
+            slot = OVERFLOW_SLOT;
+            overflowCount++;
+        } else {
+            int index = (int) ((tick >>> (level * SLOT_BITS)) & SLOT_MASK);
+            slot = level * SLOT_COUNT + index;
+            occupied[level] |= 1L << index;
+        }
+        // 插入链表头部 -- 槽位内的顺序无意义
+        ScheduledPromiseTask<?> head = heads[slot];
+        task.wheelPrev = null;
+        task.wheelNext = head;
+        if (head != null) {
+            head.wheelPrev = task;
+        }
+        heads[slot] = task;
+        task.collectionIndex(this, -(slot + 2));
+        wheelCount++;
+    }
+
+    private void unlink(ScheduledPromiseTask<?> task, int slot) {
+        ScheduledPromiseTask<?> prev = task.wheelPrev;
+        ScheduledPromiseTask<?> next = task.wheelNext;
+        if (prev == null) {
+            heads[slot] = next;
+            if (next == null) {
+                onSlotEmpty(slot);
+            }
+        } else {
+            prev.wheelNext = next;
+        }
+        if (next != null) {
+            next.wheelPrev = prev;
+        }
+        task.wheelPrev = null;
+        task.wheelNext = null;
+        task.collectionIndex(this, IndexedElement.INDEX_NOT_FOUND);
+        wheelCount--;
+        if (slot == OVERFLOW_SLOT) {
+            overflowCount--;
+        }
+    }
+
+    private void onSlotEmpty(int slot) {
+        if (slot != OVERFLOW_SLOT) {
+            occupied[slot >>> SLOT_BITS] &= ~(1L << (slot & SLOT_MASK));
+        }
+    }
+
+    /** 摘下槽位上的整个链表 */
+    private ScheduledPromiseTask<?> detachSlot(int slot) {
+        ScheduledPromiseTask<?> head = heads[slot];
+        if (head != null) {
+            heads[slot] = null;
+            onSlotEmpty(slot);
+        }
+        return head;
+    }
+
+    /** 将摘下的链表中的任务重新分配 */
+    private void redistribute(ScheduledPromiseTask<?> head, boolean overflow) {
+        while (head != null) {
+            ScheduledPromiseTask<?> next = head.wheelNext;
+            head.wheelPrev = null;
+            head.wheelNext = null;
+            head.collectionIndex(this, IndexedElement.INDEX_NOT_FOUND);
+            wheelCount--;
+            if (overflow) {
+                overflowCount--;
+            }
+            addImpl(head);
+            head = next;
+        }
+    }
+
+    /** 处理所有小于等于给定刻度的刻度 */
+    private void advance(final long targetTick) {
+        while (currentTick <= targetTick) {
+            if (wheelCount == overflowCount) {
+                // 时间轮中没有任务，直接跳转；溢出的任务需要根据新的刻度重新分配
+                currentTick = targetTick + 1;
+                if (overflowCount > 0) {
+                    redistribute(detachSlot(OVERFLOW_SLOT), true);
+                }
+                return;
+            }
+            final int index = (int) (currentTick & SLOT_MASK);
+            long bits = occupied[0] & (-1L << index);
+            if (bits == 0) {
+                // 当前区间的剩余槽位为空，跳到下一个区间的起点
+                moveTo(Math.min((currentTick | SLOT_MASK) + 1, targetTick + 1));
+                continue;
+            }
+            long nextTick = (currentTick & ~SLOT_MASK) | Long.numberOfTrailingZeros(bits);
+            if (nextTick > targetTick) {
+                currentTick = targetTick + 1;
+                return;
+            }
+            // 该槽位上的任务都在nextTick到期
+            ScheduledPromiseTask<?> head = detachSlot((int) (nextTick & SLOT_MASK));
+            while (head != null) {
+                ScheduledPromiseTask<?> next = head.wheelNext;
+                head.wheelPrev = null;
+                head.wheelNext = null;
+                head.collectionIndex(this, IndexedElement.INDEX_NOT_FOUND);
+                wheelCount--;
+                readyQueue.offer(head);
+                head = next;
+            }
+            moveTo(nextTick + 1);
+        }
+    }
+
+    /**
+     * 推进到给定刻度，进入新的区间时立即降级上层的任务。
+     * 这保证了第0层当前区间的任务总是完整的，{@link #earliestTriggerTime()}和{@link #addImpl(ScheduledPromiseTask)}依赖该约束。
+     */
+    private void moveTo(long tick) {
+        currentTick = tick;
+        if ((tick & SLOT_MASK) == 0) {
+            cascade();
+        }
+    }
+
+    /** 当前刻度进入新的区间，将上层对应槽位的任务降级 -- 从最高层开始 */
+    private void cascade() {
+        int level = 1;
+        while (level < LEVEL_COUNT && ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK) == 0) {
+            level++;
+        }
+        if (level == LEVEL_COUNT) {
+            // 所有层都轮转了一圈，溢出的任务可能进入范围
+            redistribute(detachSlot(OVERFLOW_SLOT), true);
+            level = LEVEL_COUNT - 1;
+        }
+        for (; level >= 1; level--) {
+            int index = (int) ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+            redistribute(detachSlot(level * SLOT_COUNT + index), false);
+        }
+    }
+
+    @Nullable
+    @Override
+    public ScheduledPromiseTask<?> peekDue(long tickTime) {
+        advance(tickOf(tickTime));
+        ScheduledPromiseTask<?> head = readyQueue.peek();
+        if (head == null || tickTime < head.getNextTriggerTime()) {
+            return null;
+        }
+        return head;
+    }
+
+    @Nullable
+    @Override
+    public ScheduledPromiseTask<?> pollDue(long tickTime) {
+        advance(tickOf(tickTime));
+        ScheduledPromiseTask<?> head = readyQueue.peek();
+        if (head == null || tickTime < head.getNextTriggerTime()) {
+            return null;
+        }
+        return readyQueue.poll();
+    }
+
+    /**
+     * 1. readyQueue中的任务早于时间轮中的任务。
+     * 2. 第0层当前区间有任务时，返回最近的非空刻度的起始时间；否则返回下一个区间的起始时间 --
+     * 进入区间时已降级上层的任务，因此上层的任务都在之后的区间。
+     */
+    @Override
+    public long earliestTriggerTime() {
+        ScheduledPromiseTask<?> head = readyQueue.peek();
+        if (head != null) {
+            return head.getNextTriggerTime();
+        }
+        if (wheelCount == 0) {
+            return Long.MAX_VALUE;
+        }
+        long bits = occupied[0] & (-1L << (int) (currentTick & SLOT_MASK));
+        long tick;
+        if (bits != 0) {
+            tick = (currentTick & ~SLOT_MASK) | Long.numberOfTrailingZeros(bits);
+        } else {
+            tick = (currentTick | SLOT_MASK) + 1;
+        }
+        return originTime + tick * tickDuration;
+    }
+
+    @Override
+    public boolean contains(ScheduledPromiseTask<?> task) {
+        int index = task.collectionIndex(this);
+        if (index <= -2) {
+            return true;
+        }
+        return readyQueue.containsTyped(task);
+    }
+
+    @Override
+    public boolean remove(ScheduledPromiseTask<?> task) {
+        int index = task.collectionIndex(this);
+        if (index <= -2) {
+            unlink(task, -index - 2);
+            return true;
+        }
+        return readyQueue.removeTyped(task);
+    }
+
+    @Override
+    public void priorityChanged(ScheduledPromiseTask<?> task) {
+        int index = task.collectionIndex(this);
+        if (index <= -2) {
+            unlink(task, -index - 2);
+            addImpl(task);
+        } else if (tickOf(task.getNextTriggerTime()) >= currentTick && readyQueue.removeTyped(task)) {
+            addImpl(task); // 触发时间推迟到未处理的刻度，需要回到时间轮，以保证readyQueue中的任务早于时间轮中的任务
+        } else {
+            readyQueue.priorityChanged(task);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super ScheduledPromiseTask<?>> action) {
+        readyQueue.forEach(action);
+        for (ScheduledPromiseTask<?> head : heads) {
+            while (head != null) {
+                ScheduledPromiseTask<?> next = head.wheelNext;
+                action.accept(head);
+                head = next;
+            }
+        }
+    }
+
+    @Override
+    public void clearIgnoringIndexes() {
+        readyQueue.clearIgnoringIndexes();
+        Arrays.fill(heads, null);
+        Arrays.fill(occupied, 0);
+        wheelCount = 0;
+        overflowCount = 0;
+    }
+}
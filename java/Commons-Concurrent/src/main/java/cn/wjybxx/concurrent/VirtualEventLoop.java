@@ -0,0 +1,657 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.MathCommon;
+import cn.wjybxx.base.ObjectUtils;
+import cn.wjybxx.base.concurrent.CancelCodes;
+
+import javax.annotation.Nonnull;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 运行在虚拟线程上的事件循环。
+ * <p>
+ * 1. 任务和事件存储在无界的多生产者单消费者队列(邮箱)中，没有任务时线程挂起，直到新的任务到达或下一个定时任务到期。
+ * 2. 保持{@link EventLoop}的约定：任务串行执行、{@link #inEventLoop()}、定时任务和{@link EventLoopAgent}。
+ * 3. 虚拟线程的创建和挂起开销都很低，因此可以为每一个Actor或会话创建一个EventLoop，而不必将多个会话复用在少量的线程上。
+ * 4. 可以通过{@link #publish(IAgentEvent)}发布自定义事件，事件将由{@link EventLoopAgent#onEvent(long, IAgentEvent)}处理。
+ * <p>
+ * 注意：
+ * 1. 线程挂起时不会调用{@link EventLoopAgent#update()}，需要周期性逻辑的用户应当使用定时任务。
+ * 2. 在任务中执行阻塞操作会挂起虚拟线程，不会阻塞载体线程，但会推迟当前EventLoop的其它任务。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class VirtualEventLoop<T extends IAgentEvent> extends AbstractScheduledEventLoop {
+
+    private static final int MIN_BATCH_SIZE = 1;
+    private static final int MAX_BATCH_SIZE = 64 * 1024;
+    /** 平台线程挂起前让出CPU的次数 */
+    private static final int PLATFORM_SPIN_TRIES = 256;
+
+    // 填充开始 - 字段定义顺序不要随意调整
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+    /** 线程本地时间 -- 纳秒；由EventLoop线程频繁更新，进行缓存行填充隔离 */
+    private volatile long tickTime;
+    @SuppressWarnings("unused")
+    private long p11, p12, p13, p14, p15, p16, p17, p18;
+    /** 线程状态 */
+    private volatile int state = EventLoopState.ST_UNSTARTED;
+    /** 线程是否即将挂起或已挂起 -- 生产者据此决定是否唤醒线程 */
+    private volatile boolean parked;
+
+    /** 任务和事件队列 */
+    private final MpscLinkedQueue<Object> mailbox = new MpscLinkedQueue<>();
+    /** 周期性任务队列 -- 既有的任务都是先于邮箱中的任务提交的 */
+    private final ScheduledTaskQueue scheduledTaskQueue;
+    private final ScheduledHelper scheduledHelper;
+
+    /** 任务拒绝策略 */
+    private final RejectedExecutionHandler rejectedExecutionHandler;
+    /** 内部代理 */
+    private final EventLoopAgent<? super T> agent;
+    /** 外部门面 */
+    private final EventLoopModule mainModule;
+    /** 批量执行任务的大小 */
+    private final int batchSize;
+
+    private final Thread thread;
+    /** 挂起前让出CPU的次数 -- 虚拟线程直接挂起 */
+    private final int spinTries;
+    /** 消息序号 -- 只由EventLoop线程访问 */
+    private long sequence = -1;
+
+    private final IPromise<Void> runningPromise = new Promise<>(this);
+    private final IPromise<Void> terminationPromise = new Promise<>(this);
+    // future 缓存
+    private final IFuture<Void> runningFuture = runningPromise.asReadonly();
+    private final IFuture<Void> terminationFuture = terminationPromise.asReadonly();
+
+    public VirtualEventLoop(EventLoopBuilder.VirtualBuilder<T> builder) {
+        super(builder.getParent());
+        ThreadFactory threadFactory = Objects.requireNonNull(builder.getThreadFactory(), "threadFactory");
+
+        this.tickTime = System.nanoTime();
+        this.scheduledTaskQueue = ObjectUtils.nullToDef(builder.getScheduledTaskQueueFactory(), ScheduledTaskQueues.binaryHeap())
+                .newQueue(TimeUnit.NANOSECONDS, tickTime);
+        this.scheduledHelper = new ScheduledHelper();
+
+        this.rejectedExecutionHandler = ObjectUtils.nullToDef(builder.getRejectedExecutionHandler(), RejectedExecutionHandlers.abort());
+        this.agent = ObjectUtils.nullToDef(builder.getAgent(), EmptyAgent.getInstance());
+        this.mainModule = builder.getMainModule();
+        this.batchSize = MathCommon.clamp(builder.getBatchSize(), MIN_BATCH_SIZE, MAX_BATCH_SIZE);
+
+        thread = Objects.requireNonNull(threadFactory.newThread(new Worker()), "newThread");
+        DefaultThreadFactory.checkUncaughtExceptionHandler(thread);
+        spinTries = thread.isVirtual() ? 0 : PLATFORM_SPIN_TRIES;
+
+        // 完成绑定
+        this.agent.inject(this);
+    }
+
+    /** EventLoop绑定的Agent（代理） */
+    public EventLoopAgent<? super T> getAgent() {
+        return agent;
+    }
+
+    @Override
+    public EventLoopModule mainModule() {
+        return mainModule;
+    }
+
+    // region 状态查询
+
+    @Override
+    public final EventLoopState state() {
+        return EventLoopState.valueOf(state);
+    }
+
+    @Override
+    public final boolean isRunning() {
+        return state == EventLoopState.ST_RUNNING;
+    }
+
+    @Override
+    public final boolean isShuttingDown() {
+        return state >= EventLoopState.ST_SHUTTING_DOWN;
+    }
+
+    @Override
+    public final boolean isShutdown() {
+        return state >= EventLoopState.ST_SHUTDOWN;
+    }
+
+    @Override
+    public final boolean isTerminated() {
+        return state == EventLoopState.ST_TERMINATED;
+    }
+
+    @Override
+    public final IFuture<?> runningFuture() {
+        return runningFuture;
+    }
+
+    @Override
+    public IFuture<?> terminationFuture() {
+        return terminationFuture;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        return terminationPromise.await(timeout, unit);
+    }
+
+    @Override
+    public final boolean inEventLoop() {
+        return this.thread == Thread.currentThread();
+    }
+
+    @Override
+    public final boolean inEventLoop(Thread thread) {
+        return this.thread == thread;
+    }
+
+    /** 虚拟线程通过unpark唤醒，而不是中断 -- 中断会导致用户的阻塞操作失败 */
+    @Override
+    public void wakeup() {
+        if (!inEventLoop()) {
+            LockSupport.unpark(thread);
+            agent.wakeup();
+        }
+    }
+
+    // endregion
+
+    // region 任务提交
+
+    @Override
+    public void execute(Runnable command) {
+        Objects.requireNonNull(command, "command");
+        if (!offer(command)) {
+            rejectedExecutionHandler.rejected(command, this);
+        }
+    }
+
+    /**
+     * 发布一个自定义事件
+     *
+     * @param event 事件，类型必须大于0
+     * @return 如果EventLoop已开始关闭，则返回false
+     */
+    public boolean publish(T event) {
+        Objects.requireNonNull(event, "event");
+        if (event.getType() <= 0) {
+            throw new IllegalArgumentException("event.type must be greater than 0, type: " + event.getType());
+        }
+        return offer(event);
+    }
+
+    /** 批量压入邮箱，最多唤醒线程一次 */
+    @Override
+    public void executeBatch(List<? extends Runnable> tasks) {
+        final int size = tasks.size();
+        for (int i = 0; i < size; i++) {
+            Objects.requireNonNull(tasks.get(i), "task");
+        }
+        if (isShuttingDown()) {
+            for (Runnable task : tasks) {
+                rejectedExecutionHandler.rejected(task, this);
+            }
+            return;
+        }
+        for (Runnable task : tasks) {
+            if (task instanceof ScheduledPromiseTask<?> futureTask) {
+                futureTask.registerCancellation();
+            }
+            mailbox.offer(task);
+        }
+        if (state == EventLoopState.ST_TERMINATED) {
+            Set<Object> taskSet = Collections.newSetFromMap(new IdentityHashMap<>(size));
+            taskSet.addAll(tasks);
+            for (Object message : drainTerminatedMailbox()) {
+                if (taskSet.contains(message)) {
+                    rejectedExecutionHandler.rejected((Runnable) message, this);
+                }
+            }
+        } else {
+            signalNewMessage();
+        }
+    }
+
+    /**
+     * 压入消息
+     * 生产者先压入消息，再检查线程是否已终止；线程先标记终止，再最后清理一次邮箱 --
+     * 两者至少有一方能看见对方的写入，因此不需要在压入期间阻止线程退出。
+     * 如果线程已终止，则由生产者自己清理邮箱，自己的消息仍在邮箱中时视为拒绝。
+     */
+    private boolean offer(Object message) {
+        if (isShuttingDown()) {
+            return false;
+        }
+        if (message instanceof ScheduledPromiseTask<?> futureTask) {
+            futureTask.registerCancellation();
+        }
+        mailbox.offer(message);
+        if (state == EventLoopState.ST_TERMINATED) {
+            for (Object drained : drainTerminatedMailbox()) {
+                if (drained == message) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        signalNewMessage();
+        return true;
+    }
+
+    private void signalNewMessage() {
+        if (state == EventLoopState.ST_UNSTARTED) {
+            ensureThreadStarted();
+        } else if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * 清理线程终止后残留的消息 -- 残留消息直接丢弃，同{@link #isShutdown()}阶段的处理
+     * 由EventLoop线程和观察到终止状态的生产者调用，通过锁保证邮箱仍只有一个消费者。
+     *
+     * @return 清理出的消息
+     */
+    private List<Object> drainTerminatedMailbox() {
+        List<Object> result = new ArrayList<>();
+        synchronized (mailbox) {
+            Object message;
+            while ((message = mailbox.strictPoll()) != null) {
+                result.add(message);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected IScheduledHelper helper() {
+        return scheduledHelper;
+    }
+
+    private class ScheduledHelper implements IScheduledHelper {
+
+        @Override
+        public long tickTime() {
+            return tickTime;
+        }
+
+        @Override
+        public long normalize(long worldTime, TimeUnit timeUnit) {
+            return timeUnit.toNanos(worldTime);
+        }
+
+        @Override
+        public long denormalize(long localTime, TimeUnit timeUnit) {
+            return timeUnit.convert(localTime, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void reschedule(ScheduledPromiseTask<?> futureTask) {
+            assert inEventLoop();
+            if (isShuttingDown()) {
+                futureTask.trySetCancelled();
+                onCompleted(futureTask);
+            } else {
+                scheduledTaskQueue.add(futureTask);
+            }
+        }
+
+        @Override
+        public void onCompleted(ScheduledPromiseTask<?> futureTask) {
+            futureTask.clear();
+        }
+
+        @Override
+        public void onCancelRequested(ScheduledPromiseTask<?> futureTask, int cancelCode) {
+            if (CancelCodes.isWithoutRemove(cancelCode)) {
+                return;
+            }
+            if (inEventLoop()) {
+                futureTask.setNextTriggerTime(0);
+                scheduledTaskQueue.priorityChanged(futureTask);
+            } else {
+                execute(futureTask); // run方法会检测取消信号，避免额外封装
+            }
+        }
+    }
+
+    // endregion
+
+    // region 线程状态切换
+
+    @Override
+    public IFuture<?> start() {
+        ensureThreadStarted();
+        return runningFuture;
+    }
+
+    @Override
+    public void shutdown() {
+        if (!runningPromise.isDone()) {
+            runningPromise.trySetException(new StartFailedException("Shutdown"));
+        }
+        int expectedState = state;
+        for (; ; ) {
+            if (expectedState >= EventLoopState.ST_SHUTTING_DOWN) {
+                return;
+            }
+            int realState = compareAndExchangeState(expectedState, EventLoopState.ST_SHUTTING_DOWN);
+            if (realState == expectedState) {
+                ensureThreadTerminable(expectedState);
+                return;
+            }
+            // retry
+            expectedState = realState;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        advanceRunState(EventLoopState.ST_SHUTDOWN);
+        // 邮箱只能由EventLoop线程消费
+        return Collections.emptyList();
+    }
+
+    private void ensureThreadStarted() {
+        if (state == EventLoopState.ST_UNSTARTED
+                && STATE.compareAndSet(this, EventLoopState.ST_UNSTARTED, EventLoopState.ST_STARTING)) {
+            thread.start();
+        }
+    }
+
+    private void ensureThreadTerminable(int oldState) {
+        if (oldState == EventLoopState.ST_UNSTARTED) {
+            // 虚拟线程的启动开销很低，启动线程以执行统一的清理流程 -- 启动Promise已失败，不会执行loop
+            thread.start();
+        } else {
+            wakeup();
+        }
+    }
+
+    private void advanceRunState(int targetState) {
+        int expectedState = state;
+        for (; ; ) {
+            if (expectedState >= targetState) {
+                return;
+            }
+            int realState = compareAndExchangeState(expectedState, targetState);
+            if (realState >= targetState) {
+                return;
+            }
+            // retry
+            expectedState = realState;
+        }
+    }
+
+    private int compareAndExchangeState(int expectedState, int targetState) {
+        return (int) STATE.compareAndExchange(this, expectedState, targetState);
+    }
+    // endregion
+
+    private class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            outer:
+            try {
+                if (!runningPromise.trySetComputing()) {
+                    break outer;
+                }
+                tickTime = System.nanoTime();
+                agent.onStart();
+
+                advanceRunState(EventLoopState.ST_RUNNING);
+                if (runningPromise.trySetResult(null)) {
+                    loop();
+                }
+            } catch (Throwable e) {
+                logger.error("thread exit due to exception!", e);
+                if (!runningPromise.isDone()) { // 启动失败
+                    runningPromise.trySetException(new StartFailedException("StartFailed", e));
+                }
+            } finally {
+                if (runningPromise.isSucceeded()) {
+                    advanceRunState(EventLoopState.ST_SHUTTING_DOWN);
+                } else {
+                    // 启动失败直接进入清理状态，丢弃所有提交的任务
+                    advanceRunState(EventLoopState.ST_SHUTDOWN);
+                }
+
+                try {
+                    cleanMailbox();
+                } finally {
+                    // 标记为已进入最终清理阶段
+                    advanceRunState(EventLoopState.ST_SHUTDOWN);
+
+                    // 退出前进行必要的清理，释放系统资源
+                    try {
+                        agent.onShutdown();
+                    } catch (Throwable e) {
+                        logger.error("thread exit caught exception!", e);
+                    } finally {
+                        // 设置为终止状态，然后再清理一次邮箱 -- 之后压入的生产者一定能看见终止状态
+                        state = EventLoopState.ST_TERMINATED;
+                        int discardCount = drainTerminatedMailbox().size();
+                        if (discardCount > 0) {
+                            logger.info("discard messages after terminated, count = {}", discardCount);
+                        }
+                        terminationPromise.trySetResult(null);
+                    }
+                }
+            }
+        }
+
+        private void loop() {
+            while (state == EventLoopState.ST_RUNNING) {
+                try {
+                    tickTime = System.nanoTime();
+                    processScheduledQueue(tickTime, false);
+
+                    int count = runMessages();
+                    invokeAgentUpdate();
+                    if (count < batchSize) {
+                        parkUntilNextMessage();
+                    }
+                } catch (Throwable e) {
+                    logger.error("loop caught exception", e);
+                }
+            }
+        }
+
+        /**
+         * 挂起线程，直到新消息到达或下一个定时任务到期
+         * 先声明挂起，再检查邮箱；生产者先压入消息，再检查挂起标记 -- 两者至少有一方能看见对方的写入，因此不会丢失信号。
+         */
+        private void parkUntilNextMessage() {
+            // 平台线程挂起和唤醒的开销较高(生产者需要系统调用)，先让出CPU短暂等待
+            for (int i = spinTries; i > 0; i--) {
+                if (!mailbox.isEmpty()) {
+                    return;
+                }
+                Thread.yield();
+            }
+            parked = true;
+            try {
+                if (!mailbox.isEmpty() || state != EventLoopState.ST_RUNNING) {
+                    return;
+                }
+                long triggerTime = scheduledTaskQueue.earliestTriggerTime();
+                if (triggerTime == Long.MAX_VALUE) {
+                    LockSupport.park(this);
+                } else {
+                    long parkNanos = triggerTime - System.nanoTime();
+                    if (parkNanos > 0) {
+                        LockSupport.parkNanos(this, parkNanos);
+                    }
+                }
+            } finally {
+                parked = false;
+            }
+        }
+
+        private void invokeAgentUpdate() {
+            try {
+                agent.update();
+            } catch (Throwable t) {
+                if (t instanceof VirtualMachineError) {
+                    logger.error("agent.update caught exception", t);
+                } else {
+                    logger.warn("agent.update caught exception", t);
+                }
+            }
+        }
+
+        /** @return 执行的消息数 */
+        @SuppressWarnings("unchecked")
+        private int runMessages() {
+            final MpscLinkedQueue<Object> mailbox = VirtualEventLoop.this.mailbox;
+            final EventLoopAgent<? super T> agent = VirtualEventLoop.this.agent;
+            int count = 0;
+            Object message;
+            while (count < batchSize && (message = mailbox.poll()) != null) {
+                count++;
+                long curSequence = ++sequence;
+                try {
+                    if (message instanceof Runnable runnable) {
+                        if (runnable instanceof ScheduledPromiseTask<?> futureTask) {
+                            futureTask.setId(curSequence);
+                        }
+                        runnable.run();
+                    } else {
+                        agent.onEvent(curSequence, (T) message);
+                    }
+                } catch (Throwable t) {
+                    logCause(t);
+                    if (isShuttingDown()) { // 可能是中断，检查关闭信号
+                        break;
+                    }
+                }
+            }
+            return count;
+        }
+
+        /**
+         * 处理周期性任务
+         * (为避免时序错误，处理周期性任务期间不响应关闭，不容易安全实现)
+         *
+         * @param shuttingDownMode 是否是退出模式
+         */
+        private void processScheduledQueue(long tickTime, boolean shuttingDownMode) {
+            final ScheduledTaskQueue taskQueue = scheduledTaskQueue;
+            ScheduledPromiseTask<?> queueTask;
+            while ((queueTask = taskQueue.pollDue(tickTime)) != null) {
+                if (shuttingDownMode) {
+                    // 关闭模式下，不再重复执行任务
+                    if (queueTask.isTriggered() || queueTask.trigger(tickTime)) {
+                        queueTask.trySetCancelled();
+                        scheduledHelper.onCompleted(queueTask);
+                    }
+                } else {
+                    // 非关闭模式下，如果检测到开始关闭，也不再重复执行任务 -- 需等同Reschedule
+                    if (queueTask.trigger(tickTime)) {
+                        if (isShuttingDown()) {
+                            queueTask.trySetCancelled();
+                            scheduledHelper.onCompleted(queueTask);
+                        } else {
+                            taskQueue.add(queueTask);
+                            continue;
+                        }
+                    } else {
+                        scheduledHelper.onCompleted(queueTask);
+                    }
+                }
+
+                // 响应关闭
+                if (isShutdown()) {
+                    return;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void cleanMailbox() {
+            final long startTimeMillis = System.currentTimeMillis();
+
+            // 处理延迟任务
+            tickTime = System.nanoTime();
+            processScheduledQueue(tickTime, true);
+            scheduledTaskQueue.clearIgnoringIndexes();
+
+            // 严格弹出 -- 关闭前压入的消息可能被尚未完成链接的生产者阻隔
+            long taskCount = 0;
+            long discardCount = 0;
+            Object message;
+            while ((message = mailbox.strictPoll()) != null) {
+                taskCount++;
+                if (isShutdown()) { // 如果已进入shutdown阶段，则直接丢弃任务
+                    discardCount++;
+                    continue;
+                }
+                long curSequence = ++sequence;
+                try {
+                    if (message instanceof Runnable runnable) {
+                        runnable.run();
+                    } else {
+                        agent.onEvent(curSequence, (T) message);
+                    }
+                } catch (Throwable t) {
+                    logCause(t);
+                }
+            }
+            if (taskCount > 0) {
+                logger.info("cleanMailbox success! taskCount = {}, discardCount {}, cost timeMillis = {}",
+                        taskCount, discardCount, (System.currentTimeMillis() - startTimeMillis));
+            }
+        }
+    }
+
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            STATE = l.findVarHandle(VirtualEventLoop.class, "state", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+
+        // Reduce the risk of rare disastrous classloading in first call to
+        // LockSupport.park: https://bugs.openjdk.java.net/browse/JDK-8074773
+        Class<?> ensureLoaded = LockSupport.class;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程EventLoop组。
+ * <p>
+ * 1. 固定数量的共享EventLoop服务于{@link #select()}，以轮询的方式分配任务。
+ * 2. {@link #select(int)}为每一个key创建独立的EventLoop -- 通常一个Actor或会话对应一个key，
+ * 由于{@link VirtualEventLoop}空闲时只占用少量内存，因此可以同时存在百万级的EventLoop。
+ * 3. 不再使用的key应当调用{@link #release(int)}释放，EventLoop终止后自动从组中移除。
+ * <p>
+ * 与{@link FixedEventLoopGroup}不同，该组的子节点数量是动态的，因此{@link #childCount()}和{@link #iterator()}只反映调用时的快照。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class VirtualEventLoopGroup extends AbstractEventLoopGroup {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualEventLoopGroup.class);
+    private final IPromise<Void> terminationFuture = new Promise<>();
+
+    private final EventLoop[] sharedChildren;
+    private final AtomicInteger sharedIndex = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, EventLoop> keyedChildren = new ConcurrentHashMap<>();
+    /** 所有未终止的子节点 */
+    private final Set<EventLoop> liveChildren = ConcurrentHashMap.newKeySet();
+
+    private final EventLoopFactory eventLoopFactory;
+    private final Runnable terminationHook;
+    private volatile boolean shuttingDown;
+
+    public VirtualEventLoopGroup(EventLoopGroupBuilder builder) {
+        int numChildren = builder.getNumChildren();
+        if (numChildren < 1) {
+            throw new IllegalArgumentException("childCount must greater than 0");
+        }
+        EventLoopFactory eventLoopFactory = builder.getEventLoopFactory();
+        if (eventLoopFactory == null) {
+            eventLoopFactory = (parent, index, extraInfo) -> EventLoopBuilder.newVirtualBuilder()
+                    .setParent(parent)
+                    .setIndex(index)
+                    .build();
+        }
+        this.eventLoopFactory = eventLoopFactory;
+        this.terminationHook = builder.getTerminationHook();
+
+        sharedChildren = new EventLoop[numChildren];
+        for (int i = 0; i < numChildren; i++) {
+            sharedChildren[i] = newChild(i, null);
+        }
+    }
+
+    private EventLoop newChild(int index, Object extraInfo) {
+        EventLoop eventLoop = Objects.requireNonNull(eventLoopFactory.newChild(this, index, extraInfo));
+        if (eventLoop.parent() != this) throw new IllegalStateException("the parent of child is illegal");
+        liveChildren.add(eventLoop);
+        eventLoop.terminationFuture().whenComplete((ctx, o, throwable) -> onChildTerminated(eventLoop, extraInfo));
+        return eventLoop;
+    }
+
+    // ------------------------------------- 选择 ----------------------------
+
+    @Nonnull
+    @Override
+    public EventLoop select() {
+        final EventLoop[] sharedChildren = this.sharedChildren;
+        return sharedChildren[(sharedIndex.getAndIncrement() & Integer.MAX_VALUE) % sharedChildren.length];
+    }
+
+    /**
+     * 获取key绑定的EventLoop，如果不存在则创建
+     * 1. 同一个key在{@link #release(int)}之前总是返回同一个EventLoop。
+     * 2. 如果组已开始关闭，则不再创建新的EventLoop，而是返回共享的EventLoop(将拒绝任务)。
+     *
+     * @param key 通常是Actor或会话的id
+     */
+    @Nonnull
+    public EventLoop select(int key) {
+        EventLoop eventLoop = keyedChildren.get(key);
+        if (eventLoop != null) {
+            return eventLoop;
+        }
+        if (shuttingDown) {
+            return sharedChildren[0];
+        }
+        // 在Map外创建，避免在计算期间持有桶锁
+        EventLoop newChild = newChild(-1, key);
+        eventLoop = keyedChildren.putIfAbsent(key, newChild);
+        if (eventLoop != null) {
+            newChild.shutdown();
+            return eventLoop;
+        }
+        if (shuttingDown) { // 与shutdown竞争
+            newChild.shutdown();
+        }
+        return newChild;
+    }
+
+    /**
+     * 释放key绑定的EventLoop -- EventLoop将关闭，已提交的任务仍会执行
+     *
+     * @return 如果key绑定了EventLoop则返回true
+     */
+    public boolean release(int key) {
+        EventLoop eventLoop = keyedChildren.remove(key);
+        if (eventLoop == null) {
+            return false;
+        }
+        eventLoop.shutdown();
+        return true;
+    }
+
+    /** 当前未终止的子节点数量(包括共享的子节点) */
+    public int childCount() {
+        return liveChildren.size();
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<EventLoop> iterator() {
+        return Collections.unmodifiableCollection(liveChildren).iterator();
+    }
+
+    // -------------------------------------  子类生命周期管理 --------------------------------
+
+    @Override
+    public IFuture<?> terminationFuture() {
+        return terminationFuture.asReadonly();
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shuttingDown && liveChildren.stream().allMatch(EventLoop::isShutdown);
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminationFuture.isDone();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        return terminationFuture().await(timeout, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        shuttingDown = true;
+        liveChildren.forEach(EventLoop::shutdown);
+        tryTerminate();
+    }
+
+    @Nonnull
+    @Override
+    public List<Runnable> shutdownNow() {
+        shuttingDown = true;
+        List<Runnable> tasks = new ArrayList<>();
+        for (EventLoop eventLoop : liveChildren) {
+            tasks.addAll(eventLoop.shutdownNow());
+        }
+        tryTerminate();
+        return tasks;
+    }
+
+    /** @param key 子节点绑定的key，共享的子节点为null */
+    private void onChildTerminated(EventLoop child, Object key) {
+        liveChildren.remove(child);
+        if (key != null) {
+            keyedChildren.remove(key, child);
+        }
+        tryTerminate();
+    }
+
+    private void tryTerminate() {
+        if (!shuttingDown || !liveChildren.isEmpty()) {
+            return;
+        }
+        if (!terminationFuture.trySetComputing()) {
+            return;
+        }
+        try {
+            invokeTerminationHook();
+        } catch (Throwable e) {
+            logger.error("terminateHook caught exception!", e);
+        } finally {
+            terminationFuture.trySetResult(null);
+        }
+    }
+
+    /**
+     * 当所有的子节点都进入终结状态时，该方法将被调用
+     * 通常用于执行一些清理工作
+     */
+    protected void invokeTerminationHook() {
+        if (terminationHook != null) {
+            terminationHook.run();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 工作窃取模式下，{@link DefaultFixedEventLoopGroup}各个子节点的溢出队列。
+ * <p>
+ * 1. 只有提交给线程组的、不需要线程亲和性的任务才会进入溢出队列；{@code select(key)}绑定的任务和定时任务仍然在子节点的RingBuffer中。
+ * 2. 溢出队列由空变为非空时，会向所属的EventLoop发布一个唤醒事件，以保证阻塞的EventLoop能醒来执行任务；
+ * 同时唤醒一个正在等待事件的兄弟节点 -- 等待策略可能没有超时，空闲的兄弟节点不会主动醒来窃取。
+ * 兄弟节点只在每轮循环开始时窃取，因此该唤醒是尽力而为的：兄弟节点即将阻塞时可能错过唤醒，但任务总会由所属的EventLoop执行。
+ * 3. EventLoop在事件队列为空时执行自己的溢出队列，自己的溢出队列也为空时，从积压最多的兄弟节点的队列尾部窃取一批任务。
+ * 4. 溢出队列中的任务之间没有时序保证。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+@ThreadSafe
+final class WorkStealingQueues {
+
+    /** 单次最多窃取的任务数 */
+    private static final int MAX_STEAL_COUNT = 64;
+
+    private final DisruptorEventLoop<?>[] owners;
+    private final Slot[] slots;
+    private final Map<EventLoop, Integer> indexMap;
+
+    WorkStealingQueues(DisruptorEventLoop<?>[] owners) {
+        this.owners = owners;
+        this.slots = new Slot[owners.length];
+        this.indexMap = new IdentityHashMap<>(owners.length);
+        for (int i = 0; i < owners.length; i++) {
+            slots[i] = new Slot();
+            indexMap.put(owners[i], i);
+        }
+    }
+
+    /**
+     * 将任务压入给定EventLoop的溢出队列
+     *
+     * @param eventLoop 选择器选中的EventLoop
+     */
+    void offer(EventLoop eventLoop, Runnable task, int options) {
+        Integer index = indexMap.get(eventLoop);
+        if (index == null) { // 不是当前线程组的子节点
+            eventLoop.execute(task, options);
+            return;
+        }
+        DisruptorEventLoop<?> owner = owners[index];
+        if (owner.isShuttingDown()) {
+            owner.execute(task, options); // 走拒绝策略
+            return;
+        }
+        Slot slot = slots[index];
+        slot.deque.offerLast(task);
+        int pending = slot.pending.getAndIncrement();
+        // 压入任务期间EventLoop可能已开始关闭，重新检查，避免任务丢失
+        if (owner.isShuttingDown()) {
+            if (slot.deque.removeLastOccurrence(task)) {
+                slot.pending.decrementAndGet();
+                owner.execute(task, options);
+            }
+            return;
+        }
+        if (pending == 0) {
+            owner.signalStealableTask();
+            signalIdleSibling(index);
+        }
+    }
+
+    /** 唤醒一个正在等待事件的兄弟节点，使其醒来后窃取任务 */
+    private void signalIdleSibling(int index) {
+        final DisruptorEventLoop<?>[] owners = this.owners;
+        for (int i = 1; i < owners.length; i++) {
+            DisruptorEventLoop<?> sibling = owners[(index + i) % owners.length];
+            if (sibling.busySince() == 0 && sibling.isRunning()) {
+                sibling.signalStealableTask();
+                return;
+            }
+        }
+    }
+
+    /** 弹出给定EventLoop的溢出队列的首个任务 */
+    Runnable poll(int index) {
+        Slot slot = slots[index];
+        Runnable task = slot.deque.pollFirst();
+        if (task != null) {
+            slot.pending.decrementAndGet();
+        }
+        return task;
+    }
+
+    /** 给定EventLoop的溢出队列中的任务数（估算值） */
+    int pendingCount(int index) {
+        return Math.max(0, slots[index].pending.get());
+    }
+
+    /**
+     * 从积压最多的兄弟节点窃取一批任务到给定EventLoop的溢出队列
+     *
+     * @param thief 窃取者的索引
+     * @return 窃取到的任务数
+     */
+    int steal(int thief) {
+        int victim = -1;
+        int maxPending = 0;
+        for (int i = 0; i < slots.length; i++) {
+            int pending = slots[i].pending.get();
+            if (i != thief && pending > maxPending) {
+                victim = i;
+                maxPending = pending;
+            }
+        }
+        if (victim < 0) {
+            return 0;
+        }
+        // 窃取一半，从队列尾部窃取，以减少和所有者的竞争
+        Slot victimSlot = slots[victim];
+        Slot thiefSlot = slots[thief];
+        int stealCount = Math.min(MAX_STEAL_COUNT, (maxPending + 1) >>> 1);
+        int count = 0;
+        Runnable task;
+        while (count < stealCount && (task = victimSlot.deque.pollLast()) != null) {
+            victimSlot.pending.decrementAndGet();
+            thiefSlot.deque.offerFirst(task);
+            thiefSlot.pending.incrementAndGet();
+            count++;
+        }
+        return count;
+    }
+
+    /** 删除所有溢出队列中的任务 */
+    List<Runnable> drainAll() {
+        List<Runnable> result = new ArrayList<>();
+        for (int i = 0; i < slots.length; i++) {
+            Runnable task;
+            while ((task = poll(i)) != null) {
+                result.add(task);
+            }
+        }
+        return result;
+    }
+
+    private static class Slot {
+
+        final ConcurrentLinkedDeque<Runnable> deque = new ConcurrentLinkedDeque<>();
+        /** 队列中的任务数 -- {@link ConcurrentLinkedDeque#size()}的开销较大 */
+        final AtomicInteger pending = new AtomicInteger();
+    }
+}
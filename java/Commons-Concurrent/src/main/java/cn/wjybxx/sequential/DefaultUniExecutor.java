@@ -41,6 +41,8 @@ public class DefaultUniExecutor extends AbstractUniExecutor {
 
     private final int countLimit;
     private final long nanoTimeLimit;
+    /** 上一帧结束时延迟的任务数 */
+    private int deferredCount;
 
     public DefaultUniExecutor() {
         this(-1, -1, TimeUnit.NANOSECONDS);
@@ -61,7 +63,7 @@ public class DefaultUniExecutor extends AbstractUniExecutor {
         this.nanoTimeLimit = timeLimit > 0 ? timeUnit.toNanos(timeLimit) : -1;
     }
 
-    private static void ensureNegativeOneOrPositive(long val, String name) {
+    static void ensureNegativeOneOrPositive(long val, String name) {
         if (!(val == -1 || val > 0)) {
             throw new IllegalArgumentException(name + " must be -1 or positive");
         }
@@ -101,12 +103,21 @@ public class DefaultUniExecutor extends AbstractUniExecutor {
                 }
             }
         }
+        deferredCount = taskQueue.size();
         if (isShuttingDown() && taskQueue.isEmpty()) {
             state = EventLoopState.ST_TERMINATED;
             terminationPromise.trySetResult(null);
         }
     }
 
+    /**
+     * 上一帧因超出预算而延迟到下一帧的任务数
+     * 注意：包含在执行期间新提交的任务。
+     */
+    public int deferredCount() {
+        return deferredCount;
+    }
+
     @Override
     public boolean needMoreUpdate() {
         return !taskQueue.isEmpty();
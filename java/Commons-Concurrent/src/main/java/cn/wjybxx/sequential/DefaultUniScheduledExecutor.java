@@ -17,8 +17,6 @@
 package cn.wjybxx.sequential;
 
 import cn.wjybxx.base.annotation.VisibleForTesting;
-import cn.wjybxx.base.collection.DefaultIndexedPriorityQueue;
-import cn.wjybxx.base.collection.IndexedPriorityQueue;
 import cn.wjybxx.base.time.TimeProvider;
 import cn.wjybxx.concurrent.*;
 import cn.wjybxx.disruptor.RingBuffer;
@@ -30,20 +28,40 @@ import java.util.concurrent.TimeUnit;
 /**
  * 时序管理同{@link DisruptorEventLoop}：
  * 我们总是先取得一个时间快照，然后先执行{@link #scheduledTaskQueue}中的任务，再执行{@link RingBuffer}中的任务，因此满足优先级相同时，先提交的任务先执行的约定
+ * <p>
+ * 帧预算：
+ * 1. 可通过构造参数限制每帧执行的任务数和时间，普通任务、定时任务和分时任务共享预算。
+ * 2. 超出预算时，剩余的到期定时任务延迟到下一帧，且下一帧按照优先级({@link TaskOptions#MASK_PRIORITY})优先执行；剩余的普通任务保持原顺序。
+ * 3. 延迟的任务数可通过{@link #deferredCount()}查询。
+ * 4. 关闭期间不受预算限制。
  *
  * @author wjybxx
  * date 2023/4/3
  */
 public class DefaultUniScheduledExecutor extends AbstractUniScheduledExecutor implements UniScheduledExecutor {
 
-    private static final Comparator<ScheduledPromiseTask<?>> queueTaskComparator = ScheduledPromiseTask::compareToExplicitly;
     private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /** 延迟任务的排序：优先级 > 触发时间 > id */
+    private static final Comparator<ScheduledPromiseTask<?>> DEFERRED_COMPARATOR = (a, b) -> {
+        int r = Integer.compare(a.getPriority(), b.getPriority());
+        return r != 0 ? r : a.compareToExplicitly(b);
+    };
 
     private final TimeProvider timeProvider;
     private final ArrayDeque<Runnable> taskQueue;
-    private final IndexedPriorityQueue<ScheduledPromiseTask<?>> scheduledTaskQueue;
+    private final ScheduledTaskQueue scheduledTaskQueue;
     private final ScheduledHelper scheduledHelper = new ScheduledHelper();
     private final UniPromise<Void> terminationPromise = new UniPromise<>(this);
+    /** 因超出帧预算而延迟到下一帧的到期定时任务 */
+    private final PriorityQueue<ScheduledPromiseTask<?>> deferredQueue = new PriorityQueue<>(DEFERRED_COMPARATOR);
+
+    private final int countLimit;
+    private final long nanoTimeLimit;
+    /** 当前帧的开始时间和已执行的任务数 */
+    private long frameStartNanos;
+    private int frameTaskCount;
+    /** 上一帧结束时延迟的任务数 */
+    private int deferredCount;
 
     private int state = EventLoopState.ST_UNSTARTED;
     /** 为任务分配唯一id，确保先入先出 */
@@ -56,10 +74,31 @@ public class DefaultUniScheduledExecutor extends AbstractUniScheduledExecutor im
     }
 
     public DefaultUniScheduledExecutor(TimeProvider timeProvider, int initCapacity) {
+        this(timeProvider, initCapacity, ScheduledTaskQueues.binaryHeap());
+    }
+
+    /**
+     * @param scheduledTaskQueueFactory 定时任务队列工厂，时间单位为毫秒
+     */
+    public DefaultUniScheduledExecutor(TimeProvider timeProvider, int initCapacity, ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        this(timeProvider, initCapacity, scheduledTaskQueueFactory, -1, -1, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param scheduledTaskQueueFactory 定时任务队列工厂，时间单位为毫秒
+     * @param countLimit                每帧允许运行的最大任务数，-1表示不限制；不可以为0
+     * @param timeLimit                 每帧允许的最大时间，-1表示不限制；不可以为0
+     */
+    public DefaultUniScheduledExecutor(TimeProvider timeProvider, int initCapacity, ScheduledTaskQueueFactory scheduledTaskQueueFactory,
+                                       int countLimit, long timeLimit, TimeUnit timeUnit) {
+        DefaultUniExecutor.ensureNegativeOneOrPositive(countLimit, "countLimit");
+        DefaultUniExecutor.ensureNegativeOneOrPositive(timeLimit, "timeLimit");
+        this.countLimit = countLimit;
+        this.nanoTimeLimit = timeLimit > 0 ? timeUnit.toNanos(timeLimit) : -1;
         this.timeProvider = Objects.requireNonNull(timeProvider, "timeProvider");
         this.taskQueue = new ArrayDeque<>(initCapacity);
-        this.scheduledTaskQueue = new DefaultIndexedPriorityQueue<>(queueTaskComparator, 16);
         this.tickTime = timeProvider.getTime();
+        this.scheduledTaskQueue = scheduledTaskQueueFactory.newQueue(TimeUnit.MILLISECONDS, tickTime);
     }
 
     public TimeProvider getTimeProvider() {
@@ -69,63 +108,110 @@ public class DefaultUniScheduledExecutor extends AbstractUniScheduledExecutor im
     @Override
     public void update() {
         tickTime = timeProvider.getTime();
+        frameStartNanos = nanoTimeLimit > 0 ? System.nanoTime() : 0;
+        frameTaskCount = 0;
+        // 先执行上一帧延迟的任务
+        if (!deferredQueue.isEmpty()) {
+            processDeferredQueue(tickTime, isShuttingDown());
+        }
         processScheduledQueue(tickTime, isShuttingDown());
 
         ArrayDeque<Runnable> taskQueue = this.taskQueue;
-        if (taskQueue.isEmpty()) {
-            return;
+        if (!taskQueue.isEmpty()) {
+            Runnable task;
+            while (!isBudgetExhausted() && (task = taskQueue.poll()) != null) {
+                frameTaskCount++;
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    logCause(ex);
+                }
+            }
+
+            // 为何要再执行一次？任务队列中可能包含定时任务，我们需要进行补帧
+            processScheduledQueue(tickTime, isShuttingDown());
         }
+        deferredCount = deferredQueue.size() + taskQueue.size();
+    }
 
-        Runnable task;
-        while ((task = taskQueue.poll()) != null) {
-            try {
-                task.run();
-            } catch (Throwable ex) {
-                logCause(ex);
-            }
+    /**
+     * 上一帧因超出预算而延迟到下一帧的任务数
+     * 包括到期的定时任务和普通任务，未设置预算时总是为0。
+     */
+    public int deferredCount() {
+        return deferredCount;
+    }
+
+    /** 是否超出当前帧的预算 -- 关闭期间不限制 */
+    private boolean isBudgetExhausted() {
+        if (countLimit > 0 && frameTaskCount >= countLimit) {
+            return !isShuttingDown();
+        }
+        if (nanoTimeLimit > 0 && System.nanoTime() - frameStartNanos >= nanoTimeLimit) {
+            return !isShuttingDown();
         }
+        return false;
+    }
 
-        // 为何要再执行一次？任务队列中可能包含定时任务，我们需要进行补帧
-        processScheduledQueue(tickTime, isShuttingDown());
+    private void processDeferredQueue(long tickTime, boolean shuttingDownMode) {
+        final PriorityQueue<ScheduledPromiseTask<?>> deferredQueue = this.deferredQueue;
+        while (!deferredQueue.isEmpty()) {
+            if (!shuttingDownMode && isBudgetExhausted()) {
+                return;
+            }
+            runScheduledTask(deferredQueue.poll(), tickTime, shuttingDownMode);
+        }
     }
 
     private void processScheduledQueue(long tickTime, boolean shuttingDownMode) {
-        final IndexedPriorityQueue<ScheduledPromiseTask<?>> taskQueue = scheduledTaskQueue;
+        final ScheduledTaskQueue taskQueue = scheduledTaskQueue;
         ScheduledPromiseTask<?> queueTask;
-        while ((queueTask = taskQueue.peek()) != null) {
-            // 优先级最高的任务不需要执行，那么后面的也不需要执行
-            if (tickTime < queueTask.getNextTriggerTime()) {
+        // 优先级最高的任务不需要执行，那么后面的也不需要执行
+        while ((queueTask = taskQueue.pollDue(tickTime)) != null) {
+            if (!shuttingDownMode && isBudgetExhausted()) {
+                // 超出预算，剩余的到期任务延迟到下一帧
+                do {
+                    deferredQueue.offer(queueTask);
+                } while ((queueTask = taskQueue.pollDue(tickTime)) != null);
                 return;
             }
+            runScheduledTask(queueTask, tickTime, shuttingDownMode);
+        }
+    }
 
-            taskQueue.poll();
-            if (shuttingDownMode) {
-                // 关闭模式下，不再重复执行任务
-                if (queueTask.isTriggered() || queueTask.trigger(tickTime)) {
-                    queueTask.trySetCancelled();
-                    scheduledHelper.onCompleted(queueTask);
-                }
+    private void runScheduledTask(ScheduledPromiseTask<?> queueTask, long tickTime, boolean shuttingDownMode) {
+        if (shuttingDownMode) {
+            // 关闭模式下，不再重复执行任务
+            if (queueTask.isTriggered() || queueTask.trigger(tickTime)) {
+                queueTask.trySetCancelled();
+                scheduledHelper.onCompleted(queueTask);
+            }
+            return;
+        }
+        frameTaskCount++;
+        // 非关闭模式下，如果检测到开始关闭，也不再重复执行任务 -- 需等同Reschedule
+        if (queueTask.trigger(tickTime)) {
+            if (isShuttingDown()) {
+                queueTask.trySetCancelled();
+                scheduledHelper.onCompleted(queueTask);
             } else {
-                // 非关闭模式下，如果检测到开始关闭，也不再重复执行任务 -- 需等同Reschedule
-                if (queueTask.trigger(tickTime)) {
-                    if (isShuttingDown()) {
-                        queueTask.trySetCancelled();
-                        scheduledHelper.onCompleted(queueTask);
-                    } else {
-                        taskQueue.offer(queueTask);
-                        continue;
-                    }
-                } else {
-                    scheduledHelper.onCompleted(queueTask);
-                }
+                scheduledTaskQueue.add(queueTask);
             }
+        } else {
+            scheduledHelper.onCompleted(queueTask);
         }
     }
 
+    /**
+     * 是否需要更多的更新
+     * 除了到期的定时任务，延迟到下一帧的定时任务和普通任务也需要更新 --
+     * 启用帧预算后，普通任务可能在帧结束时仍未执行，因此普通任务队列不为空时也返回true。
+     */
     @Override
     public boolean needMoreUpdate() {
-        ScheduledPromiseTask<?> queueTask = scheduledTaskQueue.peek();
-        return queueTask != null && queueTask.getNextTriggerTime() <= tickTime;
+        return !deferredQueue.isEmpty()
+                || !taskQueue.isEmpty()
+                || scheduledTaskQueue.peekDue(tickTime) != null;
     }
 
     @Override
@@ -154,12 +240,19 @@ public class DefaultUniScheduledExecutor extends AbstractUniScheduledExecutor im
         }
     }
 
+    /**
+     * 立即关闭，返回所有未执行的任务
+     * 包括普通任务、定时任务和延迟到下一帧的任务；返回的任务都已从队列中删除，之后的{@link #update()}不会再执行它们。
+     */
     @Nonnull
     @Override
     public List<Runnable> shutdownNow() {
         ArrayList<Runnable> result = new ArrayList<>(taskQueue);
-        result.addAll(scheduledTaskQueue);
+        scheduledTaskQueue.forEach(result::add);
         scheduledTaskQueue.clearIgnoringIndexes();
+        result.addAll(deferredQueue);
+        deferredQueue.clear();
+        taskQueue.clear();
 
         state = EventLoopState.ST_TERMINATED;
         terminationPromise.trySetResult(null);
@@ -228,7 +321,9 @@ public class DefaultUniScheduledExecutor extends AbstractUniScheduledExecutor im
 
         @Override
         public void onCancelRequested(ScheduledPromiseTask<?> futureTask, int cancelCode) {
-            scheduledTaskQueue.removeTyped(futureTask);
+            if (!scheduledTaskQueue.remove(futureTask) && !deferredQueue.isEmpty()) {
+                deferredQueue.remove(futureTask);
+            }
         }
     }
 
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.ThreadUtils;
+import cn.wjybxx.disruptor.MpUnboundedEventSequencer;
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试批量提交的时序和按key分区
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class BatchExecuteTest {
+
+    private static final int PRODUCER_COUNT = 4;
+    private static final int BATCH_COUNT = 200;
+    /** 大于RingBuffer的容量，以测试分批 */
+    private static final int BATCH_SIZE = 300;
+
+    @Test
+    void testRingBuffer() {
+        testOrder(EventLoopBuilder.newDisruptBuilder()
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setEventSequencer(RingBufferEventSequencer
+                        .newMultiProducer(RingBufferEvent::new)
+                        .setBufferSize(256)
+                        .build())
+                .build());
+    }
+
+    @Test
+    void testUnboundedBuffer() {
+        testOrder(EventLoopBuilder.newDisruptBuilder()
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setEventSequencer(MpUnboundedEventSequencer.newBuilder(RingBufferEvent::new)
+                        .setChunkSize(128)
+                        .build())
+                .build());
+    }
+
+    @Test
+    void testVirtual() {
+        testOrder(EventLoopBuilder.newVirtualBuilder().build());
+    }
+
+    private static void testOrder(EventLoop consumer) {
+        Counter counter = new Counter();
+        List<Thread> producerList = new ArrayList<>(PRODUCER_COUNT);
+        for (int i = 1; i <= PRODUCER_COUNT; i++) {
+            final int type = i;
+            producerList.add(new Thread(() -> {
+                long localSequence = 0;
+                for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                    List<Runnable> tasks = new ArrayList<>(BATCH_SIZE);
+                    for (int j = 0; j < BATCH_SIZE; j++) {
+                        tasks.add(counter.newTask(type, localSequence++));
+                    }
+                    consumer.executeBatch(tasks);
+                }
+            }, "Producer-" + type));
+        }
+        producerList.forEach(Thread::start);
+        producerList.forEach(ThreadUtils::joinUninterruptedly);
+
+        consumer.shutdown();
+        consumer.terminationFuture().join();
+
+        Assertions.assertTrue(counter.getErrorMsgList().isEmpty(), counter.getErrorMsgList()::toString);
+        for (int i = 1; i <= PRODUCER_COUNT; i++) {
+            Assertions.assertEquals((long) BATCH_COUNT * BATCH_SIZE, counter.getSequenceMap().get(i));
+        }
+    }
+
+    @Test
+    void testNullElement() {
+        testNullElement(EventLoopBuilder.newDisruptBuilder()
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setEventSequencer(RingBufferEventSequencer
+                        .newMultiProducer(RingBufferEvent::new)
+                        .setBufferSize(256)
+                        .build())
+                .build());
+        testNullElement(EventLoopBuilder.newVirtualBuilder().build());
+    }
+
+    /** 包含null的批次整体被拒绝，且不影响后续任务 */
+    private static void testNullElement(EventLoop consumer) {
+        try {
+            consumer.execute(() -> {}); // 启动线程，以测试sequence不为0的批次
+            AtomicInteger counter = new AtomicInteger();
+            List<Runnable> tasks = new ArrayList<>();
+            tasks.add(counter::incrementAndGet);
+            tasks.add(null);
+            tasks.add(counter::incrementAndGet);
+            Assertions.assertThrows(NullPointerException.class, () -> consumer.executeBatch(tasks));
+
+            tasks.set(1, counter::incrementAndGet);
+            consumer.executeBatch(tasks);
+            consumer.submitAction(() -> {}).join();
+            Assertions.assertEquals(3, counter.get());
+        } finally {
+            consumer.shutdown();
+            consumer.terminationFuture().join();
+        }
+    }
+
+    @Test
+    void testSubmitAllByKey() {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("consumer");
+        FixedEventLoopGroup group = (FixedEventLoopGroup) EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(4)
+                .setEventLoopFactory((parent, index, extra) -> EventLoopBuilder.newDisruptBuilder()
+                        .setParent(parent)
+                        .setThreadFactory(threadFactory)
+                        .setEventSequencer(RingBufferEventSequencer
+                                .newMultiProducer(RingBufferEvent::new)
+                                .build())
+                        .build())
+                .build();
+        try {
+            int count = 1000;
+            int[] keys = new int[count];
+            List<Callable<EventLoop>> tasks = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                keys[i] = i % 7;
+                tasks.add(() -> findCurrentLoop(group));
+            }
+            List<IFuture<EventLoop>> futures = group.submitAll(keys, tasks);
+            Assertions.assertEquals(count, futures.size());
+            for (int i = 0; i < count; i++) {
+                Assertions.assertSame(group.select(keys[i]), futures.get(i).join());
+            }
+        } finally {
+            group.shutdown();
+            group.terminationFuture().join();
+        }
+    }
+
+    private static EventLoop findCurrentLoop(FixedEventLoopGroup group) {
+        for (EventLoop eventLoop : group) {
+            if (eventLoop.inEventLoop()) {
+                return eventLoop;
+            }
+        }
+        return null;
+    }
+}
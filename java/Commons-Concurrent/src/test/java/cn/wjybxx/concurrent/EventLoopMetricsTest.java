@@ -0,0 +1,155 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class EventLoopMetricsTest {
+
+    @Test
+    void testHistogram() {
+        FixedBucketHistogram histogram = new FixedBucketHistogram();
+        Assertions.assertEquals(0, histogram.valueAtPercentile(50));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        Assertions.assertEquals(1000, histogram.totalCount());
+        Assertions.assertEquals(1000, histogram.maxValue());
+        Assertions.assertEquals(500.5, histogram.mean(), 0.0001);
+        // 对数-线性分桶的相对误差不超过12.5%，且结果不小于真实值
+        assertNear(500, histogram.valueAtPercentile(50));
+        assertNear(990, histogram.valueAtPercentile(99));
+        Assertions.assertEquals(1000, histogram.valueAtPercentile(100));
+
+        FixedBucketHistogram merged = new FixedBucketHistogram();
+        merged.add(histogram);
+        merged.add(histogram);
+        Assertions.assertEquals(2000, merged.totalCount());
+        Assertions.assertEquals(histogram.valueAtPercentile(50), merged.valueAtPercentile(50));
+    }
+
+    @Test
+    void testBucketBounds() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = FixedBucketHistogram.bucketIndex(value);
+            Assertions.assertTrue(value <= FixedBucketHistogram.bucketUpperBound(index), () -> "value: " + value);
+            if (index > 0) {
+                Assertions.assertTrue(value > FixedBucketHistogram.bucketUpperBound(index - 1), () -> "value: " + value);
+            }
+        }
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assertions.assertTrue(actual >= expected && actual <= expected * 1.125,
+                () -> "expected: " + expected + ", actual: " + actual);
+    }
+
+    @Test
+    void testEventLoopMetrics() throws Exception {
+        DisruptorEventLoop<RingBufferEvent> eventLoop = newEventLoop(null, true);
+        try {
+            int taskCount = 10_000;
+            for (int i = 0; i < taskCount - 1; i++) {
+                eventLoop.execute(() -> {});
+            }
+            eventLoop.schedule(() -> {}, 1, TimeUnit.MILLISECONDS);
+            eventLoop.submit(() -> {}).get(5, TimeUnit.SECONDS);
+
+            EventLoopMetrics metrics = eventLoop.metrics();
+            Assertions.assertNotNull(metrics);
+            // 批次的统计在批次执行完成后更新
+            awaitTaskCount(metrics, taskCount);
+            Assertions.assertTrue(metrics.batchCount() > 0);
+            Assertions.assertTrue(metrics.scheduledCount() > 0);
+            Assertions.assertTrue(metrics.agentUpdateCount() > 0);
+            Assertions.assertTrue(metrics.batchSizeHistogram().totalCount() > 0);
+            Assertions.assertTrue(metrics.queueDelayHistogram().totalCount() >= taskCount);
+        } finally {
+            eventLoop.shutdown();
+            eventLoop.terminationFuture().join();
+        }
+    }
+
+    @Test
+    void testMetricsDisabled() {
+        DisruptorEventLoop<RingBufferEvent> eventLoop = newEventLoop(null, false);
+        try {
+            Assertions.assertNull(eventLoop.metrics());
+        } finally {
+            eventLoop.shutdown();
+            eventLoop.terminationFuture().join();
+        }
+    }
+
+    @Test
+    void testAggregate() throws Exception {
+        FixedEventLoopGroup group = (FixedEventLoopGroup) EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(4)
+                .setEventLoopFactory((parent, index, extra) -> newEventLoop(parent, true))
+                .build();
+        try {
+            int taskCount = 1000;
+            List<IFuture<?>> futures = new ArrayList<>(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                futures.add(group.select(i).submit(() -> {}));
+            }
+            for (IFuture<?> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            for (EventLoop eventLoop : group) {
+                awaitTaskCount(((DisruptorEventLoop<?>) eventLoop).metrics(), taskCount / 4);
+            }
+            EventLoopMetrics aggregated = EventLoopMetrics.aggregate(group);
+            Assertions.assertTrue(aggregated.taskCount() >= taskCount);
+            Assertions.assertTrue(aggregated.batchSizeHistogram().totalCount() > 0);
+            Assertions.assertTrue(aggregated.queueDelayHistogram().totalCount() >= taskCount);
+        } finally {
+            group.shutdown();
+            group.terminationFuture().join();
+        }
+    }
+
+    private static void awaitTaskCount(EventLoopMetrics metrics, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (metrics.taskCount() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertTrue(metrics.taskCount() >= expected, metrics::toString);
+    }
+
+    private static DisruptorEventLoop<RingBufferEvent> newEventLoop(EventLoopGroup parent, boolean metricsEnabled) {
+        return EventLoopBuilder.<RingBufferEvent>newDisruptBuilder()
+                .setParent(parent)
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setEventSequencer(RingBufferEventSequencer
+                        .newMultiProducer(RingBufferEvent::new)
+                        .build())
+                .setMetricsEnabled(metricsEnabled)
+                .build();
+    }
+}
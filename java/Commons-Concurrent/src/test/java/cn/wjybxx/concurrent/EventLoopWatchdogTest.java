@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.ThreadUtils;
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class EventLoopWatchdogTest {
+
+    @Test
+    void testSlowTaskAndStall() throws Exception {
+        testSlowTask(false);
+    }
+
+    @Test
+    void testTaskSampling() throws Exception {
+        testSlowTask(true);
+    }
+
+    private static void testSlowTask(boolean taskSampling) throws Exception {
+        RecordListener listener = new RecordListener();
+        EventLoopWatchdog watchdog = newWatchdog(listener, taskSampling);
+        DisruptorEventLoop<RingBufferEvent> eventLoop = newEventLoop();
+        try {
+            watchdog.register(eventLoop);
+            eventLoop.submit(EventLoopWatchdogTest::slowTask).get(5, TimeUnit.SECONDS);
+
+            Assertions.assertEquals(1, listener.slowTasks.size());
+            Assertions.assertTrue(listener.slowTasks.get(0).contains("slowTask"), listener.slowTasks::toString);
+            Assertions.assertEquals(1, listener.stalls.size());
+        } finally {
+            watchdog.close();
+            eventLoop.shutdown();
+            eventLoop.terminationFuture().join();
+        }
+    }
+
+    @Test
+    void testIdle() {
+        RecordListener listener = new RecordListener();
+        EventLoopWatchdog watchdog = newWatchdog(listener, false);
+        DisruptorEventLoop<RingBufferEvent> eventLoop = newEventLoop();
+        try {
+            watchdog.register(eventLoop);
+            eventLoop.execute(() -> {});
+            ThreadUtils.sleepQuietly(300);
+            Assertions.assertTrue(listener.slowTasks.isEmpty(), listener.slowTasks::toString);
+            Assertions.assertTrue(listener.stalls.isEmpty(), listener.stalls::toString);
+        } finally {
+            watchdog.close();
+            eventLoop.shutdown();
+            eventLoop.terminationFuture().join();
+        }
+    }
+
+    private static void slowTask() {
+        ThreadUtils.sleepQuietly(400);
+    }
+
+    private static EventLoopWatchdog newWatchdog(RecordListener listener, boolean taskSampling) {
+        return EventLoopWatchdog.newBuilder()
+                .setTaskBudget(50, TimeUnit.MILLISECONDS)
+                .setStallThreshold(200, TimeUnit.MILLISECONDS)
+                .setCheckInterval(5, TimeUnit.MILLISECONDS)
+                .setTaskSampling(taskSampling)
+                .setListener(listener)
+                .build();
+    }
+
+    private static DisruptorEventLoop<RingBufferEvent> newEventLoop() {
+        return EventLoopBuilder.<RingBufferEvent>newDisruptBuilder()
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setEventSequencer(RingBufferEventSequencer
+                        .newMultiProducer(RingBufferEvent::new)
+                        .build())
+                .build();
+    }
+
+    private static class RecordListener implements EventLoopWatchdog.Listener {
+
+        final List<String> slowTasks = new CopyOnWriteArrayList<>();
+        final List<String> stalls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onSlowTask(DisruptorEventLoop<?> eventLoop, long elapsedNanos, StackTraceElement[] stackTrace) {
+            slowTasks.add(Arrays.toString(stackTrace));
+        }
+
+        @Override
+        public void onStall(DisruptorEventLoop<?> eventLoop, long stalledNanos, StackTraceElement[] stackTrace) {
+            stalls.add(Arrays.toString(stackTrace));
+        }
+    }
+}
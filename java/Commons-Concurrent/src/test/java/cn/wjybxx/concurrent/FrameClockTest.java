@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.time.TickingClock;
+import cn.wjybxx.base.time.TimeProvider;
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class FrameClockTest {
+
+    private static DisruptorEventLoop<RingBufferEvent> newEventLoop(TickingClock tickingClock) {
+        return EventLoopBuilder.<RingBufferEvent>newDisruptBuilder()
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setEventSequencer(RingBufferEventSequencer
+                        .newMultiProducer(RingBufferEvent::new)
+                        .build())
+                .setTickingClock(tickingClock)
+                .build();
+    }
+
+    @Test
+    void testFrameTimeStableInTask() {
+        DisruptorEventLoop<RingBufferEvent> eventLoop = newEventLoop(null);
+        try {
+            TimeProvider frameClock = eventLoop.frameClock();
+            long before = System.nanoTime();
+            long[] times = eventLoop.submit(() -> {
+                long first = frameClock.getTime();
+                spin(TimeUnit.MILLISECONDS.toNanos(2));
+                return new long[]{first, frameClock.getTime()};
+            }).join();
+            // 同一批任务内帧时间不变，且已在批次开始时刷新
+            Assertions.assertEquals(times[0], times[1]);
+            Assertions.assertTrue(times[0] >= before);
+        } finally {
+            eventLoop.shutdown();
+            eventLoop.terminationFuture().join();
+        }
+    }
+
+    @Test
+    void testTickingClockSource() {
+        try (TickingClock tickingClock = TickingClock.newClock(100, TimeUnit.MICROSECONDS)) {
+            DisruptorEventLoop<RingBufferEvent> eventLoop = newEventLoop(tickingClock);
+            try {
+                // 延迟是相对于帧时间的，因此触发时的帧时间至少比提交时的帧时间大一个延迟
+                long submitFrameTime = eventLoop.frameClock().getTime();
+                long frameTime = eventLoop.schedule(() -> eventLoop.frameClock().getTime(), 5, TimeUnit.MILLISECONDS).join();
+                Assertions.assertTrue(frameTime - submitFrameTime >= TimeUnit.MILLISECONDS.toNanos(5),
+                        () -> "delta: " + (frameTime - submitFrameTime));
+                // 帧时间来自时钟，不会超前于系统时间
+                Assertions.assertTrue(frameTime <= System.nanoTime());
+                Assertions.assertTrue(frameTime <= tickingClock.nanoTime());
+            } finally {
+                eventLoop.shutdown();
+                eventLoop.terminationFuture().join();
+            }
+        }
+    }
+
+    @Test
+    void testClosedTickingClock() throws Exception {
+        TickingClock tickingClock = TickingClock.newClock(100, TimeUnit.MICROSECONDS);
+        DisruptorEventLoop<RingBufferEvent> eventLoop = newEventLoop(tickingClock);
+        try {
+            eventLoop.start().join();
+            tickingClock.close();
+            // 时钟关闭后帧时间仍然推进，定时任务能够触发
+            long frameTime = eventLoop.schedule(() -> eventLoop.frameClock().getTime(), 5, TimeUnit.MILLISECONDS)
+                    .get(1, TimeUnit.SECONDS);
+            Assertions.assertTrue(frameTime > tickingClock.nanoTime());
+        } finally {
+            eventLoop.shutdown();
+            eventLoop.terminationFuture().join();
+        }
+    }
+
+    private static void spin(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -403,4 +403,64 @@ public class FutureTest {
     }
 
     // endregion
+
+    // region completed
+
+    @Test
+    void testCompletedChain() {
+        // 源头已完成时，下游在注册时立即完成
+        Promise<Integer> promise = Promise.completedPromise(0);
+        for (int i = 0; i < 8; i++) {
+            promise = promise.thenApply((ctx, v) -> v + 1)
+                    .composeApply((ctx, v) -> Promise.completedPromise(v));
+        }
+        Assertions.assertEquals(8, promise.resultNow());
+
+        // 之后添加的监听器仍被通知
+        MutableLong counter = new MutableLong(0);
+        promise.onCompleted(f -> counter.increment());
+        promise.thenRun(ctx -> counter.increment());
+        Assertions.assertEquals(2, counter.longValue());
+
+        // 异常和取消照常传递
+        IFuture<Integer> failed = Promise.completedPromise(0)
+                .<Integer>thenApply((ctx, v) -> {throw new IllegalStateException();})
+                .thenApply((ctx, v) -> v + 1);
+        Assertions.assertInstanceOf(IllegalStateException.class, FutureUtils.unwrapCompletionException(failed.exceptionNow()));
+
+        CancelTokenSource cts = new CancelTokenSource();
+        cts.cancel(1);
+        IFuture<Integer> cancelled = Promise.completedPromise(0)
+                .thenApply((ctx, v) -> v + 1, Context.ofCancelToken(cts), 0);
+        Assertions.assertTrue(cancelled.isCancelled());
+    }
+
+    @Test
+    void testCompletedComposePendingRelay() {
+        // 源头已完成，但compose返回的future尚未完成
+        Promise<String> relay = new Promise<>();
+        IFuture<String> output = Promise.completedPromise("abc")
+                .composeApply((ctx, v) -> relay);
+        Assertions.assertFalse(output.isDone());
+
+        MutableLong counter = new MutableLong(0);
+        output.onCompleted(f -> counter.increment());
+        globalEventLoop.submitAction(() -> relay.trySetResult("cba")).join();
+        Assertions.assertEquals("cba", output.join());
+        Assertions.assertEquals(1, counter.longValue());
+    }
+
+    @Test
+    void testCompletedChainAsync() {
+        // 需要切换线程时仍然提交任务
+        String r = Promise.completedPromise("abc")
+                .thenApplyAsync(globalEventLoop, (context, v) -> {
+                    Assertions.assertTrue(globalEventLoop.inEventLoop());
+                    return StringUtils.reverse(v);
+                })
+                .join();
+        Assertions.assertEquals("cba", r);
+    }
+
+    // endregion
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class LoadAwareChooserTest {
+
+    private FixedEventLoopGroup group;
+
+    @BeforeEach
+    void setUp() {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("chooser");
+        group = (FixedEventLoopGroup) EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(4)
+                .setChooserFactory(new LoadAwareChooserFactory())
+                .setEventLoopFactory((parent, index, extra) -> EventLoopBuilder.newDisruptBuilder()
+                        .setParent(parent)
+                        .setThreadFactory(threadFactory)
+                        .setEventSequencer(RingBufferEventSequencer
+                                .newMultiProducer(RingBufferEvent::new)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        group.shutdown();
+        group.terminationFuture().join();
+    }
+
+    @Test
+    void testAvoidBusyLoop() {
+        DisruptorEventLoop<?> busyLoop = (DisruptorEventLoop<?>) group.iterator().next();
+        CountDownLatch latch = new CountDownLatch(1);
+        busyLoop.execute(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            busyLoop.execute(() -> {});
+        }
+        Assertions.assertTrue(busyLoop.taskCount() > 0);
+
+        try {
+            // 两次采样总是不同的EventLoop，因此负载最高的EventLoop不会被选中
+            for (int i = 0; i < 1000; i++) {
+                Assertions.assertNotSame(busyLoop, group.select());
+            }
+            for (int key = 0; key < 1000; key++) {
+                EventLoop eventLoop = group.select(key);
+                Assertions.assertNotSame(busyLoop, eventLoop);
+                Assertions.assertSame(eventLoop, group.select(key));
+            }
+        } finally {
+            latch.countDown();
+        }
+        // 负载消失后，已分配的key仍然固定
+        for (int key = 0; key < 1000; key++) {
+            Assertions.assertNotSame(busyLoop, group.select(key));
+        }
+    }
+
+    /** 按key记录选择结果，key的数量不影响新key的负载感知；释放后重新按负载选择 */
+    @Test
+    void testManyKeys() {
+        final int keyCount = 100_000; // 超过旧的固定槽位数
+        for (int key = 0; key < keyCount; key++) {
+            group.select(key);
+        }
+        DisruptorEventLoop<?> busyLoop = (DisruptorEventLoop<?>) group.iterator().next();
+        int busyKey = -1;
+        for (int key = 0; key < keyCount && busyKey < 0; key++) {
+            if (group.select(key) == busyLoop) {
+                busyKey = key;
+            }
+        }
+        Assertions.assertTrue(busyKey >= 0);
+
+        CountDownLatch latch = new CountDownLatch(1);
+        busyLoop.execute(() -> {
+            try {
+                latch.await();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        for (int i = 0; i < 100; i++) {
+            busyLoop.execute(() -> {});
+        }
+        try {
+            for (int key = keyCount; key < keyCount + 1000; key++) {
+                Assertions.assertNotSame(busyLoop, group.select(key));
+            }
+            // 已分配的key保持不变，释放后重新选择
+            Assertions.assertSame(busyLoop, group.select(busyKey));
+            Assertions.assertTrue(group.release(busyKey));
+            Assertions.assertFalse(group.release(busyKey));
+            Assertions.assertNotSame(busyLoop, group.select(busyKey));
+        } finally {
+            latch.countDown();
+        }
+    }
+}
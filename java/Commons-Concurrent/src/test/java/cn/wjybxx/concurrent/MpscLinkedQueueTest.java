@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.ThreadUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class MpscLinkedQueueTest {
+
+    private static final int PRODUCER_COUNT = 4;
+    private static final int COUNT_PER_PRODUCER = 200_000;
+
+    /** 多个生产者并发压入时，每个生产者的元素保持顺序 */
+    @Test
+    void testMpOrder() {
+        MpscLinkedQueue<Object> queue = new MpscLinkedQueue<>();
+        List<Thread> producerList = new ArrayList<>(PRODUCER_COUNT);
+        for (int i = 0; i < PRODUCER_COUNT; i++) {
+            final int type = i;
+            producerList.add(new Thread(() -> {
+                for (int seq = 0; seq < COUNT_PER_PRODUCER; seq++) {
+                    if ((seq & 1) == 0) {
+                        queue.offer(new SeqTask(type, seq));
+                    } else {
+                        queue.offer(new long[]{type, seq});
+                    }
+                }
+            }, "Producer-" + type));
+        }
+        producerList.forEach(Thread::start);
+
+        int[] nextSequences = new int[PRODUCER_COUNT];
+        int total = PRODUCER_COUNT * COUNT_PER_PRODUCER;
+        for (int count = 0; count < total; ) {
+            Object e = queue.poll();
+            if (e == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int type;
+            int seq;
+            if (e instanceof SeqTask task) {
+                type = task.type;
+                seq = task.seq;
+            } else {
+                long[] pair = (long[]) e;
+                type = (int) pair[0];
+                seq = (int) pair[1];
+            }
+            Assertions.assertEquals(nextSequences[type]++, seq);
+            count++;
+        }
+        producerList.forEach(ThreadUtils::joinUninterruptedly);
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    /** 同一个元素可以多次入队 -- 例如：取消时再次提交仍在邮箱中的定时任务 */
+    @Test
+    void testOfferQueuedNode() {
+        MpscLinkedQueue<Object> queue = new MpscLinkedQueue<>();
+        SeqTask a = new SeqTask(0, 0);
+        SeqTask b = new SeqTask(0, 1);
+        queue.offer(a);
+        queue.offer(b);
+        queue.offer(a);
+        Assertions.assertSame(a, queue.poll());
+        queue.offer(a);
+        Assertions.assertSame(b, queue.poll());
+        queue.offer(b);
+        Assertions.assertSame(a, queue.poll());
+        queue.offer(a);
+        Assertions.assertSame(a, queue.poll());
+        Assertions.assertSame(b, queue.poll());
+        Assertions.assertSame(a, queue.poll());
+        Assertions.assertNull(queue.poll());
+        Assertions.assertTrue(queue.isEmpty());
+    }
+
+    private static class SeqTask extends PromiseTask<Object> {
+
+        final int type;
+        final int seq;
+
+        SeqTask(int type, int seq) {
+            super(TaskBuilder.newAction(() -> {}), new Promise<>());
+            this.type = type;
+            this.seq = seq;
+        }
+    }
+}
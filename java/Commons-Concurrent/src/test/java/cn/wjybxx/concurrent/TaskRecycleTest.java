@@ -0,0 +1,158 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 测试{@link TaskOptions#DISCARD_FUTURE}任务的池化
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class TaskRecycleTest {
+
+    private static final int ROUNDS = 10;
+
+    private DisruptorEventLoop<RingBufferEvent> eventLoop;
+
+    @BeforeEach
+    void setUp() {
+        eventLoop = EventLoopBuilder.<RingBufferEvent>newDisruptBuilder()
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setEventSequencer(RingBufferEventSequencer
+                        .newMultiProducer(RingBufferEvent::new)
+                        .build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLoop.shutdown();
+        eventLoop.terminationFuture().join();
+    }
+
+    /** 在EventLoop线程提交任务，每轮等待上一轮的任务完成 */
+    private List<IFuture<?>> submitRounds(Supplier<IFuture<?>> submitter, Runnable waitDone) {
+        List<IFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < ROUNDS; i++) {
+            eventLoop.submitAction(() -> futures.add(submitter.get())).join();
+            waitDone.run();
+        }
+        return futures;
+    }
+
+    private void waitEventLoop() {
+        eventLoop.submitAction(() -> {}).join();
+    }
+
+    private static long distinctCount(List<IFuture<?>> futures) {
+        return futures.stream().distinct().count(); // Promise未重写equals
+    }
+
+    private static void awaitCount(AtomicInteger counter, int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (counter.get() < expected && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertEquals(expected, counter.get());
+    }
+
+    @Test
+    void testSubmitRecycled() {
+        AtomicInteger counter = new AtomicInteger();
+        List<IFuture<?>> futures = submitRounds(() -> eventLoop.submit(TaskBuilder.newAction(counter::incrementAndGet)
+                        .enable(TaskOptions.DISCARD_FUTURE)),
+                this::waitEventLoop);
+        Assertions.assertEquals(ROUNDS, counter.get());
+        Assertions.assertEquals(1, distinctCount(futures));
+    }
+
+    @Test
+    void testListenerPreventsPromiseRecycle() {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger listenerCounter = new AtomicInteger();
+        List<IFuture<?>> futures = submitRounds(() -> {
+            IFuture<?> future = eventLoop.submit(TaskBuilder.newAction(counter::incrementAndGet)
+                    .enable(TaskOptions.DISCARD_FUTURE));
+            future.onCompleted(f -> {
+                Assertions.assertTrue(f.isSucceeded());
+                listenerCounter.incrementAndGet();
+            });
+            return future;
+        }, this::waitEventLoop);
+        Assertions.assertEquals(ROUNDS, counter.get());
+        Assertions.assertEquals(ROUNDS, listenerCounter.get());
+        Assertions.assertEquals(ROUNDS, distinctCount(futures));
+    }
+
+    @Test
+    void testScheduleRecycled() {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger round = new AtomicInteger();
+        List<IFuture<?>> futures = submitRounds(() -> eventLoop.schedule(ScheduledTaskBuilder.newAction(counter::incrementAndGet)
+                        .setOnlyOnce(1, TimeUnit.MILLISECONDS)
+                        .enable(TaskOptions.DISCARD_FUTURE)),
+                () -> awaitCount(counter, round.incrementAndGet()));
+        Assertions.assertEquals(1, distinctCount(futures));
+
+        // 周期性任务在完成时回收
+        AtomicInteger periodicCounter = new AtomicInteger();
+        AtomicInteger periodicRound = new AtomicInteger();
+        List<IFuture<?>> periodicFutures = submitRounds(() -> eventLoop.schedule(ScheduledTaskBuilder.newAction(periodicCounter::incrementAndGet)
+                        .setFixedRate(0, 1, TimeUnit.MILLISECONDS)
+                        .setCountLimit(3)
+                        .enable(TaskOptions.DISCARD_FUTURE)),
+                () -> {
+                    awaitCount(periodicCounter, periodicRound.addAndGet(3));
+                    waitEventLoop();
+                });
+        Assertions.assertEquals(1, distinctCount(periodicFutures));
+    }
+
+    @Test
+    void testNotPooled() {
+        // 可取消的任务不池化
+        AtomicInteger counter = new AtomicInteger();
+        AtomicInteger round = new AtomicInteger();
+        List<IFuture<?>> futures = submitRounds(() -> eventLoop.schedule(ScheduledTaskBuilder.newAction(counter::incrementAndGet, new CancelTokenSource())
+                        .setOnlyOnce(1, TimeUnit.MILLISECONDS)
+                        .enable(TaskOptions.DISCARD_FUTURE)),
+                () -> awaitCount(counter, round.incrementAndGet()));
+        Assertions.assertEquals(ROUNDS, distinctCount(futures));
+
+        // 其它线程提交的任务不池化，future可正常使用
+        IFuture<?> first = eventLoop.submit(TaskBuilder.newAction(counter::incrementAndGet)
+                .enable(TaskOptions.DISCARD_FUTURE));
+        first.join();
+        IFuture<?> second = eventLoop.submit(TaskBuilder.newAction(counter::incrementAndGet)
+                .enable(TaskOptions.DISCARD_FUTURE));
+        second.join();
+        Assertions.assertNotSame(first, second);
+        Assertions.assertTrue(first.isSucceeded());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.ThreadUtils;
+import cn.wjybxx.base.concurrent.CancelCodes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class TimeoutServiceTest {
+
+    private TimeoutService timeoutService;
+
+    @BeforeEach
+    void setUp() {
+        timeoutService = TimeoutService.newBuilder()
+                .setShardCount(2)
+                .setTick(1, TimeUnit.MILLISECONDS)
+                .setWheelSize(16) // 小时间轮以测试多圈
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        timeoutService.shutdown();
+    }
+
+    @Test
+    void testExpire() throws Exception {
+        int count = 1000;
+        CountDownLatch latch = new CountDownLatch(count);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            timeoutService.newTimeout(latch::countDown, 50 + i % 50, TimeUnit.MILLISECONDS);
+        }
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void testCancel() {
+        AtomicInteger counter = new AtomicInteger();
+        List<TimeoutService.Timeout> timeouts = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            timeouts.add(timeoutService.newTimeout(counter::incrementAndGet, 50, TimeUnit.MILLISECONDS));
+        }
+        for (TimeoutService.Timeout timeout : timeouts) {
+            Assertions.assertTrue(timeout.cancel());
+            Assertions.assertFalse(timeout.cancel());
+            Assertions.assertTrue(timeout.isCancelled());
+        }
+        ThreadUtils.sleepQuietly(150);
+        Assertions.assertEquals(0, counter.get());
+        Assertions.assertEquals(0, timeoutService.pendingCount());
+    }
+
+    @Test
+    void testCancelTokenSource() {
+        CancelTokenSource cts = new CancelTokenSource();
+        cts.cancelAfter(CancelCodes.REASON_TIMEOUT, 20, TimeUnit.MILLISECONDS, timeoutService);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!cts.IsCancelRequested() && System.nanoTime() < deadline) {
+            ThreadUtils.sleepQuietly(1);
+        }
+        Assertions.assertEquals(CancelCodes.REASON_TIMEOUT, cts.reason());
+
+        // 提前取消时删除超时任务
+        CancelTokenSource cts2 = new CancelTokenSource();
+        cts2.cancelAfter(CancelCodes.REASON_TIMEOUT, 1, TimeUnit.MINUTES, timeoutService);
+        cts2.cancel();
+        ThreadUtils.sleepQuietly(20);
+        Assertions.assertEquals(0, timeoutService.pendingCount());
+    }
+
+    @Test
+    void testPromiseTimeout() {
+        IPromise<String> promise = FutureUtils.newPromise();
+        FutureUtils.setTimeout(promise, 20, TimeUnit.MILLISECONDS, timeoutService);
+        Assertions.assertTrue(promise.awaitUninterruptibly(5, TimeUnit.SECONDS));
+        Assertions.assertInstanceOf(StacklessTimeoutException.class, promise.exceptionNow());
+
+        IPromise<String> promise2 = FutureUtils.newPromise();
+        FutureUtils.setTimeout(promise2, 1, TimeUnit.MINUTES, timeoutService);
+        promise2.trySetResult("done");
+        ThreadUtils.sleepQuietly(20);
+        Assertions.assertEquals(0, timeoutService.pendingCount());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2023-2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.ThreadUtils;
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间轮的出队顺序应当与二叉堆完全一致
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class TimingWheelScheduledTaskQueueTest {
+
+    private static ScheduledPromiseTask<?> newTask(long id, long triggerTime, int priority) {
+        ScheduledPromiseTask<?> task = ScheduledPromiseTask.ofAction(() -> {}, ICancelToken.NONE, 0,
+                new ScheduledPromise<>(), null, triggerTime);
+        task.setId(id);
+        task.setPriority(priority);
+        return task;
+    }
+
+    @Test
+    void testSameOrderAsHeap() {
+        testSameOrderAsHeap(ScheduledTaskQueues.timingWheel(4, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void testQuaternaryHeap() {
+        testSameOrderAsHeap(ScheduledTaskQueues.quaternaryHeap(0));
+    }
+
+    private static void testSameOrderAsHeap(ScheduledTaskQueueFactory factory) {
+        Random random = new Random(10086);
+        final long startTime = -5000; // 负数时间
+        ScheduledTaskQueue heap = ScheduledTaskQueues.binaryHeap().newQueue(TimeUnit.MILLISECONDS, startTime);
+        ScheduledTaskQueue wheel = factory.newQueue(TimeUnit.MILLISECONDS, startTime);
+        // 同一个任务不能同时存在于两个队列，因此成对创建
+        List<ScheduledPromiseTask<?>> heapTasks = new ArrayList<>();
+        List<ScheduledPromiseTask<?>> wheelTasks = new ArrayList<>();
+
+        long tickTime = startTime;
+        long nextId = 0;
+        for (int round = 0; round < 2000; round++) {
+            int addCount = random.nextInt(50);
+            for (int i = 0; i < addCount; i++) {
+                long delay = switch (random.nextInt(10)) {
+                    case 0 -> -random.nextInt(100); // 已过期
+                    case 1 -> random.nextLong(1L << 40); // 溢出
+                    case 2, 3 -> random.nextInt(100_000);
+                    default -> random.nextInt(300);
+                };
+                int priority = random.nextInt(3);
+                long id = nextId++;
+                ScheduledPromiseTask<?> heapTask = newTask(id, tickTime + delay, priority);
+                ScheduledPromiseTask<?> wheelTask = newTask(id, tickTime + delay, priority);
+                heap.add(heapTask);
+                wheel.add(wheelTask);
+                heapTasks.add(heapTask);
+                wheelTasks.add(wheelTask);
+            }
+            // 随机删除或修改触发时间
+            for (int i = 0; i < 5 && !heapTasks.isEmpty(); i++) {
+                int index = random.nextInt(heapTasks.size());
+                ScheduledPromiseTask<?> heapTask = heapTasks.get(index);
+                ScheduledPromiseTask<?> wheelTask = wheelTasks.get(index);
+                Assertions.assertEquals(heap.contains(heapTask), wheel.contains(wheelTask));
+                if (random.nextBoolean()) {
+                    Assertions.assertEquals(heap.remove(heapTask), wheel.remove(wheelTask));
+                } else {
+                    long triggerTime = random.nextBoolean() ? 0 : tickTime + random.nextInt(1000);
+                    heapTask.setNextTriggerTime(triggerTime);
+                    wheelTask.setNextTriggerTime(triggerTime);
+                    heap.priorityChanged(heapTask);
+                    wheel.priorityChanged(wheelTask);
+                }
+            }
+
+            tickTime += random.nextInt(random.nextInt(20) == 0 ? 50_000 : 20);
+            Assertions.assertEquals(heap.peekDue(tickTime) == null, wheel.peekDue(tickTime) == null);
+            ScheduledPromiseTask<?> heapTask;
+            while ((heapTask = heap.pollDue(tickTime)) != null) {
+                ScheduledPromiseTask<?> wheelTask = wheel.pollDue(tickTime);
+                Assertions.assertNotNull(wheelTask);
+                Assertions.assertEquals(heapTask.getId(), wheelTask.getId());
+            }
+            Assertions.assertNull(wheel.pollDue(tickTime));
+            Assertions.assertEquals(heap.size(), wheel.size());
+            Assertions.assertTrue(wheel.earliestTriggerTime() <= heap.earliestTriggerTime());
+        }
+
+        int[] count = new int[1];
+        wheel.forEach(task -> count[0]++);
+        Assertions.assertEquals(heap.size(), count[0]);
+    }
+
+    /** 刻度停在区间边界时，上层的任务也要计入最早触发时间 */
+    @Test
+    void testEarliestTriggerTimeOnBoundary() {
+        TimingWheelScheduledTaskQueue wheel = new TimingWheelScheduledTaskQueue(1, 0);
+        wheel.add(newTask(1, 70, 0));
+        Assertions.assertNull(wheel.pollDue(63));
+        Assertions.assertTrue(wheel.earliestTriggerTime() <= 70, () -> "earliest: " + wheel.earliestTriggerTime());
+
+        wheel.add(newTask(2, 5000, 0));
+        Assertions.assertNotNull(wheel.pollDue(70));
+        Assertions.assertNull(wheel.pollDue(4095));
+        Assertions.assertTrue(wheel.earliestTriggerTime() <= 5000, () -> "earliest: " + wheel.earliestTriggerTime());
+        Assertions.assertNull(wheel.pollDue(4999));
+        Assertions.assertEquals(2, wheel.pollDue(5000).getId());
+        Assertions.assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    void testEventLoop() {
+        Counter counter = new Counter();
+        EventLoop eventLoop = EventLoopBuilder.newDisruptBuilder()
+                .setThreadFactory(new DefaultThreadFactory("consumer"))
+                .setScheduledTaskQueueFactory(ScheduledTaskQueues.timingWheel(1, TimeUnit.MILLISECONDS))
+                .setEventSequencer(RingBufferEventSequencer
+                        .newMultiProducer(RingBufferEvent::new)
+                        .build())
+                .build();
+        eventLoop.start().join();
+
+        // 触发时间相同的任务按提交顺序执行；取消的任务不执行
+        List<IScheduledFuture<?>> cancelledFutures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            eventLoop.schedule(counter.newTask(1, i), 100, TimeUnit.MILLISECONDS);
+            cancelledFutures.add(eventLoop.schedule(counter.newTask(2, 0), 50, TimeUnit.MILLISECONDS));
+        }
+        cancelledFutures.forEach(future -> future.cancel(false));
+
+        ThreadUtils.sleepQuietly(500);
+        eventLoop.shutdown();
+        eventLoop.terminationFuture().join();
+
+        Assertions.assertEquals(100, counter.getSequenceMap().get(1));
+        Assertions.assertEquals(0, counter.getSequenceMap().get(2));
+        Assertions.assertTrue(counter.getErrorMsgList().isEmpty(), counter.getErrorMsgList()::toString);
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.base.ThreadUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class VirtualEventLoopTest {
+
+    private static final int PRODUCER_COUNT = 6;
+
+    @Test
+    void testMpExecuteOrder() {
+        CounterAgent agent = new CounterAgent();
+        Counter counter = agent.getCounter();
+        VirtualEventLoop<RingBufferEvent> consumer = EventLoopBuilder.<RingBufferEvent>newVirtualBuilder()
+                .setAgent(agent)
+                .build();
+
+        List<Thread> producerList = new ArrayList<>(PRODUCER_COUNT);
+        for (int i = 1; i <= PRODUCER_COUNT; i++) {
+            final int type = i;
+            producerList.add(new Thread(() -> {
+                for (long localSequence = 0; localSequence < 200_000; localSequence++) {
+                    try {
+                        if ((localSequence & 1) == 0) {
+                            consumer.execute(counter.newTask(type, localSequence));
+                        } else {
+                            RingBufferEvent event = new RingBufferEvent();
+                            event.setType(type);
+                            event.longVal1 = localSequence;
+                            consumer.publish(event);
+                        }
+                    } catch (RejectedExecutionException ignore) {
+                        break;
+                    }
+                }
+            }, "Producer-" + type));
+        }
+        producerList.forEach(Thread::start);
+        producerList.forEach(ThreadUtils::joinUninterruptedly);
+
+        consumer.shutdown();
+        consumer.terminationFuture().join();
+
+        Assertions.assertEquals(PRODUCER_COUNT, counter.getSequenceMap().size());
+        Assertions.assertTrue(counter.getErrorMsgList().isEmpty(), counter.getErrorMsgList()::toString);
+        for (int i = 1; i <= PRODUCER_COUNT; i++) {
+            Assertions.assertEquals(200_000, counter.getSequenceMap().get(i));
+        }
+    }
+
+    @Test
+    void testScheduleWakeup() throws Exception {
+        VirtualEventLoop<?> eventLoop = EventLoopBuilder.newVirtualBuilder().build();
+        try {
+            long startTime = System.nanoTime();
+            Callable<Boolean> task = eventLoop::inEventLoop;
+            IScheduledFuture<Boolean> future = eventLoop.schedule(task, 50, TimeUnit.MILLISECONDS);
+            Assertions.assertTrue(future.get(5, TimeUnit.SECONDS));
+            Assertions.assertTrue(System.nanoTime() - startTime >= TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            eventLoop.shutdown();
+            eventLoop.terminationFuture().join();
+        }
+    }
+
+    @Test
+    void testRejectAfterShutdown() {
+        VirtualEventLoop<?> eventLoop = EventLoopBuilder.newVirtualBuilder().build();
+        eventLoop.shutdown();
+        eventLoop.terminationFuture().join();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> eventLoop.execute(() -> {}));
+    }
+
+    /** 与关闭竞争的提交：关闭前提交成功的任务必须执行，被拒绝的任务不能执行 */
+    @Test
+    void testSubmitRaceWithShutdown() {
+        for (int round = 0; round < 20; round++) {
+            VirtualEventLoop<?> eventLoop = EventLoopBuilder.newVirtualBuilder().build();
+            eventLoop.start().join(); // 启动完成前关闭会丢弃所有任务
+            AtomicBoolean shutdownCalled = new AtomicBoolean();
+            List<List<RaceTask>> taskLists = new ArrayList<>(PRODUCER_COUNT);
+            List<Thread> producerList = new ArrayList<>(PRODUCER_COUNT);
+            for (int i = 0; i < PRODUCER_COUNT; i++) {
+                List<RaceTask> taskList = new ArrayList<>();
+                taskLists.add(taskList);
+                producerList.add(new Thread(() -> {
+                    while (true) {
+                        RaceTask task = new RaceTask();
+                        taskList.add(task);
+                        try {
+                            eventLoop.execute(task);
+                        } catch (RejectedExecutionException ignore) {
+                            task.rejected = true;
+                            break;
+                        }
+                        task.acceptedBeforeShutdown = !shutdownCalled.get();
+                    }
+                }, "Producer-" + i));
+            }
+            producerList.forEach(Thread::start);
+            ThreadUtils.sleepQuietly(round % 5);
+            shutdownCalled.set(true);
+            eventLoop.shutdown();
+            producerList.forEach(ThreadUtils::joinUninterruptedly);
+            eventLoop.terminationFuture().join();
+
+            for (List<RaceTask> taskList : taskLists) {
+                for (RaceTask task : taskList) {
+                    if (task.acceptedBeforeShutdown) {
+                        Assertions.assertTrue(task.executed);
+                    }
+                    if (task.rejected) {
+                        Assertions.assertFalse(task.executed);
+                    }
+                }
+            }
+        }
+    }
+
+    private static class RaceTask implements Runnable {
+
+        volatile boolean executed;
+        boolean acceptedBeforeShutdown;
+        boolean rejected;
+
+        @Override
+        public void run() {
+            executed = true;
+        }
+    }
+
+    @Test
+    void testGroup() throws Exception {
+        int keyCount = 100_000;
+        VirtualEventLoopGroup group = EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(2)
+                .buildVirtual();
+        try {
+            CountDownLatch latch = new CountDownLatch(keyCount);
+            for (int key = 0; key < keyCount; key++) {
+                EventLoop eventLoop = group.select(key);
+                Assertions.assertSame(eventLoop, group.select(key));
+                eventLoop.execute(() -> {
+                    Assertions.assertTrue(eventLoop.inEventLoop());
+                    latch.countDown();
+                });
+            }
+            Assertions.assertTrue(latch.await(30, TimeUnit.SECONDS));
+            Assertions.assertEquals(keyCount + 2, group.childCount());
+
+            EventLoop eventLoop = group.select(0);
+            Assertions.assertTrue(group.release(0));
+            Assertions.assertFalse(group.release(0));
+            eventLoop.terminationFuture().join();
+            Assertions.assertNotSame(eventLoop, group.select(0));
+        } finally {
+            group.shutdown();
+        }
+        Assertions.assertTrue(group.awaitTermination(30, TimeUnit.SECONDS));
+        Assertions.assertEquals(0, group.childCount());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 大量虚拟线程阻塞等待由EventLoop完成的Promise
+ * 如果等待时固定了载体线程，该测试将无法在限定时间内完成。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class VirtualThreadAwaitTest {
+
+    private static final int THREAD_COUNT = 100_000;
+
+    private EventLoopGroup group;
+
+    @BeforeEach
+    void setUp() {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("producer");
+        group = EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(2)
+                .setEventLoopFactory((parent, index, extra) -> EventLoopBuilder.newDisruptBuilder()
+                        .setParent(parent)
+                        .setThreadFactory(threadFactory)
+                        .setEventSequencer(RingBufferEventSequencer
+                                .newMultiProducer(RingBufferEvent::new)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        group.shutdown();
+        group.terminationFuture().join();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testAwait() throws Exception {
+        IPromise<Integer>[] promises = new IPromise[THREAD_COUNT];
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            promises[i] = new Promise<>();
+        }
+        LongAdder sum = new LongAdder();
+        CountDownLatch startedLatch = new CountDownLatch(THREAD_COUNT);
+        CountDownLatch completedLatch = new CountDownLatch(THREAD_COUNT);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                IPromise<Integer> promise = promises[i];
+                executor.execute(() -> {
+                    startedLatch.countDown();
+                    try {
+                        sum.add(promise.get());
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e); // 只记录第一个异常
+                    } finally {
+                        completedLatch.countDown();
+                    }
+                });
+            }
+            Assertions.assertTrue(startedLatch.await(30, TimeUnit.SECONDS));
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                IPromise<Integer> promise = promises[i];
+                int value = i;
+                group.execute(() -> promise.trySetResult(value));
+            }
+            Assertions.assertTrue(completedLatch.await(30, TimeUnit.SECONDS));
+            Assertions.assertNull(failure.get());
+        }
+        Assertions.assertEquals((long) THREAD_COUNT * (THREAD_COUNT - 1) / 2, sum.sum());
+    }
+
+    @Test
+    void testTimedAwait() throws Exception {
+        IPromise<String> promise = new Promise<>();
+        AtomicInteger timeoutCount = new AtomicInteger();
+        AtomicInteger completedCount = new AtomicInteger();
+        int threadCount = 1000;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < threadCount; i++) {
+                boolean timed = (i & 1) == 0;
+                executor.execute(() -> {
+                    if (timed) {
+                        if (!promise.awaitUninterruptibly(1, TimeUnit.MILLISECONDS)) {
+                            timeoutCount.incrementAndGet();
+                        }
+                    } else {
+                        promise.join();
+                        completedCount.incrementAndGet();
+                    }
+                });
+            }
+            Thread.sleep(100);
+            group.execute(() -> promise.trySetResult("done"));
+        }
+        Assertions.assertEquals(threadCount / 2, timeoutCount.get());
+        Assertions.assertEquals(threadCount / 2, completedCount.get());
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.concurrent;
+
+import cn.wjybxx.disruptor.BlockingWaitStrategy;
+import cn.wjybxx.disruptor.RingBufferEventSequencer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 选择器总是选择第一个EventLoop，测试其它EventLoop能否窃取任务
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class WorkStealingTest {
+
+    private static final int TASK_COUNT = 64;
+
+    private DefaultFixedEventLoopGroup group;
+
+    @BeforeEach
+    void setUp() {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory("stealing");
+        group = (DefaultFixedEventLoopGroup) EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(4)
+                .setWorkStealing(true)
+                .setChooserFactory(FirstChooser::new)
+                .setEventLoopFactory((parent, index, extra) -> EventLoopBuilder.newDisruptBuilder()
+                        .setParent(parent)
+                        .setThreadFactory(threadFactory)
+                        .setEventSequencer(RingBufferEventSequencer
+                                .newMultiProducer(RingBufferEvent::new)
+                                .build())
+                        .build())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        group.shutdown();
+        group.terminationFuture().join();
+    }
+
+    @Test
+    void testSteal() {
+        Assertions.assertTrue(group.isWorkStealing());
+        // 启动所有线程，否则空闲的EventLoop无法窃取
+        group.forEach(EventLoop::start);
+
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<IFuture<?>> futures = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            futures.add(group.submitAction(() -> {
+                threads.add(Thread.currentThread());
+                sleepQuietly(10);
+            }));
+        }
+        FutureUtils.newCombiner()
+                .addAll(futures)
+                .selectAll()
+                .join();
+        Assertions.assertTrue(threads.size() > 1, "no task stolen");
+    }
+
+    /** 等待策略没有超时时，空闲的兄弟节点需要被唤醒才能窃取 */
+    @Test
+    void testStealWithBlockingWait() {
+        DefaultFixedEventLoopGroup blockingGroup = (DefaultFixedEventLoopGroup) EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(4)
+                .setWorkStealing(true)
+                .setChooserFactory(FirstChooser::new)
+                .setEventLoopFactory((parent, index, extra) -> EventLoopBuilder.newDisruptBuilder()
+                        .setParent(parent)
+                        .setThreadFactory(new DefaultThreadFactory("blocking"))
+                        .setEventSequencer(RingBufferEventSequencer
+                                .newMultiProducer(RingBufferEvent::new)
+                                .enableBlocker()
+                                .setWaitStrategy(BlockingWaitStrategy.INSTANCE)
+                                .build())
+                        .build())
+                .build();
+        try {
+            blockingGroup.forEach(eventLoop -> eventLoop.start().join());
+            sleepQuietly(50); // 等待所有EventLoop进入阻塞
+
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            List<IFuture<?>> futures = new ArrayList<>(TASK_COUNT);
+            for (int i = 0; i < TASK_COUNT; i++) {
+                futures.add(blockingGroup.submitAction(() -> {
+                    threads.add(Thread.currentThread());
+                    sleepQuietly(10);
+                }));
+            }
+            FutureUtils.newCombiner()
+                    .addAll(futures)
+                    .selectAll()
+                    .join();
+            Assertions.assertTrue(threads.size() > 1, "no task stolen");
+        } finally {
+            blockingGroup.shutdown();
+            blockingGroup.terminationFuture().join();
+        }
+    }
+
+    @Test
+    void testKeyBoundTaskPinned() {
+        EventLoop eventLoop = group.select(1);
+        List<IFuture<Boolean>> futures = new ArrayList<>(TASK_COUNT);
+        for (int i = 0; i < TASK_COUNT; i++) {
+            futures.add(eventLoop.submitFunc(eventLoop::inEventLoop));
+        }
+        for (IFuture<Boolean> future : futures) {
+            Assertions.assertTrue(future.join());
+        }
+        IScheduledFuture<Boolean> scheduledFuture = group.scheduleFunc(() -> group.select().inEventLoop(),
+                10, TimeUnit.MILLISECONDS, ICancelToken.NONE);
+        Assertions.assertTrue(scheduledFuture.join());
+    }
+
+    /** 唤醒信号复用了旧任务的槽位时，不能将旧任务的发布时间统计为排队延迟 */
+    @Test
+    void testQueueDelayWithSignal() {
+        final int bufferSize = 64;
+        DefaultFixedEventLoopGroup metricsGroup = (DefaultFixedEventLoopGroup) EventLoopGroupBuilder.newBuilder()
+                .setNumChildren(2)
+                .setWorkStealing(true)
+                .setChooserFactory(FirstChooser::new)
+                .setEventLoopFactory((parent, index, extra) -> EventLoopBuilder.newDisruptBuilder()
+                        .setParent(parent)
+                        .setThreadFactory(new DefaultThreadFactory("metrics"))
+                        .setMetricsEnabled(true)
+                        .setEventSequencer(RingBufferEventSequencer
+                                .newMultiProducer(RingBufferEvent::new)
+                                .setBufferSize(bufferSize)
+                                .build())
+                        .build())
+                .build();
+        try {
+            DisruptorEventLoop<?> owner = (DisruptorEventLoop<?>) metricsGroup.select();
+            // 所有槽位都写入发布时间
+            for (int i = 0; i < bufferSize; i++) {
+                owner.execute(() -> {});
+            }
+            owner.submitAction(() -> {}).join();
+            sleepQuietly(300);
+
+            // 通过线程组提交，任务进入溢出队列，并向owner发布唤醒信号
+            for (int i = 0; i < 8; i++) {
+                metricsGroup.submitAction(() -> {}).join();
+            }
+            owner.submitAction(() -> {}).join();
+            long maxDelay = owner.metrics().queueDelayHistogram().maxValue();
+            Assertions.assertTrue(maxDelay < TimeUnit.MILLISECONDS.toNanos(200), () -> "maxDelay: " + maxDelay);
+        } finally {
+            metricsGroup.shutdown();
+            metricsGroup.terminationFuture().join();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignore) {
+        }
+    }
+
+    private static class FirstChooser implements EventLoopChooser {
+
+        private final EventLoop[] children;
+
+        FirstChooser(EventLoop[] children) {
+            this.children = children;
+        }
+
+        @Nonnull
+        @Override
+        public EventLoop select() {
+            return children[0];
+        }
+
+        @Nonnull
+        @Override
+        public EventLoop select(int key) {
+            return children[key % children.length];
+        }
+    }
+}
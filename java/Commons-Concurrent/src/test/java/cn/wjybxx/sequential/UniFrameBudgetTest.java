@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.sequential;
+
+import cn.wjybxx.base.time.CachedTimeProvider;
+import cn.wjybxx.base.time.TimeProviders;
+import cn.wjybxx.concurrent.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 测试帧预算
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class UniFrameBudgetTest {
+
+    @Test
+    void testDeferByPriority() {
+        CachedTimeProvider timeProvider = TimeProviders.newTimeProvider(0);
+        DefaultUniScheduledExecutor executor = new DefaultUniScheduledExecutor(timeProvider, 16,
+                ScheduledTaskQueues.binaryHeap(), 10, -1, TimeUnit.NANOSECONDS);
+
+        List<Integer> executed = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            final int priority = i % 3;
+            ScheduledTaskBuilder<Object> builder = ScheduledTaskBuilder.newAction(() -> executed.add(priority));
+            builder.setOnlyOnce(i + 1, TimeUnit.MILLISECONDS);
+            builder.setPriority(2 - priority); // 值越小优先级越高
+            executor.schedule(builder);
+        }
+        // 任务先进入普通队列，再压入定时队列
+        while (executor.deferredCount() > 0 || executed.isEmpty() && executor.needMoreUpdate()) {
+            executor.update();
+        }
+        Assertions.assertTrue(executed.isEmpty());
+        timeProvider.setTime(100);
+
+        executor.update();
+        Assertions.assertEquals(10, executed.size());
+        Assertions.assertEquals(20, executor.deferredCount());
+        Assertions.assertTrue(executor.needMoreUpdate());
+
+        // 延迟的任务按照优先级执行
+        executed.clear();
+        executor.update();
+        Assertions.assertEquals(10, executed.size());
+        int lastPriority = Integer.MAX_VALUE;
+        for (int priority : executed) {
+            Assertions.assertTrue(priority <= lastPriority);
+            lastPriority = priority;
+        }
+        executor.update();
+        Assertions.assertEquals(0, executor.deferredCount());
+        Assertions.assertFalse(executor.needMoreUpdate());
+    }
+
+    @Test
+    void testSharedBudget() {
+        CachedTimeProvider timeProvider = TimeProviders.newTimeProvider(0);
+        DefaultUniScheduledExecutor executor = new DefaultUniScheduledExecutor(timeProvider, 16,
+                ScheduledTaskQueues.binaryHeap(), 10, -1, TimeUnit.NANOSECONDS);
+
+        int[] counter = new int[1];
+        for (int i = 0; i < 8; i++) {
+            executor.schedule(() -> counter[0]++, 0, TimeUnit.MILLISECONDS);
+            executor.execute(() -> counter[0]++);
+        }
+        executor.update();
+        Assertions.assertEquals(10, counter[0]);
+        Assertions.assertEquals(6, executor.deferredCount());
+
+        executor.update();
+        Assertions.assertEquals(16, counter[0]);
+        Assertions.assertEquals(0, executor.deferredCount());
+    }
+
+    @Test
+    void testCancelDeferred() {
+        CachedTimeProvider timeProvider = TimeProviders.newTimeProvider(0);
+        DefaultUniScheduledExecutor executor = new DefaultUniScheduledExecutor(timeProvider, 16,
+                ScheduledTaskQueues.binaryHeap(), 1, -1, TimeUnit.NANOSECONDS);
+
+        int[] counter = new int[1];
+        executor.schedule(() -> counter[0]++, 1, TimeUnit.MILLISECONDS);
+        IScheduledFuture<?> future = executor.schedule(() -> counter[0]++, 1, TimeUnit.MILLISECONDS);
+        executor.update();
+        executor.update();
+        Assertions.assertEquals(0, counter[0]);
+
+        timeProvider.setTime(10);
+        executor.update();
+        Assertions.assertEquals(1, counter[0]);
+        Assertions.assertEquals(1, executor.deferredCount());
+
+        future.cancel(true);
+        executor.update();
+        Assertions.assertEquals(1, counter[0]);
+        Assertions.assertTrue(future.isCancelled());
+        Assertions.assertEquals(0, executor.deferredCount());
+        Assertions.assertFalse(executor.needMoreUpdate());
+    }
+
+    @Test
+    void testPendingPlainTasks() {
+        CachedTimeProvider timeProvider = TimeProviders.newTimeProvider(0);
+        DefaultUniScheduledExecutor executor = new DefaultUniScheduledExecutor(timeProvider, 16,
+                ScheduledTaskQueues.binaryHeap(), 1, -1, TimeUnit.NANOSECONDS);
+
+        int[] counter = new int[1];
+        for (int i = 0; i < 3; i++) {
+            executor.execute(() -> counter[0]++);
+        }
+        // 超出预算的普通任务需要更多的更新
+        executor.update();
+        Assertions.assertEquals(1, counter[0]);
+        Assertions.assertTrue(executor.needMoreUpdate());
+
+        // shutdownNow返回并删除未执行的普通任务
+        List<Runnable> remaining = executor.shutdownNow();
+        Assertions.assertEquals(2, remaining.size());
+        Assertions.assertFalse(executor.needMoreUpdate());
+        executor.update();
+        Assertions.assertEquals(1, counter[0]);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import java.util.Objects;
+
+/**
+ * 单线程的批量事件处理器，实现基本和Disruptor的{@code BatchEventProcessor}一致。
+ * 1. 每一个处理器独占一个{@link ConsumerBarrier}，会消费所有的事件（广播）。
+ * 2. 处理器通过{@link ConsumerBarrier#alert()}停止。
+ * 3. 事件处理器抛出的异常将交给线程的{@link Thread.UncaughtExceptionHandler}，然后继续消费。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class BatchEventProcessor<T> implements ConsumerGroup, Runnable {
+
+    private final DataProvider<? extends T> dataProvider;
+    private final ConsumerBarrier barrier;
+    private final EventHandler<? super T> eventHandler;
+
+    /**
+     * @param dataProvider 数据提供者
+     * @param barrier      消费者屏障，必须是单消费者屏障
+     * @param eventHandler 事件处理器
+     */
+    public BatchEventProcessor(DataProvider<? extends T> dataProvider, ConsumerBarrier barrier,
+                               EventHandler<? super T> eventHandler) {
+        this.dataProvider = Objects.requireNonNull(dataProvider, "dataProvider");
+        this.barrier = Objects.requireNonNull(barrier, "barrier");
+        this.eventHandler = Objects.requireNonNull(eventHandler, "eventHandler");
+    }
+
+    @Override
+    public ConsumerBarrier getBarrier() {
+        return barrier;
+    }
+
+    public EventHandler<? super T> getEventHandler() {
+        return eventHandler;
+    }
+
+    @Override
+    public void run() {
+        final DataProvider<? extends T> dataProvider = this.dataProvider;
+        final ConsumerBarrier barrier = this.barrier;
+        final Sequence sequence = barrier.groupSequence();
+
+        long nextSequence = sequence.getVolatile() + 1L;
+        while (true) {
+            try {
+                long availableSequence = barrier.waitFor(nextSequence);
+                if (availableSequence < nextSequence) {
+                    continue; // 等待超时
+                }
+                while (nextSequence <= availableSequence) {
+                    T event = dataProvider.consumerGet(nextSequence);
+                    try {
+                        eventHandler.onEvent(event, nextSequence);
+                    } catch (Throwable t) {
+                        handleEventException(t);
+                    }
+                    nextSequence++;
+                }
+                // 批量更新进度 -- 下游和生产者将在这之后看见进度
+                sequence.setRelease(availableSequence);
+            } catch (AlertException | InterruptedException e) {
+                if (barrier.isAlerted()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    static void handleEventException(Throwable t) {
+        if (t instanceof VirtualMachineError) {
+            throw (VirtualMachineError) t;
+        }
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+    }
+}
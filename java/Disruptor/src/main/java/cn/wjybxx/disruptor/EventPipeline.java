@@ -0,0 +1,379 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件处理流水线（DAG）
+ * <p>
+ * 手动组织多级消费者时，需要自行创建屏障、维护屏障之间的依赖、以及将末端屏障添加为生产者的网关屏障，这很容易出错。
+ * 流水线负责这些工作，用户只需要声明消费者之间的依赖关系：
+ * <pre>{@code
+ *  EventPipeline.Builder<MyEvent> builder = EventPipeline.newBuilder(eventSequencer);
+ *  EventPipeline.Stage<MyEvent> journal = builder.handleWith(journalHandler, replicationHandler); // 广播
+ *  EventPipeline.Stage<MyEvent> logic = journal.then(logicHandler); // 单消费者
+ *  builder.after(journal, logic).thenWorkerPool(logHandler1, logHandler2); // 工作池
+ *  EventPipeline<MyEvent> pipeline = builder.build();
+ *  pipeline.start();
+ * }</pre>
+ *
+ * <h3>阶段的类型</h3>
+ * 1. {@link Builder#handleWith(EventHandler[])}：每一个Handler独占一个屏障和线程，每个Handler都消费所有事件；只有一个Handler时即为单消费者。
+ * 2. {@link Builder#handleWithWorkerPool(EventHandler[])}：所有Handler共享一个屏障，每一个事件只会被其中一个Handler消费。
+ *
+ * <h3>停止</h3>
+ * {@link #halt()}会alert所有的屏障，等待线程退出后，将末端屏障从生产者的网关屏障中删除，以避免生产者死锁。
+ * 注意：halt不会等待已发布的事件消费完毕。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class EventPipeline<T> {
+
+    private static final int ST_UNSTARTED = 0;
+    private static final int ST_RUNNING = 1;
+    private static final int ST_HALTED = 2;
+
+    private final EventSequencer<? extends T> eventSequencer;
+    private final ThreadFactory threadFactory;
+    private final List<Stage<T>> stages;
+    private final List<Runnable> processors;
+    private final SequenceBarrier[] gatingBarriers;
+    private final List<Thread> threads;
+    private volatile int state = ST_UNSTARTED;
+
+    @SuppressWarnings("deprecation")
+    private EventPipeline(Builder<T> builder) {
+        this.eventSequencer = builder.eventSequencer;
+        this.threadFactory = builder.threadFactory;
+        this.stages = List.copyOf(builder.stages);
+        this.processors = List.copyOf(builder.processors);
+        this.threads = new ArrayList<>(processors.size());
+
+        // 未被其它阶段依赖的屏障即为消费链的末端，生产者需要追踪它们的进度
+        // 中间阶段的屏障也需要同步到生产者的进度，否则末端屏障会等待中间阶段消费已被覆盖的数据
+        long cursor = eventSequencer.producerBarrier().sequence();
+        List<SequenceBarrier> gatingBarriers = new ArrayList<>();
+        for (Stage<T> stage : stages) {
+            for (ConsumerBarrier barrier : stage.barriers) {
+                barrier.claim(cursor);
+                if (!builder.dependedBarriers.contains(barrier)) {
+                    gatingBarriers.add(barrier);
+                }
+            }
+        }
+        this.gatingBarriers = gatingBarriers.toArray(new SequenceBarrier[0]);
+        eventSequencer.addGatingBarriers(this.gatingBarriers);
+    }
+
+    public static <T> Builder<T> newBuilder(EventSequencer<? extends T> eventSequencer) {
+        return new Builder<>(eventSequencer);
+    }
+
+    /** 流水线关联的事件生成器 */
+    public EventSequencer<? extends T> getEventSequencer() {
+        return eventSequencer;
+    }
+
+    /** 所有的阶段，按照声明顺序 */
+    public List<Stage<T>> getStages() {
+        return stages;
+    }
+
+    /** 消费链末端的屏障 -- 已添加为生产者的网关屏障 */
+    public List<SequenceBarrier> getGatingBarriers() {
+        return List.of(gatingBarriers);
+    }
+
+    /** 生产者的进度 */
+    public long cursor() {
+        return eventSequencer.producerBarrier().sequence();
+    }
+
+    /**
+     * 整条流水线的积压事件数
+     * 即：生产者进度 - 最慢的末端消费者进度
+     */
+    public long lag() {
+        long cursor = cursor();
+        return Math.max(0, cursor - Util.getMinimumSequence(gatingBarriers, cursor));
+    }
+
+    public boolean isRunning() {
+        return state == ST_RUNNING;
+    }
+
+    /**
+     * 启动所有的消费者线程
+     *
+     * @throws IllegalStateException 如果已启动
+     */
+    public synchronized void start() {
+        if (state != ST_UNSTARTED) {
+            throw new IllegalStateException("started");
+        }
+        state = ST_RUNNING;
+        for (Runnable processor : processors) {
+            Thread thread = Objects.requireNonNull(threadFactory.newThread(processor), "newThread");
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /** 通知所有消费者停止 -- 不等待消费者线程退出 */
+    public void halt() {
+        synchronized (this) {
+            if (state == ST_HALTED) {
+                return;
+            }
+            state = ST_HALTED;
+        }
+        for (Stage<T> stage : stages) {
+            for (ConsumerBarrier barrier : stage.barriers) {
+                barrier.alert();
+            }
+        }
+        // 未启动的情况下需要立即解除生产者的依赖
+        if (threads.isEmpty()) {
+            removeGatingBarriers();
+        }
+    }
+
+    /**
+     * 等待所有的消费者线程退出
+     *
+     * @return 如果所有线程都已退出则返回true
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Thread thread : threads) {
+            long remainNanos = deadline - System.nanoTime();
+            if (remainNanos <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedJoin(thread, remainNanos);
+            if (thread.isAlive()) {
+                return false;
+            }
+        }
+        if (state == ST_HALTED) {
+            removeGatingBarriers();
+        }
+        return true;
+    }
+
+    private void removeGatingBarriers() {
+        for (SequenceBarrier barrier : gatingBarriers) {
+            eventSequencer.removeGatingBarrier(barrier);
+        }
+    }
+
+    /**
+     * 流水线的一个阶段
+     * 1. 一个阶段由一次{@code handleWith}声明创建，可能包含多个屏障（广播）。
+     * 2. 通过{@link Builder#after(Stage[])}创建的联合阶段仅用于声明依赖，不会出现在{@link EventPipeline#getStages()}中。
+     */
+    public static final class Stage<T> {
+
+        private final Builder<T> builder;
+        private final String name;
+        private final ConsumerBarrier[] barriers;
+
+        private Stage(Builder<T> builder, String name, ConsumerBarrier[] barriers) {
+            this.builder = builder;
+            this.name = name;
+            this.barriers = barriers;
+        }
+
+        /** 阶段的名字，用于诊断 */
+        public String getName() {
+            return name;
+        }
+
+        /** 阶段包含的屏障 */
+        public List<ConsumerBarrier> getBarriers() {
+            return List.of(barriers);
+        }
+
+        /** 阶段的进度 -- 最慢的屏障的进度 */
+        public long sequence() {
+            return Util.getMinimumSequence(barriers);
+        }
+
+        /**
+         * 阶段的积压事件数
+         * 即：生产者进度 - 阶段进度
+         */
+        public long lag() {
+            long cursor = builder.eventSequencer.producerBarrier().sequence();
+            return Math.max(0, cursor - Util.getMinimumSequence(barriers, cursor));
+        }
+
+        /** 创建依赖当前阶段的广播阶段 */
+        @SafeVarargs
+        public final Stage<T> then(EventHandler<? super T>... handlers) {
+            return builder.createBroadcastStage(barriers, handlers);
+        }
+
+        /** 创建依赖当前阶段的工作池阶段 */
+        @SafeVarargs
+        public final Stage<T> thenWorkerPool(EventHandler<? super T>... handlers) {
+            return builder.createWorkerPoolStage(barriers, handlers);
+        }
+
+        @Override
+        public String toString() {
+            return "Stage{" +
+                    "name='" + name + '\'' +
+                    ", sequence=" + sequence() +
+                    ", lag=" + lag() +
+                    '}';
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final EventSequencer<? extends T> eventSequencer;
+        private ThreadFactory threadFactory = Thread::new;
+        private WaitStrategy waitStrategy;
+
+        private final List<Stage<T>> stages = new ArrayList<>();
+        private final List<Runnable> processors = new ArrayList<>();
+        /** 被其它阶段依赖的屏障 -- 使用引用相等 */
+        private final Set<ConsumerBarrier> dependedBarriers = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean built;
+
+        private Builder(EventSequencer<? extends T> eventSequencer) {
+            this.eventSequencer = Objects.requireNonNull(eventSequencer, "eventSequencer");
+        }
+
+        /** 创建消费者线程的工厂 */
+        public ThreadFactory getThreadFactory() {
+            return threadFactory;
+        }
+
+        public Builder<T> setThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = Objects.requireNonNull(threadFactory);
+            return this;
+        }
+
+        /**
+         * 消费者的等待策略
+         * 如果未指定，则使用{@link Sequencer#getWaitStrategy()}中的默认等待策略。
+         * 注意：只影响在这之后创建的阶段。
+         */
+        public WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        public Builder<T> setWaitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /** 创建一个直接依赖生产者的广播阶段 -- 每个handler都将消费所有事件 */
+        @SafeVarargs
+        public final Stage<T> handleWith(EventHandler<? super T>... handlers) {
+            return createBroadcastStage(new ConsumerBarrier[0], handlers);
+        }
+
+        /** 创建一个直接依赖生产者的工作池阶段 -- 每个事件只被一个handler消费 */
+        @SafeVarargs
+        public final Stage<T> handleWithWorkerPool(EventHandler<? super T>... handlers) {
+            return createWorkerPoolStage(new ConsumerBarrier[0], handlers);
+        }
+
+        /**
+         * 创建一个联合阶段，以声明依赖多个阶段的下游阶段（菱形依赖）
+         * 联合阶段自身不包含消费者。
+         */
+        @SafeVarargs
+        public final Stage<T> after(Stage<T>... stages) {
+            checkState();
+            if (stages.length == 0) {
+                throw new IllegalArgumentException("stages is empty");
+            }
+            List<ConsumerBarrier> barriers = new ArrayList<>();
+            for (Stage<T> stage : stages) {
+                if (stage.builder != this) {
+                    throw new IllegalArgumentException("stage is not created by this builder");
+                }
+                barriers.addAll(Arrays.asList(stage.barriers));
+            }
+            return new Stage<>(this, "after", barriers.toArray(new ConsumerBarrier[0]));
+        }
+
+        public EventPipeline<T> build() {
+            checkState();
+            if (stages.isEmpty()) {
+                throw new IllegalStateException("stages is empty");
+            }
+            built = true;
+            return new EventPipeline<>(this);
+        }
+
+        private void checkState() {
+            if (built) {
+                throw new IllegalStateException("built");
+            }
+        }
+
+        private void checkHandlers(EventHandler<?>[] handlers) {
+            if (handlers.length == 0) {
+                throw new IllegalArgumentException("handlers is empty");
+            }
+            Util.checkNullElements(handlers, "handlers");
+        }
+
+        private void markDepended(ConsumerBarrier[] dependentBarriers) {
+            dependedBarriers.addAll(Arrays.asList(dependentBarriers));
+        }
+
+        private Stage<T> createBroadcastStage(ConsumerBarrier[] dependentBarriers, EventHandler<? super T>[] handlers) {
+            checkState();
+            checkHandlers(handlers);
+            ConsumerBarrier[] barriers = new ConsumerBarrier[handlers.length];
+            for (int i = 0; i < handlers.length; i++) {
+                ConsumerBarrier barrier = eventSequencer.newSingleConsumerBarrier(waitStrategy, dependentBarriers);
+                barriers[i] = barrier;
+                processors.add(new BatchEventProcessor<>(eventSequencer.dataProvider(), barrier, handlers[i]));
+            }
+            markDepended(dependentBarriers);
+
+            Stage<T> stage = new Stage<>(this, "stage-" + stages.size(), barriers);
+            stages.add(stage);
+            return stage;
+        }
+
+        private Stage<T> createWorkerPoolStage(ConsumerBarrier[] dependentBarriers, EventHandler<? super T>[] handlers) {
+            checkState();
+            checkHandlers(handlers);
+            ConsumerBarrier barrier = eventSequencer.newMultiConsumerBarrier(handlers.length, waitStrategy, dependentBarriers);
+            for (int i = 0; i < handlers.length; i++) {
+                processors.add(new WorkProcessor<>(eventSequencer.dataProvider(), barrier, i, handlers[i]));
+            }
+            markDepended(dependentBarriers);
+
+            Stage<T> stage = new Stage<>(this, "stage-" + stages.size(), new ConsumerBarrier[]{barrier});
+            stages.add(stage);
+            return stage;
+        }
+    }
+}
@@ -54,17 +54,41 @@ public final class MultiProducerSequencer extends RingBufferSequencer {
      * 注意：与disruptor的解决方案不同，我存储的是槽位当前的序号 -- 这可以使用更久，也可避免额外的计算。
      */
     private final long[] published;
+    /**
+     * 批量发布的结束序号，仅在批量感知模式下存在。
+     * 1. 批量发布[lo, hi]时，在lo对应的槽位上记录hi，消费者看见lo已发布时，可直接跳过整个批次。
+     * 2. 只有批次的起始槽位会写入，其它槽位上的值来自更早的批次 -- 由于批次大小不超过bufferSize，旧值一定小于槽位当前的序号，
+     * 因此消费者读取到小于等于当前序号的值时，退化为逐个检查。
+     * 3. 写入先于lo的发布标记，因此通过发布标记的acquire语义保证可见性，数组元素本身使用普通读写。
+     */
+    private final long[] batchEnds;
     /** 用于快速的计算序号对应的下标 */
     private final int indexMask;
 
     public MultiProducerSequencer(int bufferSize, long sleepNanos, WaitStrategy waitStrategy, @Nullable SequenceBlocker blocker) {
+        this(bufferSize, sleepNanos, waitStrategy, blocker, false);
+    }
+
+    /**
+     * @param batchAware 是否启用批量感知模式。
+     *                   启用后，消费者可以O(1)跳过通过{@link #publish(long, long)}发布的整个批次，
+     *                   代价是批量发布时额外写一个元素 -- 生产者经常批量发布时建议启用。
+     */
+    public MultiProducerSequencer(int bufferSize, long sleepNanos, WaitStrategy waitStrategy, @Nullable SequenceBlocker blocker,
+                                  boolean batchAware) {
         super(bufferSize, sleepNanos, waitStrategy, blocker);
 
         this.indexMask = bufferSize - 1;
         this.published = new long[bufferSize];
+        this.batchEnds = batchAware ? new long[bufferSize] : null;
         initPublished(-1);
     }
 
+    /** 是否启用了批量感知模式 */
+    public boolean isBatchAware() {
+        return batchEnds != null;
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     public void claim(long sequence) {
@@ -74,6 +98,9 @@ public final class MultiProducerSequencer extends RingBufferSequencer {
 
     private void initPublished(long value) {
         Arrays.fill(published, value);
+        if (batchEnds != null) {
+            Arrays.fill(batchEnds, value);
+        }
     }
 
     private static int indexOfSequence(long sequence, int indexMask) {
@@ -107,9 +134,27 @@ public final class MultiProducerSequencer extends RingBufferSequencer {
         signalAllWhenBlocking();
     }
 
+    /** 批量感知模式下的批量发布 -- 起始序号的标记最后写入，消费者看见起始序号时，整个批次都是可见的 */
+    private void setBatchPublished(long lo, long hi) {
+        final long[] published = this.published;
+        final int indexMask = this.indexMask;
+
+        int loIndex = indexOfSequence(lo, indexMask);
+        batchEnds[loIndex] = hi; // store plain，由lo的发布标记保证可见性
+        VarHandle.releaseFence(); // 确保其它槽位的标记不会重排序到数据填充之前
+        for (long seq = lo + 1; seq <= hi; seq++) {
+            published[indexOfSequence(seq, indexMask)] = seq; // store plain
+        }
+        VH_PUBLISHED_ELEMENTS.setRelease(published, loIndex, lo); // flush
+    }
+
     @Override
     public void publish(long lo, long hi) {
-        setPublished(lo, hi);
+        if (batchEnds != null && lo < hi) {
+            setBatchPublished(lo, hi);
+        } else {
+            setPublished(lo, hi);
+        }
         signalAllWhenBlocking();
     }
 
@@ -122,6 +167,9 @@ public final class MultiProducerSequencer extends RingBufferSequencer {
 
     @Override
     public long getHighestPublishedSequence(long lowerBound, long availableSequence) {
+        if (batchEnds != null) {
+            return getHighestPublishedSequenceBatchAware(lowerBound, availableSequence);
+        }
         final long[] published = this.published;
         final int indexMask = this.indexMask;
         final VarHandle varHandle = VH_PUBLISHED_ELEMENTS;
@@ -136,6 +184,32 @@ public final class MultiProducerSequencer extends RingBufferSequencer {
         return availableSequence;
     }
 
+    private long getHighestPublishedSequenceBatchAware(long lowerBound, long availableSequence) {
+        final long[] published = this.published;
+        final long[] batchEnds = this.batchEnds;
+        final int indexMask = this.indexMask;
+        final VarHandle varHandle = VH_PUBLISHED_ELEMENTS;
+        long sequence = lowerBound;
+        while (sequence <= availableSequence) {
+            int index = indexOfSequence(sequence, indexMask);
+            long flag = (long) varHandle.getVolatile(published, index);
+            if (flag != sequence) {
+                return sequence - 1;
+            }
+            // 起始槽位记录了批次的结束序号，整个批次都已可见；否则是旧值，逐个检查
+            long batchEnd = batchEnds[index];
+            if (batchEnd > sequence) {
+                if (batchEnd >= availableSequence) {
+                    return availableSequence;
+                }
+                sequence = batchEnd + 1;
+            } else {
+                sequence++;
+            }
+        }
+        return availableSequence;
+    }
+
     // region sequencer
 
     @Override
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 自适应的分阶段退避等待策略。
+ * <p>
+ * 1. 先自旋等待，然后yield，然后以递增的时长park，最后通过{@link SequenceBlocker}条件等待生产者。
+ * 2. 自旋和yield阶段的时长根据观察到的等待时长（生产者的到达间隔）自适应调整：
+ * 事件密集时，等待时长短，自旋可以及时捕获下一个事件，因此延长自旋；事件稀疏时，自旋是纯粹的浪费，因此缩短至最小值。
+ * 3. 如果未启用{@link SequenceBlocker}，则最后一个阶段退化为以最大时长park。
+ * 4. 如果设置了超时时间，等待超时将返回{@code sequence - 1}，EventLoop这类需要处理定时任务的消费者应当设置超时。
+ * <p>
+ * 注意：该策略是有状态的，每个消费者应当使用独立的实例；统计数据只由消费者线程写入，其它线程可以无锁读取。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class PhasedBackoffWaitStrategy implements WaitStrategy {
+
+    /** 等待结束时所处的阶段 */
+    public static final int PHASE_SPIN = 0;
+    public static final int PHASE_YIELD = 1;
+    public static final int PHASE_PARK = 2;
+    public static final int PHASE_BLOCK = 3;
+    public static final int PHASE_TIMEOUT = 4;
+
+    /** 指数移动平均的平滑因子 1/8 */
+    private static final int EWMA_SHIFT = 3;
+
+    /** 统计数据只需要原子性和最终可见性，不需要与其它字段保持顺序 */
+    private static final VarHandle VH_PHASE_COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long minSpinNanos;
+    private final long maxSpinNanos;
+    private final long minYieldNanos;
+    private final long maxYieldNanos;
+    private final long minParkNanos;
+    private final long maxParkNanos;
+    private final long parkPhaseNanos;
+    private final long timeoutNanos;
+
+    // 自适应状态 -- 只由消费者线程写
+    private volatile long avgWaitNanos;
+    private volatile long spinThresholdNanos;
+    private volatile long yieldThresholdNanos;
+    // 统计数据 -- 只由消费者线程写，其它线程通过VH_PHASE_COUNTS读取
+    private final long[] phaseCounts = new long[PHASE_TIMEOUT + 1];
+    private volatile long waitCount;
+
+    public PhasedBackoffWaitStrategy() {
+        this(new Builder());
+    }
+
+    private PhasedBackoffWaitStrategy(Builder builder) {
+        this.minSpinNanos = builder.minSpinNanos;
+        this.maxSpinNanos = Math.max(builder.minSpinNanos, builder.maxSpinNanos);
+        this.minYieldNanos = builder.minYieldNanos;
+        this.maxYieldNanos = Math.max(builder.minYieldNanos, builder.maxYieldNanos);
+        this.minParkNanos = Math.max(1, builder.minParkNanos);
+        this.maxParkNanos = Math.max(minParkNanos, builder.maxParkNanos);
+        this.parkPhaseNanos = builder.parkPhaseNanos;
+        this.timeoutNanos = builder.timeoutNanos;
+
+        this.spinThresholdNanos = maxSpinNanos;
+        this.yieldThresholdNanos = maxSpinNanos + maxYieldNanos;
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    @Override
+    public long waitFor(long sequence, ProducerBarrier producerBarrier, ConsumerBarrier barrier)
+            throws AlertException, InterruptedException {
+        long availableSequence = barrier.dependentSequence();
+        if (availableSequence >= sequence) {
+            return availableSequence; // 无需等待时不统计，避免干扰自适应
+        }
+
+        final long spinThreshold = this.spinThresholdNanos;
+        final long yieldThreshold = this.yieldThresholdNanos;
+        final long parkThreshold = yieldThreshold + parkPhaseNanos;
+        final long startTime = System.nanoTime();
+        long parkNanos = minParkNanos;
+        long elapsed = 0;
+        int phase = PHASE_SPIN;
+        while ((availableSequence = barrier.dependentSequence()) < sequence) {
+            barrier.checkAlert();
+
+            elapsed = System.nanoTime() - startTime;
+            if (timeoutNanos > 0 && elapsed >= timeoutNanos) {
+                onWaitCompleted(timeoutNanos, PHASE_TIMEOUT);
+                return sequence - 1;
+            }
+            if (elapsed < spinThreshold) {
+                phase = PHASE_SPIN;
+                Thread.onSpinWait();
+            } else if (elapsed < yieldThreshold) {
+                phase = PHASE_YIELD;
+                Thread.yield();
+            } else if (elapsed < parkThreshold || producerBarrier.getBlocker() == null) {
+                phase = PHASE_PARK;
+                LockSupport.parkNanos(timeoutNanos > 0 ? Math.min(parkNanos, timeoutNanos - elapsed) : parkNanos);
+                parkNanos = Math.min(parkNanos << 1, maxParkNanos);
+            } else {
+                phase = PHASE_BLOCK;
+                if (!blockForProducer(sequence, producerBarrier, barrier, startTime)) {
+                    onWaitCompleted(timeoutNanos, PHASE_TIMEOUT);
+                    return sequence - 1;
+                }
+                // 生产者已发布数据，以最大时长park等待前置消费者
+                parkNanos = maxParkNanos;
+                if (barrier.dependentSequence() < sequence) {
+                    LockSupport.parkNanos(parkNanos);
+                }
+            }
+        }
+        onWaitCompleted(System.nanoTime() - startTime, phase);
+        return availableSequence;
+    }
+
+    /** @return 如果等待超时则返回false */
+    private boolean blockForProducer(long sequence, ProducerBarrier producerBarrier, ConsumerBarrier barrier,
+                                     long startTime) throws AlertException, InterruptedException {
+        if (producerBarrier.sequence() >= sequence) {
+            return true;
+        }
+        SequenceBlocker blocker = producerBarrier.getBlocker();
+        assert blocker != null;
+        blocker.lock();
+        try {
+            while (producerBarrier.sequence() < sequence) {
+                barrier.checkAlert();
+                if (timeoutNanos > 0) {
+                    long remainNanos = timeoutNanos - (System.nanoTime() - startTime);
+                    if (remainNanos <= 0 || blocker.awaitNanos(remainNanos) <= 0) {
+                        return producerBarrier.sequence() >= sequence;
+                    }
+                } else {
+                    blocker.await();
+                }
+            }
+        } finally {
+            blocker.unlock();
+        }
+        return true;
+    }
+
+    /** 更新自适应阈值和统计数据 */
+    private void onWaitCompleted(long waitNanos, int phase) {
+        long avg = this.avgWaitNanos;
+        avg = (avg == 0) ? waitNanos : avg + ((waitNanos - avg) >> EWMA_SHIFT);
+        this.avgWaitNanos = avg;
+
+        // 平均等待时长在自旋上限以内时，自旋两倍的平均时长基本可以捕获下一个事件；否则自旋没有意义
+        long spinNanos = avg <= maxSpinNanos ? clamp(avg << 1, minSpinNanos, maxSpinNanos) : minSpinNanos;
+        long yieldNanos = avg <= maxSpinNanos + maxYieldNanos ? clamp(avg << 1, minYieldNanos, maxYieldNanos) : minYieldNanos;
+        this.spinThresholdNanos = spinNanos;
+        this.yieldThresholdNanos = spinNanos + yieldNanos;
+
+        VH_PHASE_COUNTS.setOpaque(phaseCounts, phase, phaseCounts[phase] + 1); // 单写者，读自己的写无需同步
+        waitCount++;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    // region metrics
+
+    /** 观察到的平均等待时长（指数移动平均） */
+    public long getAvgWaitNanos() {
+        return avgWaitNanos;
+    }
+
+    /** 当前的自旋阶段时长 */
+    public long getSpinThresholdNanos() {
+        return spinThresholdNanos;
+    }
+
+    /** 当前的自旋+yield阶段时长 */
+    public long getYieldThresholdNanos() {
+        return yieldThresholdNanos;
+    }
+
+    /** 需要等待的次数 -- 不包含无需等待的调用 */
+    public long getWaitCount() {
+        return waitCount;
+    }
+
+    /**
+     * 在给定阶段结束等待的次数
+     *
+     * @param phase {@link #PHASE_SPIN}等常量
+     */
+    public long getPhaseCount(int phase) {
+        return (long) VH_PHASE_COUNTS.getOpaque(phaseCounts, phase);
+    }
+
+    // endregion
+
+    public static class Builder {
+
+        private long minSpinNanos = 1000;
+        private long maxSpinNanos = 50_000;
+        private long minYieldNanos = 1000;
+        private long maxYieldNanos = 200_000;
+        private long minParkNanos = 10_000;
+        private long maxParkNanos = 1_000_000;
+        private long parkPhaseNanos = 10_000_000;
+        private long timeoutNanos = 0;
+
+        public PhasedBackoffWaitStrategy build() {
+            return new PhasedBackoffWaitStrategy(this);
+        }
+
+        /** 自旋阶段的最小和最大时长 */
+        public Builder setSpinNanos(long minSpinNanos, long maxSpinNanos) {
+            this.minSpinNanos = minSpinNanos;
+            this.maxSpinNanos = maxSpinNanos;
+            return this;
+        }
+
+        /** yield阶段的最小和最大时长 */
+        public Builder setYieldNanos(long minYieldNanos, long maxYieldNanos) {
+            this.minYieldNanos = minYieldNanos;
+            this.maxYieldNanos = maxYieldNanos;
+            return this;
+        }
+
+        /**
+         * park阶段每次挂起的时长，从最小值开始每次翻倍，直至最大值
+         * ps: windows上park的精度很低，过小的值意义不大
+         */
+        public Builder setParkNanos(long minParkNanos, long maxParkNanos) {
+            this.minParkNanos = minParkNanos;
+            this.maxParkNanos = maxParkNanos;
+            return this;
+        }
+
+        /** park阶段的总时长，超过该时长后通过{@link SequenceBlocker}等待生产者 */
+        public Builder setParkPhaseNanos(long parkPhaseNanos) {
+            this.parkPhaseNanos = parkPhaseNanos;
+            return this;
+        }
+
+        /** 超时时间，0表示不超时 */
+        public Builder setTimeout(long timeout, TimeUnit unit) {
+            this.timeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+    }
+}
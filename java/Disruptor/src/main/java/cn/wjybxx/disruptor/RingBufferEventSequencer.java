@@ -36,7 +36,8 @@ public class RingBufferEventSequencer<T> implements EventSequencer<T> {
                     builder.getBufferSize(),
                     builder.getProducerSleepNanos(),
                     builder.getWaitStrategy(),
-                    builder.getBlocker());
+                    builder.getBlocker(),
+                    builder.isBatchAware());
         } else {
             sequencer = new SingleProducerSequencer(
                     builder.getBufferSize(),
@@ -175,6 +176,7 @@ public class RingBufferEventSequencer<T> implements EventSequencer<T> {
 
         private ProducerType producerType = ProducerType.MULTI;
         private int bufferSize = 8192;
+        private boolean batchAware = false;
 
         public Builder(EventFactory<? extends T> factory) {
             super(factory);
@@ -195,6 +197,21 @@ public class RingBufferEventSequencer<T> implements EventSequencer<T> {
             return this;
         }
 
+        /**
+         * 多生产者模式下，是否启用批量感知的可用性检查。
+         * 启用后，消费者可以跳过通过{@link ProducerBarrier#publish(long, long)}批量发布的整个批次。
+         *
+         * @see MultiProducerSequencer#isBatchAware()
+         */
+        public boolean isBatchAware() {
+            return batchAware;
+        }
+
+        public Builder<T> setBatchAware(boolean batchAware) {
+            this.batchAware = batchAware;
+            return this;
+        }
+
         /** 环形缓冲区的大小 */
         public int getBufferSize() {
             return bufferSize;
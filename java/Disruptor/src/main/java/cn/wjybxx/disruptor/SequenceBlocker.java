@@ -72,9 +72,15 @@ public final class SequenceBlocker {
      * 1.该接口由该屏障的上游或第三方在停止时调用。
      * 2.唤醒不意味着等待的序号已变为可用，在醒来后需要检查中断和终止信号。
      * 3.由于消费者共用一个Blocker，因此还会受到其它消费者的牵连。
+     * 4.{@link Condition}要求持有锁才能通知，因此这里需要先获取锁。
      */
     public void signalAll() {
-        condition.signalAll();
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
     }
 
 }
\ No newline at end of file
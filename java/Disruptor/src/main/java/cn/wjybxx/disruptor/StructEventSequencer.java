@@ -0,0 +1,282 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import java.util.Objects;
+
+/**
+ * 基于{@link StructRingBuffer}的事件序列器，适用于固定布局的原生类型事件。
+ * <p>
+ * 生产者示例：
+ * <pre>{@code
+ *  StructRingBuffer.Flyweight flyweight = sequencer.getBuffer().newFlyweight(); // 线程私有，复用
+ *  long sequence = sequencer.next();
+ *  try {
+ *      flyweight.bind(sequence);
+ *      flyweight.setLong(0, id);
+ *      flyweight.setInt(0, type);
+ *  } finally {
+ *      sequencer.publish(sequence);
+ *  }
+ * }</pre>
+ * 消费者应当直接访问{@link #getBuffer()}，而不是通过{@link #consumerGet(long)}，后者每次都会创建享元。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class StructEventSequencer implements EventSequencer<StructRingBuffer.Flyweight> {
+
+    private final StructRingBuffer buffer;
+    private final RingBufferSequencer sequencer;
+
+    private StructEventSequencer(Builder builder) {
+        Objects.requireNonNull(builder);
+        this.buffer = new StructRingBuffer(builder.getBufferSize(), builder.getLongFieldCount(), builder.getIntFieldCount());
+        if (builder.getProducerType() == ProducerType.MULTI) {
+            sequencer = new MultiProducerSequencer(
+                    builder.getBufferSize(),
+                    builder.getProducerSleepNanos(),
+                    builder.getWaitStrategy(),
+                    builder.getBlocker(),
+                    builder.isBatchAware());
+        } else {
+            sequencer = new SingleProducerSequencer(
+                    builder.getBufferSize(),
+                    builder.getProducerSleepNanos(),
+                    builder.getWaitStrategy(),
+                    builder.getBlocker());
+        }
+    }
+
+    public StructRingBuffer getBuffer() {
+        return buffer;
+    }
+
+    // region buffer
+
+    @Override
+    public final StructRingBuffer.Flyweight get(long sequence) {
+        return buffer.get(sequence);
+    }
+
+    @Override
+    public final StructRingBuffer.Flyweight producerGet(long sequence) {
+        return buffer.producerGet(sequence);
+    }
+
+    @Override
+    public final StructRingBuffer.Flyweight consumerGet(long sequence) {
+        return buffer.consumerGet(sequence);
+    }
+
+    @Override
+    public void producerSet(long sequence, StructRingBuffer.Flyweight data) {
+        buffer.producerSet(sequence, data);
+    }
+
+    @Override
+    public void consumerSet(long sequence, StructRingBuffer.Flyweight data) {
+        buffer.consumerSet(sequence, data);
+    }
+
+    @Override
+    public int capacity() {
+        return buffer.getBufferSize();
+    }
+
+    @Override
+    public long remainingCapacity() {
+        return sequencer.remainingCapacity();
+    }
+
+    @Override
+    public Sequencer sequencer() {
+        return sequencer;
+    }
+
+    @Override
+    public ProducerBarrier producerBarrier() {
+        return sequencer;
+    }
+
+    @Override
+    public DataProvider<StructRingBuffer.Flyweight> dataProvider() {
+        return buffer;
+    }
+    // endregion
+
+    // region producer
+
+    @Override
+    public boolean hasAvailableCapacity(int requiredCapacity) {
+        return sequencer.hasAvailableCapacity(requiredCapacity);
+    }
+
+    @Override
+    public long next() {
+        return sequencer.next(1);
+    }
+
+    @Override
+    public long next(int n) {
+        return sequencer.next(n);
+    }
+
+    @Override
+    public long tryNext() {
+        return sequencer.tryNext(1);
+    }
+
+    @Override
+    public long tryNext(int n) {
+        return sequencer.tryNext(n);
+    }
+
+    @Override
+    public void publish(long sequence) {
+        sequencer.publish(sequence);
+    }
+
+    @Override
+    public void publish(long lo, long hi) {
+        sequencer.publish(lo, hi);
+    }
+    // endregion
+
+    // region builder
+
+    /** 多线程生产者builder */
+    public static Builder newMultiProducer(int longFieldCount, int intFieldCount) {
+        return new Builder(longFieldCount, intFieldCount)
+                .setProducerType(ProducerType.MULTI);
+    }
+
+    /** 单线程生产者builder */
+    public static Builder newSingleProducer(int longFieldCount, int intFieldCount) {
+        return new Builder(longFieldCount, intFieldCount)
+                .setProducerType(ProducerType.SINGLE);
+    }
+
+    /**
+     * 注意：事件不是由工厂创建的，因此builder不继承{@link EventSequencerBuilder}。
+     */
+    public static class Builder {
+
+        private final int longFieldCount;
+        private final int intFieldCount;
+        private ProducerType producerType = ProducerType.MULTI;
+        private int bufferSize = 8192;
+        private boolean batchAware = false;
+        private long producerSleepNanos = 1;
+        private WaitStrategy waitStrategy = TimeoutSleepingWaitStrategy.INSTANCE;
+        private SequenceBlocker blocker;
+
+        /**
+         * @param longFieldCount 每个事件的long字段数
+         * @param intFieldCount  每个事件的int字段数
+         */
+        public Builder(int longFieldCount, int intFieldCount) {
+            this.longFieldCount = longFieldCount;
+            this.intFieldCount = intFieldCount;
+        }
+
+        public StructEventSequencer build() {
+            return new StructEventSequencer(this);
+        }
+
+        public int getLongFieldCount() {
+            return longFieldCount;
+        }
+
+        public int getIntFieldCount() {
+            return intFieldCount;
+        }
+
+        /** 生产者的类型 */
+        public ProducerType getProducerType() {
+            return producerType;
+        }
+
+        public Builder setProducerType(ProducerType producerType) {
+            this.producerType = Objects.requireNonNull(producerType);
+            return this;
+        }
+
+        /**
+         * 多生产者模式下，是否启用批量感知的可用性检查。
+         * 启用后，消费者可以跳过通过{@link ProducerBarrier#publish(long, long)}批量发布的整个批次。
+         *
+         * @see MultiProducerSequencer#isBatchAware()
+         */
+        public boolean isBatchAware() {
+            return batchAware;
+        }
+
+        public Builder setBatchAware(boolean batchAware) {
+            this.batchAware = batchAware;
+            return this;
+        }
+
+        /** 环形缓冲区的大小 */
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        public Builder setBufferSize(int bufferSize) {
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /** @see EventSequencerBuilder#getProducerSleepNanos() */
+        public long getProducerSleepNanos() {
+            return producerSleepNanos;
+        }
+
+        public Builder setProducerSleepNanos(long producerSleepNanos) {
+            this.producerSleepNanos = producerSleepNanos;
+            return this;
+        }
+
+        /** 消费者默认的等待策略 */
+        public WaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        public Builder setWaitStrategy(WaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+
+        /** 序列阻塞器 */
+        public SequenceBlocker getBlocker() {
+            return blocker;
+        }
+
+        /** @see EventSequencerBuilder#enableBlocker() */
+        public Builder enableBlocker() {
+            blocker = new SequenceBlocker();
+            return this;
+        }
+
+        public Builder disableBlocker() {
+            blocker = null;
+            return this;
+        }
+    }
+
+    // endregion
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 存储固定布局事件的环形缓冲区。
+ * <p>
+ * {@link RingBuffer}的每一个槽位都是一个独立的堆对象，对于(long id, int type, long timestamp)这类很小的事件，
+ * 访问事件需要额外的一次指针跳转，且事件对象在堆上不一定连续，缓存局部性较差。
+ * 该缓冲区将事件的long字段和int字段分别存储在{@code long[]}和{@code int[]}中，同一个事件的同类字段是连续的，
+ * 相邻事件也是连续的，因此顺序消费时可以充分利用缓存行和硬件预取。
+ *
+ * <h3>访问方式</h3>
+ * 1. 通过{@link #getLong(long, int)}等方法直接读写字段 -- 无额外开销。
+ * 2. 通过{@link #newFlyweight()}创建享元，然后通过{@link Flyweight#bind(long)}绑定到序号 -- 享元应当由每个线程持有并复用。
+ * 3. {@link DataProvider}的get方法每次都会创建新的享元，仅用于兼容。
+ * <p>
+ * ps: 数据的可见性由{@link Sequencer}的发布保证，因此字段的读写都是普通读写。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public final class StructRingBuffer implements DataProvider<StructRingBuffer.Flyweight> {
+
+    /** 前后缓存行填充的元素数量 -- 16个long或int足以覆盖一个缓存行 */
+    private static final int BUFFER_PAD = 16;
+
+    // region padding
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+    // endregion
+
+    /** 索引掩码 */
+    private final long indexMask;
+    /** 每个事件的long字段数 */
+    private final int longFieldCount;
+    /** 每个事件的int字段数 */
+    private final int intFieldCount;
+    /** long字段数据 */
+    private final long[] longs;
+    /** int字段数据 */
+    private final int[] ints;
+    /** 缓冲区大小 */
+    private final long bufferSize;
+
+    // region padding
+    @SuppressWarnings("unused")
+    private long p11, p12, p13, p14, p15, p16, p17;
+    // endregion
+
+    /**
+     * @param bufferSize     缓冲区大小，必须是2的整次幂
+     * @param longFieldCount 每个事件的long字段数
+     * @param intFieldCount  每个事件的int字段数
+     */
+    public StructRingBuffer(int bufferSize, int longFieldCount, int intFieldCount) {
+        if (!Util.isPowerOfTwo(bufferSize)) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+        if (longFieldCount < 0 || intFieldCount < 0 || (longFieldCount + intFieldCount) == 0) {
+            throw new IllegalArgumentException(String.format("longFieldCount: %d, intFieldCount: %d", longFieldCount, intFieldCount));
+        }
+        this.bufferSize = bufferSize;
+        this.indexMask = bufferSize - 1;
+        this.longFieldCount = longFieldCount;
+        this.intFieldCount = intFieldCount;
+        this.longs = new long[Math.multiplyExact(bufferSize, longFieldCount) + BUFFER_PAD * 2];
+        this.ints = new int[Math.multiplyExact(bufferSize, intFieldCount) + BUFFER_PAD * 2];
+    }
+
+    /** 获取buffer大小 */
+    public int getBufferSize() {
+        return (int) bufferSize;
+    }
+
+    public int getLongFieldCount() {
+        return longFieldCount;
+    }
+
+    public int getIntFieldCount() {
+        return intFieldCount;
+    }
+
+    /** 创建一个享元 -- 享元不是线程安全的，每个线程应当持有自己的享元 */
+    public Flyweight newFlyweight() {
+        return new Flyweight(this);
+    }
+
+    // region 直接访问
+
+    private int slotIndex(long sequence) {
+        if (sequence < 0) {
+            throw new IllegalArgumentException("sequence: " + sequence);
+        }
+        return (int) (sequence & indexMask);
+    }
+
+    private int longIndex(long sequence, int field) {
+        Objects.checkIndex(field, longFieldCount);
+        return BUFFER_PAD + slotIndex(sequence) * longFieldCount + field;
+    }
+
+    private int intIndex(long sequence, int field) {
+        Objects.checkIndex(field, intFieldCount);
+        return BUFFER_PAD + slotIndex(sequence) * intFieldCount + field;
+    }
+
+    public long getLong(long sequence, int field) {
+        return longs[longIndex(sequence, field)];
+    }
+
+    public void setLong(long sequence, int field, long value) {
+        longs[longIndex(sequence, field)] = value;
+    }
+
+    public int getInt(long sequence, int field) {
+        return ints[intIndex(sequence, field)];
+    }
+
+    public void setInt(long sequence, int field, int value) {
+        ints[intIndex(sequence, field)] = value;
+    }
+
+    /** 清理给定序号的事件 */
+    public void clear(long sequence) {
+        int slot = slotIndex(sequence);
+        int longBase = BUFFER_PAD + slot * longFieldCount;
+        Arrays.fill(longs, longBase, longBase + longFieldCount, 0);
+        int intBase = BUFFER_PAD + slot * intFieldCount;
+        Arrays.fill(ints, intBase, intBase + intFieldCount, 0);
+    }
+
+    /** 将源序号的事件拷贝到目标序号 */
+    private void copy(StructRingBuffer src, long srcSequence, long dstSequence) {
+        if (src.longFieldCount != longFieldCount || src.intFieldCount != intFieldCount) {
+            throw new IllegalArgumentException("incompatible layout");
+        }
+        System.arraycopy(src.longs, BUFFER_PAD + src.slotIndex(srcSequence) * longFieldCount,
+                longs, BUFFER_PAD + slotIndex(dstSequence) * longFieldCount, longFieldCount);
+        System.arraycopy(src.ints, BUFFER_PAD + src.slotIndex(srcSequence) * intFieldCount,
+                ints, BUFFER_PAD + slotIndex(dstSequence) * intFieldCount, intFieldCount);
+    }
+
+    // endregion
+
+    // region DataProvider
+
+    @Override
+    public Flyweight get(long sequence) {
+        return newFlyweight().bind(sequence);
+    }
+
+    @Override
+    public Flyweight producerGet(long sequence) {
+        return newFlyweight().bind(sequence);
+    }
+
+    @Override
+    public Flyweight consumerGet(long sequence) {
+        return newFlyweight().bind(sequence);
+    }
+
+    /** 将享元绑定的事件拷贝到给定序号 */
+    @Override
+    public void producerSet(long sequence, Flyweight data) {
+        Objects.requireNonNull(data);
+        copy(data.buffer, data.sequence, sequence);
+    }
+
+    /** 如果data为null，则清理给定序号的事件，否则拷贝 */
+    @Override
+    public void consumerSet(long sequence, Flyweight data) {
+        if (data == null) {
+            clear(sequence);
+        } else {
+            copy(data.buffer, data.sequence, sequence);
+        }
+    }
+    // endregion
+
+    /**
+     * 享元 -- 绑定到序号后，以字段索引读写事件。
+     * 1. 绑定时计算好偏移量，读写字段时只剩数组访问。
+     * 2. 通常用户会在享元之上封装具名的访问方法，例如：{@code long id() { return getLong(0); }}
+     */
+    public static final class Flyweight {
+
+        private final StructRingBuffer buffer;
+        private long sequence = -1;
+        private int longBase = -1;
+        private int intBase = -1;
+
+        private Flyweight(StructRingBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /** 绑定到给定序号 */
+        public Flyweight bind(long sequence) {
+            int slot = buffer.slotIndex(sequence);
+            this.sequence = sequence;
+            this.longBase = BUFFER_PAD + slot * buffer.longFieldCount;
+            this.intBase = BUFFER_PAD + slot * buffer.intFieldCount;
+            return this;
+        }
+
+        /** 当前绑定的序号 */
+        public long sequence() {
+            return sequence;
+        }
+
+        public StructRingBuffer buffer() {
+            return buffer;
+        }
+
+        public long getLong(int field) {
+            Objects.checkIndex(field, buffer.longFieldCount);
+            return buffer.longs[longBase + field];
+        }
+
+        public void setLong(int field, long value) {
+            Objects.checkIndex(field, buffer.longFieldCount);
+            buffer.longs[longBase + field] = value;
+        }
+
+        public int getInt(int field) {
+            Objects.checkIndex(field, buffer.intFieldCount);
+            return buffer.ints[intBase + field];
+        }
+
+        public void setInt(int field, int value) {
+            Objects.checkIndex(field, buffer.intFieldCount);
+            buffer.ints[intBase + field] = value;
+        }
+
+        /** 清理绑定的事件 */
+        public void clear() {
+            buffer.clear(sequence);
+        }
+
+        @Override
+        public String toString() {
+            return "Flyweight{" +
+                    "sequence=" + sequence +
+                    '}';
+        }
+    }
+}
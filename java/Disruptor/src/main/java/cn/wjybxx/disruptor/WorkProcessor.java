@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import java.util.Objects;
+
+/**
+ * 工作池（多线程消费者）中的一个成员，实现基本和Disruptor的{@code WorkProcessor}一致。
+ * 1. 工作池的所有成员共享一个{@link ConsumerBarrier}，每一个事件只会被其中一个成员消费（单播）。
+ * 2. 屏障的{@link ConsumerBarrier#groupSequence()}作为工作序列，成员通过CAS竞争下一个序号。
+ * 3. 成员的进度存储在{@link ConsumerBarrier#memberSequence(int)}中，屏障的进度为所有成员的最小进度。
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class WorkProcessor<T> implements ConsumerGroup, Runnable {
+
+    private final DataProvider<? extends T> dataProvider;
+    private final ConsumerBarrier barrier;
+    private final int memberIndex;
+    private final EventHandler<? super T> eventHandler;
+
+    /**
+     * @param dataProvider 数据提供者
+     * @param barrier      工作池共享的多消费者屏障
+     * @param memberIndex  当前成员在工作池中的索引
+     * @param eventHandler 事件处理器
+     */
+    public WorkProcessor(DataProvider<? extends T> dataProvider, ConsumerBarrier barrier, int memberIndex,
+                         EventHandler<? super T> eventHandler) {
+        this.dataProvider = Objects.requireNonNull(dataProvider, "dataProvider");
+        this.barrier = Objects.requireNonNull(barrier, "barrier");
+        this.memberIndex = memberIndex;
+        this.eventHandler = Objects.requireNonNull(eventHandler, "eventHandler");
+        barrier.memberSequence(memberIndex); // 检查索引
+    }
+
+    @Override
+    public ConsumerBarrier getBarrier() {
+        return barrier;
+    }
+
+    public int getMemberIndex() {
+        return memberIndex;
+    }
+
+    public EventHandler<? super T> getEventHandler() {
+        return eventHandler;
+    }
+
+    @Override
+    public void run() {
+        final DataProvider<? extends T> dataProvider = this.dataProvider;
+        final ConsumerBarrier barrier = this.barrier;
+        final Sequence workSequence = barrier.groupSequence();
+        final Sequence sequence = barrier.memberSequence(memberIndex);
+
+        boolean processedSequence = true;
+        long cachedAvailableSequence = Long.MIN_VALUE;
+        long nextSequence = sequence.getVolatile();
+        while (true) {
+            try {
+                // 上一个序号处理完毕后才竞争下一个序号；先更新自身进度，再竞争工作序列，以保证屏障的进度不会越过自己
+                if (processedSequence) {
+                    processedSequence = false;
+                    do {
+                        nextSequence = workSequence.getVolatile() + 1L;
+                        sequence.setRelease(nextSequence - 1L);
+                    } while (!workSequence.compareAndSet(nextSequence - 1L, nextSequence));
+                }
+                if (cachedAvailableSequence >= nextSequence) {
+                    T event = dataProvider.consumerGet(nextSequence);
+                    try {
+                        eventHandler.onEvent(event, nextSequence);
+                    } catch (Throwable t) {
+                        BatchEventProcessor.handleEventException(t);
+                    }
+                    processedSequence = true;
+                } else {
+                    // 超时的情况下返回值小于nextSequence，下次循环继续等待
+                    cachedAvailableSequence = barrier.waitFor(nextSequence);
+                }
+            } catch (AlertException | InterruptedException e) {
+                if (barrier.isAlerted()) {
+                    break;
+                }
+            }
+        }
+        // 已竞争到的序号未处理，不能标记为已消费
+        sequence.setRelease(processedSequence ? nextSequence : nextSequence - 1L);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试菱形依赖：两个广播消费者 -> 单消费者 -> 工作池
+ *
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class EventPipelineTest {
+
+    private static final int EVENT_COUNT = 100_000;
+
+    private static class LongEvent {
+        long value;
+        long doubled;
+        long tripled;
+        long sum;
+    }
+
+    @Test
+    void testDiamond() throws InterruptedException {
+        RingBufferEventSequencer<LongEvent> eventSequencer = RingBufferEventSequencer.newMultiProducer(LongEvent::new)
+                .setBufferSize(1024)
+                .build();
+
+        AtomicLong poolCount = new AtomicLong();
+        AtomicLong poolSum = new AtomicLong();
+        long[] lastSequence = {-1};
+        StringBuilder errors = new StringBuilder();
+
+        EventPipeline.Builder<LongEvent> builder = EventPipeline.newBuilder(eventSequencer);
+        EventPipeline.Stage<LongEvent> first = builder.handleWith(
+                (event, sequence) -> event.doubled = event.value * 2,
+                (event, sequence) -> event.tripled = event.value * 3);
+        EventPipeline.Stage<LongEvent> second = first.then((event, sequence) -> {
+            if (sequence != lastSequence[0] + 1) {
+                errors.append("discontinuous sequence: ").append(sequence).append('\n');
+            }
+            lastSequence[0] = sequence;
+            event.sum = event.doubled + event.tripled;
+        });
+        EventHandler<LongEvent> poolHandler = (event, sequence) -> {
+            poolCount.incrementAndGet();
+            poolSum.addAndGet(event.sum);
+        };
+        builder.after(first, second).thenWorkerPool(poolHandler, poolHandler, poolHandler);
+
+        EventPipeline<LongEvent> pipeline = builder.build();
+        Assertions.assertEquals(3, pipeline.getStages().size());
+        Assertions.assertEquals(1, pipeline.getGatingBarriers().size());
+        pipeline.start();
+
+        long expectedSum = 0;
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            long sequence = eventSequencer.next();
+            eventSequencer.producerGet(sequence).value = i;
+            eventSequencer.publish(sequence);
+            expectedSum += i * 5L;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (pipeline.lag() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assertions.assertEquals(0, pipeline.lag());
+        for (EventPipeline.Stage<LongEvent> stage : pipeline.getStages()) {
+            Assertions.assertEquals(0, stage.lag(), stage::toString);
+        }
+
+        pipeline.halt();
+        Assertions.assertTrue(pipeline.awaitTermination(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(pipeline.getGatingBarriers().stream()
+                .noneMatch(barrier -> eventSequencer.removeGatingBarrier(barrier)), "gating barriers not removed");
+
+        Assertions.assertTrue(errors.isEmpty(), errors::toString);
+        Assertions.assertEquals(EVENT_COUNT, poolCount.get());
+        Assertions.assertEquals(expectedSum, poolSum.get());
+    }
+}
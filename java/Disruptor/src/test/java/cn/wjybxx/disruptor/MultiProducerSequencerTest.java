@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class MultiProducerSequencerTest {
+
+    private static final int PRODUCER_COUNT = 4;
+    private static final int BATCH_COUNT = 20_000;
+
+    @Test
+    void testBatchAwareScan() {
+        MultiProducerSequencer sequencer = new MultiProducerSequencer(16, 1, TimeoutSleepingWaitStrategy.INSTANCE, null, true);
+        Assertions.assertTrue(sequencer.isBatchAware());
+
+        long hi = sequencer.next(4);
+        sequencer.publish(hi - 3, hi);
+        Assertions.assertEquals(3, sequencer.getHighestPublishedSequence(0, 3));
+        Assertions.assertEquals(3, sequencer.getHighestPublishedSequence(2, 3)); // 从批次中间开始
+        Assertions.assertEquals(1, sequencer.getHighestPublishedSequence(0, 1)); // 批次超出上限
+
+        long hiA = sequencer.next(4); // 4 ~ 7
+        long hiB = sequencer.next(4); // 8 ~ 11
+        long single = sequencer.next(); // 12
+        sequencer.publish(hiB - 3, hiB);
+        sequencer.publish(single);
+        Assertions.assertEquals(3, sequencer.getHighestPublishedSequence(4, single));
+        sequencer.publish(hiA - 3, hiA);
+        Assertions.assertEquals(single, sequencer.getHighestPublishedSequence(4, single));
+    }
+
+    @Test
+    void testBatchAwareConcurrent() throws Exception {
+        RingBufferEventSequencer<long[]> eventSequencer = RingBufferEventSequencer.newMultiProducer(() -> new long[1])
+                .setBufferSize(256)
+                .setBatchAware(true)
+                .build();
+        ConsumerBarrier barrier = eventSequencer.newSingleConsumerBarrier();
+        eventSequencer.addGatingBarriers(barrier);
+
+        long[] expectedCount = new long[1];
+        Thread[] producers = new Thread[PRODUCER_COUNT];
+        int[] batchSizes = new int[PRODUCER_COUNT * BATCH_COUNT];
+        for (int i = 0; i < batchSizes.length; i++) {
+            batchSizes[i] = ThreadLocalRandom.current().nextInt(1, 17);
+            expectedCount[0] += batchSizes[i];
+        }
+        for (int i = 0; i < PRODUCER_COUNT; i++) {
+            final int producerIndex = i;
+            producers[i] = new Thread(() -> {
+                for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                    int n = batchSizes[producerIndex * BATCH_COUNT + batch];
+                    long hi = eventSequencer.next(n);
+                    long lo = hi - n + 1;
+                    for (long seq = lo; seq <= hi; seq++) {
+                        eventSequencer.producerGet(seq)[0] = seq;
+                    }
+                    eventSequencer.publish(lo, hi);
+                }
+            });
+            producers[i].start();
+        }
+
+        long nextSequence = 0;
+        while (nextSequence < expectedCount[0]) {
+            long available = barrier.waitFor(nextSequence);
+            // 消费者每次最多消费7个，以测试从批次中间开始的扫描
+            available = Math.min(available, nextSequence + 6);
+            for (; nextSequence <= available; nextSequence++) {
+                Assertions.assertEquals(nextSequence, eventSequencer.consumerGet(nextSequence)[0]);
+            }
+            barrier.groupSequence().setRelease(available);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        Assertions.assertEquals(expectedCount[0] - 1, eventSequencer.producerBarrier().sequence());
+    }
+}
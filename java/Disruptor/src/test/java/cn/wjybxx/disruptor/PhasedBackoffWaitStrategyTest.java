@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class PhasedBackoffWaitStrategyTest {
+
+    @Test
+    void testTimeout() throws Exception {
+        PhasedBackoffWaitStrategy waitStrategy = PhasedBackoffWaitStrategy.newBuilder()
+                .setTimeout(5, TimeUnit.MILLISECONDS)
+                .build();
+        RingBufferEventSequencer<Object> eventSequencer = RingBufferEventSequencer.newSingleProducer(Object::new)
+                .setBufferSize(16)
+                .build();
+        ConsumerBarrier barrier = eventSequencer.newSingleConsumerBarrier(waitStrategy);
+
+        Assertions.assertEquals(-1, barrier.waitFor(0));
+        Assertions.assertEquals(1, waitStrategy.getPhaseCount(PhasedBackoffWaitStrategy.PHASE_TIMEOUT));
+        // 超时意味着事件稀疏，自旋阶段应当缩短至最小值
+        Assertions.assertTrue(waitStrategy.getSpinThresholdNanos() <= 1000);
+    }
+
+    @Test
+    void testBlock() throws Exception {
+        PhasedBackoffWaitStrategy waitStrategy = PhasedBackoffWaitStrategy.newBuilder()
+                .setParkPhaseNanos(0)
+                .build();
+        RingBufferEventSequencer<Object> eventSequencer = RingBufferEventSequencer.newSingleProducer(Object::new)
+                .setBufferSize(16)
+                .enableBlocker()
+                .build();
+        ConsumerBarrier barrier = eventSequencer.newSingleConsumerBarrier(waitStrategy);
+
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException ignore) {
+            }
+            eventSequencer.publish(eventSequencer.next());
+        });
+        producer.start();
+
+        Assertions.assertEquals(0, barrier.waitFor(0));
+        Assertions.assertEquals(1, waitStrategy.getPhaseCount(PhasedBackoffWaitStrategy.PHASE_BLOCK));
+        producer.join();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 wjybxx(845740757@qq.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package cn.wjybxx.disruptor;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author wjybxx
+ * date - 2026/10/19
+ */
+public class StructRingBufferTest {
+
+    private static final int PRODUCER_COUNT = 4;
+    private static final int EVENT_COUNT = 100_000;
+
+    // 事件布局
+    private static final int F_PRODUCER_ID = 0; // int
+    private static final int F_INDEX = 0; // long
+    private static final int F_VALUE = 1; // long
+
+    @Test
+    void testLayout() {
+        StructRingBuffer buffer = new StructRingBuffer(4, 2, 1);
+        StructRingBuffer.Flyweight flyweight = buffer.newFlyweight();
+        for (int i = 0; i < 4; i++) {
+            flyweight.bind(i);
+            flyweight.setLong(0, i * 10L);
+            flyweight.setLong(1, i * 10L + 1);
+            flyweight.setInt(0, i);
+        }
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertEquals(i * 10L, buffer.getLong(i + 4, 0)); // 环绕
+            Assertions.assertEquals(i * 10L + 1, buffer.getLong(i, 1));
+            Assertions.assertEquals(i, buffer.getInt(i, 0));
+        }
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> flyweight.getLong(2));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> buffer.getInt(0, 1));
+
+        buffer.consumerSet(1, null);
+        Assertions.assertEquals(0, buffer.getLong(1, 0));
+        Assertions.assertEquals(0, buffer.getInt(1, 0));
+        Assertions.assertEquals(20, buffer.getLong(2, 0));
+    }
+
+    @Test
+    void testMultiProducer() throws Exception {
+        StructEventSequencer eventSequencer = StructEventSequencer.newMultiProducer(2, 1)
+                .setBufferSize(1024)
+                .build();
+        ConsumerBarrier barrier = eventSequencer.newSingleConsumerBarrier();
+        eventSequencer.addGatingBarriers(barrier);
+
+        Thread[] producers = new Thread[PRODUCER_COUNT];
+        for (int i = 0; i < PRODUCER_COUNT; i++) {
+            final int producerId = i;
+            producers[i] = new Thread(() -> {
+                StructRingBuffer.Flyweight flyweight = eventSequencer.getBuffer().newFlyweight();
+                for (int index = 0; index < EVENT_COUNT; index++) {
+                    long sequence = eventSequencer.next();
+                    flyweight.bind(sequence);
+                    flyweight.setInt(F_PRODUCER_ID, producerId);
+                    flyweight.setLong(F_INDEX, index);
+                    flyweight.setLong(F_VALUE, index * 31L + producerId);
+                    eventSequencer.publish(sequence);
+                }
+            });
+            producers[i].start();
+        }
+
+        StructRingBuffer buffer = eventSequencer.getBuffer();
+        long[] nextIndexes = new long[PRODUCER_COUNT];
+        long nextSequence = 0;
+        long endSequence = (long) PRODUCER_COUNT * EVENT_COUNT - 1;
+        while (nextSequence <= endSequence) {
+            long available = barrier.waitFor(nextSequence);
+            for (; nextSequence <= available; nextSequence++) {
+                int producerId = buffer.getInt(nextSequence, F_PRODUCER_ID);
+                long index = buffer.getLong(nextSequence, F_INDEX);
+                Assertions.assertEquals(nextIndexes[producerId]++, index);
+                Assertions.assertEquals(index * 31L + producerId, buffer.getLong(nextSequence, F_VALUE));
+            }
+            barrier.groupSequence().setRelease(available);
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        for (long nextIndex : nextIndexes) {
+            Assertions.assertEquals(EVENT_COUNT, nextIndex);
+        }
+    }
+}
@@ -240,7 +240,7 @@ public final class DsonBinaryReader extends AbstractDsonReader {
     // region context
 
     private static final ConcurrentObjectPool<Context> contextPool = new ConcurrentObjectPool<>(Context::new, Context::reset,
-            DsonInternals.CONTEXT_POOL_SIZE);
+            DsonInternals.CONTEXT_POOL_SIZE, null, DsonInternals.CONTEXT_THREAD_CACHE_SIZE);
 
     private static Context newContext(Context parent, DsonContextType contextType, DsonType dsonType) {
         Context context = contextPool.acquire();
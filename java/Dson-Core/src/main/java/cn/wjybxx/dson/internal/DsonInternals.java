@@ -16,6 +16,8 @@
 
 package cn.wjybxx.dson.internal;
 
+import cn.wjybxx.base.SystemPropsUtils;
+
 /**
  * 存放一些基础的工具方法，不想定义过多的小类，减少维护量
  *
@@ -26,6 +28,8 @@ public class DsonInternals {
 
     /** 上下文缓存池大小 */
     public static final int CONTEXT_POOL_SIZE = 256;
+    /** 上下文缓存池的线程本地缓存大小；0表示不启用 -- 多线程高频编解码时可开启以减少竞争 */
+    public static final int CONTEXT_THREAD_CACHE_SIZE = SystemPropsUtils.getInt("Wjybxx.Dson.ContextPool.ThreadCacheSize", 0);
     /** 垂直制表符号 - java不支持... */
     public static final char CHAR_VERTICAL_TAB = '\u000b';
 
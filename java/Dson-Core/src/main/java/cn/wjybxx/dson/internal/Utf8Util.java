@@ -15,6 +15,8 @@
  */
 package cn.wjybxx.dson.internal;
 
+import java.nio.ByteBuffer;
+
 /**
  * 不建议直接使用，若确实想使用该算法，可考虑拷贝代码
  *
@@ -105,4 +107,58 @@ public class Utf8Util {
         }
         return total;
     }
-}
\ No newline at end of file
+
+    /**
+     * utf8编码到{@link ByteBuffer}，使用绝对索引写入，不修改buffer的position
+     *
+     * @param str       要编码的字符串
+     * @param outBuffer buffer
+     * @param offset    buffer的偏移
+     * @param length    buffer的可用长度
+     * @return 编码的字节数
+     */
+    public static int utf8Encode(final String str, ByteBuffer outBuffer, int offset, int length) {
+        final int utf16Length = str.length();
+        final int limit = offset + length;
+
+        // 单字节字符串优化 -- ASCII码字符优化
+        int i = 0;
+        int j = offset;
+        for (char c; i < utf16Length && (j < limit) && (c = str.charAt(i)) < 0x80; i++) {
+            outBuffer.put(j++, (byte) c);
+        }
+        if (i == utf16Length) {
+            return i;
+        }
+
+        int total = i;
+        while (i < utf16Length) {
+            int c = Character.codePointAt(str, i);
+            if (c < 0x80 && (j < limit)) {
+                outBuffer.put(j++, (byte) c);
+                total += 1;
+            } else if (c < 0x800 && (j + 2 <= limit)) {
+                outBuffer.put(j++, (byte) (0xc0 + (c >> 6)));
+                outBuffer.put(j++, (byte) (0x80 + (c & 0x3f)));
+                total += 2;
+            } else if (c < 0x10000 && (j + 3 <= limit)) {
+                outBuffer.put(j++, (byte) (0xe0 + (c >> 12)));
+                outBuffer.put(j++, (byte) (0x80 + ((c >> 6) & 0x3f)));
+                outBuffer.put(j++, (byte) (0x80 + (c & 0x3f)));
+                total += 3;
+            } else {
+                // 可能是由于空间不够进入到这里
+                if (c < 0x10000 || (j + 4 > limit)) {
+                    throw new IndexOutOfBoundsException("Failed writing " + c + " at index " + j);
+                }
+                outBuffer.put(j++, (byte) (0xf0 + (c >> 18)));
+                outBuffer.put(j++, (byte) (0x80 + ((c >> 12) & 0x3f)));
+                outBuffer.put(j++, (byte) (0x80 + ((c >> 6) & 0x3f)));
+                outBuffer.put(j++, (byte) (0x80 + (c & 0x3f)));
+                total += 4;
+            }
+            i += Character.charCount(c);
+        }
+        return total;
+    }
+}
@@ -20,6 +20,8 @@ import cn.wjybxx.base.io.ByteBufferUtils;
 import cn.wjybxx.base.mutable.MutableInt;
 import cn.wjybxx.dson.internal.CodedUtils;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 /**
@@ -38,6 +40,17 @@ public class DsonInputs {
         return new ArrayDsonInput(buffer, offset, length);
     }
 
+    /**
+     * 读取{@link ByteBuffer}的[position, limit)区间，可直接从堆外内存(如池化的DirectBuffer)解码。
+     * 读取时不修改buffer的position，已读取的字节数为{@link DsonInput#getPosition()}。
+     */
+    public static DsonInput newInstance(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new ArrayDsonInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return new ByteBufferDsonInput(buffer);
+    }
+
     static class ArrayDsonInput implements DsonInput {
 
         private final byte[] buffer;
@@ -297,4 +310,216 @@ public class DsonInputs {
 
         }
     }
+
+    /** 基于{@link ByteBuffer}的绝对索引读写实现，主要用于堆外内存 */
+    static class ByteBufferDsonInput implements DsonInput {
+
+        private final ByteBuffer buffer;
+        private final int rawOffset;
+        private final int rawLimit;
+
+        private int bufferPos;
+        private int bufferPosLimit;
+
+        ByteBufferDsonInput(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            this.rawOffset = buffer.position();
+            this.rawLimit = buffer.limit();
+
+            this.bufferPos = rawOffset;
+            this.bufferPosLimit = rawLimit;
+        }
+
+        // region check
+
+        private int checkNewBufferPos(int newBufferPos) {
+            if (newBufferPos < rawOffset || newBufferPos > bufferPosLimit) {
+                throw new DsonIOException("BytesLimited, LimitPos: %d, position: %d, newPosition: %d"
+                        .formatted(bufferPosLimit, bufferPos, newBufferPos));
+            }
+            return newBufferPos;
+        }
+
+        //endregion
+
+        // region basic
+
+        @Override
+        public byte readRawByte() {
+            checkNewBufferPos(bufferPos + 1);
+            return buffer.get(bufferPos++);
+        }
+
+        @Override
+        public int readFixed16() {
+            checkNewBufferPos(bufferPos + 2);
+            int r = buffer.getShort(bufferPos) & 0xffff;
+            bufferPos += 2;
+            return r;
+        }
+
+        @Override
+        public int readInt32() {
+            return (int) readRawVarint64();
+        }
+
+        @Override
+        public int readUint32() {
+            return (int) readRawVarint64();
+        }
+
+        @Override
+        public int readSint32() {
+            return CodedUtils.decodeZigZag32((int) readRawVarint64());
+        }
+
+        @Override
+        public int readFixed32() {
+            checkNewBufferPos(bufferPos + 4);
+            int r = buffer.getInt(bufferPos);
+            bufferPos += 4;
+            return r;
+        }
+
+        @Override
+        public long readInt64() {
+            return readRawVarint64();
+        }
+
+        @Override
+        public long readUint64() {
+            return readRawVarint64();
+        }
+
+        @Override
+        public long readSint64() {
+            return CodedUtils.decodeZigZag64(readRawVarint64());
+        }
+
+        @Override
+        public long readFixed64() {
+            checkNewBufferPos(bufferPos + 8);
+            long r = buffer.getLong(bufferPos);
+            bufferPos += 8;
+            return r;
+        }
+
+        @Override
+        public float readFloat() {
+            return Float.intBitsToFloat(readFixed32());
+        }
+
+        @Override
+        public double readDouble() {
+            return Double.longBitsToDouble(readFixed64());
+        }
+
+        @Override
+        public boolean readBool() {
+            checkNewBufferPos(bufferPos + 1);
+            return buffer.get(bufferPos++) != 0;
+        }
+
+        @Override
+        public String readString() {
+            int len = readUint32(); // 字符串长度
+            checkNewBufferPos(bufferPos + len); // 先检查，避免构建无效字符串
+
+            byte[] bytes = new byte[len];
+            buffer.get(bufferPos, bytes, 0, len);
+            bufferPos += len;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public byte[] readRawBytes(int count) {
+            checkNewBufferPos(bufferPos + count);
+            byte[] bytes = new byte[count];
+            buffer.get(bufferPos, bytes, 0, count);
+            bufferPos += count;
+            return bytes;
+        }
+
+        @Override
+        public void skipRawBytes(int n) {
+            if (n < 0) throw new IllegalArgumentException("n");
+            if (n == 0) return;
+            bufferPos = checkNewBufferPos(bufferPos + n);
+        }
+
+        /** varint编码不区分int和long，而是固定读取到高位字节为0 */
+        private long readRawVarint64() {
+            long r = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                checkNewBufferPos(bufferPos + 1);
+                byte b = buffer.get(bufferPos++);
+                r |= (b & 127L) << shift; // 取后7位左移
+                if ((b & 128) == 0) { // 高位0
+                    return r;
+                }
+            }
+            // 读取超过10个字节
+            throw new DsonIOException("DsonInput encountered a malformed varint.");
+        }
+        // endregion
+
+        //region sp
+
+        @Override
+        public int getPosition() {
+            return bufferPos - rawOffset;
+        }
+
+        @Override
+        public void setPosition(int value) {
+            ByteBufferUtils.checkBuffer(rawLimit - rawOffset, value);
+            bufferPos = rawOffset + value;
+        }
+
+        @Override
+        public byte getByte(int pos) {
+            ByteBufferUtils.checkBuffer(rawLimit - rawOffset, pos, 1);
+            return buffer.get(rawOffset + pos);
+        }
+
+        @Override
+        public int getFixed32(int pos) {
+            ByteBufferUtils.checkBuffer(rawLimit - rawOffset, pos, 4);
+            return buffer.getInt(rawOffset + pos);
+        }
+
+        @Override
+        public int pushLimit(int byteLimit) {
+            if (byteLimit < 0) throw new IllegalArgumentException("byteLimit");
+            int oldPosLimit = bufferPosLimit;
+            int newPosLimit = bufferPos + byteLimit;
+
+            // 不可超过原始限制
+            ByteBufferUtils.checkBuffer(rawLimit, rawOffset, newPosLimit - rawOffset);
+            bufferPosLimit = newPosLimit;
+            return oldPosLimit;
+        }
+
+        @Override
+        public void popLimit(int oldLimit) {
+            // 不可超过原始限制
+            ByteBufferUtils.checkBuffer(rawLimit, rawOffset, oldLimit - rawOffset);
+            bufferPosLimit = oldLimit;
+        }
+
+        @Override
+        public int getBytesUntilLimit() {
+            return (bufferPosLimit - bufferPos);
+        }
+
+        @Override
+        public boolean isAtEnd() {
+            return bufferPos >= bufferPosLimit;
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
 }
\ No newline at end of file
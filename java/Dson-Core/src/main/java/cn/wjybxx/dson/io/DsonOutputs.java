@@ -20,6 +20,9 @@ import cn.wjybxx.base.io.ByteBufferUtils;
 import cn.wjybxx.dson.internal.CodedUtils;
 import cn.wjybxx.dson.internal.Utf8Util;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 /**
  * 核心包去除了对Protobuf的支持，如果期望使用protobuf和netty读取数据，可引入相应的扩展包。
  *
@@ -36,6 +39,17 @@ public class DsonOutputs {
         return new ArrayOutput(buffer, offset, length);
     }
 
+    /**
+     * 写入{@link ByteBuffer}的[position, limit)区间，可直接编码到堆外内存(如池化的DirectBuffer)。
+     * 写入时不修改buffer的position，写入的字节数为{@link DsonOutput#getPosition()}。
+     */
+    public static DsonOutput newInstance(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return new ArrayOutput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return new ByteBufferOutput(buffer);
+    }
+
     static class ArrayOutput implements DsonOutput {
 
         private final byte[] buffer;
@@ -289,4 +303,211 @@ public class DsonOutputs {
         }
     }
 
-}
\ No newline at end of file
+    /** 基于{@link ByteBuffer}的绝对索引读写实现，主要用于堆外内存 */
+    static class ByteBufferOutput implements DsonOutput {
+
+        private final ByteBuffer buffer;
+        private final int rawOffset;
+        private final int rawLimit;
+
+        private int bufferPos;
+        private int bufferPosLimit;
+
+        ByteBufferOutput(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            this.rawOffset = buffer.position();
+            this.rawLimit = buffer.limit();
+
+            this.bufferPos = rawOffset;
+            this.bufferPosLimit = rawLimit;
+        }
+
+        //region check
+
+        private int CheckNewBufferPos(int newBufferPos) {
+            if (newBufferPos < rawOffset || newBufferPos > bufferPosLimit) {
+                throw new DsonIOException("BytesLimited, LimitPos: %d, position: %d, newPosition: %d"
+                        .formatted(bufferPosLimit, bufferPos, newBufferPos));
+            }
+            return newBufferPos;
+        }
+
+        //endregion
+
+        //region basic
+
+        @Override
+        public void writeRawByte(int value) {
+            CheckNewBufferPos(bufferPos + 1);
+            buffer.put(bufferPos++, (byte) value);
+        }
+
+        @Override
+        public void writeRawByte(byte value) {
+            CheckNewBufferPos(bufferPos + 1);
+            buffer.put(bufferPos++, value);
+        }
+
+        @Override
+        public void writeFixed16(int value) {
+            CheckNewBufferPos(bufferPos + 2);
+            buffer.putShort(bufferPos, (short) value);
+            bufferPos += 2;
+        }
+
+        @Override
+        public void writeInt32(int value) {
+            if (value >= 0) {
+                writeRawVarint32(value);
+            } else {
+                writeRawVarint64(value);
+            }
+        }
+
+        @Override
+        public void writeUint32(int value) {
+            writeRawVarint32(value);
+        }
+
+        @Override
+        public void writeSint32(int value) {
+            writeRawVarint32(CodedUtils.encodeZigZag32(value));
+        }
+
+        @Override
+        public void writeFixed32(int value) {
+            CheckNewBufferPos(bufferPos + 4);
+            buffer.putInt(bufferPos, value);
+            bufferPos += 4;
+        }
+
+        @Override
+        public void writeInt64(long value) {
+            writeRawVarint64(value);
+        }
+
+        @Override
+        public void writeUint64(long value) {
+            writeRawVarint64(value);
+        }
+
+        @Override
+        public void writeSint64(long value) {
+            writeRawVarint64(CodedUtils.encodeZigZag64(value));
+        }
+
+        @Override
+        public void writeFixed64(long value) {
+            CheckNewBufferPos(bufferPos + 8);
+            buffer.putLong(bufferPos, value);
+            bufferPos += 8;
+        }
+
+        @Override
+        public void writeFloat(float value) {
+            writeFixed32(Float.floatToRawIntBits(value));
+        }
+
+        @Override
+        public void writeDouble(double value) {
+            writeFixed64(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void writeBool(boolean value) {
+            writeRawVarint32(value ? 1 : 0);
+        }
+
+        @Override
+        public void writeString(String value) {
+            try {
+                // 注意，这里写的编码后的字节长度；而不是字符串长度
+                int byteCount = Utf8Util.utf8Length(value);
+                writeRawVarint32(byteCount);
+                if (byteCount > 0) {
+                    CheckNewBufferPos(bufferPos + byteCount);
+                    Utf8Util.utf8Encode(value, buffer, bufferPos, byteCount);
+                    bufferPos += byteCount;
+                }
+            } catch (Exception e) {
+                throw DsonIOException.wrap(e);
+            }
+        }
+
+        @Override
+        public void writeRawBytes(byte[] data, int offset, int length) {
+            ByteBufferUtils.checkBuffer(data, offset, length);
+            CheckNewBufferPos(bufferPos + length);
+
+            buffer.put(bufferPos, data, offset, length);
+            bufferPos += length;
+        }
+
+        private void writeRawVarint32(int value) {
+            CheckNewBufferPos(bufferPos + CodedUtils.computeRawVarInt32Size(value));
+            while ((value & ~127) != 0) {
+                buffer.put(bufferPos++, (byte) ((value & 127) | 128)); // 截取后7位，高位补1
+                value >>>= 7;
+            }
+            buffer.put(bufferPos++, (byte) value);
+        }
+
+        private void writeRawVarint64(long value) {
+            CheckNewBufferPos(bufferPos + CodedUtils.computeRawVarInt64Size(value));
+            while ((value & ~127L) != 0) {
+                buffer.put(bufferPos++, (byte) ((value & 127L) | 128L));
+                value >>>= 7;
+            }
+            buffer.put(bufferPos++, (byte) value);
+        }
+        // endregion
+
+        // region sp
+
+        @Override
+        public int spaceLeft() {
+            return bufferPosLimit - bufferPos;
+        }
+
+        @Override
+        public int getPosition() {
+            return bufferPos - rawOffset;
+        }
+
+        @Override
+        public void setPosition(int value) {
+            ByteBufferUtils.checkBuffer(rawLimit - rawOffset, value);
+            bufferPos = rawOffset + value;
+        }
+
+        @Override
+        public void setByte(int pos, byte value) {
+            ByteBufferUtils.checkBuffer(rawLimit - rawOffset, pos, 1);
+            buffer.put(rawOffset + pos, value);
+        }
+
+        @Override
+        public void setFixedInt16(int pos, int value) {
+            ByteBufferUtils.checkBuffer(rawLimit - rawOffset, pos, 2);
+            buffer.putShort(rawOffset + pos, (short) value);
+        }
+
+        @Override
+        public void setFixedInt32(int pos, int value) {
+            ByteBufferUtils.checkBuffer(rawLimit - rawOffset, pos, 4);
+            buffer.putInt(rawOffset + pos, value);
+        }
+        // endregion
+
+        @Override
+        public void flush() {
+
+        }
+
+        @Override
+        public void close() {
+
+        }
+    }
+
+}
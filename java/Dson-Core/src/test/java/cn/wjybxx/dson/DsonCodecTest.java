@@ -16,6 +16,8 @@
 
 package cn.wjybxx.dson;
 
+import cn.wjybxx.base.pool.DirectBufferPool;
+import cn.wjybxx.base.pool.PooledByteBuffer;
 import cn.wjybxx.dson.io.DsonInput;
 import cn.wjybxx.dson.io.DsonInputs;
 import cn.wjybxx.dson.io.DsonOutput;
@@ -27,7 +29,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -97,6 +101,51 @@ public class DsonCodecTest {
         Assertions.assertEquals(srcList, copiedList);
     }
 
+    /** 直接编码到池化的堆外内存，结果应与数组一致 */
+    @Test
+    void testDirectBuffer() {
+        final byte[] expected = new byte[8192];
+        int expectedBytes;
+        try (DsonOutput dsonOutput = DsonOutputs.newInstance(expected)) {
+            DsonWriter writer = new DsonBinaryWriter(DsonWriterSettings.DEFAULT, dsonOutput);
+            for (DsonObject<String> dsonObject : srcList) {
+                Dsons.writeObject(writer, dsonObject, ObjectStyle.INDENT);
+            }
+            expectedBytes = dsonOutput.getPosition();
+        }
+
+        DirectBufferPool pool = DirectBufferPool.newBuilder()
+                .setLeakDetection(true)
+                .build();
+        try (PooledByteBuffer pooledBuffer = pool.allocate(8192)) {
+            ByteBuffer buffer = pooledBuffer.buffer();
+            Assertions.assertTrue(buffer.isDirect());
+            int totalBytesWritten;
+            try (DsonOutput dsonOutput = DsonOutputs.newInstance(buffer)) {
+                DsonWriter writer = new DsonBinaryWriter(DsonWriterSettings.DEFAULT, dsonOutput);
+                for (DsonObject<String> dsonObject : srcList) {
+                    Dsons.writeObject(writer, dsonObject, ObjectStyle.INDENT);
+                }
+                totalBytesWritten = dsonOutput.getPosition();
+            }
+            Assertions.assertEquals(expectedBytes, totalBytesWritten);
+            byte[] actual = new byte[totalBytesWritten];
+            buffer.get(0, actual);
+            Assertions.assertArrayEquals(Arrays.copyOf(expected, expectedBytes), actual);
+
+            List<DsonObject<String>> copiedList = new ArrayList<>(loop);
+            try (DsonInput dsonInput = DsonInputs.newInstance(buffer.slice(0, totalBytesWritten))) {
+                DsonReader reader = new DsonBinaryReader(DsonReaderSettings.DEFAULT, dsonInput);
+                DsonValue dsonValue;
+                while ((dsonValue = Dsons.readTopDsonValue(reader)) != null) {
+                    copiedList.add(dsonValue.asObject());
+                }
+            }
+            Assertions.assertEquals(srcList, copiedList);
+        }
+        Assertions.assertEquals(0, pool.usedMemory());
+    }
+
     @Test
     void testObjet() {
         DsonArray<String> dsonArray = new DsonArray<>();